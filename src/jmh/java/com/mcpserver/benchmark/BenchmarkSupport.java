@@ -0,0 +1,86 @@
+package com.mcpserver.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcpserver.control.EchoTool;
+import com.mcpserver.control.McpMetrics;
+import com.mcpserver.control.McpRequestHandler;
+import com.mcpserver.control.ResourceRegistry;
+import com.mcpserver.control.ToolRegistry;
+import com.mcpserver.control.ToolResultCache;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Gemeinsame Testdaten und Hilfsmethoden für die JMH Benchmarks.
+ */
+public final class BenchmarkSupport {
+
+    public static final String INITIALIZE =
+            "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{}}";
+
+    public static final String TOOLS_LIST =
+            "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/list\",\"params\":{}}";
+
+    public static final String TOOLS_CALL_ECHO =
+            "{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"tools/call\",\"params\":"
+                    + "{\"name\":\"echo\",\"arguments\":{\"message\":\"Hello World from the benchmark\"}}}";
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Stellt die Logs der Anwendung leiser, damit die Benchmarks nicht die Konsole messen.
+     * Ohne Spring Boot Konfiguration steht Logback sonst auf DEBUG.
+     */
+    public static void quietLogging() {
+        ((Logger) LoggerFactory.getLogger("com.mcpserver")).setLevel(Level.WARN);
+    }
+
+    /**
+     * Erstellt einen McpRequestHandler wie im Spring Context, mit dem Echo Tool.
+     */
+    public static McpRequestHandler createRequestHandler(ObjectMapper objectMapper) {
+        return new McpRequestHandler(objectMapper, new ToolRegistry(List.of(new EchoTool())), new McpMetrics(),
+                new ToolResultCache(0), new ResourceRegistry(List.of(), 0, 1));
+    }
+
+    /**
+     * InputStream, der dieselbe Zeile endlos wiederholt.
+     */
+    public static InputStream repeating(String line) {
+        return repeating((line + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * InputStream, der denselben Frame endlos wiederholt.
+     */
+    public static InputStream repeating(byte[] frame) {
+        return new InputStream() {
+            private int position;
+
+            @Override
+            public int read() {
+                byte b = frame[position];
+                position = (position + 1) % frame.length;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] target, int offset, int length) {
+                int written = 0;
+                while (written < length) {
+                    int chunk = Math.min(length - written, frame.length - position);
+                    System.arraycopy(frame, position, target, offset + written, chunk);
+                    written += chunk;
+                    position = (position + chunk) % frame.length;
+                }
+                return written;
+            }
+        };
+    }
+}
@@ -0,0 +1,128 @@
+package com.mcpserver.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Zeit vom Start des Server-Prozesses bis zur Response auf das erste initialize.
+ * <p>
+ * So erlebt ein Client wie Claude Desktop den Start: Er startet die JVM, schickt das
+ * initialize über stdin und wartet auf die erste Zeile in stdout. Verglichen werden das
+ * normale Spring Boot Jar ({@code mvn package}) und der Schnellstart-Build mit Spring AOT
+ * und AppCDS-Archiv ({@code mvn -Pfaststart package}). Beide müssen vorher gebaut sein.
+ * </p>
+ * <p>
+ * Jeder Aufruf ist ein eigener Prozess, gemessen wird daher im SingleShotTime-Modus. Das
+ * Beenden des Servers gehört nicht zur Messung.
+ * </p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    private static final Path STANDARD_JAR = Path.of("target/custom-mcp-server-1.0-SNAPSHOT.jar");
+    private static final Path FASTSTART_JAR = Path.of("target/faststart/custom-mcp-server-1.0-SNAPSHOT.jar");
+    private static final Path FASTSTART_ARCHIVE = Path.of("target/faststart/app.jsa");
+
+    @Param({"standard", "faststart"})
+    private String build;
+
+    private List<String> command;
+    private Process process;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        command = new ArrayList<>();
+        command.add(java);
+
+        if ("faststart".equals(build)) {
+            requireFile(FASTSTART_JAR, "mvn -Pfaststart package");
+            requireFile(FASTSTART_ARCHIVE, "mvn -Pfaststart package");
+            command.add("-XX:SharedArchiveFile=" + FASTSTART_ARCHIVE);
+            command.add("-Dspring.aot.enabled=true");
+            command.add("-jar");
+            command.add(FASTSTART_JAR.toString());
+        } else {
+            requireFile(STANDARD_JAR, "mvn package");
+            command.add("-jar");
+            command.add(STANDARD_JAR.toString());
+        }
+    }
+
+    @Benchmark
+    public String launchUntilInitialized() throws IOException {
+        process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+
+        OutputStream stdin = process.getOutputStream();
+        stdin.write((BenchmarkSupport.INITIALIZE + "\n").getBytes(StandardCharsets.UTF_8));
+        stdin.flush();
+
+        BufferedReader stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String response = stdout.readLine();
+        if (response == null) {
+            throw new IllegalStateException("Server beendet ohne Response, Exit-Code " + waitForExit());
+        }
+        return response;
+    }
+
+    /**
+     * Schließt stdin, der Server fährt daraufhin regulär herunter.
+     */
+    @TearDown(Level.Invocation)
+    public void stopServer() throws IOException {
+        if (process == null) {
+            return;
+        }
+        process.getOutputStream().close();
+        waitForExit();
+        process = null;
+    }
+
+    private int waitForExit() {
+        try {
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+            return process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+            return -1;
+        }
+    }
+
+    private static void requireFile(Path path, String buildCommand) {
+        if (!Files.exists(path)) {
+            throw new IllegalStateException(path + " fehlt, vorher bauen mit: " + buildCommand);
+        }
+    }
+}
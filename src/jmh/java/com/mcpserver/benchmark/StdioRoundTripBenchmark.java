@@ -0,0 +1,109 @@
+package com.mcpserver.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcpserver.McpServerProperties;
+import com.mcpserver.boundary.StdioMessageHandler;
+import com.mcpserver.control.McpMetrics;
+import com.mcpserver.control.McpServer;
+import com.mcpserver.control.RequestDispatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vollständiger Round Trip über den stdio Transport, komplett im Speicher.
+ * <p>
+ * Der Benchmark-Thread spielt den Client: Er schreibt eine Request-Zeile in eine Pipe, der
+ * McpServer liest sie auf seinem eigenen Thread, verarbeitet sie und schreibt die Response
+ * über den Writer-Thread in eine zweite Pipe, aus der der Client die Antwortzeile liest.
+ * </p>
+ * <p>
+ * Hinweis: Die Allokationsrate von {@code -prof gc} zählt nur den Benchmark-Thread, also die
+ * Client-Seite. Die Allokationen des Servers stehen in den Einzel-Benchmarks.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StdioRoundTripBenchmark {
+
+    private static final int PIPE_SIZE = 64 * 1024;
+
+    @Param({"SEQUENTIAL", "CONCURRENT"})
+    private McpServerProperties.DispatchMode mode;
+
+    @Param({"tools/list", "tools/call"})
+    private String method;
+
+    private byte[] requestLine;
+    private OutputStream clientOut;
+    private InputStream clientIn;
+    private RequestDispatcher dispatcher;
+    private Thread serverThread;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkSupport.quietLogging();
+        ObjectMapper objectMapper = new ObjectMapper();
+        String request = "tools/list".equals(method) ? BenchmarkSupport.TOOLS_LIST : BenchmarkSupport.TOOLS_CALL_ECHO;
+        requestLine = (request + "\n").getBytes(StandardCharsets.UTF_8);
+
+        PipedInputStream serverIn = new PipedInputStream(PIPE_SIZE);
+        PipedOutputStream serverOut = new PipedOutputStream();
+        clientOut = new PipedOutputStream(serverIn);
+        clientIn = new BufferedInputStream(new PipedInputStream(serverOut, PIPE_SIZE));
+
+        McpServerProperties properties = new McpServerProperties();
+        properties.getDispatch().setMode(mode);
+        StdioMessageHandler messageHandler = new StdioMessageHandler(objectMapper, properties.getStdio(), serverIn, serverOut);
+        dispatcher = new RequestDispatcher(BenchmarkSupport.createRequestHandler(objectMapper), new McpMetrics(), properties);
+        McpServer server = new McpServer(messageHandler, dispatcher);
+
+        serverThread = new Thread(server::run, "mcp-benchmark-server");
+        serverThread.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        clientOut.close();
+        serverThread.join(10_000);
+    }
+
+    @Benchmark
+    public int roundTrip() throws IOException {
+        clientOut.write(requestLine);
+        clientOut.flush();
+
+        int length = 0;
+        int b;
+        while ((b = clientIn.read()) != '\n') {
+            if (b < 0) {
+                throw new IOException("Server closed the stream");
+            }
+            length++;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,389 @@
+package com.mcpserver.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mcpserver.McpServerProperties;
+import com.mcpserver.boundary.StdioMessageHandler;
+import com.mcpserver.boundary.TrafficCapture;
+import com.mcpserver.control.LatencyHistogram;
+import com.mcpserver.control.McpMetrics;
+import com.mcpserver.control.McpServer;
+import com.mcpserver.control.RequestDispatcher;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Spielt einen mit {@code mcp.stdio.capture-file} aufgezeichneten Mitschnitt gegen den Server ab.
+ * <p>
+ * Gesendet werden die eingehenden Frames des Mitschnitts, wahlweise im ursprünglichen Takt,
+ * um einen Faktor beschleunigt ({@code --speed}) oder open-loop mit fester Rate
+ * ({@code --rate}). Die Request-ids werden fortlaufend neu vergeben, damit jede Response
+ * eindeutig ihrem Request zugeordnet werden kann, auch wenn der Client des Mitschnitts ids
+ * wiederverwendet hat. {@code notifications/cancelled} werden entsprechend umgeschrieben.
+ * </p>
+ * <p>
+ * Die Latenz zählt ab dem geplanten Sendezeitpunkt, nicht ab dem tatsächlichen. Kommt der
+ * Sender nicht hinterher, geht der Rückstau damit in die Latenz ein, statt sie zu schönen.
+ * </p>
+ * <p>
+ * Ohne {@code --command} läuft der Server im selben Prozess über Pipes, wie im
+ * {@link StdioRoundTripBenchmark}. Mit {@code --command} wird er als eigener Prozess gestartet
+ * und über stdin/stdout angesprochen.
+ * </p>
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.main=com.mcpserver.benchmark.TrafficReplay \
+ *     -Djmh.args="capture.bin --speed 4"
+ * </pre>
+ */
+public final class TrafficReplay {
+
+    private static final String USAGE = """
+            Usage: TrafficReplay <capture-file> [--speed <factor> | --rate <frames/s>]
+                                 [--command "<server command>"] [--timeout <seconds>]""";
+
+    /**
+     * id des ping vor dem Abspielen, die ids des Mitschnitts beginnen bei 1.
+     */
+    private static final long READY_ID = 0;
+    private static final byte[] READY_PING =
+            "{\"jsonrpc\":\"2.0\",\"id\":0,\"method\":\"ping\"}\n".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final Map<Integer, AtomicLong> errors = new ConcurrentHashMap<>();
+    private final AtomicLong responses = new AtomicLong();
+
+    private TrafficReplay() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        if (options == null) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        new TrafficReplay().run(options);
+    }
+
+    private void run(Options options) throws Exception {
+        List<Outgoing> frames = load(options.capture);
+        long[] schedule = schedule(frames, options);
+        System.out.printf("Replaying %d frames from %s (%s)%n", frames.size(), options.capture, options.describePace());
+
+        try (Target target = options.command == null ? Target.inProcess() : Target.process(options.command)) {
+            Thread reader = new Thread(() -> readResponses(target.responses()), "replay-reader");
+            reader.setDaemon(true);
+            reader.start();
+            awaitReady(target, options.timeoutSeconds);
+
+            long start = System.nanoTime();
+            long maxLagNanos = 0;
+            for (int i = 0; i < frames.size(); i++) {
+                long due = start + schedule[i];
+                long now;
+                while ((now = System.nanoTime()) < due) {
+                    LockSupport.parkNanos(due - now);
+                }
+                maxLagNanos = Math.max(maxLagNanos, now - due);
+
+                Outgoing frame = frames.get(i);
+                for (long id : frame.ids) {
+                    pending.put(id, due);
+                }
+                target.requests().write(frame.line);
+                target.requests().flush();
+            }
+            long sent = System.nanoTime();
+
+            long deadline = sent + TimeUnit.SECONDS.toNanos(options.timeoutSeconds);
+            while (!pending.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            report(frames, System.nanoTime() - start, maxLagNanos);
+        }
+    }
+
+    /**
+     * Wartet auf die Antwort eines ping, damit der Start des Servers nicht in die Latenz eingeht.
+     */
+    private void awaitReady(Target target, long timeoutSeconds) throws IOException, InterruptedException {
+        pending.put(READY_ID, System.nanoTime());
+        target.requests().write(READY_PING);
+        target.requests().flush();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        while (pending.containsKey(READY_ID)) {
+            if (System.nanoTime() > deadline) {
+                throw new IOException("Server did not answer within " + timeoutSeconds + " s");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Liest die eingehenden Frames und vergibt neue ids.
+     */
+    private List<Outgoing> load(Path capture) throws IOException {
+        List<Outgoing> frames = new ArrayList<>();
+        Map<String, Long> renamed = new HashMap<>();
+        long nextId = 1;
+
+        try (TrafficCapture.Reader reader = new TrafficCapture.Reader(capture)) {
+            TrafficCapture.Frame frame;
+            while ((frame = reader.next()) != null) {
+                if (frame.direction() != TrafficCapture.Direction.INBOUND) {
+                    continue;
+                }
+
+                JsonNode message;
+                try {
+                    message = objectMapper.readTree(frame.payload());
+                } catch (IOException e) {
+                    // Ungültiges JSON wird unverändert gesendet, der Server antwortet mit Parse error
+                    frames.add(new Outgoing(frame.offsetMicros(), line(frame.payload()), new long[0]));
+                    continue;
+                }
+
+                List<Long> ids = new ArrayList<>();
+                for (JsonNode entry : message.isArray() ? message : List.of(message)) {
+                    if (!(entry instanceof ObjectNode request)) {
+                        continue;
+                    }
+                    if (request.hasNonNull("id") && request.has("method")) {
+                        long id = nextId++;
+                        renamed.put(request.get("id").toString(), id);
+                        request.put("id", id);
+                        ids.add(id);
+                    } else if ("notifications/cancelled".equals(request.path("method").asText())
+                            && request.path("params") instanceof ObjectNode params) {
+                        Long id = renamed.get(params.path("requestId").toString());
+                        if (id != null) {
+                            params.put("requestId", id);
+                        }
+                    }
+                }
+                frames.add(new Outgoing(frame.offsetMicros(), line(objectMapper.writeValueAsBytes(message)),
+                        ids.stream().mapToLong(Long::longValue).toArray()));
+            }
+        }
+        return frames;
+    }
+
+    private static long[] schedule(List<Outgoing> frames, Options options) {
+        long[] schedule = new long[frames.size()];
+        long first = frames.isEmpty() ? 0 : frames.get(0).offsetMicros;
+        for (int i = 0; i < schedule.length; i++) {
+            schedule[i] = options.rate > 0
+                    ? (long) (i * 1e9 / options.rate)
+                    : (long) ((frames.get(i).offsetMicros - first) * 1_000 / options.speed);
+        }
+        return schedule;
+    }
+
+    private void readResponses(InputStream input) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                long received = System.nanoTime();
+                if (line.isEmpty() || (line.charAt(0) != '{' && line.charAt(0) != '[')) {
+                    // Ein als Prozess gestarteter Server kann Log-Zeilen auf stdout schreiben
+                    continue;
+                }
+                JsonNode message = objectMapper.readTree(line);
+                for (JsonNode response : message.isArray() ? message : List.of(message)) {
+                    onResponse(response, received);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Server output closed: " + e.getMessage());
+        }
+    }
+
+    private void onResponse(JsonNode response, long received) {
+        JsonNode id = response.get("id");
+        if (id == null || !id.canConvertToLong() || response.has("method")) {
+            return;
+        }
+
+        Long due = pending.remove(id.asLong());
+        if (due == null || id.asLong() == READY_ID) {
+            return;
+        }
+        responses.incrementAndGet();
+        latencies.record(received - due);
+        if (response.has("error")) {
+            errors.computeIfAbsent(response.path("error").path("code").asInt(), code -> new AtomicLong())
+                    .incrementAndGet();
+        }
+    }
+
+    private void report(List<Outgoing> frames, long elapsedNanos, long maxLagNanos) {
+        long requests = frames.stream().mapToLong(frame -> frame.ids.length).sum();
+        LatencyHistogram.Snapshot snapshot = latencies.snapshot();
+        double seconds = elapsedNanos / 1e9;
+
+        System.out.printf("Frames sent:    %d%n", frames.size());
+        System.out.printf("Requests:       %d, responses %d, lost %d%n", requests, responses.get(), pending.size());
+        System.out.printf("Duration:       %.3f s, sender max lag %.3f ms%n", seconds, maxLagNanos / 1e6);
+        System.out.printf("Throughput:     %.1f responses/s%n", responses.get() / seconds);
+        System.out.printf("Latency (ms):   p50 %.3f  p99 %.3f  p999 %.3f  max %.3f%n",
+                snapshot.p50Micros() / 1e3, snapshot.p99Micros() / 1e3,
+                snapshot.p999Micros() / 1e3, snapshot.maxMicros() / 1e3);
+
+        Map<Integer, Long> byCode = new TreeMap<>();
+        errors.forEach((code, count) -> byCode.put(code, count.get()));
+        System.out.printf("Errors:         %d %s%n", byCode.values().stream().mapToLong(Long::longValue).sum(), byCode);
+    }
+
+    private static byte[] line(byte[] payload) {
+        byte[] line = new byte[payload.length + 1];
+        System.arraycopy(payload, 0, line, 0, payload.length);
+        line[payload.length] = '\n';
+        return line;
+    }
+
+    /**
+     * Ein zu sendender Frame samt den neu vergebenen ids seiner Requests.
+     */
+    private record Outgoing(long offsetMicros, byte[] line, long[] ids) {
+    }
+
+    /**
+     * Kommandozeilen-Optionen.
+     */
+    private record Options(Path capture, double speed, double rate, String command, long timeoutSeconds) {
+
+        static Options parse(String[] args) {
+            Path capture = null;
+            double speed = 1;
+            double rate = 0;
+            String command = null;
+            long timeout = 30;
+
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                boolean hasValue = i + 1 < args.length;
+                switch (arg) {
+                    case "--speed" -> speed = hasValue ? Double.parseDouble(args[++i]) : -1;
+                    case "--rate" -> rate = hasValue ? Double.parseDouble(args[++i]) : -1;
+                    case "--command" -> command = hasValue ? args[++i] : null;
+                    case "--timeout" -> timeout = hasValue ? Long.parseLong(args[++i]) : -1;
+                    default -> {
+                        if (arg.startsWith("--") || capture != null) {
+                            return null;
+                        }
+                        capture = Path.of(arg);
+                    }
+                }
+            }
+            if (capture == null || speed <= 0 || rate < 0 || timeout < 0) {
+                return null;
+            }
+            return new Options(capture, speed, rate, command, timeout);
+        }
+
+        String describePace() {
+            return rate > 0 ? "open-loop at " + rate + " frames/s" : speed + "x original pace";
+        }
+    }
+
+    /**
+     * Der Server, gegen den abgespielt wird.
+     */
+    private interface Target extends AutoCloseable {
+
+        OutputStream requests();
+
+        InputStream responses();
+
+        /**
+         * Server im selben Prozess, über Pipes verbunden.
+         */
+        static Target inProcess() throws IOException {
+            BenchmarkSupport.quietLogging();
+            ObjectMapper objectMapper = new ObjectMapper();
+            PipedInputStream serverIn = new PipedInputStream(1024 * 1024);
+            PipedOutputStream serverOut = new PipedOutputStream();
+            OutputStream clientOut = new PipedOutputStream(serverIn);
+            InputStream clientIn = new BufferedInputStream(new PipedInputStream(serverOut, 1024 * 1024));
+
+            McpServerProperties properties = new McpServerProperties();
+            properties.getDispatch().setMode(McpServerProperties.DispatchMode.CONCURRENT);
+            StdioMessageHandler messageHandler =
+                    new StdioMessageHandler(objectMapper, properties.getStdio(), serverIn, serverOut);
+            RequestDispatcher dispatcher =
+                    new RequestDispatcher(BenchmarkSupport.createRequestHandler(objectMapper), new McpMetrics(), properties);
+            Thread server = new Thread(new McpServer(messageHandler, dispatcher)::run, "replay-server");
+            server.start();
+
+            return new Target() {
+                @Override
+                public OutputStream requests() {
+                    return clientOut;
+                }
+
+                @Override
+                public InputStream responses() {
+                    return clientIn;
+                }
+
+                @Override
+                public void close() throws Exception {
+                    clientOut.close();
+                    server.join(10_000);
+                }
+            };
+        }
+
+        /**
+         * Server als eigener Prozess, z.B. {@code java -jar target/custom-mcp-server-1.0-SNAPSHOT.jar}.
+         */
+        static Target process(String command) throws IOException {
+            Process process = new ProcessBuilder(command.trim().split("\\s+"))
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            OutputStream requests = new BufferedOutputStream(process.getOutputStream());
+
+            return new Target() {
+                @Override
+                public OutputStream requests() {
+                    return requests;
+                }
+
+                @Override
+                public InputStream responses() {
+                    return process.getInputStream();
+                }
+
+                @Override
+                public void close() throws Exception {
+                    requests.close();
+                    if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                        process.destroy();
+                    }
+                }
+            };
+        }
+    }
+}
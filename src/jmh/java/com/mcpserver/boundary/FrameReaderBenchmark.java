@@ -0,0 +1,70 @@
+package com.mcpserver.boundary;
+
+import com.mcpserver.McpServerProperties;
+import com.mcpserver.benchmark.BenchmarkSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vergleicht das Zerlegen in Frames mit Newline- und mit Content-Length-Framing.
+ * <p>
+ * Beide Reader lesen denselben Request mit einem Argument der angegebenen Größe aus einem
+ * endlos wiederholten Stream. Gemessen wird nur das Framing, nicht das Parsen des JSON.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FrameReaderBenchmark {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    @Param({"NEWLINE", "CONTENT_LENGTH"})
+    private McpServerProperties.Framing framing;
+
+    @Param({"1024", "4194304"})
+    private int payloadBytes;
+
+    private FrameReader reader;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String body = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/call\",\"params\":"
+                + "{\"name\":\"echo\",\"arguments\":{\"message\":\"" + "x".repeat(payloadBytes) + "\"}}}";
+        byte[] content = body.getBytes(StandardCharsets.UTF_8);
+
+        if (framing == McpServerProperties.Framing.CONTENT_LENGTH) {
+            byte[] header = ("Content-Length: " + content.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+            byte[] frame = new byte[header.length + content.length];
+            System.arraycopy(header, 0, frame, 0, header.length);
+            System.arraycopy(content, 0, frame, header.length, content.length);
+            reader = new ContentLengthFrameReader(BenchmarkSupport.repeating(frame), READ_BUFFER_SIZE,
+                    Integer.MAX_VALUE);
+        } else {
+            reader = new LineFrameReader(BenchmarkSupport.repeating(body), READ_BUFFER_SIZE, Integer.MAX_VALUE);
+        }
+    }
+
+    @Benchmark
+    public int next() throws IOException {
+        reader.next();
+        return reader.frameLength();
+    }
+}
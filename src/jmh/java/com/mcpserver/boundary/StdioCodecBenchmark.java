@@ -0,0 +1,86 @@
+package com.mcpserver.boundary;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcpserver.McpServerProperties;
+import com.mcpserver.benchmark.BenchmarkSupport;
+import com.mcpserver.entity.JsonRpcMessage;
+import com.mcpserver.entity.JsonRpcRequest;
+import com.mcpserver.entity.JsonRpcResponse;
+import com.mcpserver.entity.ToolResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks für Parsen und Serialisieren im StdioMessageHandler.
+ * <p>
+ * Parsen liest aus einem endlos wiederholten Request-Stream, Serialisieren schreibt über den
+ * {@link ResponseEncoder} in einen verwerfenden Stream. So wird nur die Codec-Arbeit gemessen.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StdioCodecBenchmark {
+
+    @Param({"initialize", "tools/call"})
+    private String method;
+
+    private StdioMessageHandler messageHandler;
+    private ResponseEncoder encoder;
+    private JsonRpcResponse response;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkSupport.quietLogging();
+        ObjectMapper objectMapper = new ObjectMapper();
+        String line = "initialize".equals(method) ? BenchmarkSupport.INITIALIZE : BenchmarkSupport.TOOLS_CALL_ECHO;
+
+        messageHandler = new StdioMessageHandler(objectMapper, new McpServerProperties.Stdio(),
+                BenchmarkSupport.repeating(line), OutputStream.nullOutputStream());
+        encoder = new ResponseEncoder(objectMapper);
+        response = "initialize".equals(method)
+                ? BenchmarkSupport.createRequestHandler(objectMapper)
+                        .handleRequest(objectMapper.readValue(BenchmarkSupport.INITIALIZE, JsonRpcRequest.class))
+                : JsonRpcResponse.success(3, ToolResult.text("Echo: Hello World from the benchmark"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        messageHandler.close();
+    }
+
+    @Benchmark
+    public JsonRpcRequest parseRequest() throws IOException {
+        return messageHandler.readRequest();
+    }
+
+    @Benchmark
+    public JsonRpcMessage parseMessage() throws IOException {
+        return messageHandler.readMessage();
+    }
+
+    @Benchmark
+    public int serializeResponse() throws IOException {
+        encoder.encode(response);
+        encoder.writeTo(OutputStream.nullOutputStream());
+        return encoder.size();
+    }
+}
@@ -0,0 +1,62 @@
+package com.mcpserver.control;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcpserver.benchmark.BenchmarkSupport;
+import com.mcpserver.entity.JsonRpcRequest;
+import com.mcpserver.entity.JsonRpcResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks für McpRequestHandler.handleRequest pro MCP Methode, ohne Transport.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestHandlerBenchmark {
+
+    private McpRequestHandler requestHandler;
+    private JsonRpcRequest initialize;
+    private JsonRpcRequest toolsList;
+    private JsonRpcRequest toolsCall;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkSupport.quietLogging();
+        ObjectMapper objectMapper = new ObjectMapper();
+        requestHandler = BenchmarkSupport.createRequestHandler(objectMapper);
+        initialize = objectMapper.readValue(BenchmarkSupport.INITIALIZE, JsonRpcRequest.class);
+        toolsList = objectMapper.readValue(BenchmarkSupport.TOOLS_LIST, JsonRpcRequest.class);
+        toolsCall = objectMapper.readValue(BenchmarkSupport.TOOLS_CALL_ECHO, JsonRpcRequest.class);
+    }
+
+    @Benchmark
+    public JsonRpcResponse initialize() {
+        return requestHandler.handleRequest(initialize);
+    }
+
+    @Benchmark
+    public JsonRpcResponse toolsList() {
+        return requestHandler.handleRequest(toolsList);
+    }
+
+    @Benchmark
+    public JsonRpcResponse toolsCall() {
+        return requestHandler.handleRequest(toolsCall);
+    }
+}
@@ -3,6 +3,14 @@ package com.mcpserver;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationAutoConfiguration;
+import org.springframework.boot.autoconfigure.ssl.SslAutoConfiguration;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.task.TaskSchedulingAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 
 /**
@@ -11,10 +19,28 @@ import org.springframework.context.annotation.Bean;
  * Diese Klasse startet den Model Context Protocol (MCP) Server als Konsolenanwendung.
  * Der Server kommuniziert über stdin/stdout mit MCP Clients wie Claude Desktop.
  * </p>
+ * <p>
+ * Weil Clients den Server pro Sitzung starten, zählt die Startzeit zur Latenz des ersten
+ * Requests. Gescannt werden daher nur boundary und control, und Auto-Configurations, die der
+ * Server nicht nutzt (AOP, Caching, Task Executor/Scheduler, SQL, SSL, Jackson - der
+ * ObjectMapper kommt von hier), werden gar nicht erst ausgewertet. Für den Schnellstart mit
+ * Spring AOT und AppCDS siehe das Maven-Profil {@code faststart}.
+ * </p>
  *
  * @see com.mcpserver.control.McpServer
  */
-@SpringBootApplication
+@SpringBootApplication(
+        scanBasePackages = {"com.mcpserver.boundary", "com.mcpserver.control"},
+        exclude = {
+                AopAutoConfiguration.class,
+                CacheAutoConfiguration.class,
+                JacksonAutoConfiguration.class,
+                SqlInitializationAutoConfiguration.class,
+                SslAutoConfiguration.class,
+                TaskExecutionAutoConfiguration.class,
+                TaskSchedulingAutoConfiguration.class
+        })
+@EnableConfigurationProperties(McpServerProperties.class)
 public class McpServerApplication {
 
     /**
@@ -0,0 +1,336 @@
+package com.mcpserver;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Konfiguration des MCP Servers (Prefix {@code mcp} in application.properties).
+ * <p>
+ * Bündelt alle Einstellungen, die das Laufzeitverhalten des Servers steuern.
+ * Die Defaults entsprechen dem ursprünglichen, rein sequentiellen Verhalten.
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "mcp")
+public class McpServerProperties {
+
+    /**
+     * STDIO bedient genau einen Client über stdin/stdout, SOCKET beliebig viele über TCP
+     * oder einen Unix Domain Socket, HTTP beliebig viele über den MCP Streamable HTTP Transport.
+     */
+    private Transport transport = Transport.STDIO;
+
+    private final Dispatch dispatch = new Dispatch();
+
+    private final Stdio stdio = new Stdio();
+
+    private final Socket socket = new Socket();
+
+    private final Http http = new Http();
+
+    private final Metrics metrics = new Metrics();
+
+    private final Cache cache = new Cache();
+
+    private final Tools tools = new Tools();
+
+    private final Resources resources = new Resources();
+
+    /**
+     * Einstellungen für die Verteilung eingehender Requests auf Worker.
+     */
+    @Data
+    public static class Dispatch {
+
+        /**
+         * SEQUENTIAL verarbeitet jeden Request auf dem Reader-Thread,
+         * CONCURRENT übergibt Requests an einen begrenzten Worker-Pool.
+         */
+        private DispatchMode mode = DispatchMode.SEQUENTIAL;
+
+        /**
+         * Maximale Anzahl gleichzeitig laufender Requests im CONCURRENT-Modus.
+         */
+        private int maxConcurrency = 16;
+
+        /**
+         * Wie lange beim Beenden auf noch laufende Requests gewartet wird.
+         */
+        private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+        /**
+         * Deadline für Requests, deren Tool keinen eigenen Timeout deklariert. 0 bedeutet
+         * kein Limit. Abgelaufene Requests werden unterbrochen und mit einem Fehler beantwortet.
+         */
+        private Duration requestTimeout = Duration.ZERO;
+
+        /**
+         * Maximale Anzahl angenommener tools/call und resources/read Requests, die laufen oder
+         * auf einen Worker warten.
+         */
+        private int maxPending = 256;
+
+        /**
+         * Maximale Anzahl angenommener Kontroll-Nachrichten wie initialize, ping oder tools/list.
+         * Sie haben ein eigenes Kontingent zusätzlich zu {@link #maxPending}, damit sie auch bei
+         * vollem Tool-Kontingent angenommen werden.
+         */
+        private int maxPendingControl = 64;
+
+        /**
+         * Verhalten, wenn {@link #maxPending} oder {@link #maxPendingControl} erreicht ist.
+         */
+        private OverloadPolicy overloadPolicy = OverloadPolicy.REJECT;
+
+        /**
+         * Worker im CONCURRENT-Modus, die Tool-Aufrufe nicht belegen dürfen. Kontroll-Nachrichten
+         * wie initialize, ping oder tools/list laufen so auch bei voll ausgelasteten Tools sofort.
+         */
+        private int controlWorkers = 2;
+
+        /**
+         * Gewicht pro Tool-Name bei der fairen Verteilung der Worker auf wartende Tool-Aufrufe,
+         * nicht aufgeführte Tools haben Gewicht 1. Auch {@code resources/read} kann gewichtet werden.
+         */
+        private Map<String, Integer> toolWeights = new HashMap<>();
+    }
+
+    /**
+     * Einstellungen für den stdio Transport.
+     */
+    @Data
+    public static class Stdio {
+
+        /**
+         * Maximale Zeit in Mikrosekunden, die der Writer-Thread nach der ersten
+         * anstehenden Response auf weitere wartet, bevor er flusht. 0 schreibt nur
+         * zusammen, was bereits in der Queue liegt.
+         */
+        private long flushDelayMicros = 0;
+
+        /**
+         * Anfangsgröße des Lesepuffers in Bytes, wächst bei größeren Zeilen.
+         */
+        private int readBufferSize = 64 * 1024;
+
+        /**
+         * Größe des Ausgabepuffers in Bytes.
+         */
+        private int writeBufferSize = 64 * 1024;
+
+        /**
+         * Framing der Nachrichten auf stdin/stdout. AUTO erkennt es an der ersten Nachricht des
+         * Clients und antwortet im selben Framing.
+         */
+        private Framing framing = Framing.AUTO;
+
+        /**
+         * Maximale Größe eines Frames in Bytes, bei Content-Length der Body, sonst die Zeile.
+         * Größere Frames werden übersprungen und mit "Invalid Request" beantwortet, statt sie
+         * zu puffern.
+         */
+        private int maxFrameBytes = 16 * 1024 * 1024;
+
+        /**
+         * Datei, in die alle ein- und ausgehenden Frames mit Zeitstempel geschrieben werden,
+         * z.B. für die Wiedergabe mit {@code TrafficReplay}. Ohne Angabe wird nichts mitgeschnitten.
+         */
+        private Path captureFile;
+    }
+
+    /**
+     * Einstellungen für den Socket Transport.
+     */
+    @Data
+    public static class Socket {
+
+        /**
+         * Adresse, an die der TCP Socket gebunden wird. Standardmäßig nur lokal erreichbar.
+         */
+        private String host = "127.0.0.1";
+
+        /**
+         * TCP Port, 0 wählt einen freien Port.
+         */
+        private int port = 7070;
+
+        /**
+         * Pfad eines Unix Domain Sockets. Ist er gesetzt, werden host und port ignoriert.
+         */
+        private String path;
+
+        /**
+         * Anfangsgröße des Lesepuffers pro Verbindung in Bytes, wächst bei größeren Zeilen.
+         */
+        private int readBufferSize = 8 * 1024;
+
+        /**
+         * Anfangsgröße des Schreibpuffers pro Verbindung in Bytes, wächst bei Bedarf.
+         */
+        private int writeBufferSize = 8 * 1024;
+
+        /**
+         * Maximale Länge einer Zeile in Bytes. Längere Frames schließen die Verbindung.
+         */
+        private int maxFrameBytes = 16 * 1024 * 1024;
+
+        /**
+         * Ab so vielen ungesendeten Bytes liest die Verbindung keine weiteren Requests,
+         * bis der Client Responses abgenommen hat.
+         */
+        private int maxPendingWriteBytes = 4 * 1024 * 1024;
+    }
+
+    /**
+     * Einstellungen für den HTTP Transport.
+     */
+    @Data
+    public static class Http {
+
+        /**
+         * Adresse, an die der HTTP Server gebunden wird. Standardmäßig nur lokal erreichbar.
+         */
+        private String host = "127.0.0.1";
+
+        /**
+         * HTTP Port, 0 wählt einen freien Port.
+         */
+        private int port = 8080;
+
+        /**
+         * Pfad des MCP Endpoints.
+         */
+        private String path = "/mcp";
+
+        /**
+         * Anzahl der Threads, die HTTP Requests lesen und Responses schreiben. Ein POST, der auf
+         * seine Responses wartet, belegt keinen Thread.
+         */
+        private int threads = 32;
+
+        /**
+         * Wie lange beim Beenden auf offene Exchanges gewartet wird.
+         */
+        private Duration shutdownTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Maximale Größe eines POST-Bodies in Bytes. Größere Requests werden mit 413 abgelehnt,
+         * ohne sie zu lesen.
+         */
+        private int maxBodyBytes = 16 * 1024 * 1024;
+
+        /**
+         * Nach so langer Zeit ohne Exchange läuft eine Session ab und ihre Requests werden
+         * abgebrochen. 0 schaltet den Ablauf ab.
+         */
+        private Duration idleTimeout = Duration.ofMinutes(30);
+
+        /**
+         * Origins, deren Requests angenommen werden, z.B. {@code http://localhost:6274}.
+         * Requests ohne Origin Header kommen nicht aus einem Browser und sind immer erlaubt,
+         * {@code *} erlaubt jeden Origin.
+         */
+        private List<String> allowedOrigins = new ArrayList<>();
+    }
+
+    /**
+     * Einstellungen für die Laufzeit-Kennzahlen.
+     */
+    @Data
+    public static class Metrics {
+
+        /**
+         * Intervall, in dem die Kennzahlen nach stderr geschrieben werden. 0 schaltet die
+         * periodische Ausgabe ab, metrics/get funktioniert immer.
+         */
+        private Duration dumpInterval = Duration.ZERO;
+    }
+
+    /**
+     * Einstellungen für den Ergebnis-Cache cachebarer Tools.
+     */
+    @Data
+    public static class Cache {
+
+        /**
+         * Maximale Anzahl gecachter Tool-Ergebnisse über alle Tools, 0 schaltet den Cache ab.
+         */
+        private int maxEntries = 1024;
+    }
+
+    /**
+     * Einstellungen für die Tool-Liste.
+     */
+    @Data
+    public static class Tools {
+
+        /**
+         * Anzahl der Tools pro tools/list Seite.
+         */
+        private int pageSize = 100;
+    }
+
+    /**
+     * Einstellungen für MCP Resources.
+     */
+    @Data
+    public static class Resources {
+
+        /**
+         * Verzeichnisse, deren Dateien als Resources angeboten werden. Ohne Roots gibt es
+         * keine Resources.
+         */
+        private List<Path> roots = new ArrayList<>();
+
+        /**
+         * Maximale Größe einer Datei, die über resources/read gelesen werden kann.
+         */
+        private long maxReadBytes = 64L * 1024 * 1024;
+
+        /**
+         * Anzahl der Resources pro resources/list Seite.
+         */
+        private int pageSize = 500;
+    }
+
+    public enum Transport {
+        STDIO,
+        SOCKET,
+        HTTP
+    }
+
+    public enum DispatchMode {
+        SEQUENTIAL,
+        CONCURRENT
+    }
+
+    /**
+     * NEWLINE trennt Nachrichten durch Zeilenumbrüche, CONTENT_LENGTH stellt jeder Nachricht
+     * wie bei LSP einen {@code Content-Length} Header voran. AUTO entscheidet anhand der
+     * ersten eingehenden Nachricht.
+     */
+    public enum Framing {
+        AUTO,
+        NEWLINE,
+        CONTENT_LENGTH
+    }
+
+    /**
+     * REJECT beantwortet neue Requests sofort mit "Server overloaded". BLOCK gilt nur für
+     * Kontroll-Nachrichten: Ist {@code max-pending-control} erreicht, hört der Reader auf, stdin
+     * zu lesen, bis wieder Platz ist. tools/call und resources/read über {@code max-pending}
+     * werden bei beiden Policies abgelehnt, damit ping und Abbrüche auch bei vollem
+     * Tool-Kontingent gelesen werden.
+     */
+    public enum OverloadPolicy {
+        BLOCK,
+        REJECT
+    }
+}
@@ -0,0 +1,313 @@
+package com.mcpserver.boundary;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Zerlegt einen Byte-Stream in Frames mit {@code Content-Length} Header wie bei LSP.
+ * <p>
+ * Jeder Frame beginnt mit Header-Zeilen ({@code Content-Length: 123\r\n}, weitere Header wie
+ * {@code Content-Type} werden ignoriert), gefolgt von einer Leerzeile und genau so vielen
+ * Bytes Body. Anders als beim {@link LineFrameReader} muss der Body nicht nach einem
+ * Trennzeichen durchsucht werden, seine Größe steht vorher fest.
+ * </p>
+ * <p>
+ * Passt der Body in den Lesepuffer, zeigt der Frame direkt in diesen Puffer. Größere Bodies
+ * werden mit wenigen Bulk-Reads direkt vom Stream in einen Body-Puffer genau passender Größe
+ * gelesen, der für folgende Frames wiederverwendet wird, solange sie hineinpassen. Ist er über
+ * {@link #MAX_RETAINED_CAPACITY} gewachsen, wird er nach dem Frame wieder freigegeben.
+ * </p>
+ * <p>
+ * Bodies über {@code mcp.stdio.max-frame-bytes} werden nicht gelesen, sondern übersprungen,
+ * und mit einer {@link FrameTooLargeException} gemeldet. Der Stream bleibt dabei synchron und
+ * der nächste Frame kann normal gelesen werden.
+ * </p>
+ */
+class ContentLengthFrameReader implements FrameReader {
+
+    private static final byte[] CONTENT_LENGTH = "content-length".getBytes(StandardCharsets.US_ASCII);
+    private static final byte NEWLINE = '\n';
+    private static final byte[] EMPTY = new byte[0];
+
+    /**
+     * Größter Body-Puffer, der über einen Frame hinaus behalten wird.
+     */
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private final InputStream input;
+    private final int maxFrameBytes;
+
+    /**
+     * Lesepuffer für Header und kleine Bodies, ungelesene Daten liegen zwischen position und limit.
+     */
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+
+    private byte[] body = EMPTY;
+
+    private byte[] frameArray;
+    private int frameOffset;
+    private int frameLength;
+    private boolean endOfStream;
+
+    /**
+     * @param input         Stream mit den Frames
+     * @param bufferSize    Größe des Lesepuffers für Header und kleine Bodies
+     * @param maxFrameBytes Größter Body, der noch gelesen wird
+     */
+    ContentLengthFrameReader(InputStream input, int bufferSize, int maxFrameBytes) {
+        this.input = input;
+        this.maxFrameBytes = maxFrameBytes;
+        this.buffer = new byte[bufferSize];
+        this.frameArray = buffer;
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        if (body.length > MAX_RETAINED_CAPACITY) {
+            // Der vorherige Frame ist nicht mehr gültig, der Puffer darf weg
+            body = EMPTY;
+            frameArray = buffer;
+        }
+
+        while (true) {
+            int length = readHeaders();
+            if (length < 0) {
+                return false;
+            }
+            if (length > maxFrameBytes) {
+                skipBody(length);
+                throw new FrameTooLargeException(
+                        "Content-Length " + length + " exceeds limit of " + maxFrameBytes + " bytes");
+            }
+            readBody(length);
+            if (trimFrame()) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public byte[] array() {
+        return frameArray;
+    }
+
+    @Override
+    public int frameOffset() {
+        return frameOffset;
+    }
+
+    @Override
+    public int frameLength() {
+        return frameLength;
+    }
+
+    /**
+     * Liest die Header eines Frames bis zur Leerzeile.
+     *
+     * @return Länge des Bodies oder -1, wenn der Stream vor einem neuen Frame endet
+     */
+    private int readHeaders() throws IOException {
+        boolean headerSeen = false;
+        long contentLength = -1;
+
+        while (true) {
+            int end = indexOfNewline();
+            if (end < 0) {
+                if (limit - position == buffer.length) {
+                    throw new IOException("Header line longer than " + buffer.length + " bytes");
+                }
+                if (!fill()) {
+                    if (!headerSeen && isBlank(position, limit)) {
+                        return -1;
+                    }
+                    throw new EOFException("Stream ended inside frame header");
+                }
+                continue;
+            }
+
+            int start = position;
+            position = end + 1;
+            int lineEnd = end > start && buffer[end - 1] == '\r' ? end - 1 : end;
+            if (lineEnd == start) {
+                if (!headerSeen) {
+                    // Leerzeilen zwischen Frames werden toleriert
+                    continue;
+                }
+                if (contentLength < 0) {
+                    throw new IOException("Missing Content-Length header");
+                }
+                return (int) contentLength;
+            }
+
+            headerSeen = true;
+            if (isContentLength(start, lineEnd)) {
+                contentLength = parseLength(start + CONTENT_LENGTH.length + 1, lineEnd);
+            }
+        }
+    }
+
+    private void readBody(int length) throws IOException {
+        if (length <= buffer.length) {
+            while (limit - position < length) {
+                if (!fill()) {
+                    throw new EOFException("Stream ended inside frame body");
+                }
+            }
+            setFrame(buffer, position, length);
+            position += length;
+            return;
+        }
+
+        if (body.length < length) {
+            body = new byte[length];
+        }
+        int copied = limit - position;
+        System.arraycopy(buffer, position, body, 0, copied);
+        position = limit;
+        while (copied < length) {
+            int read = input.read(body, copied, length - copied);
+            if (read < 0) {
+                throw new EOFException("Stream ended inside frame body");
+            }
+            copied += read;
+        }
+        setFrame(body, 0, length);
+    }
+
+    /**
+     * Verwirft einen Body, ohne ihn zu puffern. Der leere Lesepuffer dient dabei als Ablage.
+     */
+    private void skipBody(int length) throws IOException {
+        int buffered = Math.min(limit - position, length);
+        position += buffered;
+        int remaining = length - buffered;
+        if (remaining == 0) {
+            return;
+        }
+
+        position = 0;
+        limit = 0;
+        while (remaining > 0) {
+            int read = input.read(buffer, 0, Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw new EOFException("Stream ended inside frame body");
+            }
+            remaining -= read;
+        }
+    }
+
+    private void setFrame(byte[] array, int offset, int length) {
+        frameArray = array;
+        frameOffset = offset;
+        frameLength = length;
+    }
+
+    /**
+     * Schneidet Whitespace am Rand des Bodies ab, wie beim {@link LineFrameReader}.
+     *
+     * @return false wenn der Body leer ist
+     */
+    private boolean trimFrame() {
+        int start = frameOffset;
+        int end = frameOffset + frameLength;
+        while (start < end && isWhitespace(frameArray[start])) {
+            start++;
+        }
+        while (end > start && isWhitespace(frameArray[end - 1])) {
+            end--;
+        }
+        frameOffset = start;
+        frameLength = end - start;
+        return frameLength > 0;
+    }
+
+    private int indexOfNewline() {
+        for (int i = position; i < limit; i++) {
+            if (buffer[i] == NEWLINE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isContentLength(int start, int end) {
+        int nameEnd = start + CONTENT_LENGTH.length;
+        if (nameEnd >= end || buffer[nameEnd] != ':') {
+            return false;
+        }
+        for (int i = 0; i < CONTENT_LENGTH.length; i++) {
+            // ASCII-Kleinschreibung genügt für den Header-Namen
+            if ((buffer[start + i] | 0x20) != CONTENT_LENGTH[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long parseLength(int start, int end) throws IOException {
+        while (start < end && isWhitespace(buffer[start])) {
+            start++;
+        }
+        while (end > start && isWhitespace(buffer[end - 1])) {
+            end--;
+        }
+        if (start == end) {
+            throw new IOException("Empty Content-Length header");
+        }
+
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IOException("Invalid Content-Length: "
+                        + new String(buffer, start, end - start, StandardCharsets.US_ASCII));
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE - 8) {
+                throw new IOException("Content-Length too large");
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Liest weitere Bytes in den Lesepuffer und verschiebt vorher die ungelesenen an den Anfang.
+     *
+     * @return false wenn der Stream zu Ende ist
+     */
+    private boolean fill() throws IOException {
+        if (endOfStream) {
+            return false;
+        }
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+
+        int read = input.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfStream = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isWhitespace(buffer[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
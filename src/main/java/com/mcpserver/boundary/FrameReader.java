@@ -0,0 +1,44 @@
+package com.mcpserver.boundary;
+
+import java.io.IOException;
+
+/**
+ * Zerlegt einen Byte-Stream in einzelne JSON-RPC Frames.
+ * <p>
+ * Ein Frame wird nur als Bereich in einem Puffer beschrieben ({@link #array()},
+ * {@link #frameOffset()}, {@link #frameLength()}) und ist bis zum nächsten Aufruf von
+ * {@link #next()} gültig. Leere Frames werden übersprungen. Implementierungen sind nicht
+ * thread-safe und werden nur vom Reader-Thread benutzt.
+ * </p>
+ *
+ * @see LineFrameReader
+ * @see ContentLengthFrameReader
+ */
+interface FrameReader {
+
+    /**
+     * Rückt zum nächsten nicht-leeren Frame vor und blockiert, bis er vollständig vorliegt.
+     *
+     * @return true wenn ein Frame verfügbar ist, false wenn der Stream zu Ende ist
+     * @throws FrameTooLargeException Wenn der Frame größer als {@code mcp.stdio.max-frame-bytes} ist
+     * @throws IOException Bei Lese-Fehlern oder verletzter Framing-Syntax
+     */
+    boolean next() throws IOException;
+
+    byte[] array();
+
+    int frameOffset();
+
+    int frameLength();
+
+    /**
+     * Ein Frame über {@code mcp.stdio.max-frame-bytes}. Er wurde bereits übersprungen, ohne ihn
+     * zu puffern, weitere Frames können gelesen werden.
+     */
+    class FrameTooLargeException extends IOException {
+
+        FrameTooLargeException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.mcpserver.boundary;
+
+import com.mcpserver.entity.JsonRpcNotification;
+import com.mcpserver.entity.JsonRpcResponse;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Nimmt die Responses zu einem POST entgegen.
+ * <p>
+ * Worker-Threads legen Responses nur in die Queue und wecken danach den wartenden Exchange,
+ * der sie auf einem Thread des HTTP Pools abholt und als JSON-Body oder als Server-Sent Events
+ * schreibt, bis alle erwarteten Responses da sind. Bis dahin belegt der POST keinen Thread.
+ * Thread-safe.
+ * </p>
+ */
+public class HttpResponseChannel {
+
+    /**
+     * Markiert eine erwartete Response, die nicht kommen wird, wird per Identität verglichen.
+     */
+    static final Object DROPPED = new Object();
+
+    private final HttpSession session;
+    private final Runnable wakeUp;
+    private final Queue<Object> responses = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    /**
+     * @param session Session des POSTs
+     * @param wakeUp  Wird nach jeder neuen Response aufgerufen, auf dem Thread des Absenders
+     */
+    HttpResponseChannel(HttpSession session, Runnable wakeUp) {
+        this.session = session;
+        this.wakeUp = wakeUp;
+    }
+
+    /**
+     * @return Die Session des POSTs, null vor dem ersten initialize
+     */
+    public HttpSession session() {
+        return session;
+    }
+
+    public void send(JsonRpcResponse response) {
+        add(response);
+    }
+
+    public void sendBatch(List<JsonRpcResponse> batch) {
+        add(batch);
+    }
+
+    /**
+     * Notification zu einem Request dieses POSTs, z.B. notifications/progress. Zählt nicht
+     * zu den erwarteten Responses und wird nur über Server-Sent Events zugestellt.
+     */
+    public void sendNotification(JsonRpcNotification notification) {
+        add(notification);
+    }
+
+    /**
+     * Eine erwartete Response entfällt, z.B. weil der Request abgebrochen wurde.
+     */
+    public void dropped() {
+        add(DROPPED);
+    }
+
+    /**
+     * Holt die nächste Response ab, ohne zu warten.
+     *
+     * @return {@link JsonRpcResponse}, {@code List<JsonRpcResponse>}, {@link JsonRpcNotification},
+     *         {@link #DROPPED} oder null, wenn gerade keine ansteht
+     */
+    Object poll() {
+        return responses.poll();
+    }
+
+    /**
+     * Der Exchange ist beendet. Nicht mehr abgeholte und später eintreffende Responses werden
+     * verworfen und geben ihre Ressourcen frei, z.B. ausgelagerte Tool-Ausgabe.
+     */
+    void close() {
+        closed = true;
+        discard();
+    }
+
+    private void add(Object payload) {
+        responses.add(payload);
+        // Nach add prüfen: entweder sieht close die Response oder dieser Thread das closed
+        if (closed) {
+            discard();
+        } else {
+            wakeUp.run();
+        }
+    }
+
+    private void discard() {
+        Object payload;
+        while ((payload = responses.poll()) != null) {
+            ResponseEncoder.release(payload);
+        }
+    }
+}
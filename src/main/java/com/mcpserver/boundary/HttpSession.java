@@ -0,0 +1,71 @@
+package com.mcpserver.boundary;
+
+/**
+ * Eine MCP Session des {@link HttpTransport}.
+ * <p>
+ * Wird beim initialize angelegt und über den Header {@code Mcp-Session-Id} wiedererkannt.
+ * Alle POSTs einer Session teilen sich den id-Raum der Requests, damit z.B.
+ * {@code notifications/cancelled} einen Request aus einem anderen POST abbrechen kann.
+ * </p>
+ * <p>
+ * Eine Session ohne offenen Exchange läuft nach {@code mcp.http.idle-timeout} ab. Die
+ * Zustandsübergänge sind synchronisiert, damit kein Exchange eine Session betritt, die
+ * gerade abläuft.
+ * </p>
+ */
+public class HttpSession {
+
+    private final String id;
+    private int openExchanges;
+    private long lastActive = System.nanoTime();
+    private boolean expired;
+
+    HttpSession(String id) {
+        this.id = id;
+    }
+
+    /**
+     * @return Wert des Headers {@code Mcp-Session-Id}
+     */
+    public String id() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpSession[" + id + "]";
+    }
+
+    /**
+     * Meldet einen Exchange der Session an.
+     *
+     * @return false wenn die Session bereits abgelaufen ist
+     */
+    synchronized boolean enter() {
+        if (expired) {
+            return false;
+        }
+        openExchanges++;
+        return true;
+    }
+
+    /**
+     * Meldet einen Exchange ab, ab jetzt beginnt die Leerlaufzeit neu.
+     */
+    synchronized void leave() {
+        openExchanges--;
+        lastActive = System.nanoTime();
+    }
+
+    /**
+     * Lässt die Session ablaufen, wenn sie ohne offenen Exchange länger als idleNanos unbenutzt war.
+     *
+     * @return true wenn die Session abgelaufen ist
+     */
+    synchronized boolean expireIfIdle(long now, long idleNanos) {
+        if (openExchanges == 0 && now - lastActive >= idleNanos) {
+            expired = true;
+        }
+        return expired;
+    }
+}
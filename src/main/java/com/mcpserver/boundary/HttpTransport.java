@@ -0,0 +1,621 @@
+package com.mcpserver.boundary;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcpserver.McpServerProperties;
+import com.mcpserver.entity.JsonRpcError;
+import com.mcpserver.entity.JsonRpcMessage;
+import com.mcpserver.entity.JsonRpcNotification;
+import com.mcpserver.entity.JsonRpcRequest;
+import com.mcpserver.entity.JsonRpcResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP Transport - MCP Streamable HTTP auf dem HTTP Server des JDK.
+ * <p>
+ * Ein einzelner Endpoint ({@code mcp.http.path}) nimmt JSON-RPC Nachrichten per POST an.
+ * Enthält ein POST nur Notifications, antwortet der Server sofort mit 202. Sonst bleibt der
+ * Exchange offen, bis die Responses vorliegen, und der Server schreibt sie als JSON-Body, oder als Server-Sent Events,
+ * wenn der Client nur {@code text/event-stream} akzeptiert oder Fortschritt anfordert. Verbindungen bleiben per HTTP/1.1
+ * Keep-Alive offen und werden für weitere POSTs wiederverwendet.
+ * </p>
+ * <p>
+ * Das initialize legt eine {@link HttpSession} an, deren id im Header {@code Mcp-Session-Id}
+ * zurückgegeben wird. Alle weiteren Requests müssen ihn mitschicken, ein DELETE beendet die
+ * Session. Exchanges werden auf einem begrenzten Thread-Pool gelesen und beantwortet, ein POST,
+ * der auf seine Responses wartet, belegt dabei keinen Thread. So bleiben ping und
+ * {@code notifications/cancelled} auch bei vielen langsamen Tool-Aufrufen erreichbar.
+ * Sessions ohne Exchange laufen nach {@code mcp.http.idle-timeout} ab.
+ * </p>
+ * <p>
+ * Gegen DNS Rebinding werden Requests mit einem {@code Origin} Header, der nicht in
+ * {@code mcp.http.allowed-origins} steht, mit 403 abgelehnt. Bodies über
+ * {@code mcp.http.max-body-bytes} werden nicht gelesen, sondern mit 413 beantwortet.
+ * </p>
+ * <p>
+ * Der Transport ist nur aktiv, wenn {@code mcp.transport=http} gesetzt ist.
+ * </p>
+ *
+ * @see McpServerProperties.Http
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "mcp", name = "transport", havingValue = "http")
+public class HttpTransport {
+
+    static final String SESSION_HEADER = "Mcp-Session-Id";
+
+    private static final String CONTENT_TYPE_JSON = "application/json";
+    private static final String CONTENT_TYPE_SSE = "text/event-stream";
+    private static final String METHOD_INITIALIZE = "initialize";
+    private static final String PARAM_META = "_meta";
+    private static final String PARAM_PROGRESS_TOKEN = "progressToken";
+    private static final byte[] EVENT_PREFIX = "event: message\ndata: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EVENT_SUFFIX = "\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Empfänger der Nachrichten aller Exchanges. Wird auf dem Thread des Exchange aufgerufen.
+     */
+    public interface ExchangeHandler {
+
+        /**
+         * Verarbeitet eine Nachricht. Die Responses gehen an den Channel, auch asynchron.
+         */
+        void onMessage(JsonRpcMessage message, HttpResponseChannel channel);
+
+        /**
+         * Die Session wurde vom Client per DELETE beendet oder ist abgelaufen.
+         */
+        void onSessionClosed(HttpSession session);
+    }
+
+    private final McpServerProperties.Http config;
+    private final MessageDecoder decoder;
+    private final ThreadLocal<ResponseEncoder> encoders;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService sessionExpiry;
+    private final Map<String, HttpSession> sessions = new ConcurrentHashMap<>();
+    private final Set<PendingExchange> pendingExchanges = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Anzahl laufender Exchanges, Monitor für {@link #close()}.
+     */
+    private int openExchanges;
+    private volatile boolean started;
+    private volatile boolean closed;
+
+    @Autowired
+    public HttpTransport(ObjectMapper objectMapper, McpServerProperties properties) throws IOException {
+        this(objectMapper, properties.getHttp());
+    }
+
+    /**
+     * Erstellt und bindet den HTTP Server.
+     *
+     * @param objectMapper ObjectMapper für JSON-Verarbeitung
+     * @param config       HTTP Konfiguration
+     * @throws IOException Wenn die Adresse nicht gebunden werden kann
+     */
+    public HttpTransport(ObjectMapper objectMapper, McpServerProperties.Http config) throws IOException {
+        this.config = config;
+        this.decoder = new MessageDecoder(objectMapper);
+        this.encoders = ThreadLocal.withInitial(() -> new ResponseEncoder(objectMapper));
+        this.server = HttpServer.create(new InetSocketAddress(config.getHost(), config.getPort()), 0);
+        this.executor = createExecutor(config.getThreads());
+        this.sessionExpiry = createSessionExpiry();
+        server.setExecutor(executor);
+    }
+
+    /**
+     * @return Adresse, an die der Server gebunden ist, z.B. mit dem tatsächlichen Port
+     */
+    public InetSocketAddress localAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Startet den Server. Kehrt sofort zurück, Exchanges laufen auf dem Thread-Pool.
+     *
+     * @param handler Empfänger der Nachrichten
+     */
+    public void start(ExchangeHandler handler) {
+        server.createContext(config.getPath(), exchange -> handle(exchange, handler));
+        server.start();
+        started = true;
+
+        long idleNanos = config.getIdleTimeout().toNanos();
+        if (idleNanos > 0) {
+            long period = Math.max(1, config.getIdleTimeout().toMillis() / 2);
+            sessionExpiry.scheduleAtFixedRate(() -> expireIdleSessions(handler, idleNanos),
+                    period, period, TimeUnit.MILLISECONDS);
+        }
+        log.info("HTTP Transport lauscht auf http://{}:{}{}",
+                localAddress().getHostString(), localAddress().getPort(), config.getPath());
+    }
+
+    /**
+     * Beantwortet neue Exchanges mit 503 und wartet bis zu {@code mcp.http.shutdown-timeout}
+     * auf offene Exchanges, dann wird der Server gestoppt.
+     * <p>
+     * Das Warten passiert hier statt in {@link HttpServer#stop(int)}, weil der JDK Server dort
+     * auch ohne offene Exchanges die volle Zeit wartet.
+     * </p>
+     */
+    @PreDestroy
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        sessionExpiry.shutdownNow();
+        if (started) {
+            awaitOpenExchanges();
+            // Nach dem Timeout noch wartende POSTs geben ihre Responses frei
+            pendingExchanges.forEach(PendingExchange::finish);
+            server.stop(0);
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Entfernt Sessions, die länger als idleNanos ohne Exchange waren, und bricht ihre Requests ab.
+     */
+    private void expireIdleSessions(ExchangeHandler handler, long idleNanos) {
+        long now = System.nanoTime();
+        for (HttpSession session : sessions.values()) {
+            if (session.expireIfIdle(now, idleNanos) && sessions.remove(session.id(), session)) {
+                log.info("{} nach Leerlauf beendet", session);
+                handler.onSessionClosed(session);
+            }
+        }
+    }
+
+    private void awaitOpenExchanges() {
+        long deadline = System.nanoTime() + config.getShutdownTimeout().toNanos();
+        synchronized (this) {
+            try {
+                long remaining;
+                while (openExchanges > 0 && (remaining = deadline - System.nanoTime()) > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (openExchanges > 0) {
+                log.warn("{} HTTP Exchanges werden beim Shutdown abgebrochen", openExchanges);
+            }
+        }
+    }
+
+    private synchronized void exchangeStarted() {
+        openExchanges++;
+    }
+
+    private synchronized void exchangeFinished() {
+        if (--openExchanges == 0) {
+            notifyAll();
+        }
+    }
+
+    private void handle(HttpExchange exchange, ExchangeHandler handler) {
+        exchangeStarted();
+        boolean pending = false;
+        try {
+            if (closed) {
+                sendStatus(exchange, 503);
+                return;
+            }
+            if (!config.getPath().equals(exchange.getRequestURI().getPath())) {
+                sendStatus(exchange, 404);
+                return;
+            }
+            String origin = exchange.getRequestHeaders().getFirst("Origin");
+            if (origin != null && !isAllowedOrigin(origin)) {
+                log.warn("Request von nicht erlaubtem Origin {} abgelehnt", origin);
+                exchange.getRequestBody().readAllBytes();
+                sendStatus(exchange, 403);
+                return;
+            }
+
+            switch (exchange.getRequestMethod()) {
+                case "POST" -> pending = handlePost(exchange, handler);
+                case "DELETE" -> handleDelete(exchange, handler);
+                default -> {
+                    exchange.getResponseHeaders().set("Allow", "POST, DELETE");
+                    sendStatus(exchange, 405);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("HTTP Exchange abgebrochen: {}", e.getMessage());
+        } finally {
+            if (!pending) {
+                exchange.close();
+                exchangeFinished();
+            }
+        }
+    }
+
+    /**
+     * Nimmt einen POST an und übergibt ihn dem Handler.
+     *
+     * @return true wenn der Exchange an einen {@link PendingExchange} übergeben wurde, der ihn
+     *         beendet, sobald seine Responses geschrieben sind
+     */
+    private boolean handlePost(HttpExchange exchange, ExchangeHandler handler) throws IOException {
+        byte[] body = readBody(exchange);
+        if (body == null) {
+            log.warn("Request-Body über {} Bytes abgelehnt", config.getMaxBodyBytes());
+            // Der Rest des Bodies ist ungelesen, die Verbindung kann nicht weiterverwendet werden
+            exchange.getResponseHeaders().set("Connection", "close");
+            sendStatus(exchange, 413);
+            return false;
+        }
+        JsonRpcMessage message = decoder.decode(body, 0, body.length);
+        if (message == null) {
+            sendJson(exchange, 400, JsonRpcResponse.error(null, JsonRpcError.invalidRequest("Empty body")));
+            return false;
+        }
+
+        HttpSession session;
+        String sessionId = exchange.getRequestHeaders().getFirst(SESSION_HEADER);
+        if (sessionId != null) {
+            session = sessions.get(sessionId);
+            if (session == null || !session.enter()) {
+                sendStatus(exchange, 404);
+                return false;
+            }
+        } else if (containsInitialize(message)) {
+            session = new HttpSession(UUID.randomUUID().toString());
+            session.enter();
+            sessions.put(session.id(), session);
+            exchange.getResponseHeaders().set(SESSION_HEADER, session.id());
+            log.info("{} angelegt", session);
+        } else {
+            sendJson(exchange, 400, JsonRpcResponse.error(null, JsonRpcError.invalidRequest("Missing " + SESSION_HEADER)));
+            return false;
+        }
+
+        PendingExchange pending = new PendingExchange(exchange, session, expectedResponses(message),
+                useEventStream(exchange, message));
+        return pending.start(handler, message);
+    }
+
+    /**
+     * Liest den Request-Body, höchstens {@code mcp.http.max-body-bytes}. Ein angekündigter
+     * größerer Body wird gar nicht erst gelesen, einer ohne Content-Length nur bis zum Limit.
+     *
+     * @return Der Body oder null, wenn er zu groß ist
+     */
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        int maxBodyBytes = config.getMaxBodyBytes();
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        // Eine ungültige Länge hat der JDK Server bereits mit 400 abgelehnt
+        if (contentLength != null && Long.parseLong(contentLength.trim()) > maxBodyBytes) {
+            return null;
+        }
+
+        InputStream input = exchange.getRequestBody();
+        byte[] body = input.readNBytes(maxBodyBytes);
+        if (body.length == maxBodyBytes && input.read() >= 0) {
+            return null;
+        }
+        return body;
+    }
+
+    private void handleDelete(HttpExchange exchange, ExchangeHandler handler) throws IOException {
+        // Ohne gelesenen Request-Body schließt der JDK Server die Verbindung nach der Response
+        exchange.getRequestBody().readAllBytes();
+
+        String sessionId = exchange.getRequestHeaders().getFirst(SESSION_HEADER);
+        if (sessionId == null) {
+            sendStatus(exchange, 400);
+            return;
+        }
+
+        HttpSession session = sessions.remove(sessionId);
+        if (session == null) {
+            sendStatus(exchange, 404);
+            return;
+        }
+
+        log.info("{} vom Client beendet", session);
+        handler.onSessionClosed(session);
+        sendStatus(exchange, 204);
+    }
+
+    private void sendJson(HttpExchange exchange, int status, Object payload) throws IOException {
+        ResponseEncoder encoder = encoders.get();
+        encoder.encode(payload);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE_JSON);
+        // Ein gestreamtes Ergebnis geht chunked raus, dann muss seine Länge nicht vorab bekannt sein
+        exchange.sendResponseHeaders(status, encoder.streaming() ? 0 : encoder.size());
+        encoder.writeTo(exchange.getResponseBody());
+    }
+
+    private static void sendStatus(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    /**
+     * Anzahl der Sendungen, die zu einer Nachricht kommen: eine pro Request mit id und pro
+     * Fehler, bei einer Batch höchstens eine.
+     */
+    private static int expectedResponses(JsonRpcMessage message) {
+        int expected = message.getErrors().size();
+        for (JsonRpcRequest request : message.getRequests()) {
+            if (!request.isNotification()) {
+                expected++;
+            }
+        }
+        return message.isBatch() ? Math.min(expected, 1) : expected;
+    }
+
+    private boolean isAllowedOrigin(String origin) {
+        for (String allowed : config.getAllowedOrigins()) {
+            if (allowed.equals("*") || allowed.equalsIgnoreCase(origin)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsInitialize(JsonRpcMessage message) {
+        for (JsonRpcRequest request : message.getRequests()) {
+            if (METHOD_INITIALIZE.equals(request.getMethod())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Clients dürfen JSON und SSE akzeptieren, dann antwortet der Server mit JSON, weil
+     * ein Body ohne Event-Framing günstiger ist. Fordert ein Request Fortschritt an
+     * ({@code _meta.progressToken}), wird SSE verwendet, damit die Notifications vor der
+     * Response ankommen.
+     */
+    private static boolean useEventStream(HttpExchange exchange, JsonRpcMessage message) {
+        boolean json = false;
+        boolean eventStream = false;
+        for (String accept : exchange.getRequestHeaders().getOrDefault("Accept", List.of())) {
+            json |= accept.contains(CONTENT_TYPE_JSON) || accept.contains("*/*");
+            eventStream |= accept.contains(CONTENT_TYPE_SSE);
+        }
+        return eventStream && (!json || requestsProgress(message));
+    }
+
+    private static boolean requestsProgress(JsonRpcMessage message) {
+        for (JsonRpcRequest request : message.getRequests()) {
+            if (request.getParams() != null && request.getParams().path(PARAM_META).has(PARAM_PROGRESS_TOKEN)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ExecutorService createExecutor(int threads) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("mcp-http-");
+        threadFactory.setDaemon(true);
+
+        return new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                threadFactory
+        );
+    }
+
+    private static ScheduledExecutorService createSessionExpiry() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("mcp-http-expiry-");
+        threadFactory.setDaemon(true);
+        return Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    /**
+     * Ein POST, der auf seine Responses wartet, ohne einen Thread zu belegen.
+     * <p>
+     * Jede neue Response im {@link HttpResponseChannel} weckt den Exchange. Höchstens ein
+     * Thread des Pools schreibt zur Zeit, weitere Weckrufe während des Schreibens werden über
+     * {@code wakeUps} gezählt und vom schreibenden Thread mit abgearbeitet. Bis
+     * {@link #start} fertig ist, hält der Thread des Exchange selbst diese Rolle, damit bei
+     * Server-Sent Events kein Event vor den Headern geschrieben wird.
+     * </p>
+     */
+    private final class PendingExchange {
+
+        private final HttpExchange exchange;
+        private final HttpSession session;
+        private final int expected;
+        private final boolean eventStream;
+        private final HttpResponseChannel channel;
+        private final AtomicInteger wakeUps = new AtomicInteger(1);
+        private final List<Object> payloads = new ArrayList<>();
+        private int received;
+        private boolean finished;
+
+        PendingExchange(HttpExchange exchange, HttpSession session, int expected, boolean eventStream) {
+            this.exchange = exchange;
+            this.session = session;
+            this.expected = expected;
+            this.eventStream = eventStream;
+            this.channel = new HttpResponseChannel(session, this::wakeUp);
+        }
+
+        /**
+         * Übergibt die Nachricht dem Handler und schreibt, was bereits vorliegt.
+         *
+         * @return false wenn der Exchange schon beantwortet ist und vom Aufrufer geschlossen wird
+         */
+        boolean start(ExchangeHandler handler, JsonRpcMessage message) throws IOException {
+            try {
+                handler.onMessage(message, channel);
+                if (expected == 0) {
+                    sendStatus(exchange, 202);
+                    release();
+                    return false;
+                }
+                if (eventStream) {
+                    exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE_SSE);
+                    exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+                    exchange.sendResponseHeaders(200, 0);
+                }
+            } catch (IOException | RuntimeException e) {
+                release();
+                throw e;
+            }
+
+            pendingExchanges.add(this);
+            drain();
+            return true;
+        }
+
+        /**
+         * Beendet den Exchange, auch vorzeitig. Nicht gesendete Responses geben ihre Ressourcen frei.
+         */
+        synchronized void finish() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            try {
+                release();
+                payloads.forEach(ResponseEncoder::release);
+                payloads.clear();
+            } finally {
+                exchange.close();
+                pendingExchanges.remove(this);
+                exchangeFinished();
+            }
+        }
+
+        private void wakeUp() {
+            if (wakeUps.getAndIncrement() != 0) {
+                return;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Der Transport wird beendet
+                finish();
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            while (true) {
+                write();
+                missed = wakeUps.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private synchronized void write() {
+            if (finished) {
+                return;
+            }
+            try {
+                if (eventStream) {
+                    writeEvents();
+                } else {
+                    collectResponses();
+                }
+            } catch (IOException e) {
+                log.warn("HTTP Exchange abgebrochen: {}", e.getMessage());
+                finish();
+            } finally {
+                encoders.get().reset();
+            }
+        }
+
+        /**
+         * Sammelt die Responses und schreibt sie als einen JSON-Body, sobald alle da sind.
+         * Entfallen alle, weil die Requests abgebrochen wurden, wird 202 ohne Body gesendet.
+         * Notifications können in einem JSON-Body nicht zugestellt werden und entfallen.
+         */
+        private void collectResponses() throws IOException {
+            Object payload;
+            while (received < expected && (payload = channel.poll()) != null) {
+                if (payload instanceof JsonRpcNotification) {
+                    continue;
+                }
+                received++;
+                if (payload != HttpResponseChannel.DROPPED) {
+                    payloads.add(payload);
+                }
+            }
+            if (received < expected) {
+                return;
+            }
+
+            if (payloads.isEmpty()) {
+                sendStatus(exchange, 202);
+            } else {
+                Object body = payloads.size() == 1 ? payloads.get(0) : List.copyOf(payloads);
+                payloads.clear();
+                sendJson(exchange, 200, body);
+            }
+            finish();
+        }
+
+        /**
+         * Schreibt jede Notification und Response als Server-Sent Event und schließt den Stream
+         * nach der letzten Response.
+         */
+        private void writeEvents() throws IOException {
+            ResponseEncoder encoder = encoders.get();
+            OutputStream output = exchange.getResponseBody();
+            Object payload;
+            while (received < expected && (payload = channel.poll()) != null) {
+                if (!(payload instanceof JsonRpcNotification)) {
+                    received++;
+                }
+                if (payload == HttpResponseChannel.DROPPED || !encoder.encode(payload)) {
+                    continue;
+                }
+                output.write(EVENT_PREFIX);
+                encoder.writeTo(output);
+                output.write(EVENT_SUFFIX);
+                output.flush();
+            }
+            if (received == expected) {
+                finish();
+            }
+        }
+
+        private void release() {
+            // Später eintreffende Responses werden ab jetzt verworfen
+            channel.close();
+            session.leave();
+        }
+    }
+}
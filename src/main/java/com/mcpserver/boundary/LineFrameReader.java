@@ -0,0 +1,204 @@
+package com.mcpserver.boundary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Zerlegt einen Byte-Stream in newline-getrennte Frames.
+ * <p>
+ * Liest in einen wiederverwendbaren Heap-{@link ByteBuffer} und sucht direkt auf den
+ * Bytes nach {@code '\n'}. Ein Frame wird nur als Bereich im Puffer beschrieben
+ * ({@link #array()}, {@link #frameOffset()}, {@link #frameLength()}) und kann ohne
+ * String- oder char[]-Kopie an den JSON-Parser gegeben werden. Der Bereich ist nur bis
+ * zum nächsten Aufruf von {@link #next()} gültig.
+ * </p>
+ * <p>
+ * Da UTF-8 Multibyte-Sequenzen nie das Byte {@code 0x0A} enthalten, ist die Suche auf
+ * Byte-Ebene sicher. Frames, die größer als der Puffer sind, lassen ihn wachsen, höchstens bis
+ * {@code mcp.stdio.max-frame-bytes}. Längere Zeilen werden bis zum nächsten Newline
+ * übersprungen und mit einer {@link FrameTooLargeException} gemeldet.
+ * Nicht thread-safe, wird nur vom Reader-Thread benutzt.
+ * </p>
+ */
+class LineFrameReader implements FrameReader {
+
+    private static final byte NEWLINE = '\n';
+
+    /**
+     * Größter Puffer, den ein Java-Array sicher erreichen kann.
+     */
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private final InputStream input;
+
+    /**
+     * Größte erlaubte Zeile, ein {@code '\r'} vor dem Newline zählt nicht mit.
+     */
+    private final long maxLineBytes;
+
+    /**
+     * Ungelesene Daten liegen zwischen position und limit.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Ab hier wurde noch nicht nach einem Newline gesucht.
+     */
+    private int scanPosition;
+
+    private int frameOffset;
+    private int frameLength;
+    private boolean endOfStream;
+
+    /**
+     * @param input           Stream mit den Frames
+     * @param initialCapacity Anfangsgröße des Lesepuffers
+     * @param maxFrameBytes   Größte Zeile, die noch gelesen wird
+     */
+    LineFrameReader(InputStream input, int initialCapacity, int maxFrameBytes) {
+        this.input = input;
+        this.maxLineBytes = maxFrameBytes + 1L;
+        this.buffer = ByteBuffer.allocate(initialCapacity);
+        this.buffer.limit(0);
+    }
+
+    /**
+     * Rückt zum nächsten nicht-leeren Frame vor.
+     * <p>
+     * Blockiert, bis ein vollständiger Frame vorliegt. Führende und abschließende
+     * Whitespace-Bytes (inkl. {@code '\r'}) werden abgeschnitten, leere Zeilen übersprungen.
+     * Ein letzter Frame ohne abschließendes Newline wird beim Stream-Ende noch geliefert.
+     * </p>
+     *
+     * @return true wenn ein Frame verfügbar ist, false wenn der Stream zu Ende ist
+     * @throws FrameTooLargeException Wenn die Zeile länger als erlaubt ist, sie wurde dann übersprungen
+     * @throws IOException Bei Lese-Fehlern
+     */
+    @Override
+    public boolean next() throws IOException {
+        byte[] data = buffer.array();
+
+        while (true) {
+            int limit = buffer.limit();
+            for (int i = scanPosition; i < limit; i++) {
+                if (data[i] == NEWLINE) {
+                    int start = buffer.position();
+                    boolean found = setFrame(start, i);
+                    buffer.position(i + 1);
+                    scanPosition = i + 1;
+                    if (i - start > maxLineBytes) {
+                        throw tooLarge();
+                    }
+                    if (found) {
+                        return true;
+                    }
+                }
+            }
+            scanPosition = limit;
+
+            if (limit - buffer.position() > maxLineBytes) {
+                skipLine();
+                throw tooLarge();
+            }
+
+            if (endOfStream || !fill()) {
+                boolean found = setFrame(buffer.position(), buffer.limit());
+                buffer.position(buffer.limit());
+                return found;
+            }
+            data = buffer.array();
+        }
+    }
+
+    @Override
+    public byte[] array() {
+        return buffer.array();
+    }
+
+    @Override
+    public int frameOffset() {
+        return frameOffset;
+    }
+
+    @Override
+    public int frameLength() {
+        return frameLength;
+    }
+
+    /**
+     * Liest weitere Bytes vom Stream nach. Verschiebt vorher die ungelesenen Daten an den
+     * Pufferanfang und vergrößert den Puffer, wenn er bereits voll ist.
+     *
+     * @return false wenn der Stream zu Ende ist
+     */
+    private boolean fill() throws IOException {
+        int consumed = buffer.position();
+        if (consumed > 0) {
+            buffer.compact().flip();
+            scanPosition -= consumed;
+        }
+        if (buffer.limit() == buffer.capacity()) {
+            // Über maxLineBytes hinaus muss er nicht wachsen, next() bricht die Zeile dort ab
+            int capacity = (int) Math.min(Math.min(buffer.capacity() * 2L, maxLineBytes + 1), MAX_CAPACITY);
+            ByteBuffer larger = ByteBuffer.allocate(capacity);
+            larger.put(buffer).flip();
+            buffer = larger;
+        }
+
+        int limit = buffer.limit();
+        int read = input.read(buffer.array(), limit, buffer.capacity() - limit);
+        if (read < 0) {
+            endOfStream = true;
+            return false;
+        }
+        buffer.limit(limit + read);
+        return true;
+    }
+
+    /**
+     * Verwirft eine zu lange Zeile bis einschließlich ihres Newlines. Ihr Anfang im Puffer
+     * ist bereits durchsucht, der Rest wird blockweise in den Puffer gelesen und verworfen.
+     */
+    private void skipLine() throws IOException {
+        byte[] data = buffer.array();
+        buffer.clear().limit(0);
+        scanPosition = 0;
+
+        while (true) {
+            int read = input.read(data, 0, data.length);
+            if (read < 0) {
+                endOfStream = true;
+                return;
+            }
+            for (int i = 0; i < read; i++) {
+                if (data[i] == NEWLINE) {
+                    buffer.limit(read).position(i + 1);
+                    scanPosition = i + 1;
+                    return;
+                }
+            }
+        }
+    }
+
+    private FrameTooLargeException tooLarge() {
+        return new FrameTooLargeException("Line exceeds limit of " + (maxLineBytes - 1) + " bytes");
+    }
+
+    private boolean setFrame(int start, int end) {
+        byte[] data = buffer.array();
+        while (start < end && isWhitespace(data[start])) {
+            start++;
+        }
+        while (end > start && isWhitespace(data[end - 1])) {
+            end--;
+        }
+        frameOffset = start;
+        frameLength = end - start;
+        return frameLength > 0;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
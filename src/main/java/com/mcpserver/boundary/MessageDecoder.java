@@ -0,0 +1,165 @@
+package com.mcpserver.boundary;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.mcpserver.entity.JsonRpcError;
+import com.mcpserver.entity.JsonRpcMessage;
+import com.mcpserver.entity.JsonRpcRequest;
+import com.mcpserver.entity.JsonRpcResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dekodiert einen Frame (eine JSON-Zeile) zu einer {@link JsonRpcMessage}.
+ * <p>
+ * Wird von allen Transporten geteilt, damit stdio und Sockets Requests gleich behandeln.
+ * Der Frame wird direkt aus dem Byte-Puffer des Transports von einem gecachten
+ * {@link ObjectReader} geparst. Beginnt er mit {@code '['}, wird er als JSON-RPC Batch gelesen.
+ * Ungültiges JSON führt nicht zu einer Exception, sondern zu einer Nachricht mit
+ * "Parse error" bzw. "Invalid Request", damit der Transport weiterläuft.
+ * </p>
+ * <p>
+ * Thread-safe, hält keinen Zustand außer dem ObjectReader.
+ * </p>
+ */
+@Slf4j
+class MessageDecoder {
+
+    private static final byte BATCH_START = '[';
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader requestReader;
+
+    MessageDecoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.requestReader = objectMapper.readerFor(JsonRpcRequest.class);
+    }
+
+    /**
+     * Dekodiert einen Frame. Führender und abschließender Whitespace wird ignoriert.
+     *
+     * @param data   Puffer mit dem Frame
+     * @param offset Beginn des Frames
+     * @param length Länge des Frames
+     * @return Die Nachricht oder null, wenn der Frame leer ist
+     * @throws IOException Bei Fehlern, die nicht auf ungültige Eingabe zurückgehen
+     */
+    JsonRpcMessage decode(byte[] data, int offset, int length) throws IOException {
+        int end = offset + length;
+        while (offset < end && isWhitespace(data[offset])) {
+            offset++;
+        }
+        while (end > offset && isWhitespace(data[end - 1])) {
+            end--;
+        }
+        if (offset == end) {
+            return null;
+        }
+
+        if (log.isTraceEnabled()) {
+            log.trace("Received: {}", new String(data, offset, end - offset, StandardCharsets.UTF_8));
+        }
+
+        try {
+            if (data[offset] == BATCH_START) {
+                return readBatch(data, offset, end - offset);
+            }
+            return toMessage(requestReader.readValue(data, offset, end - offset));
+        } catch (StreamReadException e) {
+            log.warn("Ungültiges JSON empfangen: {}", e.getOriginalMessage());
+            return JsonRpcMessage.failed(JsonRpcError.parseError(e.getOriginalMessage()));
+        } catch (DatabindException e) {
+            log.warn("Ungültiger Request empfangen: {}", e.getOriginalMessage());
+            return JsonRpcMessage.failed(JsonRpcError.invalidRequest(e.getOriginalMessage()));
+        }
+    }
+
+    /**
+     * Liest einen Frame als einzelne Request, ohne Fehler in Nachrichten umzuwandeln.
+     *
+     * @throws IOException Bei ungültigem JSON
+     */
+    JsonRpcRequest decodeRequest(byte[] data, int offset, int length) throws IOException {
+        return requestReader.readValue(data, offset, length);
+    }
+
+    /**
+     * Liest eine Batch Eintrag für Eintrag aus dem Frame.
+     * <p>
+     * Einträge, die keine Objekte sind, keine method haben oder sich nicht auf
+     * {@link JsonRpcRequest} abbilden lassen, werden als "Invalid Request" Fehler
+     * gesammelt, statt die ganze Batch zu verwerfen.
+     * </p>
+     */
+    private JsonRpcMessage readBatch(byte[] data, int offset, int length) throws IOException {
+        List<JsonRpcRequest> requests = new ArrayList<>();
+        List<JsonRpcResponse> errors = new ArrayList<>();
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(data, offset, length)) {
+            parser.nextToken();
+            JsonStreamContext batchContext = parser.getParsingContext();
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new JsonParseException(parser, "Unexpected end of batch");
+                }
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    errors.add(JsonRpcResponse.error(null, JsonRpcError.invalidRequest("Batch entry is not an object")));
+                    continue;
+                }
+
+                JsonRpcRequest request;
+                try {
+                    request = requestReader.readValue(parser);
+                } catch (DatabindException e) {
+                    log.warn("Ungültiger Batch-Eintrag empfangen: {}", e.getOriginalMessage());
+                    skipToContext(parser, batchContext);
+                    errors.add(JsonRpcResponse.error(null, JsonRpcError.invalidRequest(e.getOriginalMessage())));
+                    continue;
+                }
+                if (request.getMethod() == null) {
+                    errors.add(JsonRpcResponse.error(request.getId(), JsonRpcError.invalidRequest("Missing method")));
+                } else {
+                    requests.add(request);
+                }
+            }
+        }
+
+        return JsonRpcMessage.batch(requests, errors);
+    }
+
+    /**
+     * Überspringt den Rest eines abgebrochenen Eintrags, bis der Parser wieder auf Ebene der Batch steht.
+     */
+    private static void skipToContext(JsonParser parser, JsonStreamContext context) throws IOException {
+        while (parser.getParsingContext() != context) {
+            if (parser.nextToken() == null) {
+                throw new JsonParseException(parser, "Unexpected end of batch");
+            }
+        }
+    }
+
+    private static JsonRpcMessage toMessage(JsonRpcRequest request) {
+        if (request.getMethod() == null) {
+            return new JsonRpcMessage(List.of(),
+                    List.of(JsonRpcResponse.error(request.getId(), JsonRpcError.invalidRequest("Missing method"))),
+                    false);
+        }
+        return JsonRpcMessage.single(request);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
@@ -0,0 +1,346 @@
+package com.mcpserver.boundary;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.core.io.NumberOutput;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.mcpserver.entity.JsonRpcError;
+import com.mcpserver.entity.JsonRpcNotification;
+import com.mcpserver.entity.JsonRpcResponse;
+import com.mcpserver.entity.StreamedResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serialisiert Responses in einen wiederverwendbaren Byte-Puffer.
+ * <p>
+ * Ein gecachter {@link ObjectWriter} schreibt jede Response direkt als UTF-8 in den Puffer,
+ * ohne Zwischen-String und ohne eigenes byte[] pro Response. Von dort wird sie ohne weitere
+ * Kopie in den Ausgabe-Stream geschrieben. Der Puffer behält seine Größe für die nächste
+ * Response, außer er ist über {@link #MAX_RETAINED_CAPACITY} gewachsen.
+ * </p>
+ * <p>
+ * Auch der {@link JsonGenerator} wird über alle Responses wiederverwendet, statt ihn pro
+ * Response neu anzulegen. Responses mit vorkodiertem Ergebnis ({@link RawValue}, z.B. aus
+ * initialize oder tools/list) und Zahl- oder String-id werden ganz ohne Jackson
+ * zusammengesetzt. Sie kosten damit praktisch keine Allokation.
+ * </p>
+ * <p>
+ * Ein {@link StreamedResult} landet nicht im Puffer: kodiert wird nur der Anfang der Response,
+ * {@link #writeTo(OutputStream)} schreibt das Ergebnis danach direkt in den Ausgabe-Stream.
+ * Alternativ übernimmt der Transport es mit {@link #detachStreamed()} und schreibt es selbst.
+ * </p>
+ * <p>
+ * Schlägt die Serialisierung fehl, wird der Puffer verworfen und stattdessen ein
+ * "Internal error" mit derselben id kodiert, damit nie eine halbe Zeile rausgeht.
+ * Nicht thread-safe, gehört genau einem Writer-Thread.
+ * </p>
+ */
+@Slf4j
+class ResponseEncoder {
+
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+    private static final String JSONRPC_VERSION = "2.0";
+    private static final byte[] RESULT_PREFIX = "{\"jsonrpc\":\"2.0\",\"id\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RESULT_FIELD = ",\"result\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte QUOTE = '"';
+    static final byte END_OBJECT = '}';
+
+    private final ObjectWriter responseWriter;
+    private final byte[] digits = new byte[20];
+    private final boolean streamResults;
+    private ExposedBuffer buffer = new ExposedBuffer(INITIAL_CAPACITY);
+    private JsonGenerator generator;
+
+    /**
+     * Ergebnis der zuletzt kodierten Response, das erst beim Schreiben folgt.
+     */
+    private StreamedResult streamed;
+
+    /**
+     * Ziel des wiederverwendeten Generators, schreibt in den jeweils aktuellen Puffer.
+     */
+    private final OutputStream target = new OutputStream() {
+        @Override
+        public void write(int b) {
+            buffer.write(b);
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) {
+            buffer.write(data, offset, length);
+        }
+    };
+
+    ResponseEncoder(ObjectMapper objectMapper) {
+        this(objectMapper, true);
+    }
+
+    /**
+     * @param streamResults false, wenn jede Response vollständig im Puffer liegen muss, z.B. für einen Mitschnitt
+     */
+    ResponseEncoder(ObjectMapper objectMapper, boolean streamResults) {
+        this.responseWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.streamResults = streamResults;
+    }
+
+    /**
+     * Kodiert eine Response oder eine Liste von Responses (Batch) in den Puffer.
+     * Der vorherige Inhalt wird verworfen.
+     *
+     * @param payload {@link JsonRpcResponse}, {@code List<JsonRpcResponse>} oder {@link JsonRpcNotification}
+     * @return false wenn eine Notification nicht kodiert werden konnte und entfällt
+     * @throws IOException Wenn auch die Fehler-Response nicht kodiert werden kann
+     */
+    boolean encode(Object payload) throws IOException {
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            buffer = new ExposedBuffer(INITIAL_CAPACITY);
+        }
+        reset();
+        buffer.reset();
+        try {
+            if (!writePreEncoded(payload) && !writeStreamedStart(payload)) {
+                JsonGenerator json = generator();
+                responseWriter.writeValue(json, payload);
+                json.flush();
+            }
+        } catch (JsonProcessingException e) {
+            discardGenerator();
+            if (payload instanceof JsonRpcNotification) {
+                // Ohne id gibt es keine Fehler-Response, die Notification kann nur entfallen
+                log.error("Notification konnte nicht serialisiert werden", e);
+                buffer.reset();
+                return false;
+            }
+            log.error("Response konnte nicht serialisiert werden", e);
+            buffer.reset();
+            JsonGenerator json = generator();
+            responseWriter.writeValue(json, toInternalError(payload, e));
+            json.flush();
+        } catch (IOException e) {
+            discardGenerator();
+            throw e;
+        }
+
+        if (log.isTraceEnabled()) {
+            log.trace("Sending: {}", buffer.toString(StandardCharsets.UTF_8));
+        }
+        return true;
+    }
+
+    /**
+     * Setzt eine erfolgreiche Response mit vorkodiertem Ergebnis direkt aus Bytes zusammen.
+     * Die Ausgabe entspricht der von Jackson.
+     *
+     * @return false wenn die Response über Jackson serialisiert werden muss
+     */
+    private boolean writePreEncoded(Object payload) {
+        if (!(payload instanceof JsonRpcResponse response)
+                || response.getError() != null
+                || !JSONRPC_VERSION.equals(response.getJsonrpc())
+                || !(response.getResult() instanceof RawValue raw)
+                || !(raw.rawValue() instanceof SerializableString result)) {
+            return false;
+        }
+
+        if (!writeResultStart(response.getId())) {
+            return false;
+        }
+        byte[] json = result.asUnquotedUTF8();
+        buffer.write(json, 0, json.length);
+        buffer.write(END_OBJECT);
+        return true;
+    }
+
+    /**
+     * Kodiert bei einem {@link StreamedResult} nur den Anfang der Response bis vor das Ergebnis.
+     *
+     * @return false wenn die Response über Jackson serialisiert werden muss
+     */
+    private boolean writeStreamedStart(Object payload) {
+        if (!streamResults
+                || !(payload instanceof JsonRpcResponse response)
+                || response.getError() != null
+                || !JSONRPC_VERSION.equals(response.getJsonrpc())
+                || !(response.getResult() instanceof StreamedResult result)
+                || !writeResultStart(response.getId())) {
+            return false;
+        }
+        streamed = result;
+        return true;
+    }
+
+    /**
+     * Schreibt {@code {"jsonrpc":"2.0","id":<id>,"result":} für Zahl- und String-ids.
+     */
+    private boolean writeResultStart(Object id) {
+        if (id instanceof Integer || id instanceof Long) {
+            buffer.write(RESULT_PREFIX, 0, RESULT_PREFIX.length);
+            buffer.write(digits, 0, NumberOutput.outputLong(((Number) id).longValue(), digits, 0));
+        } else if (id instanceof String text) {
+            buffer.write(RESULT_PREFIX, 0, RESULT_PREFIX.length);
+            buffer.write(QUOTE);
+            buffer.writeBytes(JsonStringEncoder.getInstance().quoteAsUTF8(text));
+            buffer.write(QUOTE);
+        } else {
+            return false;
+        }
+        buffer.write(RESULT_FIELD, 0, RESULT_FIELD.length);
+        return true;
+    }
+
+    private JsonGenerator generator() throws IOException {
+        if (generator == null) {
+            generator = responseWriter.createGenerator(target);
+            // Aufeinanderfolgende Responses sind eigene Frames, kein Trennzeichen zwischen ihnen
+            generator.setRootValueSeparator(null);
+        }
+        return generator;
+    }
+
+    /**
+     * Nach einem Fehler ist der Zustand des Generators unbekannt, er wird neu angelegt.
+     * Was er beim Schließen noch schreibt, verwirft der folgende reset des Puffers.
+     */
+    private void discardGenerator() {
+        if (generator == null) {
+            return;
+        }
+
+        try {
+            generator.close();
+        } catch (IOException e) {
+            log.debug("Generator konnte nicht geschlossen werden", e);
+        }
+        generator = null;
+    }
+
+    /**
+     * Schreibt die zuletzt kodierte Response ohne Kopie in den Stream, ein
+     * {@link StreamedResult} direkt aus seiner Quelle. Geht genau einmal pro {@link #encode(Object)}.
+     */
+    void writeTo(OutputStream output) throws IOException {
+        output.write(buffer.array(), 0, buffer.size());
+        if (streamed != null) {
+            StreamedResult result = streamed;
+            streamed = null;
+            result.writeTo(output);
+            output.write(END_OBJECT);
+        }
+    }
+
+    /**
+     * Übernimmt das {@link StreamedResult} der zuletzt kodierten Response, damit der Aufrufer
+     * es selbst in Teilen schreiben kann. {@link #writeTo(OutputStream)} schreibt danach nur
+     * noch den Anfang, die Response endet nach dem Ergebnis mit {@link #END_OBJECT}.
+     *
+     * @return Das Ergebnis oder null, wenn die Response vollständig im Puffer liegt
+     */
+    StreamedResult detachStreamed() {
+        StreamedResult result = streamed;
+        streamed = null;
+        return result;
+    }
+
+    /**
+     * Zugriff auf den Puffer, z.B. für einen Mitschnitt. Gültig sind die ersten {@link #size()}
+     * Bytes, bis zum nächsten {@link #encode(Object)}. Enthält die ganze Response nur, wenn
+     * der Encoder ohne streamResults angelegt wurde.
+     */
+    byte[] array() {
+        return buffer.array();
+    }
+
+    /**
+     * @return Anzahl der Bytes im Puffer
+     */
+    int size() {
+        return buffer.size();
+    }
+
+    /**
+     * @return true wenn das Ergebnis der zuletzt kodierten Response erst beim Schreiben folgt
+     */
+    boolean streaming() {
+        return streamed != null;
+    }
+
+    /**
+     * Länge der zuletzt kodierten Response einschließlich eines {@link StreamedResult}. Je nach
+     * Ergebnis kostet das einen zusätzlichen Kodier-Durchlauf, z.B. bei einer {@code MappedResource}.
+     *
+     * @return Länge in Bytes
+     */
+    long length() {
+        return streamed == null ? buffer.size() : buffer.size() + streamed.length() + 1;
+    }
+
+    /**
+     * Gibt ein {@link StreamedResult} frei, das kodiert, aber nicht geschrieben wurde,
+     * z.B. nach einem Schreibfehler.
+     */
+    void reset() {
+        if (streamed != null) {
+            streamed.close();
+            streamed = null;
+        }
+    }
+
+    /**
+     * Gibt die Ressourcen einer verworfenen Nachricht frei, die nie kodiert wird.
+     *
+     * @param payload {@link JsonRpcResponse}, {@code List<JsonRpcResponse>} oder {@link JsonRpcNotification}
+     */
+    static void release(Object payload) {
+        if (payload instanceof JsonRpcResponse response) {
+            response.release();
+        } else if (payload instanceof List<?> batch) {
+            for (Object entry : batch) {
+                release(entry);
+            }
+        }
+    }
+
+    private static Object toInternalError(Object payload, JsonProcessingException cause) {
+        JsonRpcError error = JsonRpcError.internalError("Response could not be serialized: " + cause.getOriginalMessage());
+        if (payload instanceof List<?> batch) {
+            List<JsonRpcResponse> errors = new ArrayList<>(batch.size());
+            for (Object entry : batch) {
+                errors.add(JsonRpcResponse.error(((JsonRpcResponse) entry).getId(), error));
+            }
+            return errors;
+        }
+        return JsonRpcResponse.error(((JsonRpcResponse) payload).getId(), error);
+    }
+
+    /**
+     * ByteArrayOutputStream mit Zugriff auf das interne Array.
+     */
+    private static class ExposedBuffer extends ByteArrayOutputStream {
+
+        ExposedBuffer(int capacity) {
+            super(capacity);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package com.mcpserver.boundary;
+
+import com.mcpserver.McpServerProperties;
+import com.mcpserver.entity.JsonRpcMessage;
+import com.mcpserver.entity.JsonRpcNotification;
+import com.mcpserver.entity.JsonRpcResponse;
+import com.mcpserver.entity.StreamedResult;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Eine Client-Verbindung des {@link SocketTransport}.
+ * <p>
+ * Jede Verbindung hat eigene Lese- und Schreibpuffer und eine eigene Ausgabe-Queue. Requests
+ * verschiedener Clients sind dadurch voneinander getrennt, auch wenn sie dieselben ids
+ * verwenden. Lesen, Kodieren und Schreiben passiert ausschließlich auf dem Event-Loop-Thread
+ * des Transports. Nur {@link #writeResponse(JsonRpcResponse)} und {@link #writeBatch(List)}
+ * werden von Worker-Threads aufgerufen und legen die Response lediglich in die Queue.
+ * </p>
+ * <p>
+ * Die Puffer wachsen nur bis zu festen Grenzen: Zeilen über {@code maxFrameBytes} schließen die
+ * Verbindung, und ab {@code maxPendingWriteBytes} ungesendeten Bytes liest der Transport keine
+ * weiteren Requests der Verbindung. Über {@link #MAX_RETAINED_CAPACITY} gewachsene Puffer werden
+ * wieder verkleinert, sobald sie leer genug sind.
+ * </p>
+ * <p>
+ * Ein {@link StreamedResult} wird nie am Stück in den Schreibpuffer kodiert. Die Session hält
+ * es als {@link StreamedWrite} und übernimmt bei jedem Schreibvorgang nur so viel, wie bis
+ * {@code maxPendingWriteBytes} passt. Nachfolgende Responses warten, bis es vollständig ist.
+ * </p>
+ */
+public class SocketSession {
+
+    private static final byte NEWLINE = '\n';
+    private static final byte[] STREAMED_END = {ResponseEncoder.END_OBJECT, NEWLINE};
+    private static final int STREAM_BUFFER_BYTES = 64 * 1024;
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private static final int MAX_BUFFER_CAPACITY = Integer.MAX_VALUE - 8;
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    private final long id = NEXT_ID.incrementAndGet();
+    private final SocketChannel channel;
+    private final SocketTransport transport;
+    private final Queue<Object> outbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+    private final int readBufferSize;
+    private final int writeBufferSize;
+    private final int maxFrameBytes;
+    private final int maxPendingWriteBytes;
+
+    /**
+     * Empfangene, noch nicht verarbeitete Bytes liegen zwischen 0 und position.
+     */
+    private ByteBuffer readBuffer;
+
+    /**
+     * Ab hier wurde noch nicht nach einem Newline gesucht.
+     */
+    private int scanPosition;
+
+    /**
+     * Kodierte, noch nicht gesendete Bytes liegen zwischen 0 und position.
+     */
+    private ByteBuffer writeBuffer;
+
+    /**
+     * Schreibt in den jeweils aktuellen Schreibpuffer und vergrößert ihn bei Bedarf.
+     */
+    private final OutputStream writeBufferStream = new OutputStream() {
+        @Override
+        public void write(int b) throws IOException {
+            ensureWritable(1);
+            writeBuffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            ensureWritable(length);
+            writeBuffer.put(data, offset, length);
+        }
+    };
+
+    /**
+     * Ergebnis der gerade gesendeten Response, solange es noch nicht vollständig im Schreibpuffer ist.
+     */
+    private StreamedWrite streamed;
+
+    private volatile boolean open = true;
+
+    SocketSession(SocketChannel channel, SocketTransport transport, McpServerProperties.Socket config) {
+        this.channel = channel;
+        this.transport = transport;
+        this.readBufferSize = config.getReadBufferSize();
+        this.writeBufferSize = config.getWriteBufferSize();
+        this.maxFrameBytes = config.getMaxFrameBytes();
+        this.maxPendingWriteBytes = config.getMaxPendingWriteBytes();
+        this.readBuffer = ByteBuffer.allocate(readBufferSize);
+        this.writeBuffer = ByteBuffer.allocate(writeBufferSize);
+    }
+
+    /**
+     * @return Fortlaufende Nummer der Verbindung, z.B. für Logs
+     */
+    public long id() {
+        return id;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Übergibt eine Response an den Event-Loop. Thread-safe und nicht blockierend.
+     *
+     * @param response Die zu sendende JSON-RPC Response
+     * @throws IOException Wenn die Verbindung bereits geschlossen ist
+     */
+    public void writeResponse(JsonRpcResponse response) throws IOException {
+        enqueue(response);
+    }
+
+    /**
+     * Übergibt die Responses einer Batch als ein JSON-Array an den Event-Loop.
+     *
+     * @param responses Die Responses der Batch-Einträge
+     * @throws IOException Wenn die Verbindung bereits geschlossen ist
+     */
+    public void writeBatch(List<JsonRpcResponse> responses) throws IOException {
+        enqueue(responses);
+    }
+
+    /**
+     * Übergibt eine Notification an den Event-Loop, z.B. notifications/progress.
+     *
+     * @param notification Die zu sendende Notification
+     * @throws IOException Wenn die Verbindung bereits geschlossen ist
+     */
+    public void writeNotification(JsonRpcNotification notification) throws IOException {
+        enqueue(notification);
+    }
+
+    @Override
+    public String toString() {
+        return "SocketSession[" + id + "]";
+    }
+
+    SocketChannel channel() {
+        return channel;
+    }
+
+    /**
+     * Liest verfügbare Bytes und übergibt jede vollständige Zeile als Nachricht.
+     *
+     * @return false wenn der Client die Verbindung geschlossen hat
+     * @throws IOException Auch wenn eine Zeile länger als {@code maxFrameBytes} ist
+     */
+    boolean readFrom(MessageDecoder decoder, SocketTransport.ConnectionHandler handler) throws IOException {
+        if (!readBuffer.hasRemaining()) {
+            // Platz für das Newline, damit Frames mit genau maxFrameBytes noch passen
+            int limit = maxFrameBytes + 1;
+            if (readBuffer.capacity() >= limit) {
+                throw new IOException("Frame exceeds " + maxFrameBytes + " bytes");
+            }
+            readBuffer = resize(readBuffer, (int) Math.min((long) readBuffer.capacity() * 2, limit));
+        }
+
+        int read = channel.read(readBuffer);
+        byte[] data = readBuffer.array();
+        int limit = readBuffer.position();
+        int frameStart = 0;
+
+        for (int i = scanPosition; i < limit; i++) {
+            if (data[i] == NEWLINE) {
+                deliver(decoder, handler, data, frameStart, i - frameStart);
+                frameStart = i + 1;
+            }
+        }
+
+        if (read < 0) {
+            // Letzte Zeile ohne abschließendes Newline wird wie bei stdin noch verarbeitet
+            deliver(decoder, handler, data, frameStart, limit - frameStart);
+            return false;
+        }
+
+        if (frameStart > 0) {
+            System.arraycopy(data, frameStart, data, 0, limit - frameStart);
+            readBuffer.position(limit - frameStart);
+            readBuffer = shrink(readBuffer, readBufferSize);
+        }
+        scanPosition = readBuffer.position();
+        return true;
+    }
+
+    /**
+     * Nimmt die Ausgabe-Queue zur Übertragung an. Ab jetzt eingehende Responses
+     * planen einen neuen Schreibvorgang ein.
+     *
+     * @return true wenn der Event-Loop die Queue abarbeiten soll
+     */
+    boolean takeWriteSchedule() {
+        return writeScheduled.getAndSet(false);
+    }
+
+    /**
+     * Kodiert anstehende Responses in den Schreibpuffer, bis {@code maxPendingWriteBytes}
+     * erreicht ist. Der Rest bleibt in der Queue, bis {@link #flush()} Platz geschaffen hat.
+     * Ein {@link StreamedResult} wird dabei nur angestoßen und in Teilen übernommen.
+     */
+    void drainOutbox(ResponseEncoder encoder) throws IOException {
+        Object payload;
+        while (transferStreamed() && !isBackedUp() && (payload = outbox.poll()) != null) {
+            if (!encoder.encode(payload)) {
+                continue;
+            }
+
+            StreamedResult result = encoder.detachStreamed();
+            encoder.writeTo(writeBufferStream);
+            if (result == null) {
+                writeBufferStream.write(NEWLINE);
+                continue;
+            }
+            StreamedWrite write = new StreamedWrite(result, STREAM_BUFFER_BYTES, this::requestWrite);
+            transport.stream(write);
+            streamed = write;
+        }
+    }
+
+    /**
+     * Verwirft die noch nicht kodierten Responses einer geschlossenen Verbindung und gibt
+     * ihre Ressourcen frei.
+     */
+    void discardOutbox() {
+        if (streamed != null) {
+            streamed.cancel();
+            streamed = null;
+        }
+
+        Object payload;
+        while ((payload = outbox.poll()) != null) {
+            ResponseEncoder.release(payload);
+        }
+    }
+
+    /**
+     * Schreibt so viel vom Schreibpuffer wie der Socket gerade annimmt.
+     *
+     * @return true wenn noch Bytes oder noch nicht kodierte Responses ausstehen. Während ein
+     * {@link StreamedResult} noch produziert wird, nur wenn schon Bytes davon bereitliegen,
+     * sonst meldet es sich selbst wieder beim Transport.
+     */
+    boolean flush() throws IOException {
+        writeBuffer.flip();
+        try {
+            channel.write(writeBuffer);
+        } finally {
+            writeBuffer.compact();
+        }
+        writeBuffer = shrink(writeBuffer, writeBufferSize);
+        if (writeBuffer.position() > 0) {
+            return true;
+        }
+        return streamed != null ? streamed.hasData() : !outbox.isEmpty();
+    }
+
+    /**
+     * Wartet blockierend auf weitere Bytes eines noch nicht vollständigen {@link StreamedResult}.
+     * Nur nach dem Ende des Event-Loops, wenn die restlichen Responses geschrieben werden.
+     *
+     * @return true wenn noch ein Ergebnis aussteht
+     */
+    boolean awaitStreamed() throws IOException {
+        if (streamed == null) {
+            return false;
+        }
+        streamed.awaitData();
+        return true;
+    }
+
+    /**
+     * @return true wenn so viele Bytes ungesendet sind, dass keine Requests mehr gelesen werden sollen
+     */
+    boolean isBackedUp() {
+        return writeBuffer.position() >= maxPendingWriteBytes;
+    }
+
+    void markClosed() {
+        open = false;
+    }
+
+    private void deliver(MessageDecoder decoder, SocketTransport.ConnectionHandler handler,
+                         byte[] data, int offset, int length) throws IOException {
+        JsonRpcMessage message = decoder.decode(data, offset, length);
+        if (message != null) {
+            handler.onMessage(this, message);
+        }
+    }
+
+    /**
+     * Übernimmt bereitliegende Bytes des laufenden {@link StreamedResult}, höchstens bis
+     * {@code maxPendingWriteBytes}, und schließt die Response ab, sobald es vollständig ist.
+     *
+     * @return true wenn kein Ergebnis mehr aussteht und die nächste Response folgen kann
+     * @throws IOException Wenn das Ergebnis nicht vollständig geschrieben werden konnte
+     */
+    private boolean transferStreamed() throws IOException {
+        if (streamed == null) {
+            return true;
+        }
+
+        int space = Math.min(maxPendingWriteBytes - writeBuffer.position(), STREAM_BUFFER_BYTES);
+        if (space > 0) {
+            ensureWritable(space);
+            streamed.transferTo(writeBuffer, space);
+        }
+        if (!streamed.isComplete()) {
+            return false;
+        }
+        streamed = null;
+        writeBufferStream.write(STREAMED_END);
+        return true;
+    }
+
+    private void ensureWritable(int length) throws IOException {
+        if (writeBuffer.remaining() >= length) {
+            return;
+        }
+        if (length > MAX_BUFFER_CAPACITY - writeBuffer.position()) {
+            throw new IOException("Response exceeds the write buffer of " + this);
+        }
+
+        long capacity = writeBuffer.capacity();
+        while (capacity - writeBuffer.position() < length) {
+            capacity *= 2;
+        }
+        capacity = Math.min(capacity, MAX_BUFFER_CAPACITY);
+        writeBuffer = resize(writeBuffer, (int) capacity);
+    }
+
+    /**
+     * Ersetzt einen über {@link #MAX_RETAINED_CAPACITY} gewachsenen Puffer durch einen in
+     * Anfangsgröße, sobald sein Inhalt wieder hineinpasst.
+     */
+    private static ByteBuffer shrink(ByteBuffer buffer, int initialSize) {
+        if (buffer.capacity() <= Math.max(initialSize, MAX_RETAINED_CAPACITY) || buffer.position() > initialSize) {
+            return buffer;
+        }
+        return resize(buffer, initialSize);
+    }
+
+    /**
+     * Kopiert die Bytes zwischen 0 und position in einen neuen Puffer.
+     */
+    private static ByteBuffer resize(ByteBuffer buffer, int capacity) {
+        ByteBuffer resized = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        resized.put(buffer);
+        return resized;
+    }
+
+    private void enqueue(Object payload) throws IOException {
+        if (!open) {
+            throw new IOException("Connection closed, dropping response");
+        }
+
+        outbox.add(payload);
+        requestWrite();
+    }
+
+    /**
+     * Meldet die Session beim Event-Loop an, falls sie nicht schon angemeldet ist.
+     */
+    private void requestWrite() {
+        if (writeScheduled.compareAndSet(false, true)) {
+            transport.scheduleWrite(this);
+        }
+    }
+}
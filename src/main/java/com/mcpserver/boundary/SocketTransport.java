@@ -0,0 +1,318 @@
+package com.mcpserver.boundary;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcpserver.McpServerProperties;
+import com.mcpserver.entity.JsonRpcMessage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Socket Transport - Kommunikation mit vielen Clients über TCP oder einen Unix Domain Socket.
+ * <p>
+ * Alternative zum {@link StdioMessageHandler}, damit eine warme JVM mehrere Clients bedienen
+ * kann, statt pro Client eine eigene JVM mit Spring Context und Heap zu starten. Das Framing
+ * ist dasselbe: eine JSON-RPC Nachricht pro Zeile, dekodiert vom {@link MessageDecoder}.
+ * </p>
+ * <p>
+ * Ein einzelner Event-Loop-Thread bedient alle Verbindungen über einen {@link Selector}.
+ * Jede Verbindung ist eine {@link SocketSession} mit eigenen Puffern. Responses aus
+ * Worker-Threads landen in der Queue der Session, der Event-Loop kodiert sie mit einem
+ * gemeinsamen {@link ResponseEncoder} und schreibt sie, sobald der Socket sie annimmt.
+ * Ein {@link com.mcpserver.entity.StreamedResult} schreibt ein eigener Thread in einen kleinen
+ * Puffer der Session, aus dem der Event-Loop es in Teilen abholt, siehe {@link StreamedWrite}.
+ * </p>
+ * <p>
+ * Der Transport ist nur aktiv, wenn {@code mcp.transport=socket} gesetzt ist.
+ * </p>
+ *
+ * @see McpServerProperties.Socket
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "mcp", name = "transport", havingValue = "socket")
+public class SocketTransport {
+
+    /**
+     * Empfänger der Nachrichten aller Verbindungen. Wird nur vom Event-Loop-Thread aufgerufen
+     * und sollte daher nicht blockieren.
+     */
+    public interface ConnectionHandler {
+
+        void onMessage(SocketSession session, JsonRpcMessage message);
+
+        /**
+         * Die Verbindung wurde geschlossen, ausstehende Responses werden verworfen.
+         */
+        void onClose(SocketSession session);
+    }
+
+    private final McpServerProperties.Socket config;
+    private final MessageDecoder decoder;
+    private final ResponseEncoder encoder;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Path socketPath;
+    private final Queue<SocketSession> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final ExecutorService streamExecutor = createStreamExecutor();
+
+    private volatile boolean closed;
+
+    @Autowired
+    public SocketTransport(ObjectMapper objectMapper, McpServerProperties properties) throws IOException {
+        this(objectMapper, properties.getSocket());
+    }
+
+    /**
+     * Öffnet und bindet den Server-Socket.
+     *
+     * @param objectMapper ObjectMapper für JSON-Verarbeitung
+     * @param config       Socket Konfiguration
+     * @throws IOException Wenn die Adresse nicht gebunden werden kann
+     */
+    public SocketTransport(ObjectMapper objectMapper, McpServerProperties.Socket config) throws IOException {
+        this.config = config;
+        this.decoder = new MessageDecoder(objectMapper);
+        this.encoder = new ResponseEncoder(objectMapper);
+
+        if (config.getPath() != null && !config.getPath().isBlank()) {
+            this.socketPath = Path.of(config.getPath());
+            // Eine liegengebliebene Socket-Datei eines früheren Laufs verhindert sonst das Binden
+            Files.deleteIfExists(socketPath);
+            this.serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            serverChannel.bind(UnixDomainSocketAddress.of(socketPath));
+        } else {
+            this.socketPath = null;
+            this.serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(config.getHost(), config.getPort()));
+        }
+
+        serverChannel.configureBlocking(false);
+        this.selector = Selector.open();
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        log.info("Socket Transport lauscht auf {}", localAddress());
+    }
+
+    /**
+     * @return Adresse, an die der Server-Socket gebunden ist, z.B. mit dem tatsächlichen Port
+     * @throws IOException Wenn der Socket bereits geschlossen ist
+     */
+    public SocketAddress localAddress() throws IOException {
+        return serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Führt den Event-Loop auf dem aufrufenden Thread aus, bis {@link #close()} aufgerufen wird.
+     * <p>
+     * Danach werden keine Verbindungen mehr angenommen und nichts mehr gelesen. Bestehende
+     * Verbindungen bleiben offen, bis {@link #closeSessions()} die restlichen Responses
+     * geschrieben hat.
+     * </p>
+     *
+     * @param handler Empfänger der Nachrichten
+     * @throws IOException Bei Fehlern des Selectors
+     */
+    public void serve(ConnectionHandler handler) throws IOException {
+        while (!closed) {
+            selector.select();
+            writePending(handler);
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid()) {
+                    continue;
+                }
+
+                if (key.isAcceptable()) {
+                    accept();
+                    continue;
+                }
+
+                SocketSession session = (SocketSession) key.attachment();
+                try {
+                    if (key.isReadable() && !session.readFrom(decoder, handler)) {
+                        log.info("{} vom Client geschlossen", session);
+                        closeSession(session, handler);
+                        continue;
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        session.drainOutbox(encoder);
+                        updateInterest(session, session.flush());
+                    }
+                } catch (IOException e) {
+                    log.warn("{} wird nach Fehler geschlossen: {}", session, e.getMessage());
+                    closeSession(session, handler);
+                }
+            }
+        }
+
+        serverChannel.close();
+        if (socketPath != null) {
+            Files.deleteIfExists(socketPath);
+        }
+    }
+
+    /**
+     * Beendet den Event-Loop. Thread-safe, z.B. aus einem Shutdown-Hook.
+     */
+    @PreDestroy
+    public void close() {
+        closed = true;
+        selector.wakeup();
+    }
+
+    /**
+     * Schreibt nach dem Ende des Event-Loops alle noch anstehenden Responses blockierend und
+     * schließt die Verbindungen. Wird aufgerufen, nachdem alle Requests abgeschlossen sind.
+     */
+    public void closeSessions() {
+        if (!selector.isOpen()) {
+            streamExecutor.shutdown();
+            return;
+        }
+
+        List<SocketSession> sessions = new ArrayList<>();
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof SocketSession session) {
+                sessions.add(session);
+            }
+        }
+
+        try {
+            // Schließt den Selector und deregistriert die Channels, erst dann dürfen sie blockieren
+            selector.close();
+        } catch (IOException e) {
+            log.warn("Selector konnte nicht geschlossen werden", e);
+        }
+
+        for (SocketSession session : sessions) {
+            session.markClosed();
+            try (SocketChannel channel = session.channel()) {
+                channel.configureBlocking(true);
+                do {
+                    // Blockierender Channel, flush kehrt erst zurück wenn Bytes gesendet wurden
+                    session.drainOutbox(encoder);
+                } while (session.flush() || session.awaitStreamed());
+            } catch (IOException e) {
+                log.warn("Ausstehende Responses für {} gingen verloren: {}", session, e.getMessage());
+                session.discardOutbox();
+            }
+        }
+        streamExecutor.shutdown();
+    }
+
+    /**
+     * Meldet eine Session mit neuen Responses beim Event-Loop an.
+     */
+    void scheduleWrite(SocketSession session) {
+        pendingWrites.add(session);
+        selector.wakeup();
+    }
+
+    /**
+     * Startet das Schreiben eines {@link com.mcpserver.entity.StreamedResult} auf einem eigenen Thread.
+     *
+     * @throws IOException Wenn der Transport bereits heruntergefahren ist
+     */
+    void stream(StreamedWrite write) throws IOException {
+        try {
+            streamExecutor.execute(write);
+        } catch (RejectedExecutionException e) {
+            write.cancel();
+            throw new IOException("Transport closed, dropping result", e);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+
+        channel.configureBlocking(false);
+        SocketSession session = new SocketSession(channel, this, config);
+        channel.register(selector, SelectionKey.OP_READ, session);
+        log.info("{} verbunden von {}", session, channel.getRemoteAddress());
+    }
+
+    /**
+     * Kodiert die Responses aller angemeldeten Sessions und schreibt so viel wie möglich.
+     * Was der Socket nicht sofort annimmt, wird bei OP_WRITE fortgesetzt.
+     */
+    private void writePending(ConnectionHandler handler) {
+        SocketSession session;
+        while ((session = pendingWrites.poll()) != null) {
+            if (!session.takeWriteSchedule() || !session.isOpen()) {
+                continue;
+            }
+
+            try {
+                session.drainOutbox(encoder);
+                updateInterest(session, session.flush());
+            } catch (IOException e) {
+                log.warn("{} wird nach Schreibfehler geschlossen: {}", session, e.getMessage());
+                closeSession(session, handler);
+            }
+        }
+    }
+
+    /**
+     * Liest keine Requests einer Session, solange ihr Client die Responses nicht abnimmt.
+     */
+    private void updateInterest(SocketSession session, boolean pending) {
+        SelectionKey key = session.channel().keyFor(selector);
+        if (key != null && key.isValid()) {
+            int ops = pending ? SelectionKey.OP_WRITE : 0;
+            if (!session.isBackedUp()) {
+                ops |= SelectionKey.OP_READ;
+            }
+            key.interestOps(ops);
+        }
+    }
+
+    private void closeSession(SocketSession session, ConnectionHandler handler) {
+        session.markClosed();
+        session.discardOutbox();
+        try {
+            session.channel().close();
+        } catch (IOException e) {
+            log.debug("Fehler beim Schließen von {}", session, e);
+        }
+        handler.onClose(session);
+    }
+
+    /**
+     * Ein Thread pro gerade gesendetem Ergebnis. Er wartet nur, solange sein Client langsamer
+     * liest, als das Ergebnis entsteht.
+     */
+    private static ExecutorService createStreamExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("mcp-socket-stream-");
+        threadFactory.setDaemon(true);
+        return Executors.newCachedThreadPool(threadFactory);
+    }
+}
@@ -1,15 +1,33 @@
 package com.mcpserver.boundary;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcpserver.McpServerProperties;
+import com.mcpserver.entity.JsonRpcError;
+import com.mcpserver.entity.JsonRpcMessage;
+import com.mcpserver.entity.JsonRpcNotification;
 import com.mcpserver.entity.JsonRpcRequest;
 import com.mcpserver.entity.JsonRpcResponse;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Stdio Message Handler - Kommunikation über stdin/stdout.
@@ -18,6 +36,32 @@ import java.io.PrintWriter;
  * Sie liest JSON-RPC Requests zeilenweise von stdin und schreibt JSON-RPC Responses nach stdout.
  * </p>
  * <p>
+ * Eingehende Zeilen werden auf Byte-Ebene vom {@link LineFrameReader} getrennt und direkt
+ * aus dem Lesepuffer vom {@link MessageDecoder} geparst, ohne Umweg über einen String.
+ * Beginnt eine Zeile mit {@code '['}, wird sie als JSON-RPC Batch gelesen.
+ * </p>
+ * <p>
+ * Responses werden nicht direkt geschrieben, sondern in eine Queue gelegt. Ein
+ * einzelner Writer-Thread leert die Queue, serialisiert jede Response über den
+ * {@link ResponseEncoder} in einen wiederverwendbaren Puffer und schreibt alle anstehenden
+ * Responses mit einem gepufferten Write und einem Flush pro Durchlauf. Dadurch brauchen
+ * Producer keine eigene Synchronisation, und unter Last fallen deutlich weniger Syscalls
+ * und keine Zwischenkopien pro Response an.
+ * </p>
+ * <p>
+ * Mit {@code mcp.stdio.framing=content-length} oder wenn der Client bei {@code auto} seine
+ * erste Nachricht mit einem {@code Content-Length} Header schickt, werden Nachrichten wie bei
+ * LSP mit Header gerahmt. Der {@link ContentLengthFrameReader} kennt dann die Größe jedes
+ * Bodies vorab und liest ihn ohne Suche nach Trennzeichen, der Writer stellt jeder Response
+ * den Header voran und schreibt sie direkt aus dem Puffer des Encoders. Ausgelagerte
+ * Tool-Ausgabe ({@link com.mcpserver.entity.StreamedResult}) geht direkt aus der temporären
+ * Datei in den Ausgabe-Stream.
+ * </p>
+ * <p>
+ * Ist {@code mcp.stdio.capture-file} gesetzt, schreibt ein {@link TrafficCapture} jeden
+ * gelesenen und jeden geschriebenen Frame mit Zeitstempel mit.
+ * </p>
+ * <p>
  * <strong>Wichtig:</strong> Alle Logs werden nach stderr geschrieben, um stdout sauber
  * zu halten (nur JSON-RPC Messages). Schreiben nach stdout würde die Kommunikation brechen.
  * </p>
@@ -27,53 +71,328 @@ import java.io.PrintWriter;
  */
 @Slf4j
 @Component
+@ConditionalOnProperty(prefix = "mcp", name = "transport", havingValue = "stdio", matchIfMissing = true)
 public class StdioMessageHandler {
 
-    private final ObjectMapper objectMapper;
-    private final BufferedReader reader;
-    private final PrintWriter writer;
+    private static final byte NEWLINE = '\n';
+    private static final byte[] CONTENT_LENGTH_HEADER = "Content-Length: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEADER_END = "\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Markiert das Ende der Ausgabe-Queue, wird per Identität verglichen.
+     */
+    private static final Object END_OF_OUTPUT = new Object();
+
+    private final MessageDecoder decoder;
+    private final InputStream input;
+    private final McpServerProperties.Stdio config;
+    private final byte[] lengthDigits = new byte[19];
+    private final OutputStream output;
+    private final long flushDelayNanos;
+    private final ResponseEncoder encoder;
+    private final BlockingQueue<Object> outbox = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    private final TrafficCapture capture;
+
+    private volatile boolean closed;
+
+    /**
+     * Wird beim ersten Lesen angelegt, bei AUTO erst nachdem das Framing erkannt ist.
+     */
+    private FrameReader frameReader;
+
+    /**
+     * Framing der Ausgabe, bis zur Erkennung bei AUTO zeilenweise.
+     */
+    private volatile boolean contentLengthOutput;
+
+    @Autowired
+    public StdioMessageHandler(ObjectMapper objectMapper, McpServerProperties properties) {
+        this(objectMapper, properties.getStdio(),
+                new FileInputStream(FileDescriptor.in), new FileOutputStream(FileDescriptor.out));
+    }
+
+    /**
+     * Erstellt einen Handler auf beliebigen Streams, z.B. für Tests oder Benchmarks.
+     *
+     * @param objectMapper ObjectMapper für JSON-Verarbeitung
+     * @param config       stdio Konfiguration
+     * @param input        Quelle der Requests
+     * @param output       Ziel der Responses
+     */
+    public StdioMessageHandler(ObjectMapper objectMapper, McpServerProperties.Stdio config,
+                               InputStream input, OutputStream output) {
+        this.decoder = new MessageDecoder(objectMapper);
+        this.input = input;
+        this.config = config;
+        this.contentLengthOutput = config.getFraming() == McpServerProperties.Framing.CONTENT_LENGTH;
+        this.output = new BufferedOutputStream(output, config.getWriteBufferSize());
+        this.flushDelayNanos = TimeUnit.MICROSECONDS.toNanos(config.getFlushDelayMicros());
+        this.capture = openCapture(config.getCaptureFile());
+        // Der Mitschnitt braucht jede Response vollständig im Puffer des Encoders
+        this.encoder = new ResponseEncoder(objectMapper, capture == null);
+        this.writerThread = new Thread(this::writeLoop, "mcp-stdout-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Liest eine JSON-RPC Nachricht von stdin, einzeln oder als Batch.
+     * <p>
+     * Blockiert bis eine Zeile verfügbar ist oder stdin geschlossen wird.
+     * Leere Zeilen werden ignoriert. Ungültiges JSON führt nicht zu einer Exception,
+     * sondern zu einer Nachricht mit "Parse error", damit der Server weiterläuft. Ebenso ergibt
+     * ein Frame über {@code mcp.stdio.max-frame-bytes} "Invalid Request".
+     * </p>
+     *
+     * @return JsonRpcMessage Objekt oder null wenn stdin geschlossen wurde
+     * @throws IOException Bei Lese-Fehlern
+     */
+    public JsonRpcMessage readMessage() throws IOException {
+        FrameReader frameReader = frameReader();
+        try {
+            if (!frameReader.next()) {
+                return null;
+            }
+        } catch (FrameReader.FrameTooLargeException e) {
+            log.warn("Frame verworfen: {}", e.getMessage());
+            return JsonRpcMessage.failed(JsonRpcError.invalidRequest(e.getMessage()));
+        }
 
-    public StdioMessageHandler(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
-        this.reader = new BufferedReader(new InputStreamReader(System.in));
-        this.writer = new PrintWriter(System.out, true);
+        captureInbound();
+        return decoder.decode(frameReader.array(), frameReader.frameOffset(), frameReader.frameLength());
     }
 
     /**
-     * Liest eine JSON-RPC Request von stdin.
+     * Liest eine einzelne JSON-RPC Request von stdin.
      * <p>
      * Blockiert bis eine Zeile verfügbar ist oder stdin geschlossen wird.
      * Leere Zeilen werden ignoriert.
      * </p>
      *
      * @return JsonRpcRequest Objekt oder null wenn stdin geschlossen wurde
-     * @throws IOException Bei Lese-Fehlern
+     * @throws IOException Bei Lese-Fehlern oder ungültigem JSON
      */
     public JsonRpcRequest readRequest() throws IOException {
-        String line = reader.readLine();
-
-        if (line == null || line.trim().isEmpty()) {
+        FrameReader frameReader = frameReader();
+        if (!frameReader.next()) {
             return null;
         }
-
-        log.debug("Received: {}", line);
-        return objectMapper.readValue(line, JsonRpcRequest.class);
+        captureInbound();
+        return decoder.decodeRequest(frameReader.array(), frameReader.frameOffset(), frameReader.frameLength());
     }
 
     /**
-     * Schreibt eine JSON-RPC Response nach stdout.
+     * Übergibt eine JSON-RPC Response an den Writer-Thread.
      * <p>
-     * Die Response wird als JSON-String serialisiert und als einzelne Zeile geschrieben.
-     * Nach dem Schreiben wird stdout geflusht, um sofortiges Senden sicherzustellen.
+     * Die Response wird in die Ausgabe-Queue gelegt. Der Writer-Thread serialisiert sie und
+     * schreibt sie als einzelne Zeile nach stdout, spätestens nach der konfigurierten
+     * Flush-Verzögerung. Die Methode ist thread-safe und blockiert nicht. Die Response darf
+     * danach nicht mehr verändert werden.
      * </p>
      *
      * @param response Die zu sendende JSON-RPC Response
-     * @throws IOException Bei Schreib-Fehlern
+     * @throws IOException Wenn die Ausgabe bereits geschlossen ist
      */
     public void writeResponse(JsonRpcResponse response) throws IOException {
-        String json = objectMapper.writeValueAsString(response);
-        log.debug("Sending: {}", json);
-        writer.println(json);
-        writer.flush();
+        enqueue(response);
+    }
+
+    /**
+     * Übergibt eine Notification an den Writer-Thread, sie wird wie eine Response als
+     * eigene Zeile geschrieben.
+     *
+     * @param notification Die zu sendende Notification, z.B. notifications/progress
+     * @throws IOException Wenn die Ausgabe bereits geschlossen ist
+     */
+    public void writeNotification(JsonRpcNotification notification) throws IOException {
+        enqueue(notification);
+    }
+
+    /**
+     * Übergibt die Responses einer Batch als ein JSON-Array an den Writer-Thread.
+     *
+     * @param responses Die Responses der Batch-Einträge
+     * @throws IOException Wenn die Ausgabe bereits geschlossen ist
+     */
+    public void writeBatch(List<JsonRpcResponse> responses) throws IOException {
+        enqueue(responses);
+    }
+
+    /**
+     * Schreibt alle noch anstehenden Responses und beendet den Writer-Thread.
+     * <p>
+     * Wird vom McpServer aufgerufen, nachdem alle Requests verarbeitet wurden.
+     * </p>
+     */
+    @PreDestroy
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        outbox.add(END_OF_OUTPUT);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (capture != null) {
+            capture.close();
+        }
+    }
+
+    private static TrafficCapture openCapture(Path file) {
+        if (file == null) {
+            return null;
+        }
+
+        try {
+            return TrafficCapture.open(file);
+        } catch (IOException e) {
+            log.warn("Mitschnitt {} kann nicht angelegt werden, Server läuft ohne", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Legt den FrameReader passend zum Framing an. Bei AUTO wird dafür das erste
+     * Nicht-Whitespace-Byte gelesen: eine JSON-Nachricht beginnt mit {@code '{'} oder
+     * {@code '['}, ein Header mit einem Buchstaben.
+     */
+    private FrameReader frameReader() throws IOException {
+        if (frameReader != null) {
+            return frameReader;
+        }
+
+        McpServerProperties.Framing framing = config.getFraming();
+        InputStream source = input;
+        if (framing == McpServerProperties.Framing.AUTO) {
+            PushbackInputStream pushback = new PushbackInputStream(input, 1);
+            int first;
+            do {
+                first = pushback.read();
+            } while (first == ' ' || first == '\t' || first == '\r' || first == '\n');
+            if (first >= 0) {
+                pushback.unread(first);
+            }
+            framing = first == '{' || first == '[' || first < 0
+                    ? McpServerProperties.Framing.NEWLINE
+                    : McpServerProperties.Framing.CONTENT_LENGTH;
+            source = pushback;
+            log.info("Framing erkannt: {}", framing);
+        }
+
+        if (framing == McpServerProperties.Framing.CONTENT_LENGTH) {
+            contentLengthOutput = true;
+            frameReader = new ContentLengthFrameReader(source, config.getReadBufferSize(), config.getMaxFrameBytes());
+        } else {
+            frameReader = new LineFrameReader(source, config.getReadBufferSize(), config.getMaxFrameBytes());
+        }
+        return frameReader;
+    }
+
+    private void captureInbound() {
+        if (capture != null) {
+            capture.record(TrafficCapture.Direction.INBOUND,
+                    frameReader.array(), frameReader.frameOffset(), frameReader.frameLength());
+        }
+    }
+
+    private void enqueue(Object payload) throws IOException {
+        if (closed) {
+            throw new IOException("Output closed, dropping response");
+        }
+
+        outbox.add(payload);
+    }
+
+    private void writeLoop() {
+        List<Object> batch = new ArrayList<>();
+        boolean endOfOutput = false;
+
+        int written = 0;
+        try {
+            while (!endOfOutput) {
+                endOfOutput = collectBatch(batch);
+                for (written = 0; written < batch.size(); written++) {
+                    Object payload = batch.get(written);
+                    if (!encoder.encode(payload)) {
+                        continue;
+                    }
+                    if (contentLengthOutput) {
+                        writeContentLengthHeader(encoder.length());
+                        encoder.writeTo(output);
+                    } else {
+                        encoder.writeTo(output);
+                        output.write(NEWLINE);
+                    }
+                    if (capture != null) {
+                        capture.record(TrafficCapture.Direction.OUTBOUND, encoder.array(), 0, encoder.size());
+                    }
+                }
+                output.flush();
+                batch.clear();
+            }
+        } catch (IOException e) {
+            log.error("Fehler beim Schreiben nach stdout, Ausgabe wird beendet", e);
+            closed = true;
+            // Nicht mehr gesendete Responses geben z.B. ausgelagerte Tool-Ausgabe frei
+            for (int i = written; i < batch.size(); i++) {
+                ResponseEncoder.release(batch.get(i));
+            }
+            Object pending;
+            while ((pending = outbox.poll()) != null) {
+                ResponseEncoder.release(pending);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Schreibt {@code Content-Length: n\r\n\r\n} ohne Zwischen-String in den Ausgabepuffer.
+     */
+    private void writeContentLengthHeader(long length) throws IOException {
+        int position = lengthDigits.length;
+        do {
+            lengthDigits[--position] = (byte) ('0' + length % 10);
+            length /= 10;
+        } while (length > 0);
+
+        output.write(CONTENT_LENGTH_HEADER);
+        output.write(lengthDigits, position, lengthDigits.length - position);
+        output.write(HEADER_END);
+    }
+
+    /**
+     * Sammelt die nächste Batch aus der Ausgabe-Queue.
+     * <p>
+     * Blockiert bis mindestens eine Response ansteht, nimmt dann alles Anstehende mit und
+     * wartet höchstens {@code flushDelayNanos} ab der ersten Response auf weitere.
+     * </p>
+     *
+     * @return true wenn das Ende der Ausgabe erreicht ist
+     */
+    private boolean collectBatch(List<Object> batch) throws InterruptedException {
+        Object next = outbox.take();
+        long deadline = System.nanoTime() + flushDelayNanos;
+
+        while (next != null) {
+            if (next == END_OF_OUTPUT) {
+                return true;
+            }
+            batch.add(next);
+
+            next = outbox.poll();
+            if (next == null && flushDelayNanos > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining > 0) {
+                    next = outbox.poll(remaining, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,193 @@
+package com.mcpserver.boundary;
+
+import com.mcpserver.entity.StreamedResult;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Überträgt ein {@link StreamedResult} in Teilen an den Event-Loop des {@link SocketTransport}.
+ * <p>
+ * {@link StreamedResult#writeTo(OutputStream)} schreibt das ganze Ergebnis am Stück und lässt
+ * sich nicht unterbrechen. Es läuft daher auf einem eigenen Thread und schreibt in einen
+ * Ringpuffer fester Größe. Ist er voll, wartet dieser Thread, bis der Event-Loop bei OP_WRITE
+ * Bytes in den Schreibpuffer der {@link SocketSession} übernommen hat. Der Event-Loop selbst
+ * wartet nie, er nimmt nur, was gerade im Ringpuffer liegt.
+ * </p>
+ * <p>
+ * Der Event-Loop wird geweckt, sobald in einen leeren Ringpuffer geschrieben wurde und wenn
+ * das Ergebnis vollständig ist.
+ * </p>
+ */
+final class StreamedWrite extends OutputStream implements Runnable {
+
+    private final StreamedResult result;
+    private final Runnable wakeUp;
+    private final byte[] ring;
+
+    /**
+     * Ungelesene Bytes liegen ab readIndex, über das Ende des Arrays hinaus am Anfang weiter.
+     */
+    private int readIndex;
+    private int count;
+    private boolean started;
+    private boolean complete;
+    private boolean cancelled;
+    private IOException failure;
+
+    /**
+     * @param result   Zu schreibendes Ergebnis
+     * @param capacity Größe des Ringpuffers in Bytes
+     * @param wakeUp   Meldet neue Bytes oder das Ende beim Event-Loop an
+     */
+    StreamedWrite(StreamedResult result, int capacity, Runnable wakeUp) {
+        this.result = result;
+        this.ring = new byte[capacity];
+        this.wakeUp = wakeUp;
+    }
+
+    /**
+     * Schreibt das Ergebnis auf dem aufrufenden Thread in den Ringpuffer.
+     */
+    @Override
+    public void run() {
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            started = true;
+        }
+
+        IOException error = null;
+        try {
+            result.writeTo(this);
+        } catch (IOException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            error = new IOException("Result could not be written: " + e.getMessage(), e);
+        }
+
+        synchronized (this) {
+            complete = true;
+            failure = error;
+            notifyAll();
+        }
+        wakeUp.run();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        while (length > 0) {
+            boolean wasEmpty;
+            int written;
+            synchronized (this) {
+                while (count == ring.length && !cancelled) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while streaming result");
+                    }
+                }
+                if (cancelled) {
+                    throw new IOException("Connection closed, dropping result");
+                }
+
+                wasEmpty = count == 0;
+                written = Math.min(length, ring.length - count);
+                int writeIndex = (readIndex + count) % ring.length;
+                int first = Math.min(written, ring.length - writeIndex);
+                System.arraycopy(data, offset, ring, writeIndex, first);
+                System.arraycopy(data, offset + first, ring, 0, written - first);
+                count += written;
+                notifyAll();
+            }
+
+            if (wasEmpty) {
+                wakeUp.run();
+            }
+            offset += written;
+            length -= written;
+        }
+    }
+
+    /**
+     * Übernimmt verfügbare Bytes in den Puffer, ohne zu warten. Nur für den Event-Loop.
+     *
+     * @param target Ziel, muss mindestens {@code maxBytes} freien Platz haben
+     * @param maxBytes Höchstens so viele Bytes
+     */
+    synchronized void transferTo(ByteBuffer target, int maxBytes) {
+        int length = Math.min(count, maxBytes);
+        if (length <= 0) {
+            return;
+        }
+
+        int first = Math.min(length, ring.length - readIndex);
+        target.put(ring, readIndex, first);
+        target.put(ring, 0, length - first);
+        readIndex = (readIndex + length) % ring.length;
+        count -= length;
+        notifyAll();
+    }
+
+    /**
+     * @return true wenn Bytes zur Übernahme bereitliegen
+     */
+    synchronized boolean hasData() {
+        return count > 0;
+    }
+
+    /**
+     * @return true wenn das Ergebnis vollständig übernommen wurde
+     * @throws IOException Wenn das Ergebnis nicht vollständig geschrieben werden konnte,
+     *                     die Zeile ist dann unbrauchbar
+     */
+    synchronized boolean isComplete() throws IOException {
+        if (count > 0 || !complete) {
+            return false;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return true;
+    }
+
+    /**
+     * Wartet blockierend, bis Bytes bereitliegen oder das Ergebnis fertig ist. Nur für das
+     * Schreiben der restlichen Responses beim Herunterfahren.
+     */
+    synchronized void awaitData() throws InterruptedIOException {
+        while (count == 0 && !complete && !cancelled) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for streamed result");
+            }
+        }
+    }
+
+    /**
+     * Bricht die Übertragung ab, z.B. weil die Verbindung geschlossen wurde. Ein schreibender
+     * Thread erhält eine IOException, ein nie gestartetes Ergebnis wird freigegeben.
+     */
+    void cancel() {
+        boolean release;
+        synchronized (this) {
+            cancelled = true;
+            release = !started;
+            notifyAll();
+        }
+        if (release) {
+            result.close();
+        }
+    }
+}
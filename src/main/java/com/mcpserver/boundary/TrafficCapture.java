@@ -0,0 +1,193 @@
+package com.mcpserver.boundary;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Mitschnitt des stdio Verkehrs für spätere Wiedergabe.
+ * <p>
+ * Jeder Frame wird mit Richtung und Zeitpunkt in eine Datei geschrieben. Das Format ist
+ * kompakt und ohne JSON-Overhead: nach dem Header {@value #MAGIC} folgt pro Frame ein Byte
+ * für die Richtung, der Abstand zum vorherigen Frame in Mikrosekunden und die Länge als
+ * Varint, dann die Bytes des Frames ohne Zeilenumbruch. Reader- und Writer-Thread schreiben
+ * über denselben gepufferten Stream, die Zeitstempel sind damit monoton.
+ * </p>
+ * <p>
+ * Ein Schreibfehler beendet nur den Mitschnitt, nie die Verarbeitung der Requests.
+ * </p>
+ *
+ * @see Reader
+ */
+@Slf4j
+public final class TrafficCapture implements Closeable {
+
+    static final String MAGIC = "MCPCAP1\n";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Richtung eines Frames aus Sicht des Servers.
+     */
+    public enum Direction {
+        INBOUND, OUTBOUND
+    }
+
+    private final Path file;
+    private final OutputStream output;
+    private final long startNanos = System.nanoTime();
+    private long lastMicros;
+    private boolean failed;
+
+    private TrafficCapture(Path file, OutputStream output) {
+        this.file = file;
+        this.output = output;
+    }
+
+    /**
+     * Legt die Datei an, eine vorhandene wird überschrieben.
+     *
+     * @param file Ziel des Mitschnitts
+     * @return Der offene Mitschnitt
+     * @throws IOException Wenn die Datei nicht angelegt werden kann
+     */
+    public static TrafficCapture open(Path file) throws IOException {
+        OutputStream output = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+        output.write(MAGIC.getBytes(StandardCharsets.US_ASCII));
+        log.info("Schneide stdio Verkehr nach {} mit", file);
+        return new TrafficCapture(file, output);
+    }
+
+    /**
+     * Hängt einen Frame an.
+     *
+     * @param direction Richtung des Frames
+     * @param data      Puffer mit dem Frame
+     * @param offset    Beginn des Frames im Puffer
+     * @param length    Länge des Frames in Bytes
+     */
+    public synchronized void record(Direction direction, byte[] data, int offset, int length) {
+        if (failed) {
+            return;
+        }
+
+        long micros = (System.nanoTime() - startNanos) / 1_000;
+        try {
+            output.write(direction.ordinal());
+            writeVarint(output, micros - lastMicros);
+            writeVarint(output, length);
+            output.write(data, offset, length);
+            lastMicros = micros;
+        } catch (IOException e) {
+            log.warn("Mitschnitt nach {} abgebrochen", file, e);
+            failed = true;
+        }
+    }
+
+    /**
+     * Schreibt die gepufferten Frames und schließt die Datei.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            output.close();
+        } catch (IOException e) {
+            log.warn("Mitschnitt {} konnte nicht geschlossen werden", file, e);
+        }
+        failed = true;
+    }
+
+    private static void writeVarint(OutputStream output, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        output.write((int) value);
+    }
+
+    /**
+     * Ein mitgeschnittener Frame.
+     *
+     * @param direction    Richtung aus Sicht des Servers
+     * @param offsetMicros Zeitpunkt relativ zum Beginn des Mitschnitts
+     * @param payload      Bytes des Frames ohne Zeilenumbruch
+     */
+    public record Frame(Direction direction, long offsetMicros, byte[] payload) {
+    }
+
+    /**
+     * Liest einen Mitschnitt Frame für Frame.
+     */
+    public static final class Reader implements Closeable {
+
+        private final InputStream input;
+        private long micros;
+
+        /**
+         * @param file Datei eines Mitschnitts
+         * @throws IOException Wenn die Datei fehlt oder kein Mitschnitt ist
+         */
+        public Reader(Path file) throws IOException {
+            this.input = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE);
+            byte[] header = input.readNBytes(MAGIC.length());
+            if (!MAGIC.equals(new String(header, StandardCharsets.US_ASCII))) {
+                input.close();
+                throw new IOException("Kein Mitschnitt: " + file);
+            }
+        }
+
+        /**
+         * @return Der nächste Frame oder null am Ende des Mitschnitts
+         * @throws IOException Bei Lesefehlern oder abgeschnittenem Frame
+         */
+        public Frame next() throws IOException {
+            int direction = input.read();
+            if (direction < 0) {
+                return null;
+            }
+            if (direction >= Direction.values().length) {
+                throw new IOException("Ungültige Richtung " + direction);
+            }
+
+            micros += readVarint();
+            long length = readVarint();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Frame zu groß: " + length);
+            }
+            byte[] payload = input.readNBytes((int) length);
+            if (payload.length < length) {
+                throw new EOFException("Frame abgeschnitten");
+            }
+            return new Frame(Direction.values()[direction], micros, payload);
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+
+        private long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = input.read();
+                if (b < 0) {
+                    throw new EOFException("Frame abgeschnitten");
+                }
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Ungültiger Varint");
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.mcpserver.control;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.mcpserver.entity.Content;
+import com.mcpserver.entity.StreamedResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Nimmt den Content eines Tool-Aufrufs Eintrag für Eintrag auf und ist selbst das Ergebnis.
+ * <p>
+ * Jeder Eintrag wird beim Schreiben zu JSON kodiert und als Bytes in Blöcken von etwa
+ * {@link #CHUNK_SIZE} gesammelt, die Content-Objekte des Tools werden sofort wieder frei.
+ * Übersteigt die Ausgabe {@link #MAX_BUFFERED_BYTES}, gehen weitere Blöcke in eine temporäre
+ * Datei. Der Heap bleibt so auch bei sehr großer Ausgabe flach.
+ * </p>
+ * <p>
+ * Als {@link StreamedResult} schreibt der Transport {@code {"content":[...]}} direkt in seinen
+ * Ausgabe-Stream, die Blöcke werden roh und ohne Zwischen-String übernommen, aus der Datei
+ * immer nur einer zur Zeit. Das geht genau einmal, danach ist die Datei gelöscht. Wird die
+ * Response verworfen, löscht {@link #close()} die Datei. Die Datei wird zusätzlich mit
+ * {@link StandardOpenOption#DELETE_ON_CLOSE} geöffnet.
+ * </p>
+ */
+@Slf4j
+final class ContentBuffer implements StreamedResult, JsonSerializable {
+
+    static final int CHUNK_SIZE = 16 * 1024;
+    static final int MAX_BUFFERED_BYTES = 1024 * 1024;
+
+    private static final byte SEPARATOR = ',';
+    private static final byte[] PREFIX = "{\"content\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SUFFIX = "]}".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectWriter contentWriter;
+    private final List<byte[]> chunks = new ArrayList<>();
+    private final ByteArrayOutputStream current = new ByteArrayOutputStream(CHUNK_SIZE);
+    private long bufferedBytes;
+    private long spilledBytes;
+    private int count;
+    private Path spillFile;
+    private FileChannel spill;
+    private boolean consumed;
+
+    ContentBuffer(ObjectWriter contentWriter) {
+        this.contentWriter = contentWriter;
+    }
+
+    /**
+     * Kodiert einen Eintrag und hängt ihn an.
+     */
+    synchronized void write(Content content) throws IOException {
+        if (consumed) {
+            throw new IllegalStateException("Tool-Ergebnis wurde bereits gesendet");
+        }
+
+        if (count > 0) {
+            current.write(SEPARATOR);
+        }
+        contentWriter.writeValue(current, content);
+        count++;
+
+        // Blöcke enden immer an Eintragsgrenzen, damit jeder für sich gültiges UTF-8 ist
+        if (current.size() >= CHUNK_SIZE) {
+            seal();
+        }
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    /**
+     * @return true wenn Blöcke in die temporäre Datei ausgelagert wurden
+     */
+    synchronized boolean spilled() {
+        return spill != null;
+    }
+
+    /**
+     * Verwirft den Inhalt und löscht die temporäre Datei, z.B. wenn das Tool fehlschlägt
+     * oder die Response abgebrochen wurde.
+     */
+    @Override
+    public synchronized void close() {
+        consumed = true;
+        release();
+    }
+
+    @Override
+    public synchronized long length() {
+        return PREFIX.length + bufferedBytes + spilledBytes + current.size() + SUFFIX.length;
+    }
+
+    @Override
+    public synchronized void writeTo(OutputStream output) throws IOException {
+        if (consumed) {
+            throw new IllegalStateException("Tool-Ergebnis wurde bereits gesendet");
+        }
+        consumed = true;
+
+        try {
+            output.write(PREFIX);
+            writeEntries(output);
+            output.write(SUFFIX);
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Fallback, wenn die Response nicht über {@link #writeTo(OutputStream)} gesendet wird,
+     * z.B. in einer Batch.
+     */
+    @Override
+    public synchronized void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        if (consumed) {
+            throw JsonMappingException.from(gen, "Tool-Ergebnis wurde bereits serialisiert");
+        }
+        consumed = true;
+
+        try {
+            gen.writeStartObject();
+            gen.writeFieldName("content");
+            gen.writeStartArray();
+            if (gen.getOutputTarget() instanceof OutputStream output) {
+                // Die Blöcke gehen an den Generator vorbei direkt in sein Ziel
+                gen.flush();
+                writeEntries(output);
+            } else {
+                ByteArrayOutputStream copy = new ByteArrayOutputStream();
+                writeEntries(copy);
+                gen.writeRaw(copy.toString(StandardCharsets.UTF_8));
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        } catch (IOException e) {
+            if (e instanceof JsonMappingException) {
+                throw e;
+            }
+            // Als Mapping-Fehler meldet der Encoder einen Internal error statt die Ausgabe zu beenden
+            throw JsonMappingException.from(gen, "Tool-Ergebnis konnte nicht gelesen werden", e);
+        } finally {
+            release();
+        }
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+
+    private void seal() throws IOException {
+        byte[] chunk = current.toByteArray();
+        current.reset();
+
+        if (spill == null && bufferedBytes + chunk.length <= MAX_BUFFERED_BYTES) {
+            chunks.add(chunk);
+            bufferedBytes += chunk.length;
+            return;
+        }
+
+        if (spill == null) {
+            spillFile = Files.createTempFile("mcp-tool-content-", ".json");
+            spill = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+            log.debug("Tool-Ausgabe größer als {} Bytes, lagere nach {} aus", MAX_BUFFERED_BYTES, spillFile);
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + chunk.length);
+        record.putInt(chunk.length).put(chunk).flip();
+        while (record.hasRemaining()) {
+            spill.write(record);
+        }
+        spilledBytes += chunk.length;
+    }
+
+    private void writeEntries(OutputStream output) throws IOException {
+        for (byte[] chunk : chunks) {
+            output.write(chunk);
+        }
+        if (spill != null) {
+            copySpill(output);
+        }
+        current.writeTo(output);
+    }
+
+    /**
+     * Liest die ausgelagerten Blöcke der Reihe nach zurück, es liegt immer nur einer im Speicher.
+     */
+    private void copySpill(OutputStream output) throws IOException {
+        long position = 0;
+        long size = spill.size();
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+
+        while (position < size) {
+            header.clear();
+            position += readFully(header, position);
+            int length = header.flip().getInt();
+
+            if (chunk.capacity() < length) {
+                chunk = ByteBuffer.allocate(length);
+            }
+            chunk.clear().limit(length);
+            position += readFully(chunk, position);
+            output.write(chunk.array(), 0, length);
+        }
+    }
+
+    private int readFully(ByteBuffer target, long position) throws IOException {
+        int total = 0;
+        while (target.hasRemaining()) {
+            int read = spill.read(target, position + total);
+            if (read < 0) {
+                throw new IOException("Unerwartetes Ende von " + spillFile);
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private void release() {
+        chunks.clear();
+        current.reset();
+        closeSpill();
+    }
+
+    private void closeSpill() {
+        if (spill == null) {
+            return;
+        }
+
+        try {
+            spill.close();
+            Files.deleteIfExists(spillFile);
+        } catch (IOException e) {
+            log.warn("Temporäre Datei {} konnte nicht gelöscht werden", spillFile, e);
+        }
+        spill = null;
+    }
+}
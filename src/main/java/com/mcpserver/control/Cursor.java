@@ -0,0 +1,31 @@
+package com.mcpserver.control;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Kodiert die Position einer paginierten Liste als undurchsichtigen MCP Cursor.
+ * <p>
+ * Der Cursor ist der Schlüssel des letzten gelieferten Eintrags, Base64url-kodiert. Die
+ * nächste Seite beginnt beim ersten Schlüssel dahinter. Einträge, die zwischen zwei Seiten
+ * hinzukommen oder wegfallen, verschieben damit keine anderen Einträge.
+ * </p>
+ */
+final class Cursor {
+
+    private Cursor() {
+    }
+
+    static String encode(String lastKey) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastKey.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor Cursor aus einer vorherigen Seite
+     * @return Schlüssel des letzten Eintrags dieser Seite
+     * @throws IllegalArgumentException Wenn der Cursor nicht von diesem Server stammt
+     */
+    static String decode(String cursor) {
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+}
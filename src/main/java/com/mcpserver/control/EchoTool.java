@@ -0,0 +1,57 @@
+package com.mcpserver.control;
+
+import com.mcpserver.entity.Tool;
+import com.mcpserver.entity.ToolResult;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Echo Tool - Gibt den übergebenen Text zurück.
+ */
+@Component
+public class EchoTool implements ToolHandler<EchoTool.Arguments> {
+
+    private static final String TOOL_ECHO_NAME = "echo";
+    private static final String TOOL_ECHO_DESCRIPTION = "Gibt den übergebenen Text zurück";
+    private static final String PARAM_MESSAGE = "message";
+
+    private static final Tool DESCRIPTOR = Tool.builder()
+            .name(TOOL_ECHO_NAME)
+            .description(TOOL_ECHO_DESCRIPTION)
+            .inputSchema(Map.of(
+                    "type", "object",
+                    "properties", Map.of(
+                            PARAM_MESSAGE, Map.of(
+                                    "type", "string",
+                                    "description", "Der Text, der zurückgegeben werden soll"
+                            )
+                    ),
+                    "required", List.of(PARAM_MESSAGE)
+            ))
+            .build();
+
+    @Override
+    public Tool descriptor() {
+        return DESCRIPTOR;
+    }
+
+    @Override
+    public Class<Arguments> argumentsType() {
+        return Arguments.class;
+    }
+
+    @Override
+    public ToolResult call(Arguments arguments) {
+        return ToolResult.text("Echo: " + arguments.message());
+    }
+
+    /**
+     * Argumente des Echo Tools.
+     *
+     * @param message Der Text, der zurückgegeben werden soll
+     */
+    public record Arguments(String message) {
+    }
+}
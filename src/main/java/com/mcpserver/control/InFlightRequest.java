@@ -0,0 +1,141 @@
+package com.mcpserver.control;
+
+import com.mcpserver.entity.JsonRpcRequest;
+import com.mcpserver.entity.JsonRpcResponse;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Ein angenommener Request, der noch nicht beantwortet wurde.
+ * <p>
+ * Genau einer von drei Ausgängen gewinnt: die normale Fertigstellung, ein Abbruch durch
+ * {@code notifications/cancelled} oder das Überschreiten der Deadline. Nur der Gewinner
+ * übergibt eine Response an die Completion, die anderen werden verworfen. Bei Abbruch und
+ * Deadline wird der ausführende Thread unterbrochen, damit das Tool nicht weiterläuft.
+ * </p>
+ * <p>
+ * Der Worker meldet sich mit {@link #begin()} an und mit {@link #end(JsonRpcResponse)} ab.
+ * Zustandswechsel und Interrupt laufen unter dem Monitor dieses Objekts. Nach der Abmeldung
+ * wird der Worker nicht mehr unterbrochen, ein verspätetes Interrupt-Flag wird gelöscht,
+ * damit es keinen späteren Request (oder im SEQUENTIAL-Modus den Reader-Thread) trifft.
+ * </p>
+ */
+final class InFlightRequest {
+
+    private static final int RUNNING = 0;
+    private static final int COMPLETED = 1;
+    private static final int CANCELLED = 2;
+    private static final int TIMED_OUT = 3;
+
+    private final JsonRpcRequest request;
+    private final Consumer<JsonRpcResponse> completion;
+    private final AtomicInteger state = new AtomicInteger(RUNNING);
+
+    // Nur unter dem Monitor dieses Objekts lesen oder schreiben
+    private Thread worker;
+
+    private volatile ScheduledFuture<?> deadline;
+
+    /**
+     * @param request    Der Request
+     * @param completion Erhält genau einmal die Response, null wenn keine gesendet werden soll
+     */
+    InFlightRequest(JsonRpcRequest request, Consumer<JsonRpcResponse> completion) {
+        this.request = request;
+        this.completion = completion;
+    }
+
+    JsonRpcRequest request() {
+        return request;
+    }
+
+    void deadline(ScheduledFuture<?> deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Meldet den aktuellen Thread als Ausführenden an.
+     *
+     * @return false wenn der Request schon abgebrochen oder abgelaufen ist und nicht mehr laufen soll
+     */
+    boolean begin() {
+        synchronized (this) {
+            if (state.get() != RUNNING) {
+                return false;
+            }
+            worker = Thread.currentThread();
+            return true;
+        }
+    }
+
+    /**
+     * Meldet den Worker ab und übergibt die Response, falls der Request noch nicht
+     * abgebrochen oder abgelaufen ist. Sonst wird sie verworfen und gibt ihre Ressourcen frei.
+     */
+    void end(JsonRpcResponse response) {
+        boolean completed;
+        synchronized (this) {
+            worker = null;
+            completed = state.compareAndSet(RUNNING, COMPLETED);
+        }
+        Thread.interrupted();
+
+        if (completed) {
+            cancelDeadline();
+            completion.accept(response);
+        } else if (response != null) {
+            response.release();
+        }
+    }
+
+    /**
+     * Bricht den Request ab. Es wird keine Response gesendet.
+     *
+     * @return true wenn der Request noch lief
+     */
+    boolean cancel() {
+        synchronized (this) {
+            if (!state.compareAndSet(RUNNING, CANCELLED)) {
+                return false;
+            }
+            interruptWorker();
+        }
+        cancelDeadline();
+        completion.accept(null);
+        return true;
+    }
+
+    /**
+     * Beendet den Request wegen überschrittener Deadline mit der übergebenen Response.
+     *
+     * @return true wenn der Request noch lief
+     */
+    boolean expire(JsonRpcResponse timeoutResponse) {
+        synchronized (this) {
+            if (!state.compareAndSet(RUNNING, TIMED_OUT)) {
+                return false;
+            }
+            // Erst senden, dann unterbrechen: im SEQUENTIAL-Modus bleibt so die Reihenfolge erhalten
+            completion.accept(timeoutResponse);
+            interruptWorker();
+            return true;
+        }
+    }
+
+    private void interruptWorker() {
+        synchronized (this) {
+            if (worker != null) {
+                worker.interrupt();
+            }
+        }
+    }
+
+    private void cancelDeadline() {
+        ScheduledFuture<?> scheduled = deadline;
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+    }
+}
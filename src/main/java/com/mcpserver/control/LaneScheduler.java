@@ -0,0 +1,342 @@
+package com.mcpserver.control;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Worker-Pool mit getrennten Lanes für Kontroll-Nachrichten und Tool-Aufrufe.
+ * <p>
+ * Kontroll-Nachrichten (Lane {@code null}) haben Vorrang und dürfen jeden freien Worker
+ * nutzen. Tool-Aufrufe belegen höchstens {@code workers - reservedForControl} Worker, die
+ * übrigen bleiben für Kontroll-Nachrichten frei. Auch wenn alle Tool-Worker mit langsamen
+ * Aufrufen beschäftigt sind, wird ein {@code ping} oder {@code tools/list} damit sofort
+ * bearbeitet.
+ * </p>
+ * <p>
+ * Innerhalb der Tool-Lane hat jeder Schlüssel (typischerweise der Tool-Name) eine eigene
+ * Queue. Zwischen den Queues wird nach Start-Time Fair Queueing gewählt: jeder Auftrag
+ * bekommt beim Einreihen einen virtuellen Startzeitpunkt, der pro Schlüssel um
+ * {@code 1 / Gewicht} wächst, ausgeführt wird immer der Auftrag mit dem kleinsten. Ein Tool
+ * mit Gewicht 2 kommt so doppelt so oft an die Reihe wie eines mit Gewicht 1, und ein Tool
+ * mit vielen wartenden Aufrufen verdrängt die anderen nicht. Leere Queues werden entfernt,
+ * ein Schlüssel kann keinen Vorsprung ansparen.
+ * </p>
+ * <p>
+ * Worker werden bei Bedarf gestartet. {@link #shutdown()} arbeitet wie bei einem
+ * {@link java.util.concurrent.ExecutorService} alle angenommenen Aufträge noch ab.
+ * </p>
+ */
+@Slf4j
+final class LaneScheduler {
+
+    private static final int DEFAULT_WEIGHT = 1;
+
+    private final int maxWorkers;
+    private final int maxToolWorkers;
+    private final Map<String, Integer> weights;
+    private final ThreadFactory threadFactory;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Condition terminated = lock.newCondition();
+
+    private final ArrayDeque<Runnable> controlQueue = new ArrayDeque<>();
+    private final Map<String, Flow> flows = new HashMap<>();
+    private final PriorityQueue<Flow> readyFlows = new PriorityQueue<>(Comparator.comparingDouble(Flow::headTag));
+    private final List<Thread> workers = new ArrayList<>();
+    private double virtualTime;
+    private int idleWorkers;
+    private int liveWorkers;
+    private int runningTools;
+    private boolean shutdown;
+    private boolean stopped;
+
+    /**
+     * @param workers            Maximale Anzahl Worker-Threads
+     * @param reservedForControl Anzahl Worker, die Tool-Aufrufe nicht belegen dürfen
+     * @param weights            Gewichte pro Schlüssel der Tool-Lane, fehlende zählen als 1
+     * @param threadFactory      Erzeugt die Worker-Threads
+     */
+    LaneScheduler(int workers, int reservedForControl, Map<String, Integer> weights, ThreadFactory threadFactory) {
+        this.maxWorkers = Math.max(workers, 1);
+        this.maxToolWorkers = Math.max(this.maxWorkers - Math.max(reservedForControl, 0), 1);
+        this.weights = Map.copyOf(weights);
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * Reiht einen Auftrag ein.
+     *
+     * @param task Der Auftrag
+     * @param lane Schlüssel der Tool-Lane, z.B. der Tool-Name, oder null für Kontroll-Nachrichten
+     * @throws RejectedExecutionException Nach {@link #shutdown()}
+     */
+    void execute(Runnable task, String lane) {
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new RejectedExecutionException("Scheduler is shut down");
+            }
+
+            if (lane == null) {
+                controlQueue.add(task);
+            } else {
+                enqueueTool(task, lane);
+            }
+            if (idleWorkers == 0 && liveWorkers < maxWorkers) {
+                startWorker();
+            } else {
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Nimmt keine Aufträge mehr an, die eingereihten werden noch ausgeführt.
+     */
+    void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            available.signalAll();
+            if (liveWorkers == 0) {
+                terminated.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Verwirft die eingereihten Aufträge und unterbricht die laufenden.
+     */
+    void shutdownNow() {
+        lock.lock();
+        try {
+            shutdown = true;
+            stopped = true;
+            controlQueue.clear();
+            flows.clear();
+            readyFlows.clear();
+            workers.forEach(Thread::interrupt);
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isShutdown() {
+        lock.lock();
+        try {
+            return shutdown;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wartet nach {@link #shutdown()}, bis alle Worker beendet sind.
+     *
+     * @return false wenn die Wartezeit abgelaufen ist
+     */
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (!shutdown || liveWorkers > 0) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = terminated.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Anzahl eingereihter, noch nicht gestarteter Tool-Aufrufe pro Schlüssel
+     */
+    Map<String, Integer> queuedTools() {
+        lock.lock();
+        try {
+            Map<String, Integer> queued = new HashMap<>();
+            flows.forEach((lane, flow) -> queued.put(lane, flow.tasks.size()));
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enqueueTool(Runnable task, String lane) {
+        Flow flow = flows.get(lane);
+        boolean wasEmpty = flow == null;
+        if (wasEmpty) {
+            flow = new Flow(lane, 1.0 / Math.max(weights.getOrDefault(lane, DEFAULT_WEIGHT), 1));
+            flows.put(lane, flow);
+        }
+
+        double start = Math.max(virtualTime, flow.lastFinish);
+        flow.lastFinish = start + flow.cost;
+        flow.tasks.add(new Tagged(task, start));
+        if (wasEmpty) {
+            readyFlows.add(flow);
+        }
+    }
+
+    /**
+     * Wählt den nächsten Auftrag, Kontroll-Nachrichten zuerst. Muss unter dem Lock laufen.
+     *
+     * @return Der Auftrag oder null, wenn keiner ausgeführt werden darf
+     */
+    private Task poll() {
+        Runnable control = controlQueue.poll();
+        if (control != null) {
+            return new Task(control, false);
+        }
+        if (runningTools >= maxToolWorkers) {
+            return null;
+        }
+
+        Flow flow = readyFlows.poll();
+        if (flow == null) {
+            return null;
+        }
+        Tagged next = flow.tasks.poll();
+        virtualTime = next.start;
+        if (flow.tasks.isEmpty()) {
+            flows.remove(flow.lane);
+        } else {
+            readyFlows.add(flow);
+        }
+        runningTools++;
+        return new Task(next.task, true);
+    }
+
+    private boolean isEmpty() {
+        return controlQueue.isEmpty() && readyFlows.isEmpty();
+    }
+
+    private void startWorker() {
+        Thread worker = threadFactory.newThread(this::work);
+        workers.add(worker);
+        liveWorkers++;
+        worker.start();
+    }
+
+    private void work() {
+        try {
+            while (true) {
+                Task task = take();
+                if (task == null) {
+                    return;
+                }
+                try {
+                    task.runnable.run();
+                } catch (RuntimeException e) {
+                    log.error("Auftrag ist mit einer Exception beendet worden", e);
+                } finally {
+                    // Abbruch und Timeout unterbrechen den Worker, das gilt nicht für den nächsten Auftrag
+                    Thread.interrupted();
+                    if (task.tool) {
+                        finishTool();
+                    }
+                }
+            }
+        } finally {
+            lock.lock();
+            try {
+                workers.remove(Thread.currentThread());
+                if (--liveWorkers == 0 && shutdown) {
+                    terminated.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return Der nächste Auftrag oder null, wenn der Worker sich beenden soll
+     */
+    private Task take() {
+        lock.lock();
+        try {
+            Task task;
+            while ((task = poll()) == null) {
+                if (shutdown && isEmpty()) {
+                    return null;
+                }
+                idleWorkers++;
+                try {
+                    available.await();
+                } catch (InterruptedException e) {
+                    if (stopped) {
+                        // shutdownNow, eingereihte Aufträge sind bereits verworfen
+                        return null;
+                    }
+                } finally {
+                    idleWorkers--;
+                }
+            }
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void finishTool() {
+        lock.lock();
+        try {
+            runningTools--;
+            if (!readyFlows.isEmpty()) {
+                available.signal();
+            } else if (shutdown && isEmpty()) {
+                available.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Task(Runnable runnable, boolean tool) {
+    }
+
+    private record Tagged(Runnable task, double start) {
+    }
+
+    /**
+     * Queue eines Schlüssels der Tool-Lane.
+     */
+    private static final class Flow {
+
+        final String lane;
+        final double cost;
+        final ArrayDeque<Tagged> tasks = new ArrayDeque<>();
+        double lastFinish;
+
+        Flow(String lane, double cost) {
+            this.lane = lane;
+            this.cost = cost;
+        }
+
+        double headTag() {
+            return tasks.peek().start;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.mcpserver.control;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-freies Latenz-Histogramm mit logarithmisch-linearen Buckets.
+ * <p>
+ * Jede Zweierpotenz in Nanosekunden ist in {@value #SUB_BUCKETS} lineare Buckets geteilt,
+ * die relative Auflösung liegt damit bei etwa 12,5 %. {@link #record(long)} kostet einen
+ * atomaren Zähler-Inkrement und ein CAS für das Maximum, ohne Locks und ohne Allokation.
+ * Perzentile werden aus den Bucket-Obergrenzen berechnet, das Maximum ist exakt.
+ * </p>
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Zeichnet eine Latenz auf.
+     *
+     * @param nanos Dauer in Nanosekunden, negative Werte zählen als 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(indexOf(value));
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Erstellt eine Momentaufnahme. Aufzeichnungen, die währenddessen laufen, können
+     * teilweise enthalten sein.
+     *
+     * @return Anzahl und Perzentile in Mikrosekunden
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+
+        return new Snapshot(
+                total,
+                toMicros(percentile(counts, total, 0.5)),
+                toMicros(percentile(counts, total, 0.99)),
+                toMicros(percentile(counts, total, 0.999)),
+                toMicros(max.get())
+        );
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS)) + width - 1;
+    }
+
+    private long percentile(long[] counts, long total, double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    /**
+     * Momentaufnahme eines Histogramms, Latenzen in Mikrosekunden.
+     */
+    public record Snapshot(long count, long p50Micros, long p99Micros, long p999Micros, long maxMicros) {
+    }
+}
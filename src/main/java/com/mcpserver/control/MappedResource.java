@@ -0,0 +1,294 @@
+package com.mcpserver.control;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.mcpserver.entity.StreamedResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Ergebnis von resources/read, das den Dateiinhalt direkt aus einem Memory-Mapping kodiert.
+ * <p>
+ * Die Datei wird mit {@link FileChannel#map} eingeblendet, statt sie in ein byte[] zu lesen.
+ * Die Seiten liegen im Page Cache des Betriebssystems und werden von allen Lesern derselben
+ * Datei geteilt. Beim Serialisieren liest Jackson den Bereich blockweise: Text wird aus dem
+ * Mapping dekodiert und escaped, Binärdaten werden als Base64 kodiert. Auf dem Heap liegt
+ * dabei nur der Block, der gerade kodiert wird.
+ * </p>
+ * <p>
+ * Als {@link StreamedResult} kodiert ein eigener Generator direkt in den Ausgabe-Stream des
+ * Transports, das Ergebnis liegt also auch im Encoder nie vollständig auf dem Heap. Die Länge
+ * für einen Content-Length Header wird bei Bedarf mit einem Zähl-Durchlauf bestimmt. Wird die
+ * Datei während des Schreibens gekürzt, wird der Inhalt abgeschnitten, das JSON geschlossen
+ * und bis zur angekündigten Länge mit Leerzeichen aufgefüllt, damit das Framing intakt bleibt.
+ * </p>
+ * <p>
+ * Als Text gilt eine Datei, deren Anfang gültiges UTF-8 ohne Nullbytes ist. Das Mapping
+ * bleibt gültig, bis das Objekt eingesammelt wird, und kann mehrfach serialisiert werden.
+ * </p>
+ */
+@Slf4j
+final class MappedResource implements StreamedResult, JsonSerializable {
+
+    static final int SNIFF_BYTES = 8 * 1024;
+
+    private static final byte[] TRUNCATED_END = "\"}]}".getBytes(StandardCharsets.US_ASCII);
+    private static final byte PADDING = ' ';
+
+    private final JsonFactory jsonFactory;
+    private final String uri;
+    private final String mimeType;
+    private final MappedByteBuffer region;
+    private final boolean text;
+    private long length = -1;
+
+    private MappedResource(JsonFactory jsonFactory, String uri, String mimeType, MappedByteBuffer region, boolean text) {
+        this.jsonFactory = jsonFactory;
+        this.uri = uri;
+        this.mimeType = mimeType;
+        this.region = region;
+        this.text = text;
+    }
+
+    /**
+     * Blendet eine Datei ein. Der Channel wird sofort wieder geschlossen, das Mapping bleibt.
+     *
+     * @param jsonFactory Factory für den Generator, der direkt in den Transport schreibt
+     * @param uri         URI, unter der die Resource gelistet ist
+     * @param file        Datei innerhalb eines Roots, höchstens {@link Integer#MAX_VALUE} Bytes groß
+     * @return Das noch nicht kodierte Ergebnis
+     * @throws IOException Wenn die Datei nicht geöffnet werden kann
+     */
+    static MappedResource map(JsonFactory jsonFactory, String uri, Path file) throws IOException {
+        MappedByteBuffer region;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, LinkOption.NOFOLLOW_LINKS)) {
+            region = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        boolean text = isText(region);
+        return new MappedResource(jsonFactory, uri, ResourceRegistry.mimeType(file, text), region, text);
+    }
+
+    boolean isText() {
+        return text;
+    }
+
+    String mimeType() {
+        return mimeType;
+    }
+
+    /**
+     * Länge des kodierten Ergebnisses, beim ersten Aufruf über einen Zähl-Durchlauf bestimmt.
+     */
+    @Override
+    public synchronized long length() {
+        if (length < 0) {
+            CountingOutputStream counter = new CountingOutputStream();
+            try {
+                encode(counter);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            length = counter.count;
+        }
+        return length;
+    }
+
+    @Override
+    public synchronized void writeTo(OutputStream output) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream(output);
+        if (encode(counter) && length > counter.count) {
+            // Die angekündigte Länge ist Teil des Framings, JSON erlaubt Leerzeichen am Ende
+            for (long i = counter.count; i < length; i++) {
+                output.write(PADDING);
+            }
+        }
+    }
+
+    /**
+     * Das Mapping wird mit dem Objekt eingesammelt, es gibt nichts freizugeben.
+     */
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        writeStart(gen);
+        try {
+            writeContent(gen);
+        } catch (InternalError e) {
+            // So meldet die JVM Zugriffe auf eine Datei, die nach dem Mapping gekürzt wurde
+            throw JsonMappingException.from(gen, "Resource wurde während des Lesens verändert: " + uri, e);
+        }
+        gen.writeEndObject();
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+
+    /**
+     * Kodiert das Ergebnis mit einem eigenen Generator, der den Stream weder schließt noch flusht.
+     *
+     * @return true wenn die Datei während des Lesens gekürzt wurde und der Inhalt abgeschnitten ist
+     */
+    private boolean encode(OutputStream output) throws IOException {
+        JsonGenerator gen = jsonFactory.createGenerator(output)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)
+                .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        try {
+            writeStart(gen);
+            try {
+                writeContent(gen);
+            } catch (InternalError e) {
+                log.warn("Resource {} wurde während des Lesens gekürzt, Inhalt wird abgeschnitten", uri);
+                // Der Puffer des Generators enthält nur vollständige Escapes bzw. Base64-Blöcke
+                gen.flush();
+                output.write(TRUNCATED_END);
+                return true;
+            }
+            gen.writeEndObject();
+            gen.writeEndArray();
+            gen.writeEndObject();
+            return false;
+        } finally {
+            gen.close();
+        }
+    }
+
+    private void writeStart(JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeArrayFieldStart("contents");
+        gen.writeStartObject();
+        gen.writeStringField("uri", uri);
+        gen.writeStringField("mimeType", mimeType);
+    }
+
+    private void writeContent(JsonGenerator gen) throws IOException {
+        if (text) {
+            gen.writeFieldName("text");
+            gen.writeString(new MappedReader(region.duplicate()), -1);
+        } else {
+            gen.writeFieldName("blob");
+            gen.writeBinary(new ByteBufferBackedInputStream(region.duplicate()), region.capacity());
+        }
+    }
+
+    /**
+     * Prüft die ersten {@link #SNIFF_BYTES} auf gültiges UTF-8 ohne Nullbytes. Eine am Ende
+     * des Ausschnitts abgeschnittene Sequenz zählt nicht als Fehler.
+     */
+    static boolean isText(ByteBuffer content) {
+        ByteBuffer head = content.duplicate().limit(Math.min(content.capacity(), SNIFF_BYTES));
+        for (int i = 0; i < head.limit(); i++) {
+            if (head.get(i) == 0) {
+                return false;
+            }
+        }
+
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        CharBuffer chars = CharBuffer.allocate(1024);
+        boolean complete = head.limit() == content.capacity();
+        while (true) {
+            CoderResult result = decoder.decode(head, chars, complete);
+            if (result.isError()) {
+                return false;
+            }
+            if (result.isUnderflow()) {
+                return true;
+            }
+            chars.clear();
+        }
+    }
+
+    /**
+     * Dekodiert UTF-8 direkt aus dem Mapping, ohne den Inhalt vorher zu kopieren.
+     */
+    private static final class MappedReader extends Reader {
+
+        private final ByteBuffer source;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        MappedReader(ByteBuffer source) {
+            this.source = source;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!source.hasRemaining()) {
+                return -1;
+            }
+
+            // Die ganze Datei liegt vor, jeder Aufruf darf also als Ende der Eingabe dekodieren
+            CharBuffer target = CharBuffer.wrap(buffer, offset, length);
+            decoder.decode(source, target, true);
+            return target.position() - offset;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Zählt die geschriebenen Bytes und reicht sie optional weiter.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+
+        private final OutputStream target;
+        private long count;
+
+        CountingOutputStream() {
+            this(OutputStream.nullOutputStream());
+        }
+
+        CountingOutputStream(OutputStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            target.write(data, offset, length);
+            count += length;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.mcpserver.control;
+
+import com.mcpserver.boundary.HttpResponseChannel;
+import com.mcpserver.boundary.HttpSession;
+import com.mcpserver.boundary.HttpTransport;
+import com.mcpserver.entity.JsonRpcMessage;
+import com.mcpserver.entity.JsonRpcNotification;
+import com.mcpserver.entity.JsonRpcResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * MCP Server Main Loop für den HTTP Transport.
+ * <p>
+ * Gegenstück zum {@link McpServer} für {@code mcp.transport=http}. Jeder POST wird auf dem
+ * Thread seines Exchange an den gemeinsamen {@link RequestDispatcher} übergeben, die
+ * Responses gehen über einen {@link ResponseSink} an den {@link HttpResponseChannel} des
+ * POSTs zurück. Alle POSTs einer {@link HttpSession} teilen sich deren id-Raum, beendet der
+ * Client die Session per DELETE, werden ihre laufenden Requests abgebrochen.
+ * </p>
+ * <p>
+ * Beim Herunterfahren nimmt der Transport keine Verbindungen mehr an und wartet auf offene
+ * Exchanges, die ihrerseits auf ihre Responses warten. Erst danach wird der Dispatcher beendet.
+ * </p>
+ *
+ * @see HttpTransport
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "mcp", name = "transport", havingValue = "http")
+@RequiredArgsConstructor
+public class McpHttpServer implements CommandLineRunner, HttpTransport.ExchangeHandler {
+
+    private final HttpTransport transport;
+    private final RequestDispatcher dispatcher;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * Startet den HTTP Server und blockiert, bis der Server heruntergefahren wird.
+     *
+     * @param args Kommandozeilen-Argumente (werden nicht verwendet)
+     */
+    @Override
+    public void run(String... args) throws InterruptedException {
+        transport.start(this);
+        log.info("MCP Server gestartet - Warte auf Requests...");
+
+        stopped.await();
+        log.info("MCP Server beendet");
+    }
+
+    @Override
+    public void onMessage(JsonRpcMessage message, HttpResponseChannel channel) {
+        dispatcher.dispatch(message, new ChannelSink(channel));
+    }
+
+    @Override
+    public void onSessionClosed(HttpSession session) {
+        dispatcher.cancelAll(session);
+    }
+
+    /**
+     * Beendet erst den Transport, dann den Dispatcher.
+     */
+    @PreDestroy
+    public void shutdown() {
+        log.info("Shutdown requested");
+        transport.close();
+        dispatcher.shutdown();
+        stopped.countDown();
+    }
+
+    /**
+     * Leitet fertige Responses an den Channel des POSTs weiter.
+     */
+    private record ChannelSink(HttpResponseChannel channel) implements ResponseSink {
+
+        @Override
+        public void send(JsonRpcResponse response) {
+            channel.send(response);
+        }
+
+        @Override
+        public void sendBatch(List<JsonRpcResponse> responses) {
+            channel.sendBatch(responses);
+        }
+
+        @Override
+        public void sendNotification(JsonRpcNotification notification) {
+            channel.sendNotification(notification);
+        }
+
+        @Override
+        public void dropped() {
+            channel.dropped();
+        }
+
+        @Override
+        public Object session() {
+            return channel.session() != null ? channel.session() : this;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.mcpserver.control;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcpserver.McpServerProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MCP Metrics - Laufzeit-Kennzahlen des Servers.
+ * <p>
+ * Erfasst Latenz-Histogramme pro JSON-RPC Methode und pro Tool, Fehler pro
+ * {@link com.mcpserver.entity.JsonRpcError} Code sowie die Anzahl laufender, wartender und abgebrochener
+ * Requests. Alle Recorder sind lock-frei und allokieren auf dem Hot Path nur beim ersten
+ * Auftreten eines Namens.
+ * </p>
+ * <p>
+ * Abrufbar über die JSON-RPC Methode {@code metrics/get}. Optional schreibt der Server die
+ * Kennzahlen periodisch als JSON-Zeile nach stderr ({@code mcp.metrics.dump-interval}).
+ * </p>
+ */
+@Slf4j
+@Component
+public class McpMetrics {
+
+    private final Map<String, LatencyHistogram> methodLatencies = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> toolLatencies = new ConcurrentHashMap<>();
+    private final Map<Integer, LongAdder> errorsByCode = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final LongAdder cancelled = new LongAdder();
+    private final ScheduledExecutorService dumpScheduler;
+
+    @Autowired
+    public McpMetrics(ObjectMapper objectMapper, McpServerProperties properties) {
+        Duration interval = properties.getMetrics().getDumpInterval();
+        this.dumpScheduler = interval.isZero() || interval.isNegative()
+                ? null
+                : startDump(objectMapper, interval);
+    }
+
+    /**
+     * Erstellt Metrics ohne periodische Ausgabe, z.B. für Tests.
+     */
+    public McpMetrics() {
+        this.dumpScheduler = null;
+    }
+
+    public void recordMethod(String method, long nanos) {
+        methodLatencies.computeIfAbsent(method, name -> new LatencyHistogram()).record(nanos);
+    }
+
+    public void recordTool(String tool, long nanos) {
+        toolLatencies.computeIfAbsent(tool, name -> new LatencyHistogram()).record(nanos);
+    }
+
+    public void recordError(int code) {
+        errorsByCode.computeIfAbsent(code, c -> new LongAdder()).increment();
+    }
+
+    /**
+     * Ein Request wurde angenommen und wartet auf einen Worker.
+     */
+    public void requestQueued() {
+        queueDepth.incrementAndGet();
+    }
+
+    /**
+     * Ein wartender Request wird jetzt ausgeführt.
+     */
+    public void requestDequeued() {
+        queueDepth.decrementAndGet();
+    }
+
+    public void requestStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    public void requestFinished() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Ein laufender Request wurde per notifications/cancelled abgebrochen.
+     */
+    public void requestCancelled() {
+        cancelled.increment();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public int queueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Erstellt eine Momentaufnahme aller Kennzahlen, sortiert nach Namen.
+     *
+     * @return JSON-serialisierbare Struktur für metrics/get
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> errors = new TreeMap<>();
+        errorsByCode.forEach((code, count) -> errors.put(String.valueOf(code), count.sum()));
+
+        return Map.of(
+                "methods", snapshotOf(methodLatencies),
+                "tools", snapshotOf(toolLatencies),
+                "errors", errors,
+                "inFlight", inFlight.get(),
+                "queueDepth", queueDepth.get(),
+                "cancelled", cancelled.sum()
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dumpScheduler != null) {
+            dumpScheduler.shutdownNow();
+        }
+    }
+
+    private static Map<String, LatencyHistogram.Snapshot> snapshotOf(Map<String, LatencyHistogram> histograms) {
+        Map<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<>();
+        histograms.forEach((name, histogram) -> snapshots.put(name, histogram.snapshot()));
+        return snapshots;
+    }
+
+    private ScheduledExecutorService startDump(ObjectMapper objectMapper, Duration interval) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("mcp-metrics-");
+        threadFactory.setDaemon(true);
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                // stdout ist für JSON-RPC reserviert, daher direkt nach stderr
+                System.err.println(objectMapper.writeValueAsString(Map.of("metrics", snapshot())));
+            } catch (JsonProcessingException e) {
+                log.warn("Metrics konnten nicht ausgegeben werden", e);
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        return scheduler;
+    }
+}
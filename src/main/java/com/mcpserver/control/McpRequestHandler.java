@@ -1,56 +1,147 @@
 package com.mcpserver.control;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.mcpserver.entity.Content;
 import com.mcpserver.entity.JsonRpcError;
+import com.mcpserver.entity.JsonRpcNotification;
 import com.mcpserver.entity.JsonRpcRequest;
 import com.mcpserver.entity.JsonRpcResponse;
 import com.mcpserver.entity.Tool;
-import lombok.RequiredArgsConstructor;
+import com.mcpserver.entity.ToolResult;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * MCP Request Handler - Verarbeitet eingehende MCP-Requests.
  * <p>
- * Diese Klasse implementiert die MCP-Protokoll-Logik und routet Requests
- * zu den entsprechenden Handler-Methoden:
+ * Diese Klasse implementiert die MCP-Protokoll-Logik und routet Requests über eine
+ * Methoden-Tabelle zu den entsprechenden Handler-Methoden:
  * <ul>
  *   <li>initialize - Server-Handshake und Capability-Negotiation</li>
  *   <li>tools/list - Gibt verfügbare Tools zurück</li>
- *   <li>tools/call - Führt ein Tool aus</li>
+ *   <li>tools/call - Führt ein Tool aus der {@link ToolRegistry} aus</li>
+ *   <li>resources/list - Gibt die Dateien der {@link ResourceRegistry} seitenweise zurück</li>
+ *   <li>resources/read - Liest eine Resource über ein Memory-Mapping ({@link MappedResource})</li>
+ *   <li>metrics/get - Gibt die Laufzeit-Kennzahlen aus {@link McpMetrics} zurück</li>
  * </ul>
+ * Die Dauer jedes Requests wird pro Methode, die jedes Tool-Aufrufs pro Tool gemessen.
+ * </p>
+ * <p>
+ * Die Ergebnisse von initialize und tools/list hängen nicht vom Request ab. Sie werden
+ * einmal zu JSON-Bytes kodiert und als {@link RawValue} in jede Response eingesetzt, sodass
+ * pro Request nur noch die id serialisiert wird. Der tools/list Cache wird neu aufgebaut,
+ * sobald sich die Version der {@link ToolRegistry} ändert. Ergebnisse cachebarer Tools
+ * liegen ebenso kodiert im {@link ToolResultCache}.
+ * </p>
+ * <p>
+ * Tools erhalten einen {@link ToolContext}. Fortschritt geht als {@code notifications/progress}
+ * sofort an den {@link ResponseSink} des Requests, geschriebener Content wird direkt kodiert
+ * in einem {@link ContentBuffer} gesammelt.
  * </p>
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class McpRequestHandler {
 
     private static final String METHOD_INITIALIZE = "initialize";
     private static final String METHOD_TOOLS_LIST = "tools/list";
     private static final String METHOD_TOOLS_CALL = "tools/call";
+    private static final String METHOD_RESOURCES_LIST = "resources/list";
+    private static final String METHOD_RESOURCES_READ = "resources/read";
+    private static final String METHOD_METRICS_GET = "metrics/get";
+    private static final String UNKNOWN_METHOD = "(unknown)";
     private static final String SERVER_NAME = "custom-mcp-server";
     private static final String SERVER_VERSION = "1.0.0";
     private static final String PROTOCOL_VERSION = "2024-11-05";
-    private static final String TOOL_ECHO_NAME = "echo";
-    private static final String TOOL_ECHO_DESCRIPTION = "Gibt den übergebenen Text zurück";
     private static final String PARAM_NAME = "name";
     private static final String PARAM_ARGUMENTS = "arguments";
-    private static final String PARAM_MESSAGE = "message";
-    private static final String RESULT_CONTENT = "content";
-    private static final String CONTENT_TYPE = "type";
-    private static final String CONTENT_TEXT = "text";
-    private static final String CONTENT_TYPE_TEXT = "text";
+    private static final String PARAM_URI = "uri";
+    private static final String PARAM_CURSOR = "cursor";
+    private static final String PARAM_META = "_meta";
+    private static final String PARAM_PROGRESS_TOKEN = "progressToken";
+
+    /**
+     * Sink für Aufrufe ohne Transport, Notifications werden verworfen.
+     */
+    private static final ResponseSink NO_NOTIFICATIONS = new ResponseSink() {
+        @Override
+        public void send(JsonRpcResponse response) {
+        }
+
+        @Override
+        public void sendBatch(List<JsonRpcResponse> responses) {
+        }
+    };
 
     private final ObjectMapper objectMapper;
+    private final ToolRegistry toolRegistry;
+    private final McpMetrics metrics;
+    private final ToolResultCache resultCache;
+    private final ResourceRegistry resourceRegistry;
+    private final RawValue initializeResult;
+    private final Map<String, MethodHandler> methodHandlers = new HashMap<>();
+
+    private final Map<Class<?>, ObjectReader> argumentReaders = new ConcurrentHashMap<>();
+    private final ObjectWriter contentWriter;
+
+    private volatile ToolsList toolsListResult;
+
+    public McpRequestHandler(ObjectMapper objectMapper, ToolRegistry toolRegistry, McpMetrics metrics,
+                             ToolResultCache resultCache, ResourceRegistry resourceRegistry) {
+        this.objectMapper = objectMapper;
+        this.toolRegistry = toolRegistry;
+        this.metrics = metrics;
+        this.resultCache = resultCache;
+        this.resourceRegistry = resourceRegistry;
+        this.contentWriter = objectMapper.writerFor(Content.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        Map<String, Object> capabilities = new LinkedHashMap<>();
+        capabilities.put("tools", Map.of());
+        if (!resourceRegistry.isEmpty()) {
+            capabilities.put("resources", Map.of());
+        }
+        this.initializeResult = encode(Map.of(
+                "protocolVersion", PROTOCOL_VERSION,
+                "capabilities", capabilities,
+                "serverInfo", Map.of(
+                        "name", SERVER_NAME,
+                        "version", SERVER_VERSION
+                )
+        ));
+
+        methodHandlers.put(METHOD_INITIALIZE, (request, sink) -> handleInitialize(request));
+        methodHandlers.put(METHOD_TOOLS_LIST, (request, sink) -> handleToolsList(request));
+        methodHandlers.put(METHOD_TOOLS_CALL, this::handleToolsCall);
+        methodHandlers.put(METHOD_RESOURCES_LIST, (request, sink) -> handleResourcesList(request));
+        methodHandlers.put(METHOD_RESOURCES_READ, (request, sink) -> handleResourcesRead(request));
+        methodHandlers.put(METHOD_METRICS_GET, (request, sink) -> handleMetricsGet(request));
+    }
 
     /**
      * Verarbeitet eine JSON-RPC Request und gibt die entsprechende Response zurück.
      * <p>
-     * Routet die Request basierend auf der method zu den spezifischen Handler-Methoden.
+     * Routet die Request basierend auf der method über die Methoden-Tabelle zu den
+     * spezifischen Handler-Methoden.
      * Bei unbekannten Methoden wird ein "Method not found" Fehler zurückgegeben.
      * </p>
      *
@@ -58,18 +149,54 @@ public class McpRequestHandler {
      * @return Die JSON-RPC Response (entweder Erfolg oder Fehler)
      */
     public JsonRpcResponse handleRequest(JsonRpcRequest request) {
+        return handleRequest(request, NO_NOTIFICATIONS);
+    }
+
+    /**
+     * Verarbeitet eine JSON-RPC Request, Notifications während der Verarbeitung gehen an den Sink.
+     *
+     * @param request Die eingehende JSON-RPC Request
+     * @param sink    Ziel für Notifications wie {@code notifications/progress}
+     * @return Die JSON-RPC Response (entweder Erfolg oder Fehler)
+     */
+    public JsonRpcResponse handleRequest(JsonRpcRequest request, ResponseSink sink) {
         log.info("Handling method: {}", request.getMethod());
 
+        long start = System.nanoTime();
+        MethodHandler methodHandler = methodHandlers.get(request.getMethod());
+        JsonRpcResponse response = methodHandler == null
+                ? JsonRpcResponse.error(request.getId(), JsonRpcError.methodNotFound(request.getMethod()))
+                : invoke(methodHandler, request, sink);
+
+        // Nur bekannte Methoden bekommen ein eigenes Histogramm, Client-Eingaben blähen die Metrics nicht auf
+        metrics.recordMethod(methodHandler == null ? UNKNOWN_METHOD : request.getMethod(), System.nanoTime() - start);
+        if (response.getError() != null) {
+            metrics.recordError(response.getError().getCode());
+        }
+        return response;
+    }
+
+    /**
+     * Timeout, den das aufgerufene Tool für einen tools/call Request deklariert.
+     *
+     * @param request Die eingehende JSON-RPC Request
+     * @return Timeout des Tools oder null, wenn der Request kein bekanntes Tool aufruft
+     *         oder das Tool keinen eigenen Timeout hat
+     */
+    public Duration timeoutOf(JsonRpcRequest request) {
+        JsonNode params = request.getParams();
+        if (!METHOD_TOOLS_CALL.equals(request.getMethod()) || params == null) {
+            return null;
+        }
+
+        String toolName = params.path(PARAM_NAME).textValue();
+        ToolHandler<?> tool = toolName == null ? null : toolRegistry.get(toolName);
+        return tool == null ? null : tool.timeout();
+    }
+
+    private JsonRpcResponse invoke(MethodHandler methodHandler, JsonRpcRequest request, ResponseSink sink) {
         try {
-            return switch (request.getMethod()) {
-                case METHOD_INITIALIZE -> handleInitialize(request);
-                case METHOD_TOOLS_LIST -> handleToolsList(request);
-                case METHOD_TOOLS_CALL -> handleToolsCall(request);
-                default -> JsonRpcResponse.error(
-                        request.getId(),
-                        JsonRpcError.methodNotFound(request.getMethod())
-                );
-            };
+            return methodHandler.handle(request, sink);
         } catch (Exception e) {
             log.error("Error handling request", e);
             return JsonRpcResponse.error(
@@ -84,6 +211,7 @@ public class McpRequestHandler {
      * <p>
      * Dies ist der erste Handshake zwischen Client und Server.
      * Der Server antwortet mit Server-Informationen und der unterstützten Protokoll-Version.
+     * Das Ergebnis ist konstant und wird beim Start einmal kodiert.
      * </p>
      *
      * @param request Die initialize-Request
@@ -91,18 +219,7 @@ public class McpRequestHandler {
      */
     private JsonRpcResponse handleInitialize(JsonRpcRequest request) {
         log.info("Initialize request received");
-
-        Map<String, Object> serverInfo = Map.of(
-                "name", SERVER_NAME,
-                "version", SERVER_VERSION
-        );
-
-        Map<String, Object> result = Map.of(
-                "protocolVersion", PROTOCOL_VERSION,
-                "serverInfo", serverInfo
-        );
-
-        return JsonRpcResponse.success(request.getId(), result);
+        return JsonRpcResponse.success(request.getId(), initializeResult);
     }
 
     /**
@@ -114,74 +231,442 @@ public class McpRequestHandler {
      *   <li>description - Was das Tool macht</li>
      *   <li>inputSchema - JSON Schema für die erwarteten Parameter</li>
      * </ul>
+     * Die Liste wird in Seiten von {@link ToolRegistry#pageSize()} Tools nach Namen sortiert
+     * ausgeliefert. Gibt es weitere, enthält das Ergebnis einen nextCursor, den der Client als
+     * cursor der nächsten Request mitschickt.
+     * </p>
+     * <p>
+     * Jedes Tool wird einmal pro Registry-Version kodiert, die Seiten werden aus diesen
+     * Fragmenten zusammengesetzt und bis zur nächsten Änderung der Registry wiederverwendet.
      * </p>
      *
-     * @param request Die tools/list Request
-     * @return Response mit Tool-Liste
+     * @param request Die tools/list Request mit optionalem cursor
+     * @return Response mit einer Seite der Tool-Liste
      */
     private JsonRpcResponse handleToolsList(JsonRpcRequest request) {
         log.info("Tools list request received");
 
-        Tool echoTool = Tool.builder()
-                .name(TOOL_ECHO_NAME)
-                .description(TOOL_ECHO_DESCRIPTION)
-                .inputSchema(Map.of(
-                        "type", "object",
-                        "properties", Map.of(
-                                "message", Map.of(
-                                        "type", "string",
-                                        "description", "Der Text, der zurückgegeben werden soll"
-                                )
-                        ),
-                        "required", List.of("message")
-                ))
-                .build();
-
-        Map<String, Object> result = Map.of("tools", List.of(echoTool));
-        return JsonRpcResponse.success(request.getId(), result);
+        long version = toolRegistry.version();
+        ToolsList toolsList = toolsListResult;
+        if (toolsList == null || toolsList.version() != version) {
+            toolsList = new ToolsList(version, toolRegistry.list(), toolRegistry.pageSize());
+            toolsListResult = toolsList;
+        }
+
+        JsonNode params = request.getParams();
+        String cursor = params == null ? null : params.path(PARAM_CURSOR).textValue();
+        try {
+            return JsonRpcResponse.success(request.getId(), toolsList.page(cursor));
+        } catch (IllegalArgumentException e) {
+            return JsonRpcResponse.error(
+                    request.getId(),
+                    JsonRpcError.invalidParams("Invalid cursor")
+            );
+        }
     }
 
     /**
      * Behandelt die tools/call Request.
      * <p>
-     * Führt das angeforderte Tool mit den übergebenen Argumenten aus.
+     * Sucht das angeforderte Tool in der Registry und führt es mit den übergebenen Argumenten aus.
+     * Die Argumente werden einmal direkt aus dem JSON-Baum in den vom Tool deklarierten Typ
+     * gebunden. Passen sie nicht zu diesem Typ, wird "Invalid params" zurückgegeben.
      * Das Ergebnis wird im MCP Content-Format zurückgegeben (Liste von Content-Objekten).
      * </p>
+     * <p>
+     * Deklariert das Tool eine {@link ToolHandler#cacheTtl()}, wird bei gleichen Argumenten
+     * das kodierte Ergebnis aus dem {@link ToolResultCache} verwendet, ohne das Tool
+     * aufzurufen oder das Ergebnis erneut zu serialisieren.
+     * </p>
      *
      * @param request Die tools/call Request mit Tool-Name und Argumenten
+     * @param sink    Ziel für den Fortschritt des Tools
      * @return Response mit Tool-Ergebnis oder Fehler falls Tool nicht gefunden
      */
-    private JsonRpcResponse handleToolsCall(JsonRpcRequest request) {
+    private JsonRpcResponse handleToolsCall(JsonRpcRequest request, ResponseSink sink) throws Exception {
         log.info("Tools call request received");
 
-        @SuppressWarnings("unchecked")
-        Map<String, Object> params = objectMapper.convertValue(request.getParams(), Map.class);
+        JsonNode params = request.getParams();
+        String toolName = params == null ? null : params.path(PARAM_NAME).textValue();
+        if (toolName == null) {
+            return JsonRpcResponse.error(
+                    request.getId(),
+                    JsonRpcError.invalidParams("Missing tool name")
+            );
+        }
+
+        JsonNode arguments = params.get(PARAM_ARGUMENTS);
+        if (arguments == null || arguments.isNull()) {
+            // Fehlende Argumente werden wie ein leeres Objekt gebunden und gecacht
+            arguments = objectMapper.createObjectNode();
+        }
+        log.info("Calling tool: {}", toolName);
+        log.trace("Tool arguments: {}", arguments);
+
+        ToolRegistry.RegisteredTool registered = toolRegistry.lookup(toolName);
+        if (registered == null) {
+            return JsonRpcResponse.error(
+                    request.getId(),
+                    JsonRpcError.methodNotFound("Tool not found: " + toolName)
+            );
+        }
+
+        // Ungültige Argumente erreichen das Tool nicht, der Client bekommt die betroffenen Felder zurück
+        if (registered.validator() != null) {
+            List<SchemaValidator.Violation> violations = registered.validator().validate(arguments);
+            if (!violations.isEmpty()) {
+                log.debug("Rejected arguments for tool {}: {}", toolName, violations);
+                return JsonRpcResponse.error(
+                        request.getId(),
+                        JsonRpcError.invalidParams(Map.of("errors", violations))
+                );
+            }
+        }
 
-        String toolName = (String) params.get(PARAM_NAME);
+        ToolHandler<?> tool = registered.handler();
 
-        @SuppressWarnings("unchecked")
-        Map<String, Object> arguments = (Map<String, Object>) params.get(PARAM_ARGUMENTS);
+        Duration ttl = tool.cacheTtl();
+        if (ttl.isZero() || ttl.isNegative()) {
+            return callUncached(request, sink, tool, arguments);
+        }
 
-        log.info("Calling tool: {} with arguments: {}", toolName, arguments);
+        long version = toolRegistry.version();
+        RawValue cached = resultCache.get(toolName, arguments, version);
+        if (cached != null) {
+            return JsonRpcResponse.success(request.getId(), cached);
+        }
 
-        if (TOOL_ECHO_NAME.equals(toolName)) {
-            String message = (String) arguments.get(PARAM_MESSAGE);
+        JsonRpcResponse response = callUncached(request, sink, tool, arguments);
+        if (response.getError() == null) {
+            RawValue json = encode(response.getResult());
+            resultCache.put(toolName, arguments, version, json, ttl);
+            response.setResult(json);
+        }
+        return response;
+    }
 
-            Map<String, Object> result = Map.of(
-                    RESULT_CONTENT, List.of(
-                            Map.of(
-                                    CONTENT_TYPE, CONTENT_TYPE_TEXT,
-                                    CONTENT_TEXT, "Echo: " + message
-                            )
-                    )
+    private JsonRpcResponse callUncached(JsonRpcRequest request, ResponseSink sink, ToolHandler<?> tool,
+                                         JsonNode arguments) throws Exception {
+        try {
+            JsonNode progressToken = request.getParams().path(PARAM_META).path(PARAM_PROGRESS_TOKEN);
+            Call call = new Call(toProgressToken(progressToken), sink);
+            return JsonRpcResponse.success(request.getId(), callTool(tool, arguments, call));
+        } catch (ArgumentBindingException e) {
+            return JsonRpcResponse.error(
+                    request.getId(),
+                    JsonRpcError.invalidParams(e.getMessage())
             );
+        }
+    }
 
-            return JsonRpcResponse.success(request.getId(), result);
+    /**
+     * Bindet die Argumente in den Typ des Tools und ruft es auf.
+     * <p>
+     * Unbekannte Felder werden ignoriert, da Clients zusätzliche Argumente mitschicken dürfen.
+     * Hat das Tool Content über den {@link ToolContext} geschrieben, ist der
+     * {@link ContentBuffer} das Ergebnis, sonst das zurückgegebene {@link ToolResult}.
+     * </p>
+     */
+    @SuppressWarnings("unchecked")
+    private <A> Object callTool(ToolHandler<A> tool, JsonNode source, Call call) throws Exception {
+        Class<A> type = tool.argumentsType();
+
+        A bound;
+        if (type.isInstance(source)) {
+            bound = (A) source;
+        } else {
+            try {
+                ObjectReader reader = argumentReaders.get(type);
+                if (reader == null) {
+                    // Erst nachschlagen, die Methodenreferenz für computeIfAbsent kostet sonst pro Aufruf eine Allokation
+                    reader = argumentReaders.computeIfAbsent(type, this::createArgumentReader);
+                }
+                bound = reader.readValue(source);
+            } catch (IOException e) {
+                throw new ArgumentBindingException(e.getMessage());
+            }
         }
 
-        return JsonRpcResponse.error(
-                request.getId(),
-                JsonRpcError.methodNotFound("Tool not found: " + toolName)
-        );
+        long start = System.nanoTime();
+        ToolResult result;
+        try {
+            result = tool.call(bound, call);
+        } catch (Exception e) {
+            call.discard();
+            throw e;
+        } finally {
+            metrics.recordTool(tool.descriptor().getName(), System.nanoTime() - start);
+        }
+        return call.complete(result);
+    }
+
+    /**
+     * Vereinheitlicht den progressToken, der laut Spec ein String oder eine Zahl ist.
+     *
+     * @return Token oder null, wenn der Client keinen Fortschritt angefordert hat
+     */
+    private static Object toProgressToken(JsonNode token) {
+        if (token.isIntegralNumber()) {
+            return token.longValue();
+        }
+        return token.isTextual() ? token.textValue() : null;
+    }
+
+    private ObjectReader createArgumentReader(Class<?> type) {
+        return objectMapper.readerFor(type)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * Behandelt die resources/list Request.
+     * <p>
+     * Gibt eine Seite der Dateien unterhalb der konfigurierten Roots mit URI, Name, MIME-Type
+     * und Größe aus dem Index der {@link ResourceRegistry} zurück. Gibt es weitere, enthält
+     * das Ergebnis einen nextCursor, den der Client als cursor der nächsten Request mitschickt.
+     * Ohne Roots ist die Liste leer.
+     * </p>
+     *
+     * @param request Die resources/list Request mit optionalem cursor
+     * @return Response mit einer Seite der Resource-Liste
+     */
+    private JsonRpcResponse handleResourcesList(JsonRpcRequest request) {
+        log.info("Resources list request received");
+
+        JsonNode params = request.getParams();
+        String cursor = params == null ? null : params.path(PARAM_CURSOR).textValue();
+        ResourceRegistry.Page page;
+        try {
+            page = resourceRegistry.page(cursor);
+        } catch (IllegalArgumentException e) {
+            return JsonRpcResponse.error(
+                    request.getId(),
+                    JsonRpcError.invalidParams("Invalid cursor")
+            );
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("resources", page.resources());
+        if (page.nextCursor() != null) {
+            result.put("nextCursor", page.nextCursor());
+        }
+        return JsonRpcResponse.success(request.getId(), result);
+    }
+
+    /**
+     * Behandelt die resources/read Request.
+     * <p>
+     * Die Datei wird nicht gelesen, sondern eingeblendet. Das Ergebnis ist eine
+     * {@link MappedResource}, die den Inhalt erst beim Senden blockweise als Text oder
+     * Base64 aus dem Mapping direkt in den Ausgabe-Stream des Transports kodiert. Liegt die URI außerhalb der Roots, wird
+     * "Resource not found" zurückgegeben.
+     * </p>
+     *
+     * @param request Die resources/read Request mit der URI
+     * @return Response mit dem Inhalt der Resource oder Fehler
+     */
+    private JsonRpcResponse handleResourcesRead(JsonRpcRequest request) throws IOException {
+        JsonNode params = request.getParams();
+        String uri = params == null ? null : params.path(PARAM_URI).textValue();
+        if (uri == null) {
+            return JsonRpcResponse.error(
+                    request.getId(),
+                    JsonRpcError.invalidParams("Missing resource uri")
+            );
+        }
+        log.info("Reading resource: {}", uri);
+
+        Path file = resourceRegistry.resolve(uri);
+        if (file == null) {
+            return JsonRpcResponse.error(request.getId(), JsonRpcError.resourceNotFound(uri));
+        }
+
+        try {
+            long size = Files.size(file);
+            if (size > resourceRegistry.maxReadBytes()) {
+                return JsonRpcResponse.error(
+                        request.getId(),
+                        JsonRpcError.invalidParams("Resource too large: " + size + " bytes")
+                );
+            }
+            return JsonRpcResponse.success(request.getId(), MappedResource.map(objectMapper.getFactory(), uri, file));
+        } catch (NoSuchFileException e) {
+            // Zwischen resolve und map gelöscht
+            return JsonRpcResponse.error(request.getId(), JsonRpcError.resourceNotFound(uri));
+        }
+    }
+
+    /**
+     * Behandelt die metrics/get Request.
+     * <p>
+     * Gibt Latenz-Perzentile pro Methode und Tool, Fehler pro Code sowie laufende und
+     * wartende Requests sowie Treffer und Fehlschläge des Tool Result Cache zurück.
+     * </p>
+     *
+     * @param request Die metrics/get Request
+     * @return Response mit einer Momentaufnahme der Kennzahlen
+     */
+    private JsonRpcResponse handleMetricsGet(JsonRpcRequest request) {
+        Map<String, Object> snapshot = new LinkedHashMap<>(metrics.snapshot());
+        snapshot.put("cache", resultCache.snapshot());
+        return JsonRpcResponse.success(request.getId(), snapshot);
+    }
+
+    /**
+     * Kodiert ein Ergebnis einmalig zu JSON-Bytes, die beim Serialisieren unverändert
+     * in die Response geschrieben werden.
+     */
+    private RawValue encode(Object result) {
+        try {
+            return new RawValue(new SerializedString(objectMapper.writeValueAsString(result)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Ergebnis konnte nicht kodiert werden", e);
+        }
+    }
+
+    /**
+     * {@link ToolContext} eines tools/call Aufrufs.
+     * <p>
+     * Der {@link ContentBuffer} wird erst beim ersten geschriebenen Content angelegt, Tools
+     * ohne schrittweise Ausgabe kosten damit nichts zusätzlich.
+     * </p>
+     */
+    private final class Call implements ToolContext {
+
+        private final Object progressToken;
+        private final ResponseSink sink;
+        private ContentBuffer content;
+
+        Call(Object progressToken, ResponseSink sink) {
+            this.progressToken = progressToken;
+            this.sink = sink;
+        }
+
+        @Override
+        public void progress(long progress, Long total, String message) {
+            if (progressToken == null) {
+                return;
+            }
+
+            try {
+                sink.sendNotification(JsonRpcNotification.progress(progressToken, progress, total, message));
+            } catch (IOException e) {
+                log.warn("Fortschritt für {} konnte nicht gesendet werden: {}", progressToken, e.getMessage());
+            }
+        }
+
+        @Override
+        public void write(Content item) throws IOException {
+            ContentBuffer buffer;
+            synchronized (this) {
+                if (content == null) {
+                    content = new ContentBuffer(contentWriter);
+                }
+                buffer = content;
+            }
+            buffer.write(item);
+        }
+
+        /**
+         * Hängt den zurückgegebenen Content an den geschriebenen an.
+         */
+        synchronized Object complete(ToolResult result) throws IOException {
+            if (content == null) {
+                return result;
+            }
+
+            if (result != null && result.getContent() != null) {
+                for (Content item : result.getContent()) {
+                    content.write(item);
+                }
+            }
+            return content;
+        }
+
+        synchronized void discard() {
+            if (content != null) {
+                content.close();
+            }
+        }
+    }
+
+    /**
+     * Kodierte tools/list Seiten einer Registry-Version.
+     * <p>
+     * Jedes Tool liegt als JSON-Fragment vor. Die Seiten ab Anfang der Liste, denen ein Client
+     * über nextCursor folgt, werden beim Anlegen einmal zusammengesetzt. Zeigt ein Cursor aus
+     * einer älteren Version mitten in eine Seite, wird die Seite aus den Fragmenten gebaut,
+     * ohne ein Tool erneut zu serialisieren.
+     * </p>
+     */
+    private final class ToolsList {
+
+        private final long version;
+        private final String[] names;
+        private final String[] fragments;
+        private final int pageSize;
+        private final RawValue[] pages;
+
+        ToolsList(long version, List<Tool> tools, int pageSize) {
+            this.version = version;
+            this.pageSize = Math.max(1, pageSize);
+            this.names = new String[tools.size()];
+            this.fragments = new String[tools.size()];
+            for (int i = 0; i < tools.size(); i++) {
+                names[i] = tools.get(i).getName();
+                fragments[i] = encode(tools.get(i)).rawValue().toString();
+            }
+
+            this.pages = new RawValue[Math.max(1, (names.length + this.pageSize - 1) / this.pageSize)];
+            for (int page = 0; page < pages.length; page++) {
+                pages[page] = assemble(page * this.pageSize);
+            }
+        }
+
+        long version() {
+            return version;
+        }
+
+        /**
+         * @param cursor nextCursor einer vorherigen Seite oder null für die erste Seite
+         * @throws IllegalArgumentException Wenn der Cursor ungültig ist
+         */
+        RawValue page(String cursor) {
+            int start = 0;
+            if (cursor != null) {
+                // Erstes Tool nach dem letzten der vorherigen Seite, auch wenn dieses inzwischen fehlt
+                int index = Arrays.binarySearch(names, Cursor.decode(cursor));
+                start = index >= 0 ? index + 1 : -index - 1;
+            }
+            return start % pageSize == 0 && start / pageSize < pages.length
+                    ? pages[start / pageSize]
+                    : assemble(start);
+        }
+
+        private RawValue assemble(int start) {
+            int end = Math.min(start + pageSize, fragments.length);
+            StringBuilder json = new StringBuilder("{\"tools\":[");
+            for (int i = start; i < end; i++) {
+                if (i > start) {
+                    json.append(',');
+                }
+                json.append(fragments[i]);
+            }
+            json.append(']');
+            if (end < fragments.length) {
+                // Base64url enthält keine Zeichen, die in JSON escaped werden müssen
+                json.append(",\"nextCursor\":\"").append(Cursor.encode(names[end - 1])).append('"');
+            }
+            return new RawValue(new SerializedString(json.append('}').toString()));
+        }
+    }
+
+    /**
+     * Die Argumente eines tools/call passen nicht zum Argument-Typ des Tools.
+     */
+    private static class ArgumentBindingException extends Exception {
+
+        ArgumentBindingException(String message) {
+            super(message);
+        }
     }
 }
@@ -1,36 +1,43 @@
 package com.mcpserver.control;
 
 import com.mcpserver.boundary.StdioMessageHandler;
-import com.mcpserver.entity.JsonRpcRequest;
+import com.mcpserver.entity.JsonRpcMessage;
+import com.mcpserver.entity.JsonRpcNotification;
 import com.mcpserver.entity.JsonRpcResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.List;
+
 /**
  * MCP Server Main Loop.
  * <p>
  * Diese Klasse orchestriert den Request/Response-Zyklus des MCP Servers:
  * <ol>
  *   <li>Liest JSON-RPC Requests von stdin</li>
- *   <li>Delegiert an den McpRequestHandler zur Verarbeitung</li>
- *   <li>Schreibt JSON-RPC Responses nach stdout</li>
+ *   <li>Übergibt sie an den RequestDispatcher zur Verarbeitung</li>
+ *   <li>Schreibt JSON-RPC Responses nach stdout, sobald sie fertig sind</li>
  * </ol>
  * Der Server läuft in einer Endlosschleife bis stdin geschlossen wird oder shutdown() aufgerufen wird.
  * </p>
  *
  * @see CommandLineRunner
- * @see McpRequestHandler
+ * @see RequestDispatcher
  * @see StdioMessageHandler
  */
 @Slf4j
 @Component
+@ConditionalOnProperty(prefix = "mcp", name = "transport", havingValue = "stdio", matchIfMissing = true)
 @RequiredArgsConstructor
 public class McpServer implements CommandLineRunner {
 
     private final StdioMessageHandler messageHandler;
-    private final McpRequestHandler requestHandler;
+    private final RequestDispatcher dispatcher;
+    private final ResponseSink stdout = new StdoutSink();
 
     private volatile boolean running = true;
 
@@ -49,21 +56,22 @@ public class McpServer implements CommandLineRunner {
 
         try {
             while (running) {
-                JsonRpcRequest request = messageHandler.readRequest();
+                JsonRpcMessage message = messageHandler.readMessage();
 
-                if (request == null) {
+                if (message == null) {
                     log.info("Input stream closed, shutting down...");
                     break;
                 }
 
-                JsonRpcResponse response = requestHandler.handleRequest(request);
-
-                messageHandler.writeResponse(response);
+                dispatcher.dispatch(message, stdout);
             }
         } catch (Exception e) {
             log.error("Fehler im Server Main Loop", e);
         }
 
+        dispatcher.shutdown();
+        messageHandler.close();
+
         log.info("MCP Server beendet");
     }
 
@@ -78,4 +86,25 @@ public class McpServer implements CommandLineRunner {
         log.info("Shutdown requested");
         running = false;
     }
+
+    /**
+     * Leitet fertige Responses an den StdioMessageHandler weiter.
+     */
+    private class StdoutSink implements ResponseSink {
+
+        @Override
+        public void send(JsonRpcResponse response) throws IOException {
+            messageHandler.writeResponse(response);
+        }
+
+        @Override
+        public void sendBatch(List<JsonRpcResponse> responses) throws IOException {
+            messageHandler.writeBatch(responses);
+        }
+
+        @Override
+        public void sendNotification(JsonRpcNotification notification) throws IOException {
+            messageHandler.writeNotification(notification);
+        }
+    }
 }
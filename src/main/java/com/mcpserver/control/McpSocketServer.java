@@ -0,0 +1,127 @@
+package com.mcpserver.control;
+
+import com.mcpserver.McpServerProperties;
+import com.mcpserver.boundary.SocketSession;
+import com.mcpserver.boundary.SocketTransport;
+import com.mcpserver.entity.JsonRpcMessage;
+import com.mcpserver.entity.JsonRpcNotification;
+import com.mcpserver.entity.JsonRpcResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * MCP Server Main Loop für den Socket Transport.
+ * <p>
+ * Gegenstück zum {@link McpServer} für {@code mcp.transport=socket}. Der Event-Loop des
+ * {@link SocketTransport} läuft auf dem Thread des CommandLineRunners und übergibt die
+ * Nachrichten aller Verbindungen an den gemeinsamen {@link RequestDispatcher}. Jede
+ * Verbindung bekommt einen eigenen {@link ResponseSink}, darüber sind ihre Requests,
+ * Responses und Abbrüche von denen anderer Clients getrennt. Mit
+ * {@code mcp.dispatch.overload-policy=block} pausiert bei Überlast der gesamte Event-Loop,
+ * der Rückstau trifft dann alle Verbindungen gleichermaßen.
+ * </p>
+ * <p>
+ * Schließt ein Client die Verbindung, werden seine laufenden Requests abgebrochen. Beim
+ * Herunterfahren werden erst alle angenommenen Requests abgeschlossen und ihre Responses
+ * geschrieben, bevor die Verbindungen geschlossen werden.
+ * </p>
+ *
+ * @see SocketTransport
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "mcp", name = "transport", havingValue = "socket")
+@RequiredArgsConstructor
+public class McpSocketServer implements CommandLineRunner, SocketTransport.ConnectionHandler {
+
+    private final SocketTransport transport;
+    private final RequestDispatcher dispatcher;
+    private final Map<SocketSession, ResponseSink> sinks = new ConcurrentHashMap<>();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private volatile boolean started;
+
+    /**
+     * Startet den Event-Loop. Läuft, bis der Server heruntergefahren wird.
+     *
+     * @param args Kommandozeilen-Argumente (werden nicht verwendet)
+     */
+    @Override
+    public void run(String... args) {
+        started = true;
+        log.info("MCP Server gestartet - Warte auf Verbindungen...");
+
+        try {
+            transport.serve(this);
+        } catch (IOException e) {
+            log.error("Fehler im Socket Event-Loop", e);
+        } finally {
+            dispatcher.shutdown();
+            transport.closeSessions();
+            stopped.countDown();
+        }
+
+        log.info("MCP Server beendet");
+    }
+
+    @Override
+    public void onMessage(SocketSession session, JsonRpcMessage message) {
+        dispatcher.dispatch(message, sinks.computeIfAbsent(session, SessionSink::new));
+    }
+
+    @Override
+    public void onClose(SocketSession session) {
+        ResponseSink sink = sinks.remove(session);
+        if (sink != null) {
+            dispatcher.cancelAll(sink);
+        }
+    }
+
+    /**
+     * Beendet den Event-Loop und wartet, bis alle Responses geschrieben sind.
+     */
+    @PreDestroy
+    public void shutdown() {
+        log.info("Shutdown requested");
+        transport.close();
+        if (!started) {
+            return;
+        }
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Leitet fertige Responses an die Session weiter.
+     */
+    private record SessionSink(SocketSession session) implements ResponseSink {
+
+        @Override
+        public void send(JsonRpcResponse response) throws IOException {
+            session.writeResponse(response);
+        }
+
+        @Override
+        public void sendBatch(List<JsonRpcResponse> responses) throws IOException {
+            session.writeBatch(responses);
+        }
+
+        @Override
+        public void sendNotification(JsonRpcNotification notification) throws IOException {
+            session.writeNotification(notification);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.mcpserver.control;
+
+import com.mcpserver.entity.JsonRpcRequest;
+import com.mcpserver.entity.JsonRpcResponse;
+
+/**
+ * Verarbeitet eine einzelne JSON-RPC Methode.
+ * <p>
+ * Einträge der Methoden-Tabelle im {@link McpRequestHandler}.
+ * </p>
+ */
+@FunctionalInterface
+public interface MethodHandler {
+
+    /**
+     * Verarbeitet den Request.
+     *
+     * @param request Die eingehende JSON-RPC Request
+     * @param sink    Ziel für Notifications, die während der Verarbeitung entstehen
+     * @return Die JSON-RPC Response
+     * @throws Exception Bei Fehlern, werden als "Internal error" beantwortet
+     */
+    JsonRpcResponse handle(JsonRpcRequest request, ResponseSink sink) throws Exception;
+}
@@ -0,0 +1,484 @@
+package com.mcpserver.control;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mcpserver.McpServerProperties;
+import com.mcpserver.entity.JsonRpcError;
+import com.mcpserver.entity.JsonRpcMessage;
+import com.mcpserver.entity.JsonRpcRequest;
+import com.mcpserver.entity.JsonRpcResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Request Dispatcher - Verteilt Requests auf den Ausführungs-Kontext.
+ * <p>
+ * Im SEQUENTIAL-Modus wird jeder Request direkt auf dem aufrufenden Thread verarbeitet.
+ * Im CONCURRENT-Modus übernimmt ein begrenzter Worker-Pool die Verarbeitung, der
+ * Reader-Thread kann sofort den nächsten Request lesen. Responses werden in
+ * Fertigstellungs-Reihenfolge gesendet, der Client ordnet sie über die JSON-RPC id zu.
+ * </p>
+ * <p>
+ * Die Einträge einer Batch laufen im CONCURRENT-Modus parallel. Ihre Responses werden
+ * gesammelt und als ein Array gesendet, sobald der letzte Eintrag fertig ist. Notifications
+ * erhalten gemäß JSON-RPC 2.0 keine Response.
+ * </p>
+ * <p>
+ * Laufende Requests stehen nach id in einer In-Flight-Tabelle. Ein
+ * {@code notifications/cancelled} wird sofort auf dem Reader-Thread verarbeitet, unterbricht
+ * den Worker und verwirft die Response. Überschreitet ein Request seine Deadline (Timeout des
+ * Tools oder {@code mcp.dispatch.request-timeout}), wird er ebenfalls unterbrochen und erhält
+ * einen "Request timed out" Fehler.
+ * </p>
+ * <p>
+ * Angenommene, aber noch nicht beantwortete Requests sind begrenzt, damit Rückstand nicht als
+ * Heap-Wachstum und Latenz endet: Tool-Aufrufe und resources/read auf
+ * {@code mcp.dispatch.max-pending}, Kontroll-Nachrichten getrennt davon auf
+ * {@code mcp.dispatch.max-pending-control}. Insgesamt sind also höchstens die Summe beider
+ * Limits angenommen. Ist ein Limit erreicht, wird der Request mit "Server overloaded"
+ * abgelehnt. Nur bei vollem Kontroll-Kontingent und der Policy BLOCK wartet stattdessen der
+ * Reader-Thread. Tool-Aufrufe lässt er nie warten, er könnte sonst kein ping und kein
+ * {@code notifications/cancelled} mehr lesen. Die Queue-Tiefe ist über {@link McpMetrics}
+ * sichtbar.
+ * </p>
+ * <p>
+ * Im CONCURRENT-Modus verteilt ein {@link LaneScheduler} die Requests. Kontroll-Nachrichten
+ * haben Vorrang und eigene reservierte Worker ({@code mcp.dispatch.control-workers}),
+ * {@code tools/call} und {@code resources/read} werden pro Tool-Name bzw. Methode fair und
+ * nach {@code mcp.dispatch.tool-weights} gewichtet verteilt. Durch ihr eigenes Kontingent
+ * werden Kontroll-Nachrichten nicht wegen Tool-Rückstand abgelehnt.
+ * </p>
+ *
+ * @see McpServerProperties.Dispatch
+ */
+@Slf4j
+@Component
+public class RequestDispatcher {
+
+    private static final String METHOD_CANCELLED = "notifications/cancelled";
+    private static final String PARAM_REQUEST_ID = "requestId";
+    private static final String PARAM_REASON = "reason";
+    private static final String METHOD_TOOLS_CALL = "tools/call";
+    private static final String METHOD_RESOURCES_READ = "resources/read";
+    private static final String PARAM_NAME = "name";
+
+    private final McpRequestHandler requestHandler;
+    private final McpMetrics metrics;
+    private final McpServerProperties.Dispatch config;
+    private final LaneScheduler executor;
+    private final ScheduledExecutorService deadlines;
+    private final Semaphore admission;
+    private final Semaphore controlAdmission;
+    private final Map<InFlightKey, InFlightRequest> inFlightRequests = new ConcurrentHashMap<>();
+
+    public RequestDispatcher(McpRequestHandler requestHandler, McpMetrics metrics, McpServerProperties properties) {
+        this.requestHandler = requestHandler;
+        this.metrics = metrics;
+        this.config = properties.getDispatch();
+        this.executor = config.getMode() == McpServerProperties.DispatchMode.CONCURRENT
+                ? createExecutor(config)
+                : null;
+        this.deadlines = createDeadlineScheduler();
+        this.admission = new Semaphore(Math.max(config.getMaxPending(), 1));
+        this.controlAdmission = new Semaphore(Math.max(config.getMaxPendingControl(), 1));
+        log.info("Dispatch mode: {} (max concurrency {}, control workers {}, max pending {}/{} control, "
+                        + "overload policy {})",
+                config.getMode(), config.getMaxConcurrency(), config.getControlWorkers(), config.getMaxPending(),
+                config.getMaxPendingControl(), config.getOverloadPolicy());
+    }
+
+    /**
+     * Verarbeitet eine eingelesene Nachricht, einzeln oder als Batch.
+     *
+     * @param message Die eingelesene JSON-RPC Nachricht
+     * @param sink    Ziel für die Response(s)
+     */
+    public void dispatch(JsonRpcMessage message, ResponseSink sink) {
+        if (message.isBatch()) {
+            dispatchBatch(message, sink);
+            return;
+        }
+
+        for (JsonRpcResponse error : message.getErrors()) {
+            send(sink, error);
+        }
+        for (JsonRpcRequest request : message.getRequests()) {
+            dispatch(request, sink);
+        }
+    }
+
+    /**
+     * Verarbeitet einen Request und übergibt die Response an den Sink.
+     * <p>
+     * Kehrt im CONCURRENT-Modus sofort zurück, die Response wird später von einem
+     * Worker-Thread gesendet.
+     * </p>
+     *
+     * @param request Die eingehende JSON-RPC Request
+     * @param sink    Ziel für die Response
+     */
+    public void dispatch(JsonRpcRequest request, ResponseSink sink) {
+        if (METHOD_CANCELLED.equals(request.getMethod())) {
+            cancel(request, sink);
+            return;
+        }
+        track(request, sink, response -> {
+            if (response != null) {
+                send(sink, response);
+            } else if (!request.isNotification()) {
+                sink.dropped();
+            }
+        });
+    }
+
+    /**
+     * Bricht alle laufenden Requests einer Session ab, z.B. wenn die Verbindung des Clients
+     * geschlossen wurde. Ihre Responses werden verworfen.
+     *
+     * @param session Die Session wie von {@link ResponseSink#session()} geliefert
+     */
+    public void cancelAll(Object session) {
+        inFlightRequests.forEach((key, inFlight) -> {
+            if (key.session() == session && inFlightRequests.remove(key, inFlight) && inFlight.cancel()) {
+                metrics.requestCancelled();
+            }
+        });
+    }
+
+    /**
+     * Wartet, bis alle angenommenen Requests abgeschlossen sind, und beendet den Worker-Pool.
+     * <p>
+     * Wird aufgerufen, wenn stdin geschlossen wurde, damit keine Response verloren geht.
+     * </p>
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (executor == null) {
+            deadlines.shutdownNow();
+            return;
+        }
+        if (executor.isShutdown()) {
+            return;
+        }
+
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(config.getShutdownTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Offene Requests nach {} nicht abgeschlossen, breche ab", config.getShutdownTimeout());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        deadlines.shutdownNow();
+    }
+
+    private void dispatchBatch(JsonRpcMessage message, ResponseSink sink) {
+        List<JsonRpcRequest> requests = message.getRequests();
+        if (requests.isEmpty() && message.getErrors().isEmpty()) {
+            send(sink, JsonRpcResponse.error(null, JsonRpcError.invalidRequest("Empty batch")));
+            return;
+        }
+
+        BatchCollector collector = new BatchCollector(requests, message.getErrors(), sink);
+        for (int i = 0; i < requests.size(); i++) {
+            JsonRpcRequest request = requests.get(i);
+            int index = i;
+            if (METHOD_CANCELLED.equals(request.getMethod())) {
+                cancel(request, sink);
+                collector.complete(index, null);
+            } else {
+                track(request, sink, response -> collector.complete(index, response));
+            }
+        }
+    }
+
+    /**
+     * Trägt einen Request in die In-Flight-Tabelle ein, setzt seine Deadline und führt ihn aus.
+     * <p>
+     * Die Completion erhält genau einmal die Response, oder null wenn keine gesendet werden
+     * soll (Notification oder abgebrochen). Die id ist pro Session eindeutig, verschiedene Clients
+     * dürfen dieselben ids verwenden. Ein Request mit einer bereits laufenden id wird
+     * ausgeführt, ist aber nicht abbrechbar.
+     * </p>
+     */
+    private void track(JsonRpcRequest request, ResponseSink sink, Consumer<JsonRpcResponse> completion) {
+        String lane = laneOf(request);
+        Semaphore admission = lane == null ? controlAdmission : this.admission;
+        if (!admit(request, admission, lane == null)) {
+            completion.accept(request.isNotification()
+                    ? null
+                    : JsonRpcResponse.error(request.getId(), JsonRpcError.serverOverloaded()));
+            return;
+        }
+
+        InFlightRequest inFlight = new InFlightRequest(request, completion);
+        InFlightKey key = keyOf(sink, request.getId());
+        if (key != null && inFlightRequests.putIfAbsent(key, inFlight) != null) {
+            log.warn("Request id {} ist bereits in Bearbeitung", request.getId());
+            key = null;
+        }
+
+        Duration timeout = timeoutOf(request);
+        if (!timeout.isZero() && !timeout.isNegative()) {
+            inFlight.deadline(deadlines.schedule(() -> expire(inFlight, timeout),
+                    timeout.toNanos(), TimeUnit.NANOSECONDS));
+        }
+
+        InFlightKey trackedKey = key;
+        execute(() -> {
+            try {
+                if (inFlight.begin()) {
+                    inFlight.end(handle(request, sink));
+                }
+            } finally {
+                if (trackedKey != null) {
+                    inFlightRequests.remove(trackedKey, inFlight);
+                }
+                admission.release();
+            }
+        }, lane);
+    }
+
+    /**
+     * Ordnet einen Request seiner Lane im {@link LaneScheduler} zu.
+     *
+     * @return Tool-Name bei tools/call, die Methode bei resources/read, sonst null für die
+     *         Kontroll-Lane
+     */
+    private static String laneOf(JsonRpcRequest request) {
+        String method = request.getMethod();
+        if (METHOD_TOOLS_CALL.equals(method)) {
+            JsonNode params = request.getParams();
+            String name = params == null ? null : params.path(PARAM_NAME).textValue();
+            // Ohne Namen endet der Aufruf sofort mit Invalid params, er ist aber kein Kontroll-Request
+            return name == null ? METHOD_TOOLS_CALL : name;
+        }
+        return METHOD_RESOURCES_READ.equals(method) ? method : null;
+    }
+
+    /**
+     * Reserviert einen Platz für einen weiteren angenommenen Request.
+     * <p>
+     * Bei BLOCK wartet der Reader-Thread, bis ein Platz frei wird, und liest so lange nicht
+     * weiter von stdin. Der Client spürt den Rückstau über die Pipe. Bei REJECT wird sofort
+     * abgelehnt. Die Tool-Lanes warten nie: Ihre Requests laufen beliebig lange, und der
+     * blockierte Reader würde die Kontroll-Nachrichten dahinter nicht mehr lesen.
+     * </p>
+     *
+     * @param mayBlock Ob der Reader bei BLOCK auf einen Platz warten darf
+     * @return false wenn der Request abgelehnt wird
+     */
+    private boolean admit(JsonRpcRequest request, Semaphore admission, boolean mayBlock) {
+        if (admission.tryAcquire()) {
+            return true;
+        }
+
+        if (mayBlock && config.getOverloadPolicy() == McpServerProperties.OverloadPolicy.BLOCK) {
+            try {
+                admission.acquire();
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        log.warn("Server überlastet ({} offene Requests), lehne {} ab",
+                admission == controlAdmission ? config.getMaxPendingControl() : config.getMaxPending(),
+                request.getId());
+        metrics.recordError(JsonRpcError.SERVER_OVERLOADED);
+        return false;
+    }
+
+    /**
+     * Verarbeitet {@code notifications/cancelled}. Unbekannte oder bereits beantwortete ids
+     * werden laut MCP Spec ignoriert.
+     */
+    private void cancel(JsonRpcRequest notification, ResponseSink sink) {
+        JsonNode params = notification.getParams();
+        InFlightKey key = params == null ? null : keyOf(sink, params.get(PARAM_REQUEST_ID));
+        InFlightRequest inFlight = key == null ? null : inFlightRequests.remove(key);
+        if (inFlight != null && inFlight.cancel()) {
+            metrics.requestCancelled();
+            log.info("Request {} abgebrochen: {}", inFlight.request().getId(), params.path(PARAM_REASON).asText(""));
+        }
+    }
+
+    private void expire(InFlightRequest inFlight, Duration timeout) {
+        JsonRpcRequest request = inFlight.request();
+        JsonRpcResponse response = request.isNotification()
+                ? null
+                : JsonRpcResponse.error(request.getId(), JsonRpcError.requestTimeout(timeout));
+        if (inFlight.expire(response)) {
+            metrics.recordError(JsonRpcError.REQUEST_TIMEOUT);
+            log.warn("Request {} ({}) nach {} abgelaufen", request.getId(), request.getMethod(), timeout);
+        }
+    }
+
+    private Duration timeoutOf(JsonRpcRequest request) {
+        Duration toolTimeout = requestHandler.timeoutOf(request);
+        return toolTimeout != null ? toolTimeout : config.getRequestTimeout();
+    }
+
+    /**
+     * Vereinheitlicht ids für die In-Flight-Tabelle, da Jackson Zahlen je nach Größe als
+     * Integer oder Long liest und die requestId der Notification als JsonNode vorliegt.
+     *
+     * @return Schlüssel oder null, wenn die id fehlt oder keinen gültigen Typ hat
+     */
+    private static InFlightKey keyOf(ResponseSink sink, Object id) {
+        Object normalized = id;
+        if (id instanceof JsonNode node) {
+            normalized = node.isIntegralNumber() ? (Object) node.longValue() : node.textValue();
+        } else if (id instanceof Number number) {
+            normalized = number.longValue();
+        }
+        return normalized == null ? null : new InFlightKey(sink.session(), normalized);
+    }
+
+    /**
+     * Führt eine Aufgabe direkt oder auf dem Worker-Pool aus und führt die Queue- und
+     * In-Flight-Zähler in {@link McpMetrics} nach.
+     */
+    private void execute(Runnable task, String lane) {
+        if (executor == null) {
+            run(task);
+            return;
+        }
+
+        metrics.requestQueued();
+        executor.execute(() -> {
+            metrics.requestDequeued();
+            run(task);
+        }, lane);
+    }
+
+    private void run(Runnable task) {
+        metrics.requestStarted();
+        try {
+            task.run();
+        } finally {
+            metrics.requestFinished();
+        }
+    }
+
+    /**
+     * Führt einen Request aus.
+     *
+     * @return Die Response oder null bei Notifications
+     */
+    private JsonRpcResponse handle(JsonRpcRequest request, ResponseSink sink) {
+        JsonRpcResponse response = requestHandler.handleRequest(request, sink);
+        if (request.isNotification()) {
+            if (response != null) {
+                response.release();
+            }
+            return null;
+        }
+        return response;
+    }
+
+    private static void send(ResponseSink sink, JsonRpcResponse response) {
+        try {
+            sink.send(response);
+        } catch (IOException e) {
+            log.error("Response für Request {} konnte nicht gesendet werden", response.getId(), e);
+            response.release();
+        }
+    }
+
+    private static LaneScheduler createExecutor(McpServerProperties.Dispatch config) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("mcp-worker-");
+        threadFactory.setDaemon(true);
+
+        return new LaneScheduler(config.getMaxConcurrency(), config.getControlWorkers(),
+                config.getToolWeights(), threadFactory);
+    }
+
+    private static ScheduledExecutorService createDeadlineScheduler() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("mcp-deadline-");
+        threadFactory.setDaemon(true);
+
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, threadFactory);
+        // Erledigte Requests sollen ihre Deadline nicht bis zum Ablauf in der Queue halten
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * Schlüssel der In-Flight-Tabelle. Die Session trennt die ids verschiedener Clients.
+     */
+    private record InFlightKey(Object session, Object id) {
+    }
+
+    /**
+     * Sammelt die Responses einer Batch und sendet sie, sobald der letzte Eintrag fertig ist.
+     */
+    private static class BatchCollector {
+
+        private final JsonRpcResponse[] responses;
+        private final List<JsonRpcResponse> errors;
+        private final ResponseSink sink;
+        private final boolean expectsResponse;
+        private final AtomicInteger remaining;
+
+        BatchCollector(List<JsonRpcRequest> requests, List<JsonRpcResponse> errors, ResponseSink sink) {
+            int size = requests.size();
+            this.responses = new JsonRpcResponse[size];
+            this.errors = errors;
+            this.sink = sink;
+            this.expectsResponse = requests.stream().anyMatch(request -> !request.isNotification());
+            this.remaining = new AtomicInteger(size);
+            if (size == 0) {
+                sendAll();
+            }
+        }
+
+        void complete(int index, JsonRpcResponse response) {
+            responses[index] = response;
+            // decrementAndGet garantiert die Sichtbarkeit aller Einträge für den letzten Thread
+            if (remaining.decrementAndGet() == 0) {
+                sendAll();
+            }
+        }
+
+        private void sendAll() {
+            List<JsonRpcResponse> results = new ArrayList<>(responses.length + errors.size());
+            for (JsonRpcResponse response : responses) {
+                if (response != null) {
+                    results.add(response);
+                }
+            }
+            results.addAll(errors);
+
+            if (results.isEmpty()) {
+                // Nur Notifications oder alle Einträge abgebrochen
+                if (expectsResponse) {
+                    sink.dropped();
+                }
+                return;
+            }
+            try {
+                sink.sendBatch(results);
+            } catch (IOException e) {
+                log.error("Batch-Response konnte nicht gesendet werden", e);
+                results.forEach(JsonRpcResponse::release);
+            }
+        }
+    }
+}
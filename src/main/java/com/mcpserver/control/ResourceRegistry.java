@@ -0,0 +1,423 @@
+package com.mcpserver.control;
+
+import com.mcpserver.McpServerProperties;
+import com.mcpserver.entity.Resource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Resource Registry - Bietet die Dateien der konfigurierten Roots als MCP Resources an.
+ * <p>
+ * Jede reguläre Datei unterhalb eines Roots ist eine Resource mit ihrer {@code file://} URI.
+ * Die Registry hält dafür einen Index aller Dateien mit Pfad, Größe, Änderungszeit und
+ * MIME-Type im Speicher, sortiert nach URI. Er wird beim Start parallel aufgebaut, ein
+ * Thread pro Verzeichnis-Teilbaum über einen {@link ForkJoinPool}. Danach hält ein
+ * {@link WatchService} ihn aktuell: neue, geänderte und gelöschte Dateien und Verzeichnisse
+ * werden einzeln nachgetragen, nur bei einem Überlauf der Events wird ein Verzeichnis neu
+ * eingelesen. Symlinks werden weder gelistet noch verfolgt.
+ * </p>
+ * <p>
+ * resources/list liefert Seiten von {@code mcp.resources.page-size} Einträgen mit einem
+ * {@link Cursor} auf die letzte URI, sodass keine Response den ganzen Baum enthält.
+ * resources/read löst URIs über denselben Index auf, lesbar sind also nur indizierte Dateien.
+ * </p>
+ */
+@Slf4j
+@Component
+public class ResourceRegistry {
+
+    /**
+     * Obergrenze für {@code mcp.resources.max-read-bytes}. Einzelne Responses gehen in allen
+     * Transports gestreamt raus, in einer Batch liegt das Ergebnis aber noch vollständig in
+     * einem Puffer, Base64 eines größeren Bereichs passt dort nicht hinein.
+     */
+    static final long MAX_READ_BYTES = 1024L * 1024 * 1024;
+
+    private static final String DEFAULT_TEXT_TYPE = "text/plain";
+    private static final String DEFAULT_BINARY_TYPE = "application/octet-stream";
+    private static final String UNKNOWN_TYPE = "";
+
+    /**
+     * MIME-Types nach Dateiendung. Die Standard-Erkennung unter Linux arbeitet ebenfalls nur
+     * über die Endung, so wird sie pro Endung einmal statt pro Datei befragt.
+     */
+    private static final Map<String, String> MIME_TYPES = new ConcurrentHashMap<>();
+
+    private final List<Path> roots = new ArrayList<>();
+    private final long maxReadBytes;
+    private final int pageSize;
+    private final NavigableMap<String, IndexedFile> index = new ConcurrentSkipListMap<>();
+    private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+    private final WatchService watchService;
+
+    @Autowired
+    public ResourceRegistry(McpServerProperties properties) {
+        this(properties.getResources().getRoots(), properties.getResources().getMaxReadBytes(),
+                properties.getResources().getPageSize());
+    }
+
+    /**
+     * Erstellt eine Registry für feste Roots, z.B. für Tests, und baut den Index auf.
+     *
+     * @param roots        Verzeichnisse, deren Dateien angeboten werden
+     * @param maxReadBytes Maximale Größe einer lesbaren Datei
+     * @param pageSize     Anzahl der Resources pro resources/list Seite
+     */
+    public ResourceRegistry(List<Path> roots, long maxReadBytes, int pageSize) {
+        for (Path root : roots) {
+            try {
+                this.roots.add(root.toRealPath());
+            } catch (IOException e) {
+                log.warn("Resource Root {} existiert nicht und wird ignoriert", root);
+            }
+        }
+        this.maxReadBytes = Math.min(maxReadBytes, MAX_READ_BYTES);
+        this.pageSize = pageSize;
+
+        if (this.roots.isEmpty()) {
+            this.watchService = null;
+            return;
+        }
+
+        this.watchService = newWatchService(this.roots.get(0));
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        try {
+            for (Path root : this.roots) {
+                pool.invoke(new IndexDirectory(root));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        log.info("{} Resources in {} ms indiziert", index.size(), (System.nanoTime() - start) / 1_000_000);
+
+        if (watchService != null) {
+            Thread watchThread = new Thread(this::watchLoop, "mcp-resource-watch");
+            watchThread.setDaemon(true);
+            watchThread.start();
+        }
+    }
+
+    /**
+     * @return true wenn keine Roots konfiguriert sind
+     */
+    public boolean isEmpty() {
+        return roots.isEmpty();
+    }
+
+    /**
+     * @return Anzahl der indizierten Dateien
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Gibt eine Seite des Index nach URI sortiert zurück.
+     *
+     * @param cursor nextCursor der vorherigen Seite oder null für die erste Seite
+     * @return Resources der Seite und der Cursor der nächsten, falls es eine gibt
+     * @throws IllegalArgumentException Wenn der Cursor ungültig ist
+     */
+    public Page page(String cursor) {
+        NavigableMap<String, IndexedFile> remaining = cursor == null
+                ? index
+                : index.tailMap(Cursor.decode(cursor), false);
+
+        List<Resource> resources = new ArrayList<>(Math.min(pageSize, 64));
+        String lastUri = null;
+        for (Map.Entry<String, IndexedFile> entry : remaining.entrySet()) {
+            if (resources.size() == pageSize) {
+                return new Page(resources, Cursor.encode(lastUri));
+            }
+            resources.add(entry.getValue().toResource(entry.getKey()));
+            lastUri = entry.getKey();
+        }
+        return new Page(resources, null);
+    }
+
+    /**
+     * Löst eine Resource-URI in die indizierte Datei auf.
+     * <p>
+     * Der Index kann dem Dateisystem hinterherlaufen, deshalb wird der echte Pfad bei jedem
+     * Aufruf erneut gegen die Roots geprüft. Wurde die Datei oder eines ihrer Verzeichnisse
+     * inzwischen durch einen Symlink ersetzt, gilt sie als nicht vorhanden.
+     * </p>
+     *
+     * @param uri URI aus resources/list
+     * @return Pfad der Datei oder null, wenn die URI keine indizierte Datei innerhalb eines Roots bezeichnet
+     */
+    public Path resolve(String uri) {
+        IndexedFile file = index.get(uri);
+        if (file == null) {
+            return null;
+        }
+
+        Path realPath;
+        try {
+            realPath = file.path().toRealPath();
+        } catch (IOException e) {
+            // Gelöscht, das Event dazu steht noch aus
+            return null;
+        }
+        if (!realPath.equals(file.path()) || !isWithinRoot(realPath)) {
+            log.warn("Resource {} zeigt nicht mehr auf eine Datei innerhalb eines Roots", uri);
+            return null;
+        }
+        return realPath;
+    }
+
+    /**
+     * @return Maximale Größe einer Datei, die über resources/read gelesen werden kann
+     */
+    public long maxReadBytes() {
+        return maxReadBytes;
+    }
+
+    /**
+     * Beendet die Überwachung der Roots.
+     */
+    @PreDestroy
+    public void close() {
+        if (watchService == null) {
+            return;
+        }
+
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.warn("WatchService konnte nicht geschlossen werden", e);
+        }
+    }
+
+    /**
+     * MIME-Type einer Datei, ohne bekannte Endung je nach Inhalt Text oder Binärdaten.
+     *
+     * @param file Datei innerhalb eines Roots
+     * @param text Ob der Inhalt als Text erkannt wurde
+     * @return MIME-Type, nie null
+     */
+    static String mimeType(Path file, boolean text) {
+        String mimeType = probeMimeType(file);
+        if (mimeType != null) {
+            return mimeType;
+        }
+        return text ? DEFAULT_TEXT_TYPE : DEFAULT_BINARY_TYPE;
+    }
+
+    private boolean isWithinRoot(Path realPath) {
+        for (Path root : roots) {
+            if (realPath.startsWith(root)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static WatchService newWatchService(Path root) {
+        try {
+            return root.getFileSystem().newWatchService();
+        } catch (IOException e) {
+            log.warn("Resource-Index kann nicht überwacht werden und bleibt auf dem Stand beim Start", e);
+            return null;
+        }
+    }
+
+    private static String probeMimeType(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String extension = dot < 0 ? UNKNOWN_TYPE : name.substring(dot).toLowerCase(Locale.ROOT);
+
+        String mimeType = MIME_TYPES.computeIfAbsent(extension, key -> {
+            try {
+                String probed = Files.probeContentType(file);
+                return probed == null ? UNKNOWN_TYPE : probed;
+            } catch (IOException e) {
+                log.debug("MIME-Type von {} unbekannt: {}", file, e.getMessage());
+                return UNKNOWN_TYPE;
+            }
+        });
+        return mimeType.isEmpty() ? null : mimeType;
+    }
+
+    /**
+     * Registriert ein Verzeichnis beim WatchService und nimmt seine Einträge in den Index auf.
+     * Unterverzeichnisse werden als eigene Tasks abgespalten.
+     */
+    private void indexDirectory(Path directory, List<IndexDirectory> subdirectories) {
+        if (watchService != null) {
+            try {
+                WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                watchedDirectories.put(key, directory);
+            } catch (IOException e) {
+                log.warn("Verzeichnis {} kann nicht überwacht werden: {}", directory, e.getMessage());
+            }
+        }
+
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                BasicFileAttributes attributes = readAttributes(entry);
+                if (attributes == null) {
+                    continue;
+                }
+                if (attributes.isDirectory()) {
+                    subdirectories.add(new IndexDirectory(entry));
+                } else if (attributes.isRegularFile()) {
+                    put(entry, attributes);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Verzeichnis {} kann nicht gelesen werden: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Arbeitet die Events des WatchService ab, bis er geschlossen wird.
+     */
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path directory = watchedDirectories.get(key);
+                if (directory != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        apply(directory, event);
+                    }
+                }
+                if (!key.reset()) {
+                    watchedDirectories.remove(key);
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            log.debug("Resource-Überwachung beendet");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void apply(Path directory, WatchEvent<?> event) {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            log.info("Events für {} verloren, lese das Verzeichnis neu ein", directory);
+            removeTree(directory);
+            ForkJoinPool.commonPool().invoke(new IndexDirectory(directory));
+            return;
+        }
+
+        Path entry = directory.resolve((Path) event.context());
+        if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+            index.remove(entry.toUri().toString());
+            removeTree(entry);
+            return;
+        }
+
+        BasicFileAttributes attributes = readAttributes(entry);
+        if (attributes != null && attributes.isRegularFile()) {
+            put(entry, attributes);
+            return;
+        }
+
+        // Keine reguläre Datei mehr, z.B. durch einen Symlink ersetzt
+        index.remove(entry.toUri().toString());
+        if (attributes != null && attributes.isDirectory()) {
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                // Ein verschobenes Verzeichnis kommt samt Inhalt, ohne Events für die Dateien darin
+                ForkJoinPool.commonPool().invoke(new IndexDirectory(entry));
+            }
+        } else {
+            removeTree(entry);
+        }
+    }
+
+    /**
+     * Entfernt alle Dateien unterhalb eines Verzeichnisses. Deren URIs beginnen mit der URI
+     * des Verzeichnisses und liegen im sortierten Index direkt hintereinander.
+     */
+    private void removeTree(Path directory) {
+        String prefix = directory.toUri().toString();
+        if (!prefix.endsWith("/")) {
+            prefix += "/";
+        }
+        index.subMap(prefix, true, prefix + Character.MAX_VALUE, false).clear();
+    }
+
+    private void put(Path file, BasicFileAttributes attributes) {
+        index.put(file.toUri().toString(), new IndexedFile(file, attributes.size(),
+                attributes.lastModifiedTime().toMillis(), probeMimeType(file)));
+    }
+
+    private static BasicFileAttributes readAttributes(Path entry) {
+        try {
+            return Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            // Zwischen Auflisten und Lesen gelöscht
+            return null;
+        }
+    }
+
+    /**
+     * Eine Seite von resources/list.
+     *
+     * @param resources  Resources der Seite
+     * @param nextCursor Cursor der nächsten Seite oder null auf der letzten
+     */
+    public record Page(List<Resource> resources, String nextCursor) {
+    }
+
+    /**
+     * Eintrag des Index. Die URI ist der Schlüssel und wird nicht doppelt gehalten.
+     */
+    private record IndexedFile(Path path, long size, long lastModified, String mimeType) {
+
+        Resource toResource(String uri) {
+            return Resource.builder()
+                    .uri(uri)
+                    .name(path.getFileName().toString())
+                    .mimeType(mimeType)
+                    .size(size)
+                    .build();
+        }
+    }
+
+    /**
+     * Indiziert ein Verzeichnis und forkt je Unterverzeichnis einen weiteren Task.
+     */
+    private final class IndexDirectory extends RecursiveAction {
+
+        private final Path directory;
+
+        IndexDirectory(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        protected void compute() {
+            List<IndexDirectory> subdirectories = new ArrayList<>();
+            indexDirectory(directory, subdirectories);
+            invokeAll(subdirectories);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.mcpserver.control;
+
+import com.mcpserver.entity.JsonRpcNotification;
+import com.mcpserver.entity.JsonRpcResponse;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Ziel für fertige JSON-RPC Responses.
+ * <p>
+ * Wird vom {@link RequestDispatcher} aufgerufen, sobald ein Request oder eine Batch
+ * abgeschlossen ist. Im CONCURRENT-Modus geschieht das von beliebigen Worker-Threads aus,
+ * Implementierungen müssen daher thread-safe sein.
+ * </p>
+ */
+public interface ResponseSink {
+
+    /**
+     * Sendet eine Response an den Client.
+     *
+     * @param response Die fertige Response, über ihre id dem Request zugeordnet
+     * @throws IOException Bei Schreib-Fehlern
+     */
+    void send(JsonRpcResponse response) throws IOException;
+
+    /**
+     * Sendet die Ergebnisse einer Batch als ein einzelnes JSON-Array.
+     *
+     * @param responses Die Responses aller Batch-Einträge außer Notifications, nie leer
+     * @throws IOException Bei Schreib-Fehlern
+     */
+    void sendBatch(List<JsonRpcResponse> responses) throws IOException;
+
+    /**
+     * Sendet eine Notification, die zu einem laufenden Request gehört, z.B.
+     * {@code notifications/progress}. Sie geht sofort raus, noch vor der Response.
+     * <p>
+     * Transporte ohne Kanal für solche Notifications verwerfen sie.
+     * </p>
+     *
+     * @param notification Die Notification
+     * @throws IOException Bei Schreib-Fehlern
+     */
+    default void sendNotification(JsonRpcNotification notification) throws IOException {
+    }
+
+    /**
+     * Ein Request oder eine Batch, die eine Response erwartet hätte, endet ohne Response,
+     * z.B. weil sie per {@code notifications/cancelled} abgebrochen wurde.
+     * <p>
+     * Transporte, die pro Request auf die Response warten (HTTP), können damit abschließen.
+     * </p>
+     */
+    default void dropped() {
+    }
+
+    /**
+     * Bereich, in dem Request-ids eindeutig sind. {@code notifications/cancelled} und
+     * {@link RequestDispatcher#cancelAll(Object)} wirken nur innerhalb einer Session.
+     *
+     * @return Standardmäßig der Sink selbst, Transporte mit mehreren Sinks pro Client
+     *         liefern ein gemeinsames Session-Objekt
+     */
+    default Object session() {
+        return this;
+    }
+}
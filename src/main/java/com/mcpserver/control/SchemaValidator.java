@@ -0,0 +1,393 @@
+package com.mcpserver.control;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Vorkompilierte Prüfung von Tool-Argumenten gegen das inputSchema eines Tools.
+ * <p>
+ * Das Schema wird bei der Registrierung einmal in einen Baum aus {@link Node}s übersetzt, in
+ * dem Typen als Bitmaske, Pflichtfelder als Array und Properties als Hash-Map nach Namen
+ * vorliegen. Ein Aufruf läuft nur noch über den JSON-Baum der Argumente, ohne Reflection und
+ * ohne das Schema als Map zu lesen.
+ * </p>
+ * <p>
+ * Unterstützt wird die Teilmenge von JSON Schema, die Tool-Schemas praktisch verwenden:
+ * {@code type} (auch als Liste), {@code properties}, {@code required},
+ * {@code additionalProperties}, {@code items}, {@code enum}, {@code const}, {@code minimum},
+ * {@code maximum}, {@code minLength}, {@code maxLength}, {@code minItems} und
+ * {@code maxItems}. Andere Schlüsselwörter werden ignoriert, das Schema ist dann großzügiger
+ * als beschrieben, lehnt aber nie gültige Argumente ab.
+ * </p>
+ */
+final class SchemaValidator {
+
+    /**
+     * Mehr Verstöße werden nicht gesammelt, damit große ungültige Eingaben billig bleiben.
+     */
+    static final int MAX_VIOLATIONS = 20;
+
+    private static final int TYPE_OBJECT = 1;
+    private static final int TYPE_ARRAY = 1 << 1;
+    private static final int TYPE_STRING = 1 << 2;
+    private static final int TYPE_NUMBER = 1 << 3;
+    private static final int TYPE_INTEGER = 1 << 4;
+    private static final int TYPE_BOOLEAN = 1 << 5;
+    private static final int TYPE_NULL = 1 << 6;
+    private static final int ANY_TYPE = 0;
+
+    private static final Map<String, Integer> TYPES = Map.of(
+            "object", TYPE_OBJECT,
+            "array", TYPE_ARRAY,
+            "string", TYPE_STRING,
+            "number", TYPE_NUMBER,
+            "integer", TYPE_INTEGER,
+            "boolean", TYPE_BOOLEAN,
+            "null", TYPE_NULL
+    );
+
+    private static final ObjectMapper VALUES = new ObjectMapper();
+
+    private final Node root;
+
+    private SchemaValidator(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Übersetzt ein inputSchema.
+     *
+     * @param schema Das inputSchema aus dem Tool-Descriptor
+     * @return Der Validator oder null, wenn das Tool kein Schema deklariert
+     * @throws IllegalArgumentException Wenn das Schema selbst ungültig ist
+     */
+    static SchemaValidator compile(Map<String, Object> schema) {
+        return schema == null ? null : new SchemaValidator(compileNode(schema, ""));
+    }
+
+    /**
+     * Prüft die Argumente eines Aufrufs.
+     *
+     * @param arguments Argumente aus dem tools/call Request
+     * @return Gefundene Verstöße, leer wenn die Argumente gültig sind
+     */
+    List<Violation> validate(JsonNode arguments) {
+        List<Violation> violations = new ArrayList<>(0);
+        root.validate(arguments, null, violations);
+        return violations;
+    }
+
+    /**
+     * Ein Verstoß gegen das Schema.
+     *
+     * @param path    JSON Pointer auf den ungültigen Wert, leer für die Argumente selbst
+     * @param message Was an dem Wert nicht stimmt
+     */
+    record Violation(String path, String message) {
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Node compileNode(Object definition, String pointer) {
+        if (definition instanceof Boolean allowed) {
+            return allowed ? Node.ANYTHING : Node.NOTHING;
+        }
+        if (!(definition instanceof Map<?, ?>)) {
+            throw new IllegalArgumentException("Schema at '" + pointer + "' is not an object");
+        }
+        Map<String, Object> schema = (Map<String, Object>) definition;
+
+        Node node = new Node();
+        node.types = compileTypes(schema.get("type"), pointer);
+
+        Object properties = schema.get("properties");
+        if (properties instanceof Map<?, ?> map) {
+            node.properties = new HashMap<>();
+            for (Map.Entry<?, ?> property : map.entrySet()) {
+                String name = String.valueOf(property.getKey());
+                node.properties.put(name, compileNode(property.getValue(), pointer + "/properties/" + name));
+            }
+        } else if (properties != null) {
+            throw new IllegalArgumentException("'properties' at '" + pointer + "' is not an object");
+        }
+
+        Object required = schema.get("required");
+        if (required instanceof Collection<?> names) {
+            node.required = names.stream().map(String::valueOf).toArray(String[]::new);
+        } else if (required != null) {
+            throw new IllegalArgumentException("'required' at '" + pointer + "' is not an array");
+        }
+
+        Object additional = schema.get("additionalProperties");
+        if (additional != null) {
+            node.additionalProperties = compileNode(additional, pointer + "/additionalProperties");
+        }
+        Object items = schema.get("items");
+        if (items != null) {
+            node.items = compileNode(items, pointer + "/items");
+        }
+
+        Object values = schema.get("enum");
+        if (values instanceof Collection<?> list) {
+            node.allowedValues = new ArrayList<>(list.size());
+            for (Object value : list) {
+                node.allowedValues.add(VALUES.valueToTree(value));
+            }
+        } else if (values != null) {
+            throw new IllegalArgumentException("'enum' at '" + pointer + "' is not an array");
+        }
+        if (schema.containsKey("const")) {
+            node.allowedValues = List.of(VALUES.valueToTree(schema.get("const")));
+        }
+
+        node.minimum = number(schema, "minimum", pointer);
+        node.maximum = number(schema, "maximum", pointer);
+        node.minLength = count(schema, "minLength", pointer);
+        node.maxLength = count(schema, "maxLength", pointer);
+        node.minItems = count(schema, "minItems", pointer);
+        node.maxItems = count(schema, "maxItems", pointer);
+        return node;
+    }
+
+    private static int compileTypes(Object type, String pointer) {
+        if (type == null) {
+            return ANY_TYPE;
+        }
+        if (type instanceof Collection<?> list) {
+            int types = 0;
+            for (Object entry : list) {
+                types |= compileTypes(entry, pointer);
+            }
+            return types;
+        }
+
+        Integer mask = TYPES.get(String.valueOf(type));
+        if (mask == null) {
+            throw new IllegalArgumentException("Unknown type '" + type + "' at '" + pointer + "'");
+        }
+        return mask;
+    }
+
+    private static Double number(Map<String, Object> schema, String keyword, String pointer) {
+        Object value = schema.get(keyword);
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof Number number)) {
+            throw new IllegalArgumentException("'" + keyword + "' at '" + pointer + "' is not a number");
+        }
+        return number.doubleValue();
+    }
+
+    private static int count(Map<String, Object> schema, String keyword, String pointer) {
+        Double value = number(schema, keyword, pointer);
+        return value == null ? -1 : value.intValue();
+    }
+
+    /**
+     * Position im Argument-Baum. Wird beim Abstieg verkettet und nur bei einem Verstoß zu
+     * einem JSON Pointer zusammengesetzt.
+     */
+    private record Location(Location parent, String name, int index) {
+
+        String pointer() {
+            if (parent == null && name == null && index < 0) {
+                return "";
+            }
+            StringBuilder pointer = new StringBuilder();
+            append(pointer);
+            return pointer.toString();
+        }
+
+        private void append(StringBuilder pointer) {
+            if (parent != null) {
+                parent.append(pointer);
+            }
+            pointer.append('/');
+            if (name != null) {
+                pointer.append(name.replace("~", "~0").replace("/", "~1"));
+            } else {
+                pointer.append(index);
+            }
+        }
+    }
+
+    /**
+     * Ein übersetztes (Teil-)Schema.
+     */
+    private static final class Node {
+
+        static final Node ANYTHING = new Node();
+        static final Node NOTHING = new Node();
+
+        int types = ANY_TYPE;
+        Map<String, Node> properties;
+        String[] required;
+        Node additionalProperties;
+        Node items;
+        List<JsonNode> allowedValues;
+        Double minimum;
+        Double maximum;
+        int minLength = -1;
+        int maxLength = -1;
+        int minItems = -1;
+        int maxItems = -1;
+
+        void validate(JsonNode value, Location location, List<Violation> violations) {
+            if (this == NOTHING) {
+                report(violations, location, "is not allowed");
+                return;
+            }
+            if (types != ANY_TYPE && (types & typeOf(value)) == 0) {
+                report(violations, location, "must be of type " + describeTypes());
+                return;
+            }
+            if (allowedValues != null && !isAllowed(value)) {
+                report(violations, location, "must be one of " + allowedValues);
+            }
+
+            switch (value.getNodeType()) {
+                case OBJECT -> validateObject(value, location, violations);
+                case ARRAY -> validateArray(value, location, violations);
+                case STRING -> validateString(value, location, violations);
+                case NUMBER -> validateNumber(value, location, violations);
+                default -> {
+                }
+            }
+        }
+
+        private void validateObject(JsonNode value, Location location, List<Violation> violations) {
+            if (required != null) {
+                for (String name : required) {
+                    if (!value.has(name)) {
+                        report(violations, new Location(location, name, -1), "is required");
+                    }
+                }
+            }
+            if (properties == null && additionalProperties == null) {
+                return;
+            }
+
+            Iterator<Map.Entry<String, JsonNode>> fields = value.fields();
+            while (fields.hasNext() && violations.size() < MAX_VIOLATIONS) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                Node property = properties == null ? null : properties.get(field.getKey());
+                if (property == null) {
+                    property = additionalProperties;
+                }
+                if (property != null && property != ANYTHING) {
+                    property.validate(field.getValue(), new Location(location, field.getKey(), -1), violations);
+                }
+            }
+        }
+
+        private void validateArray(JsonNode value, Location location, List<Violation> violations) {
+            if (minItems >= 0 && value.size() < minItems) {
+                report(violations, location, "must have at least " + minItems + " items");
+            }
+            if (maxItems >= 0 && value.size() > maxItems) {
+                report(violations, location, "must have at most " + maxItems + " items");
+            }
+            if (items == null || items == ANYTHING) {
+                return;
+            }
+            for (int i = 0; i < value.size() && violations.size() < MAX_VIOLATIONS; i++) {
+                items.validate(value.get(i), new Location(location, null, i), violations);
+            }
+        }
+
+        private void validateString(JsonNode value, Location location, List<Violation> violations) {
+            if (minLength < 0 && maxLength < 0) {
+                return;
+            }
+            String text = value.textValue();
+            int length = text.codePointCount(0, text.length());
+            if (minLength >= 0 && length < minLength) {
+                report(violations, location, "must be at least " + minLength + " characters long");
+            }
+            if (maxLength >= 0 && length > maxLength) {
+                report(violations, location, "must be at most " + maxLength + " characters long");
+            }
+        }
+
+        private void validateNumber(JsonNode value, Location location, List<Violation> violations) {
+            if (minimum != null && value.doubleValue() < minimum) {
+                report(violations, location, "must be >= " + minimum);
+            }
+            if (maximum != null && value.doubleValue() > maximum) {
+                report(violations, location, "must be <= " + maximum);
+            }
+        }
+
+        /**
+         * Vergleicht mit enum und const wie JSON Schema: Zahlen nach ihrem Wert, auch innerhalb
+         * von Arrays und Objekten. {@link JsonNode#equals} hielte 1, 1L und 1.0 für verschieden.
+         */
+        private boolean isAllowed(JsonNode value) {
+            for (JsonNode allowed : allowedValues) {
+                if (allowed.equals(Node::compareValues, value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static int compareValues(JsonNode left, JsonNode right) {
+            if (!left.isNumber() || !right.isNumber()) {
+                return left.equals(right) ? 0 : 1;
+            }
+            if (left.isIntegralNumber() && right.isIntegralNumber()) {
+                return left.bigIntegerValue().compareTo(right.bigIntegerValue());
+            }
+            double leftDouble = left.doubleValue();
+            double rightDouble = right.doubleValue();
+            if (!Double.isFinite(leftDouble) || !Double.isFinite(rightDouble)) {
+                return Double.compare(leftDouble, rightDouble);
+            }
+            return left.decimalValue().compareTo(right.decimalValue());
+        }
+
+        private String describeTypes() {
+            List<String> names = new ArrayList<>();
+            for (Map.Entry<String, Integer> type : TYPES.entrySet()) {
+                if ((types & type.getValue()) != 0) {
+                    names.add(type.getKey());
+                }
+            }
+            names.sort(null);
+            return String.join(" or ", names);
+        }
+
+        private static int typeOf(JsonNode value) {
+            JsonNodeType type = value.getNodeType();
+            return switch (type) {
+                case OBJECT, POJO -> TYPE_OBJECT;
+                case ARRAY -> TYPE_ARRAY;
+                case STRING, BINARY -> TYPE_STRING;
+                case BOOLEAN -> TYPE_BOOLEAN;
+                case NULL, MISSING -> TYPE_NULL;
+                case NUMBER -> value.isIntegralNumber() || isWhole(value)
+                        ? TYPE_INTEGER | TYPE_NUMBER
+                        : TYPE_NUMBER;
+            };
+        }
+
+        private static boolean isWhole(JsonNode number) {
+            double value = number.doubleValue();
+            return !Double.isInfinite(value) && value == Math.rint(value);
+        }
+
+        private static void report(List<Violation> violations, Location location, String message) {
+            if (violations.size() < MAX_VIOLATIONS) {
+                violations.add(new Violation(location == null ? "" : location.pointer(), message));
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.mcpserver.control;
+
+import com.mcpserver.entity.Content;
+
+import java.io.IOException;
+
+/**
+ * Kanal eines laufenden Tool-Aufrufs zurück zum Client.
+ * <p>
+ * Wird vom Server pro tools/call erzeugt und an {@link ToolHandler#call(Object, ToolContext)}
+ * übergeben. Lang laufende Tools melden darüber Fortschritt, Tools mit großer Ausgabe
+ * schreiben ihren Content Stück für Stück, statt ihn als Liste im Speicher zu sammeln.
+ * Thread-safe, gültig bis das Tool zurückkehrt.
+ * </p>
+ */
+public interface ToolContext {
+
+    /**
+     * Sendet sofort ein {@code notifications/progress} an den Client, sofern der Request
+     * ein {@code _meta.progressToken} enthielt. Sonst passiert nichts.
+     *
+     * @param progress Bisheriger Fortschritt, sollte mit jedem Aufruf steigen
+     * @param total    Gesamtumfang, null wenn unbekannt
+     * @param message  Optionale Beschreibung für den Client
+     */
+    void progress(long progress, Long total, String message);
+
+    /**
+     * Hängt einen Content-Eintrag an das Ergebnis an.
+     * <p>
+     * Der Eintrag wird sofort kodiert, danach hält der Server nur noch die JSON-Bytes.
+     * Geschriebener Content steht im Ergebnis vor dem Content, den das Tool zurückgibt.
+     * </p>
+     *
+     * @param content Der Content-Eintrag
+     * @throws IOException Wenn der Content nicht zwischengespeichert werden kann
+     */
+    void write(Content content) throws IOException;
+
+    /**
+     * Hängt einen Text-Eintrag an das Ergebnis an.
+     *
+     * @see #write(Content)
+     */
+    default void write(String text) throws IOException {
+        write(Content.text(text));
+    }
+}
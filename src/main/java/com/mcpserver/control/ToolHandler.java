@@ -0,0 +1,101 @@
+package com.mcpserver.control;
+
+import com.mcpserver.entity.Tool;
+import com.mcpserver.entity.ToolResult;
+
+import java.time.Duration;
+
+/**
+ * SPI für Tools, die über tools/call aufgerufen werden können.
+ * <p>
+ * Implementierungen werden als Spring Beans automatisch in der {@link ToolRegistry}
+ * registriert. Der Name aus {@link #descriptor()} muss eindeutig sein.
+ * </p>
+ * <p>
+ * Jedes Tool deklariert mit {@link #argumentsType()} den Typ seiner Argumente, typischerweise
+ * ein Record. Die Argumente werden einmal direkt aus dem JSON-Baum des Requests in diesen Typ
+ * gebunden. Tools, die nur einzelne Felder lesen, können {@code JsonNode} deklarieren und
+ * erhalten den Baum ohne weitere Bindung. Vorher werden die Argumente gegen das inputSchema
+ * geprüft, ungültige Aufrufe erreichen das Tool nicht.
+ * </p>
+ * <p>
+ * Lang laufende Tools oder Tools mit großer Ausgabe überschreiben
+ * {@link #call(Object, ToolContext)}, melden darüber Fortschritt und schreiben ihren Content
+ * schrittweise.
+ * </p>
+ * <p>
+ * Tools, deren Ergebnis nur von den Argumenten abhängt, können über {@link #cacheTtl()}
+ * erlauben, dass es im {@link ToolResultCache} wiederverwendet wird.
+ * </p>
+ *
+ * @param <A> Typ der Tool-Argumente
+ */
+public interface ToolHandler<A> {
+
+    /**
+     * Beschreibung des Tools für tools/list (Name, Beschreibung, inputSchema).
+     *
+     * @return Das Tool-Objekt, muss für die Lebensdauer des Handlers gleich bleiben
+     */
+    Tool descriptor();
+
+    /**
+     * Typ, in den die Argumente aus dem tools/call Request gebunden werden.
+     *
+     * @return Klasse der Argumente, z.B. ein Record oder {@code JsonNode.class}
+     */
+    Class<A> argumentsType();
+
+    /**
+     * Führt das Tool aus.
+     *
+     * @param arguments Die gebundenen Argumente aus dem tools/call Request
+     * @return Das Ergebnis im MCP Content-Format
+     * @throws Exception Bei Fehlern während der Ausführung
+     */
+    ToolResult call(A arguments) throws Exception;
+
+    /**
+     * Führt das Tool mit Zugriff auf den {@link ToolContext} aus.
+     * <p>
+     * Der Server ruft immer diese Methode auf, der Default delegiert an {@link #call(Object)}.
+     * Content, der über {@link ToolContext#write(com.mcpserver.entity.Content)} geschrieben wurde,
+     * steht im Ergebnis vor dem Content des zurückgegebenen {@link ToolResult}.
+     * </p>
+     *
+     * @param arguments Die gebundenen Argumente aus dem tools/call Request
+     * @param context   Fortschritt und schrittweiser Content für diesen Aufruf
+     * @return Weiterer Content, null wenn alles über den Context geschrieben wurde
+     * @throws Exception Bei Fehlern während der Ausführung
+     */
+    default ToolResult call(A arguments, ToolContext context) throws Exception {
+        return call(arguments);
+    }
+
+    /**
+     * Wie lange das Ergebnis für gleiche Argumente wiederverwendet werden darf.
+     * <p>
+     * Nur für idempotente Tools ohne Seiteneffekte sinnvoll. Innerhalb der TTL wird das Tool
+     * bei gleichen Argumenten nicht erneut aufgerufen.
+     * </p>
+     *
+     * @return Gültigkeitsdauer eines Ergebnisses, {@link Duration#ZERO} (Default) deaktiviert das Caching
+     */
+    default Duration cacheTtl() {
+        return Duration.ZERO;
+    }
+
+    /**
+     * Maximale Laufzeit eines Aufrufs.
+     * <p>
+     * Nach Ablauf wird der ausführende Thread unterbrochen und der Client erhält einen
+     * "Request timed out" Fehler. Tools mit langen blockierenden Operationen sollten daher auf
+     * Interrupts reagieren.
+     * </p>
+     *
+     * @return Timeout des Tools, null (Default) übernimmt {@code mcp.dispatch.request-timeout}
+     */
+    default Duration timeout() {
+        return null;
+    }
+}
@@ -0,0 +1,166 @@
+package com.mcpserver.control;
+
+import com.mcpserver.McpServerProperties;
+import com.mcpserver.entity.Tool;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tool Registry - Verwaltet die zur Laufzeit verfügbaren Tools.
+ * <p>
+ * Alle {@link ToolHandler} Beans werden beim Start registriert. Die Handler liegen in
+ * einer Hash-Map nach Tool-Namen, die Suche bei tools/call kostet damit unabhängig von der
+ * Anzahl der Tools konstant viel. Die Beschreibungen für tools/list kommen aus denselben
+ * Handlern.
+ * </p>
+ * <p>
+ * Jede Änderung (Hinzufügen oder Entfernen) erhöht die {@link #version()}. Darüber
+ * erkennen Caches wie die vorkodierte tools/list Response, dass sie neu aufgebaut
+ * werden müssen, ohne dass die Registry sie kennen muss.
+ * </p>
+ * <p>
+ * Das inputSchema jedes Tools wird bei der Registrierung zu einem {@link SchemaValidator}
+ * übersetzt, ein ungültiges Schema fällt damit schon beim Start auf. tools/call prüft die
+ * Argumente gegen den Validator, bevor das Tool läuft.
+ * </p>
+ * <p>
+ * tools/list wird in Seiten von {@link #pageSize()} Tools ausgeliefert.
+ * </p>
+ */
+@Component
+public class ToolRegistry {
+
+    private final Map<String, RegisteredTool> handlers = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final int pageSize;
+
+    @Autowired
+    public ToolRegistry(List<ToolHandler<?>> toolHandlers, McpServerProperties properties) {
+        this(toolHandlers, properties.getTools().getPageSize());
+    }
+
+    /**
+     * Erstellt eine Registry mit der Standard-Seitengröße, z.B. für Tests.
+     *
+     * @param toolHandlers Die initial registrierten Tools
+     */
+    public ToolRegistry(List<ToolHandler<?>> toolHandlers) {
+        this(toolHandlers, new McpServerProperties.Tools().getPageSize());
+    }
+
+    /**
+     * @param toolHandlers Die initial registrierten Tools
+     * @param pageSize     Anzahl der Tools pro tools/list Seite
+     */
+    public ToolRegistry(List<ToolHandler<?>> toolHandlers, int pageSize) {
+        this.pageSize = pageSize;
+        for (ToolHandler<?> handler : toolHandlers) {
+            String name = handler.descriptor().getName();
+            if (handlers.putIfAbsent(name, compile(handler)) != null) {
+                throw new IllegalStateException("Tool name registered twice: " + name);
+            }
+        }
+    }
+
+    /**
+     * Registriert ein Tool. Ein vorhandenes Tool gleichen Namens wird ersetzt.
+     *
+     * @param handler Der Handler mit eindeutigem Tool-Namen
+     * @throws IllegalArgumentException Wenn das inputSchema des Tools ungültig ist
+     */
+    public void register(ToolHandler<?> handler) {
+        handlers.put(handler.descriptor().getName(), compile(handler));
+        version.incrementAndGet();
+    }
+
+    /**
+     * Entfernt ein Tool.
+     *
+     * @param name Name des Tools
+     * @return true wenn das Tool registriert war
+     */
+    public boolean unregister(String name) {
+        boolean removed = handlers.remove(name) != null;
+        if (removed) {
+            version.incrementAndGet();
+        }
+        return removed;
+    }
+
+    /**
+     * Sucht den Handler eines Tools über seinen Namen.
+     *
+     * @param name Name des Tools
+     * @return Der Handler oder null, wenn das Tool nicht registriert ist
+     */
+    public ToolHandler<?> get(String name) {
+        RegisteredTool tool = handlers.get(name);
+        return tool == null ? null : tool.handler();
+    }
+
+    /**
+     * Sucht ein Tool samt übersetztem Schema über seinen Namen.
+     *
+     * @param name Name des Tools
+     * @return Das Tool oder null, wenn es nicht registriert ist
+     */
+    RegisteredTool lookup(String name) {
+        return handlers.get(name);
+    }
+
+    /**
+     * Gibt die Beschreibungen aller Tools nach Namen sortiert zurück.
+     *
+     * @return Momentaufnahme der registrierten Tools
+     */
+    public List<Tool> list() {
+        List<Tool> snapshot = new ArrayList<>(handlers.size());
+        for (RegisteredTool tool : handlers.values()) {
+            snapshot.add(tool.handler().descriptor());
+        }
+        snapshot.sort(Comparator.comparing(Tool::getName));
+        return snapshot;
+    }
+
+    /**
+     * @return Anzahl der Tools pro tools/list Seite
+     */
+    public int pageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Aktueller Stand der Registry. Ändert sich bei jedem register/unregister.
+     *
+     * @return Monoton steigende Versionsnummer
+     */
+    public long version() {
+        return version.get();
+    }
+
+    private static RegisteredTool compile(ToolHandler<?> handler) {
+        Tool descriptor = handler.descriptor();
+        try {
+            return new RegisteredTool(handler, SchemaValidator.compile(descriptor.getInputSchema()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid inputSchema of tool " + descriptor.getName() + ": "
+                    + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Ein registriertes Tool.
+     *
+     * @param handler   Der Handler des Tools
+     * @param validator Das übersetzte inputSchema oder null, wenn das Tool keines deklariert
+     */
+    record RegisteredTool(ToolHandler<?> handler, SchemaValidator validator) {
+    }
+}
@@ -0,0 +1,147 @@
+package com.mcpserver.control;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.mcpserver.McpServerProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Tool Result Cache - Begrenzter Cache für Ergebnisse idempotenter Tools.
+ * <p>
+ * Tools, die über {@link ToolHandler#cacheTtl()} eine TTL deklarieren, werden bei gleichen
+ * Argumenten nicht erneut ausgeführt. Gespeichert wird das bereits kodierte Ergebnis als
+ * {@link RawValue}, ein Treffer spart damit auch die Serialisierung.
+ * </p>
+ * <p>
+ * Der Schlüssel ist der Tool-Name zusammen mit dem Argument-Baum. {@link JsonNode} vergleicht
+ * und hasht strukturell und unabhängig von der Reihenfolge der Felder, gleiche Argumente
+ * treffen also denselben Eintrag. Bei mehr als {@code mcp.cache.max-entries} Einträgen wird
+ * der am längsten nicht benutzte verdrängt (LRU). Einträge aus einer älteren
+ * {@link ToolRegistry#version()} gelten als verfallen.
+ * </p>
+ */
+@Component
+public class ToolResultCache {
+
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final Map<Key, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public ToolResultCache(McpServerProperties properties) {
+        this(properties.getCache().getMaxEntries());
+    }
+
+    /**
+     * Erstellt einen Cache mit fester Größe, z.B. für Tests.
+     *
+     * @param maxEntries Maximale Anzahl an Einträgen, 0 schaltet den Cache ab
+     */
+    public ToolResultCache(int maxEntries) {
+        this(maxEntries, System::nanoTime);
+    }
+
+    ToolResultCache(int maxEntries, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > ToolResultCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Sucht ein gültiges Ergebnis und zählt Treffer bzw. Fehlschlag.
+     *
+     * @param tool            Name des Tools
+     * @param arguments       Argumente des Aufrufs
+     * @param registryVersion Aktuelle Version der Tool Registry
+     * @return Das kodierte Ergebnis oder null, wenn keines vorliegt oder es abgelaufen ist
+     */
+    public RawValue get(String tool, JsonNode arguments, long registryVersion) {
+        Key key = new Key(tool, arguments);
+        long now = clock.getAsLong();
+
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.registryVersion() == registryVersion && now - entry.expiresAt() < 0) {
+                hits.increment();
+                return entry.json();
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Legt ein kodiertes Ergebnis für die angegebene Dauer ab.
+     * <p>
+     * Die Argumente werden kopiert, damit spätere Änderungen am Request-Baum den
+     * Schlüssel nicht verändern.
+     * </p>
+     *
+     * @param tool            Name des Tools
+     * @param arguments       Argumente des Aufrufs
+     * @param registryVersion Version der Tool Registry, mit der das Ergebnis erzeugt wurde
+     * @param json            Das kodierte Ergebnis
+     * @param ttl             Gültigkeitsdauer, muss positiv sein
+     */
+    public void put(String tool, JsonNode arguments, long registryVersion, RawValue json, Duration ttl) {
+        if (maxEntries <= 0) {
+            return;
+        }
+
+        Entry entry = new Entry(json, clock.getAsLong() + ttl.toNanos(), registryVersion);
+        synchronized (entries) {
+            entries.put(new Key(tool, arguments.deepCopy()), entry);
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Momentaufnahme für metrics/get.
+     *
+     * @return Treffer, Fehlschläge und aktuelle Größe
+     */
+    public Map<String, Object> snapshot() {
+        return Map.of(
+                "hits", hits(),
+                "misses", misses(),
+                "size", size(),
+                "maxEntries", maxEntries
+        );
+    }
+
+    private record Key(String tool, JsonNode arguments) {
+    }
+
+    private record Entry(RawValue json, long expiresAt, long registryVersion) {
+    }
+}
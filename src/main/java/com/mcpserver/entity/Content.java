@@ -0,0 +1,24 @@
+package com.mcpserver.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Content {
+
+    public static final String TYPE_TEXT = "text";
+
+    private String type;
+
+    private String text;
+
+    // Factory-Methode für Text-Inhalte
+    public static Content text(String text) {
+        return new Content(TYPE_TEXT, text);
+    }
+}
@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Duration;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -24,7 +26,20 @@ public class JsonRpcError {
     public static final int INVALID_PARAMS = -32602;
     public static final int INTERNAL_ERROR = -32603;
 
+    // Server-spezifische Codes (Bereich -32000 bis -32099)
+    public static final int SERVER_OVERLOADED = -32000;
+    public static final int REQUEST_TIMEOUT = -32001;
+    public static final int RESOURCE_NOT_FOUND = -32002;
+
     // Factory-Methoden für häufige Fehler
+    public static JsonRpcError parseError(String details) {
+        return new JsonRpcError(PARSE_ERROR, "Parse error", details);
+    }
+
+    public static JsonRpcError invalidRequest(String details) {
+        return new JsonRpcError(INVALID_REQUEST, "Invalid Request", details);
+    }
+
     public static JsonRpcError methodNotFound(String method) {
         return new JsonRpcError(METHOD_NOT_FOUND, "Method not found", method);
     }
@@ -33,7 +48,23 @@ public class JsonRpcError {
         return new JsonRpcError(INVALID_PARAMS, "Invalid params", details);
     }
 
+    public static JsonRpcError invalidParams(Object details) {
+        return new JsonRpcError(INVALID_PARAMS, "Invalid params", details);
+    }
+
     public static JsonRpcError internalError(String details) {
         return new JsonRpcError(INTERNAL_ERROR, "Internal error", details);
     }
+
+    public static JsonRpcError resourceNotFound(String uri) {
+        return new JsonRpcError(RESOURCE_NOT_FOUND, "Resource not found", uri);
+    }
+
+    public static JsonRpcError serverOverloaded() {
+        return new JsonRpcError(SERVER_OVERLOADED, "Server overloaded", null);
+    }
+
+    public static JsonRpcError requestTimeout(Duration timeout) {
+        return new JsonRpcError(REQUEST_TIMEOUT, "Request timed out", "Timeout: " + timeout.toMillis() + " ms");
+    }
 }
@@ -0,0 +1,40 @@
+package com.mcpserver.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Eine eingelesene JSON-RPC Nachricht: ein einzelner Request oder eine Batch.
+ * <p>
+ * Batch-Einträge, die schon beim Einlesen ungültig sind, werden nicht als Request
+ * weitergegeben, sondern direkt als Fehler-Response in {@code errors} abgelegt und mit
+ * den übrigen Ergebnissen zurückgeschickt.
+ * </p>
+ */
+@Data
+@AllArgsConstructor
+public class JsonRpcMessage {
+
+    private List<JsonRpcRequest> requests;
+
+    private List<JsonRpcResponse> errors;
+
+    private boolean batch;
+
+    // Factory-Methode für einen einzelnen Request
+    public static JsonRpcMessage single(JsonRpcRequest request) {
+        return new JsonRpcMessage(List.of(request), List.of(), false);
+    }
+
+    // Factory-Methode für eine nicht verarbeitbare Nachricht (z.B. Parse error)
+    public static JsonRpcMessage failed(JsonRpcError error) {
+        return new JsonRpcMessage(List.of(), List.of(JsonRpcResponse.error(null, error)), false);
+    }
+
+    // Factory-Methode für eine Batch
+    public static JsonRpcMessage batch(List<JsonRpcRequest> requests, List<JsonRpcResponse> errors) {
+        return new JsonRpcMessage(requests, errors, true);
+    }
+}
@@ -0,0 +1,38 @@
+package com.mcpserver.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JsonRpcNotification {
+
+    public static final String METHOD_PROGRESS = "notifications/progress";
+
+    private String jsonrpc = "2.0";
+
+    private String method;
+
+    private Object params;
+
+    // Factory-Methode für notifications/progress, total und message sind optional
+    public static JsonRpcNotification progress(Object progressToken, long progress, Long total, String message) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("progressToken", progressToken);
+        params.put("progress", progress);
+        if (total != null) {
+            params.put("total", total);
+        }
+        if (message != null) {
+            params.put("message", message);
+        }
+        return new JsonRpcNotification("2.0", METHOD_PROGRESS, params);
+    }
+}
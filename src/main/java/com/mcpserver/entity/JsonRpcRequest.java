@@ -1,6 +1,8 @@
 package com.mcpserver.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,5 +19,12 @@ public class JsonRpcRequest {
 
     private String method;
 
-    private Object params;
+    // Bleibt als Baum erhalten und wird erst vom jeweiligen Handler typisiert gebunden
+    private JsonNode params;
+
+    // Notifications haben keine id und erhalten laut Spec keine Response
+    @JsonIgnore
+    public boolean isNotification() {
+        return id == null;
+    }
 }
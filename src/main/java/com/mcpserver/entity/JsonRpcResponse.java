@@ -13,6 +13,8 @@ public class JsonRpcResponse {
 
     private String jsonrpc = "2.0";
 
+    // Laut Spec immer vorhanden, bei Parse errors als null
+    @JsonInclude(JsonInclude.Include.ALWAYS)
     private Object id;
 
     private Object result;
@@ -34,4 +36,11 @@ public class JsonRpcResponse {
         response.setError(error);
         return response;
     }
+
+    // Gibt ein StreamedResult frei, wenn die Response verworfen statt gesendet wird
+    public void release() {
+        if (result instanceof StreamedResult streamed) {
+            streamed.close();
+        }
+    }
 }
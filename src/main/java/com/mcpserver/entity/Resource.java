@@ -0,0 +1,23 @@
+package com.mcpserver.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Resource {
+
+    private String uri;
+
+    private String name;
+
+    private String mimeType;
+
+    private Long size;
+}
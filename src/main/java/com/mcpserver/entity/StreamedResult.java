@@ -0,0 +1,36 @@
+package com.mcpserver.entity;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Ergebnis einer Response, das der Transport direkt in seinen Ausgabe-Stream schreibt,
+ * statt es vorher vollständig im Puffer des Encoders zu sammeln, z.B. ausgelagerte Tool-Ausgabe.
+ * <p>
+ * Es kann genau einmal geschrieben werden und gibt danach seine Ressourcen frei. Wird die
+ * Response nicht gesendet, muss {@link #close()} aufgerufen werden, siehe
+ * {@link JsonRpcResponse#release()}.
+ * </p>
+ */
+public interface StreamedResult extends Closeable {
+
+    /**
+     * @return Länge des kodierten Ergebnisses in Bytes, z.B. für einen Content-Length Header
+     */
+    long length();
+
+    /**
+     * Schreibt das Ergebnis als UTF-8 JSON und gibt danach die Ressourcen frei.
+     *
+     * @param output Ziel, wird nicht geschlossen
+     * @throws IOException Bei Schreib- oder Lesefehlern, die Ausgabe ist dann unvollständig
+     */
+    void writeTo(OutputStream output) throws IOException;
+
+    /**
+     * Gibt die Ressourcen frei, ohne das Ergebnis zu schreiben.
+     */
+    @Override
+    void close();
+}
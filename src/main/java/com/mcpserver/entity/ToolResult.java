@@ -0,0 +1,22 @@
+package com.mcpserver.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ToolResult {
+
+    private List<Content> content;
+
+    // Factory-Methode für ein Ergebnis mit einem einzelnen Text
+    public static ToolResult text(String text) {
+        return new ToolResult(List.of(Content.text(text)));
+    }
+}
@@ -0,0 +1,141 @@
+package com.mcpserver.boundary;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcpserver.control.EchoTool;
+import com.mcpserver.control.McpMetrics;
+import com.mcpserver.control.McpRequestHandler;
+import com.mcpserver.control.ResourceRegistry;
+import com.mcpserver.control.ToolRegistry;
+import com.mcpserver.control.ToolResultCache;
+import com.mcpserver.entity.JsonRpcMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allokations-Budgets pro Request für den Hot Path.
+ * <p>
+ * Treibt Frames wie ein Transport durch {@link MessageDecoder}, {@link McpRequestHandler} und
+ * {@link ResponseEncoder} und misst über die Allokations-Zähler des Threads, wie viele Bytes
+ * ein Request nach dem Aufwärmen im Mittel allokiert. Gemessen wird getrennt: das Dekodieren
+ * (Jackson legt pro Frame einen Parser an) und die Verarbeitung samt Kodierung der Response,
+ * die der Server selbst in der Hand hat. Überschreitet eine Methode ihr Budget, schlägt der
+ * Test fehl. Logging steht dabei wie in den Benchmarks auf WARN.
+ * </p>
+ */
+class AllocationBudgetTest {
+
+    private static final int WARMUP_REQUESTS = 20_000;
+    private static final int MEASURED_REQUESTS = 2_000;
+
+    /**
+     * Jackson allokiert pro Frame Parser, Kontext, Request und params-Baum.
+     */
+    private static final long DECODE_BUDGET = 1_408;
+    private static final long DECODE_BUDGET_TOOLS_CALL = 2_048;
+
+    private static final long INITIALIZE_BUDGET = 64;
+    private static final long TOOLS_LIST_BUDGET = 64;
+    private static final long TOOLS_CALL_ECHO_BUDGET = 768;
+    private static final long METHOD_NOT_FOUND_BUDGET = 256;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final Logger appLogger = (Logger) LoggerFactory.getLogger("com.mcpserver");
+    private Level previousLevel;
+    private MessageDecoder decoder;
+    private McpRequestHandler handler;
+    private ResponseEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled(),
+                "JVM misst keine Allokationen pro Thread");
+
+        previousLevel = appLogger.getLevel();
+        appLogger.setLevel(Level.WARN);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        decoder = new MessageDecoder(objectMapper);
+        handler = new McpRequestHandler(objectMapper, new ToolRegistry(List.of(new EchoTool())), new McpMetrics(),
+                new ToolResultCache(0), new ResourceRegistry(List.of(), 0, 1));
+        encoder = new ResponseEncoder(objectMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        appLogger.setLevel(previousLevel);
+    }
+
+    @Test
+    void initialize_ShouldStayWithinAllocationBudget() throws IOException {
+        assertWithinBudget("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{}}",
+                DECODE_BUDGET, INITIALIZE_BUDGET);
+    }
+
+    @Test
+    void toolsList_ShouldStayWithinAllocationBudget() throws IOException {
+        assertWithinBudget("{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/list\",\"params\":{}}",
+                DECODE_BUDGET, TOOLS_LIST_BUDGET);
+    }
+
+    @Test
+    void toolsCallEcho_ShouldStayWithinAllocationBudget() throws IOException {
+        assertWithinBudget("{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"tools/call\",\"params\":"
+                        + "{\"name\":\"echo\",\"arguments\":{\"message\":\"Hello World\"}}}",
+                DECODE_BUDGET_TOOLS_CALL, TOOLS_CALL_ECHO_BUDGET);
+    }
+
+    @Test
+    void unknownMethod_ShouldStayWithinAllocationBudget() throws IOException {
+        assertWithinBudget("{\"jsonrpc\":\"2.0\",\"id\":4,\"method\":\"unknown/method\"}",
+                DECODE_BUDGET, METHOD_NOT_FOUND_BUDGET);
+    }
+
+    private void assertWithinBudget(String frame, long decodeBudget, long handleBudget) throws IOException {
+        // Given
+        byte[] data = frame.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            handle(decode(data));
+        }
+        JsonRpcMessage message = decode(data);
+
+        // When
+        long start = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_REQUESTS; i++) {
+            decode(data);
+        }
+        long decoded = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_REQUESTS; i++) {
+            handle(message);
+        }
+        long handled = threads.getCurrentThreadAllocatedBytes();
+
+        // Then
+        long decodeBytes = (decoded - start) / MEASURED_REQUESTS;
+        long handleBytes = (handled - decoded) / MEASURED_REQUESTS;
+        assertTrue(decodeBytes <= decodeBudget,
+                "Dekodieren allokiert " + decodeBytes + " Bytes pro Request, Budget " + decodeBudget);
+        assertTrue(handleBytes <= handleBudget,
+                "Verarbeiten und Kodieren allokiert " + handleBytes + " Bytes pro Request, Budget " + handleBudget);
+    }
+
+    private JsonRpcMessage decode(byte[] data) throws IOException {
+        return decoder.decode(data, 0, data.length);
+    }
+
+    private void handle(JsonRpcMessage message) throws IOException {
+        assertTrue(encoder.encode(handler.handleRequest(message.getRequests().get(0))));
+    }
+}
@@ -0,0 +1,141 @@
+package com.mcpserver.boundary;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für ContentLengthFrameReader.
+ */
+class ContentLengthFrameReaderTest {
+
+    @Test
+    void next_ShouldReadConsecutiveFrames() throws IOException {
+        // Given
+        ContentLengthFrameReader reader = createReader(
+                frame("{\"id\":1}") + frame("{\"id\":2}"), 64);
+
+        // When / Then
+        assertTrue(reader.next());
+        assertEquals("{\"id\":1}", current(reader));
+        assertTrue(reader.next());
+        assertEquals("{\"id\":2}", current(reader));
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void next_WithOtherHeadersAndLowerCaseName_ShouldUseContentLength() throws IOException {
+        // Given
+        String body = "{\"text\":\"äöü\"}";
+        int length = body.getBytes(StandardCharsets.UTF_8).length;
+        ContentLengthFrameReader reader = createReader(
+                "Content-Type: application/vscode-jsonrpc; charset=utf-8\r\ncontent-length:  " + length + "\r\n\r\n" + body,
+                64);
+
+        // When / Then
+        assertTrue(reader.next());
+        assertEquals(body, current(reader));
+    }
+
+    @Test
+    void next_WithBodyLargerThanBuffer_ShouldReadIntoExactlySizedBuffer() throws IOException {
+        // Given
+        String body = "{\"data\":\"" + "x".repeat(10_000) + "\"}";
+        ContentLengthFrameReader reader = createReader(frame(body) + frame("{\"id\":2}"), 64);
+
+        // When / Then
+        assertTrue(reader.next());
+        assertEquals(body, current(reader));
+        assertEquals(body.length(), reader.array().length);
+        assertTrue(reader.next());
+        assertEquals("{\"id\":2}", current(reader));
+    }
+
+    @Test
+    void next_WithEmptyBodyAndBlankLines_ShouldSkipThem() throws IOException {
+        // Given
+        ContentLengthFrameReader reader = createReader("\r\n" + frame("") + frame("  ") + "\r\n" + frame("{}"), 64);
+
+        // When / Then
+        assertTrue(reader.next());
+        assertEquals("{}", current(reader));
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void next_WithoutContentLength_ShouldFail() {
+        // Given
+        ContentLengthFrameReader reader = createReader("Content-Type: application/json\r\n\r\n{}", 64);
+
+        // When / Then
+        assertThrows(IOException.class, reader::next);
+    }
+
+    @Test
+    void next_WithInvalidContentLength_ShouldFail() {
+        // Given
+        ContentLengthFrameReader reader = createReader("Content-Length: -1\r\n\r\n{}", 64);
+
+        // When / Then
+        assertThrows(IOException.class, reader::next);
+    }
+
+    @Test
+    void next_WithTruncatedBody_ShouldFail() {
+        // Given
+        ContentLengthFrameReader reader = createReader("Content-Length: 100\r\n\r\n{\"id\":1}", 64);
+
+        // When / Then
+        assertThrows(EOFException.class, reader::next);
+    }
+
+    @Test
+    void next_WithBodyOverLimit_ShouldSkipItAndReadNextFrame() throws IOException {
+        // Given
+        String body = "{\"data\":\"" + "x".repeat(1_000) + "\"}";
+        ContentLengthFrameReader reader = createReader(frame(body) + frame("{\"id\":2}"), 64, 100);
+
+        // When / Then
+        assertThrows(FrameReader.FrameTooLargeException.class, reader::next);
+        assertTrue(reader.next());
+        assertEquals("{\"id\":2}", current(reader));
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void next_AfterVeryLargeBody_ShouldReleaseBodyBuffer() throws IOException {
+        // Given
+        String large = "{\"data\":\"" + "x".repeat(2 * 1024 * 1024) + "\"}";
+        String small = "{\"data\":\"" + "x".repeat(100) + "\"}";
+        ContentLengthFrameReader reader = createReader(frame(large) + frame(small), 64);
+
+        // When / Then
+        assertTrue(reader.next());
+        assertEquals(large.length(), reader.array().length);
+        assertTrue(reader.next());
+        assertEquals(small, current(reader));
+        assertEquals(small.length(), reader.array().length);
+    }
+
+    private static ContentLengthFrameReader createReader(String input, int bufferSize) {
+        return createReader(input, bufferSize, Integer.MAX_VALUE);
+    }
+
+    private static ContentLengthFrameReader createReader(String input, int bufferSize, int maxFrameBytes) {
+        return new ContentLengthFrameReader(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), bufferSize, maxFrameBytes);
+    }
+
+    private static String frame(String body) {
+        return "Content-Length: " + body.getBytes(StandardCharsets.UTF_8).length + "\r\n\r\n" + body;
+    }
+
+    private static String current(FrameReader reader) {
+        return new String(reader.array(), reader.frameOffset(), reader.frameLength(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,461 @@
+package com.mcpserver.boundary;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcpserver.McpServerProperties;
+import com.mcpserver.entity.JsonRpcMessage;
+import com.mcpserver.entity.JsonRpcNotification;
+import com.mcpserver.entity.JsonRpcRequest;
+import com.mcpserver.entity.JsonRpcResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für HttpTransport.
+ */
+class HttpTransportTest {
+
+    private static final String INITIALIZE = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\"}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final EchoHandler handler = new EchoHandler();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final McpServerProperties.Http config = new McpServerProperties.Http();
+    private HttpTransport transport;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        config.setPort(0);
+        config.setThreads(4);
+        config.setShutdownTimeout(Duration.ZERO);
+        start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transport.close();
+    }
+
+    @Test
+    void post_WithInitialize_ShouldCreateSessionAndRespondWithJson() throws Exception {
+        // When
+        HttpResponse<String> response = post(null, INITIALIZE, "application/json, text/event-stream");
+
+        // Then
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("application/json"));
+        assertTrue(response.headers().firstValue(HttpTransport.SESSION_HEADER).isPresent());
+        assertEquals("initialize", objectMapper.readTree(response.body()).get("result").asText());
+    }
+
+    @Test
+    void post_AcceptingOnlyEventStream_ShouldStreamResponsesAsEvents() throws Exception {
+        // Given
+        String session = initialize();
+
+        // When
+        HttpResponse<String> response = post(session,
+                "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/list\"}", "text/event-stream");
+
+        // Then
+        assertEquals(200, response.statusCode());
+        assertEquals("text/event-stream", response.headers().firstValue("Content-Type").orElseThrow());
+        assertTrue(response.body().startsWith("event: message\ndata: "));
+        assertTrue(response.body().endsWith("\n\n"));
+        JsonNode data = objectMapper.readTree(response.body().substring("event: message\ndata: ".length()).trim());
+        assertEquals(2, data.get("id").asInt());
+        assertEquals("tools/list", data.get("result").asText());
+    }
+
+    @Test
+    void post_RequestingProgress_ShouldStreamNotificationsBeforeResponse() throws Exception {
+        // Given
+        String session = initialize();
+
+        // When
+        HttpResponse<String> response = post(session,
+                "{\"jsonrpc\":\"2.0\",\"id\":4,\"method\":\"progress\",\"params\":{\"_meta\":{\"progressToken\":7}}}",
+                "application/json, text/event-stream");
+
+        // Then
+        assertEquals("text/event-stream", response.headers().firstValue("Content-Type").orElseThrow());
+        String[] events = response.body().split("\n\n");
+        assertEquals(2, events.length);
+        JsonNode notification = objectMapper.readTree(events[0].substring("event: message\ndata: ".length()));
+        JsonNode result = objectMapper.readTree(events[1].substring("event: message\ndata: ".length()));
+        assertEquals("notifications/progress", notification.get("method").asText());
+        assertEquals(7, notification.get("params").get("progressToken").asInt());
+        assertEquals(4, result.get("id").asInt());
+    }
+
+    @Test
+    void post_WithBatch_ShouldRespondWithSingleArray() throws Exception {
+        // Given
+        String session = initialize();
+
+        // When
+        HttpResponse<String> response = post(session,
+                "[{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"a\"},{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"b\"}]",
+                "application/json");
+
+        // Then
+        JsonNode body = objectMapper.readTree(response.body());
+        assertTrue(body.isArray());
+        assertEquals(2, body.size());
+    }
+
+    @Test
+    void post_WithOnlyNotification_ShouldAcceptWithoutBody() throws Exception {
+        // Given
+        String session = initialize();
+
+        // When
+        HttpResponse<String> response = post(session,
+                "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}", "application/json");
+
+        // Then
+        assertEquals(202, response.statusCode());
+        assertEquals("", response.body());
+    }
+
+    @Test
+    void post_WhenResponseIsDropped_ShouldAcceptWithoutBody() throws Exception {
+        // Given
+        String session = initialize();
+
+        // When
+        HttpResponse<String> response = post(session,
+                "{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"drop\"}", "application/json");
+
+        // Then
+        assertEquals(202, response.statusCode());
+    }
+
+    @Test
+    void post_WithoutSession_ShouldRejectWithBadRequest() throws Exception {
+        // When
+        HttpResponse<String> response = post(null,
+                "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/list\"}", "application/json");
+
+        // Then
+        assertEquals(400, response.statusCode());
+        assertEquals(-32600, objectMapper.readTree(response.body()).get("error").get("code").asInt());
+    }
+
+    @Test
+    void post_WithUnknownSession_ShouldRespondNotFound() throws Exception {
+        // When
+        HttpResponse<String> response = post("unknown",
+                "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/list\"}", "application/json");
+
+        // Then
+        assertEquals(404, response.statusCode());
+    }
+
+    @Test
+    void delete_ShouldCloseSession() throws Exception {
+        // Given
+        String session = initialize();
+
+        // When
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(endpoint())
+                .header(HttpTransport.SESSION_HEADER, session)
+                .DELETE()
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertEquals(204, response.statusCode());
+        assertEquals(session, handler.closedSessions.get(0).id());
+        assertEquals(404, post(session, INITIALIZE, "application/json").statusCode());
+    }
+
+    @Test
+    void get_ShouldRespondMethodNotAllowed() throws Exception {
+        // When
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(endpoint()).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertEquals(405, response.statusCode());
+    }
+
+    @Test
+    void post_ShouldReuseConnectionForFollowingRequests() throws Exception {
+        // Given
+        try (Socket socket = new Socket(transport.localAddress().getAddress(), transport.localAddress().getPort())) {
+            socket.setSoTimeout(5_000);
+            OutputStream output = socket.getOutputStream();
+            InputStream input = socket.getInputStream();
+
+            // When
+            writeRawPost(output, null, INITIALIZE);
+            RawResponse first = readRawResponse(input);
+            writeRawPost(output, first.session, "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"again\"}");
+            RawResponse second = readRawResponse(input);
+
+            // Then
+            assertEquals(200, first.status);
+            assertEquals(200, second.status);
+            assertEquals("again", objectMapper.readTree(second.body).get("result").asText());
+        }
+    }
+
+    @Test
+    void post_AfterIdleTimeout_ShouldHaveExpiredSession() throws Exception {
+        // Given
+        restart(() -> config.setIdleTimeout(Duration.ofMillis(100)));
+        String session = initialize();
+
+        // When
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (handler.closedSessions.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+
+        // Then
+        assertEquals(session, handler.closedSessions.get(0).id());
+        assertEquals(404, post(session, "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"a\"}", "application/json").statusCode());
+    }
+
+    @Test
+    void post_FromUnknownOrigin_ShouldRespondForbidden() throws Exception {
+        // Given
+        restart(() -> config.setAllowedOrigins(List.of("http://localhost:6274")));
+
+        // When
+        HttpResponse<String> foreign = postFrom("http://evil.example", INITIALIZE);
+        HttpResponse<String> allowed = postFrom("http://localhost:6274", INITIALIZE);
+
+        // Then
+        assertEquals(403, foreign.statusCode());
+        assertTrue(foreign.headers().firstValue(HttpTransport.SESSION_HEADER).isEmpty());
+        assertEquals(200, allowed.statusCode());
+    }
+
+    @Test
+    void post_WithMoreSlowRequestsThanThreads_ShouldStillAnswerPingAndCancel() throws Exception {
+        // Given - doppelt so viele offene POSTs wie Threads im Pool
+        String session = initialize();
+        List<CompletableFuture<HttpResponse<String>>> slow = new ArrayList<>();
+        for (int id = 10; id < 10 + 2 * config.getThreads(); id++) {
+            slow.add(client.sendAsync(postRequest(session,
+                    "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"slow\"}", "application/json"),
+                    HttpResponse.BodyHandlers.ofString()));
+        }
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (handler.slowRequests.size() < slow.size() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(slow.size(), handler.slowRequests.size());
+
+        // When
+        HttpResponse<String> ping = post(session, "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"ping\"}",
+                "application/json");
+        HttpResponse<String> cancel = post(session,
+                "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/cancelled\",\"params\":{\"requestId\":10}}",
+                "application/json");
+
+        // Then
+        assertEquals("ping", objectMapper.readTree(ping.body()).get("result").asText());
+        assertEquals(202, cancel.statusCode());
+        assertEquals(202, slow.get(0).get(5, TimeUnit.SECONDS).statusCode());
+        assertFalse(slow.get(1).isDone());
+    }
+
+    @Test
+    void post_WithBodyOverLimit_ShouldRespondPayloadTooLarge() throws Exception {
+        // Given
+        restart(() -> config.setMaxBodyBytes(INITIALIZE.length()));
+        String large = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{}}";
+
+        // When
+        HttpResponse<String> announced = post(null, large, "application/json");
+        HttpResponse<String> chunked = client.send(HttpRequest.newBuilder(endpoint())
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofInputStream(
+                        () -> new ByteArrayInputStream(large.getBytes(StandardCharsets.UTF_8))))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> withinLimit = post(null, INITIALIZE, "application/json");
+
+        // Then
+        assertEquals(413, announced.statusCode());
+        assertEquals(413, chunked.statusCode());
+        assertEquals(200, withinLimit.statusCode());
+    }
+
+    private void start() throws IOException {
+        transport = new HttpTransport(objectMapper, config);
+        transport.start(handler);
+    }
+
+    private void restart(Runnable configure) throws IOException {
+        transport.close();
+        configure.run();
+        start();
+    }
+
+    private HttpResponse<String> postFrom(String origin, String body) throws Exception {
+        return client.send(HttpRequest.newBuilder(endpoint())
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .header("Origin", origin)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String initialize() throws Exception {
+        return post(null, INITIALIZE, "application/json")
+                .headers().firstValue(HttpTransport.SESSION_HEADER).orElseThrow();
+    }
+
+    private HttpResponse<String> post(String session, String body, String accept) throws Exception {
+        return client.send(postRequest(session, body, accept), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest postRequest(String session, String body, String accept) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(endpoint())
+                .header("Content-Type", "application/json")
+                .header("Accept", accept)
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (session != null) {
+            request.header(HttpTransport.SESSION_HEADER, session);
+        }
+        return request.build();
+    }
+
+    private URI endpoint() {
+        return URI.create("http://127.0.0.1:" + transport.localAddress().getPort() + "/mcp");
+    }
+
+    private static void writeRawPost(OutputStream output, String session, String body) throws IOException {
+        byte[] content = body.getBytes(StandardCharsets.UTF_8);
+        StringBuilder head = new StringBuilder()
+                .append("POST /mcp HTTP/1.1\r\n")
+                .append("Host: localhost\r\n")
+                .append("Content-Type: application/json\r\n")
+                .append("Accept: application/json\r\n")
+                .append("Content-Length: ").append(content.length).append("\r\n");
+        if (session != null) {
+            head.append(HttpTransport.SESSION_HEADER).append(": ").append(session).append("\r\n");
+        }
+        head.append("\r\n");
+        output.write(head.toString().getBytes(StandardCharsets.US_ASCII));
+        output.write(content);
+        output.flush();
+    }
+
+    /**
+     * Liest eine Response mit Content-Length, ohne die Verbindung zu schließen.
+     */
+    private static RawResponse readRawResponse(InputStream input) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while (!(line = readLine(input)).isEmpty()) {
+            lines.add(line);
+        }
+
+        int status = Integer.parseInt(lines.get(0).split(" ")[1]);
+        int length = 0;
+        String session = null;
+        for (String header : lines.subList(1, lines.size())) {
+            String name = header.substring(0, header.indexOf(':')).toLowerCase(Locale.ROOT);
+            String value = header.substring(header.indexOf(':') + 1).trim();
+            if (name.equals("content-length")) {
+                length = Integer.parseInt(value);
+            } else if (name.equals(HttpTransport.SESSION_HEADER.toLowerCase(Locale.ROOT))) {
+                session = value;
+            }
+        }
+
+        return new RawResponse(status, session, new String(input.readNBytes(length), StandardCharsets.UTF_8));
+    }
+
+    private static String readLine(InputStream input) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = input.read()) != '\n') {
+            assertNotEquals(-1, b, "Verbindung vorzeitig geschlossen");
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    private record RawResponse(int status, String session, String body) {
+    }
+
+    /**
+     * Antwortet auf jeden Request mit seiner Methode als Ergebnis, "drop" entfällt,
+     * "progress" sendet vorher eine Notification. "slow" bleibt offen, bis ein
+     * notifications/cancelled ihn abbricht.
+     */
+    private static class EchoHandler implements HttpTransport.ExchangeHandler {
+
+        private final List<HttpSession> closedSessions = new CopyOnWriteArrayList<>();
+        private final Map<Integer, HttpResponseChannel> slowRequests = new ConcurrentHashMap<>();
+
+        @Override
+        public void onMessage(JsonRpcMessage message, HttpResponseChannel channel) {
+            List<JsonRpcResponse> responses = new ArrayList<>(message.getErrors());
+            for (JsonRpcRequest request : message.getRequests()) {
+                if ("progress".equals(request.getMethod())) {
+                    channel.sendNotification(JsonRpcNotification.progress(7, 1, null, null));
+                }
+                if ("slow".equals(request.getMethod())) {
+                    slowRequests.put(((Number) request.getId()).intValue(), channel);
+                } else if ("notifications/cancelled".equals(request.getMethod())) {
+                    HttpResponseChannel cancelled = slowRequests.remove(request.getParams().get("requestId").asInt());
+                    if (cancelled != null) {
+                        cancelled.dropped();
+                    }
+                } else if ("drop".equals(request.getMethod())) {
+                    channel.dropped();
+                } else if (!request.isNotification()) {
+                    responses.add(JsonRpcResponse.success(request.getId(), request.getMethod()));
+                }
+            }
+
+            if (message.isBatch()) {
+                if (!responses.isEmpty()) {
+                    channel.sendBatch(responses);
+                }
+            } else {
+                responses.forEach(channel::send);
+            }
+        }
+
+        @Override
+        public void onSessionClosed(HttpSession session) {
+            closedSessions.add(session);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.mcpserver.boundary;
+
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.mcpserver.entity.JsonRpcResponse;
+import com.mcpserver.entity.StreamedResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für ResponseEncoder.
+ */
+class ResponseEncoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ResponseEncoder encoder = new ResponseEncoder(objectMapper);
+
+    @Test
+    void encode_WithPreEncodedResult_ShouldMatchJacksonOutput() throws IOException {
+        // Given
+        RawValue result = new RawValue(new SerializedString("{\"tools\":[\"ä\"]}"));
+
+        for (Object id : List.of(7, 12345678901L, "id \"mit\" Anführungszeichen\n")) {
+            JsonRpcResponse response = JsonRpcResponse.success(id, result);
+
+            // When
+            encoder.encode(response);
+
+            // Then
+            assertEquals(objectMapper.writeValueAsString(response), encoded());
+        }
+    }
+
+    @Test
+    void encode_AfterFailedSerialization_ShouldEncodeNextResponse() throws IOException {
+        // Given
+        encoder.encode(JsonRpcResponse.success(1, Map.of("fine", 1)));
+
+        // When
+        encoder.encode(JsonRpcResponse.success(2, new Object()));
+        String failed = encoded();
+        encoder.encode(JsonRpcResponse.success(3, Map.of("fine", 3)));
+
+        // Then
+        assertEquals(-32603, objectMapper.readTree(failed).get("error").get("code").asInt());
+        assertEquals("{\"jsonrpc\":\"2.0\",\"id\":3,\"result\":{\"fine\":3}}", encoded());
+    }
+
+    @Test
+    void writeTo_WithStreamedResult_ShouldWriteResultAfterBuffer() throws IOException {
+        // Given
+        byte[] result = "{\"content\":[]}".getBytes(StandardCharsets.UTF_8);
+        StreamedResult streamed = new StreamedResult() {
+            @Override
+            public long length() {
+                return result.length;
+            }
+
+            @Override
+            public void writeTo(OutputStream output) throws IOException {
+                output.write(result);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        encoder.encode(JsonRpcResponse.success(5, streamed));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        long length = encoder.length();
+        encoder.writeTo(output);
+
+        // Then
+        assertEquals("{\"jsonrpc\":\"2.0\",\"id\":5,\"result\":{\"content\":[]}}", output.toString(StandardCharsets.UTF_8));
+        assertEquals(output.size(), length);
+        assertTrue(encoder.size() < output.size(), "Ergebnis darf nicht im Puffer liegen");
+    }
+
+    private String encoded() {
+        return new String(encoder.array(), 0, encoder.size(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,382 @@
+package com.mcpserver.boundary;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcpserver.McpServerProperties;
+import com.mcpserver.entity.JsonRpcMessage;
+import com.mcpserver.entity.JsonRpcRequest;
+import com.mcpserver.entity.JsonRpcResponse;
+import com.mcpserver.entity.StreamedResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für SocketTransport.
+ */
+class SocketTransportTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final EchoHandler handler = new EchoHandler();
+    private SocketTransport transport;
+    private Thread eventLoop;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        transport.close();
+        eventLoop.join(5_000);
+        transport.closeSessions();
+    }
+
+    @Test
+    void serve_ShouldAnswerEachConnectionSeparately() throws IOException {
+        // Given
+        start(tcpConfig());
+
+        try (Client first = connect(transport.localAddress());
+             Client second = connect(transport.localAddress())) {
+            // When
+            first.send("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"first\"}\n");
+            second.send("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"second\"}\n");
+
+            // Then
+            assertEquals("first", first.readResponse().get("result").asText());
+            assertEquals("second", second.readResponse().get("result").asText());
+        }
+    }
+
+    @Test
+    void serve_ShouldReassembleFramesSplitAcrossWrites() throws IOException {
+        // Given
+        start(tcpConfig());
+
+        try (Client client = connect(transport.localAddress())) {
+            // When
+            client.send("{\"jsonrpc\":\"2.0\",\"id\":1,");
+            client.send("\"method\":\"split\"}\n{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"next\"}\n\n");
+
+            // Then
+            JsonNode firstResponse = client.readResponse();
+            JsonNode secondResponse = client.readResponse();
+            assertEquals("split", firstResponse.get("result").asText());
+            assertEquals("next", secondResponse.get("result").asText());
+        }
+    }
+
+    @Test
+    void serve_WithLargeFrame_ShouldGrowBuffers() throws IOException {
+        // Given
+        McpServerProperties.Socket config = tcpConfig();
+        config.setReadBufferSize(64);
+        config.setWriteBufferSize(64);
+        start(config);
+        String method = "x".repeat(100_000);
+
+        try (Client client = connect(transport.localAddress())) {
+            // When
+            client.send("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"" + method + "\"}\n");
+
+            // Then
+            assertEquals(method, client.readResponse().get("result").asText());
+        }
+    }
+
+    @Test
+    void serve_WithFrameOverLimit_ShouldCloseConnection() throws IOException, InterruptedException {
+        // Given
+        McpServerProperties.Socket config = tcpConfig();
+        config.setReadBufferSize(64);
+        config.setMaxFrameBytes(1024);
+        start(config);
+
+        try (Client client = connect(transport.localAddress())) {
+            // When
+            client.send("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"" + "x".repeat(2048) + "\"}\n");
+
+            // Then
+            assertTrue(handler.closed.await(5, TimeUnit.SECONDS));
+            assertEquals(1, handler.received.getCount());
+        }
+    }
+
+    @Test
+    void serve_WithPendingWritesOverLimit_ShouldDeliverAllResponses() throws IOException {
+        // Given
+        McpServerProperties.Socket config = tcpConfig();
+        config.setMaxPendingWriteBytes(64);
+        start(config);
+        StringBuilder requests = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            requests.append("{\"jsonrpc\":\"2.0\",\"id\":").append(i).append(",\"method\":\"m\"}\n");
+        }
+
+        try (Client client = connect(transport.localAddress())) {
+            // When
+            client.send(requests.toString());
+
+            // Then
+            for (int i = 0; i < 200; i++) {
+                assertEquals(i, client.readResponse().get("id").asInt());
+            }
+        }
+    }
+
+    @Test
+    void serve_WithStreamedResult_ShouldWriteItInBoundedChunks() throws IOException, InterruptedException {
+        // Given
+        McpServerProperties.Socket config = tcpConfig();
+        config.setMaxPendingWriteBytes(1024);
+        start(config);
+
+        try (Client client = connect(transport.localAddress())) {
+            // When
+            client.send("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"streamed\"}\n"
+                    + "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"after\"}\n");
+            Thread.sleep(500);
+
+            // Then
+            assertTrue(handler.streamedWritten.get() < EchoHandler.STREAMED_LENGTH,
+                    "Ergebnis darf ohne lesenden Client nicht vollständig gepuffert werden");
+            String prefix = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"";
+            String streamed = client.readLine();
+            assertTrue(streamed.startsWith(prefix));
+            assertTrue(streamed.endsWith("a\"}"));
+            assertEquals(prefix.length() + EchoHandler.STREAMED_LENGTH, streamed.length());
+            assertEquals("after", client.readResponse().get("result").asText());
+        }
+    }
+
+    @Test
+    void serve_WithInvalidJson_ShouldRespondWithParseError() throws IOException {
+        // Given
+        start(tcpConfig());
+
+        try (Client client = connect(transport.localAddress())) {
+            // When
+            client.send("{not json}\n");
+
+            // Then
+            assertEquals(-32700, client.readResponse().get("error").get("code").asInt());
+        }
+    }
+
+    @Test
+    void serve_WhenClientDisconnects_ShouldNotifyHandler() throws IOException, InterruptedException {
+        // Given
+        start(tcpConfig());
+        Client client = connect(transport.localAddress());
+        client.send("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"ping\"}\n");
+        client.readResponse();
+
+        // When
+        client.close();
+
+        // Then
+        assertTrue(handler.closed.await(5, TimeUnit.SECONDS));
+        assertFalse(handler.sessions.get(0).isOpen());
+    }
+
+    @Test
+    void serve_OnUnixDomainSocket_ShouldAnswer(@TempDir Path directory) throws IOException {
+        // Given
+        McpServerProperties.Socket config = new McpServerProperties.Socket();
+        Path socketPath = directory.resolve("mcp.sock");
+        config.setPath(socketPath.toString());
+        start(config);
+
+        try (Client client = connect(UnixDomainSocketAddress.of(socketPath))) {
+            // When
+            client.send("{\"jsonrpc\":\"2.0\",\"id\":\"a\",\"method\":\"unix\"}\n");
+
+            // Then
+            JsonNode response = client.readResponse();
+            assertEquals("a", response.get("id").asText());
+            assertEquals("unix", response.get("result").asText());
+        }
+    }
+
+    @Test
+    void closeSessions_ShouldWritePendingResponsesAfterEventLoopEnded(@TempDir Path directory)
+            throws IOException, InterruptedException {
+        // Given
+        McpServerProperties.Socket config = new McpServerProperties.Socket();
+        Path socketPath = directory.resolve("mcp.sock");
+        config.setPath(socketPath.toString());
+        handler.respond = false;
+        start(config);
+
+        try (Client client = connect(UnixDomainSocketAddress.of(socketPath))) {
+            client.send("{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"late\"}\n");
+            assertTrue(handler.received.await(5, TimeUnit.SECONDS));
+
+            // When
+            transport.close();
+            eventLoop.join(5_000);
+            handler.sessions.get(0).writeResponse(JsonRpcResponse.success(7, "late"));
+            transport.closeSessions();
+
+            // Then
+            assertEquals(7, client.readResponse().get("id").asInt());
+            assertNull(client.readLine());
+            assertFalse(Files.exists(socketPath));
+        }
+    }
+
+    private static McpServerProperties.Socket tcpConfig() {
+        McpServerProperties.Socket config = new McpServerProperties.Socket();
+        config.setPort(0);
+        return config;
+    }
+
+    private void start(McpServerProperties.Socket config) throws IOException {
+        transport = new SocketTransport(objectMapper, config);
+        eventLoop = new Thread(() -> {
+            try {
+                transport.serve(handler);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }, "test-event-loop");
+        eventLoop.start();
+    }
+
+    private Client connect(SocketAddress address) throws IOException {
+        SocketChannel channel = address instanceof UnixDomainSocketAddress
+                ? SocketChannel.open(StandardProtocolFamily.UNIX)
+                : SocketChannel.open();
+        channel.connect(address);
+        return new Client(channel);
+    }
+
+    /**
+     * Blockierender Test-Client, liest Responses zeilenweise.
+     */
+    private class Client implements AutoCloseable {
+
+        private final SocketChannel channel;
+        private final BufferedReader reader;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+            this.reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+        }
+
+        void send(String data) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(data.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        String readLine() throws IOException {
+            return reader.readLine();
+        }
+
+        JsonNode readResponse() throws IOException {
+            String line = readLine();
+            assertNotNull(line, "Verbindung ohne Response geschlossen");
+            return objectMapper.readTree(line);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Antwortet auf jeden Request mit seiner Methode als Ergebnis, auf "streamed" mit einem
+     * großen {@link StreamedResult}.
+     */
+    private static class EchoHandler implements SocketTransport.ConnectionHandler {
+
+        static final long STREAMED_LENGTH = 32L * 1024 * 1024;
+
+        private final List<SocketSession> sessions = new CopyOnWriteArrayList<>();
+        private final CountDownLatch received = new CountDownLatch(1);
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private final AtomicLong streamedWritten = new AtomicLong();
+        private volatile boolean respond = true;
+
+        @Override
+        public void onMessage(SocketSession session, JsonRpcMessage message) {
+            if (!sessions.contains(session)) {
+                sessions.add(session);
+            }
+            received.countDown();
+            if (!respond) {
+                return;
+            }
+
+            try {
+                List<JsonRpcResponse> responses = new ArrayList<>(message.getErrors());
+                for (JsonRpcRequest request : message.getRequests()) {
+                    Object result = "streamed".equals(request.getMethod()) ? streamedResult() : request.getMethod();
+                    responses.add(JsonRpcResponse.success(request.getId(), result));
+                }
+                for (JsonRpcResponse response : responses) {
+                    session.writeResponse(response);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void onClose(SocketSession session) {
+            closed.countDown();
+        }
+
+        /**
+         * Ein JSON-String aus STREAMED_LENGTH Bytes, geschrieben in 8 KiB Blöcken.
+         */
+        private StreamedResult streamedResult() {
+            return new StreamedResult() {
+                @Override
+                public long length() {
+                    return STREAMED_LENGTH;
+                }
+
+                @Override
+                public void writeTo(OutputStream output) throws IOException {
+                    byte[] chunk = new byte[8 * 1024];
+                    Arrays.fill(chunk, (byte) 'a');
+                    output.write('"');
+                    for (long remaining = STREAMED_LENGTH - 2; remaining > 0; remaining -= chunk.length) {
+                        int length = (int) Math.min(chunk.length, remaining);
+                        output.write(chunk, 0, length);
+                        streamedWritten.addAndGet(length);
+                    }
+                    output.write('"');
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+    }
+}
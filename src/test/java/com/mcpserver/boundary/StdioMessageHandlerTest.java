@@ -0,0 +1,386 @@
+package com.mcpserver.boundary;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcpserver.McpServerProperties;
+import com.mcpserver.entity.JsonRpcError;
+import com.mcpserver.entity.JsonRpcMessage;
+import com.mcpserver.entity.JsonRpcRequest;
+import com.mcpserver.entity.JsonRpcResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für StdioMessageHandler.
+ */
+class StdioMessageHandlerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void readRequest_ShouldSkipBlankLinesAndCarriageReturns() throws IOException {
+        // Given
+        String input = "\n  \r\n{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\"}\r\n\n"
+                + "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/list\"}";
+        StdioMessageHandler handler = createHandler(input, 16);
+
+        // When
+        JsonRpcRequest first = handler.readRequest();
+        JsonRpcRequest second = handler.readRequest();
+        JsonRpcRequest end = handler.readRequest();
+
+        // Then
+        assertEquals(1, first.getId());
+        assertEquals("initialize", first.getMethod());
+        assertEquals(2, second.getId());
+        assertEquals("tools/list", second.getMethod());
+        assertNull(end);
+        handler.close();
+    }
+
+    @Test
+    void readRequest_WithLineLargerThanBuffer_ShouldGrowBuffer() throws IOException {
+        // Given
+        String message = "äöü €".repeat(1_000);
+        String input = "{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"tools/call\",\"params\":{\"message\":\""
+                + message + "\"}}\n";
+        StdioMessageHandler handler = createHandler(input, 16);
+
+        // When
+        JsonRpcRequest request = handler.readRequest();
+
+        // Then
+        assertEquals(7, request.getId());
+        assertEquals(message, request.getParams().get("message").asText());
+        assertNull(handler.readRequest());
+        handler.close();
+    }
+
+    @Test
+    void readMessage_WithBatch_ShouldSeparateValidAndInvalidEntries() throws IOException {
+        // Given
+        String input = "[{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\"},"
+                + "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"},"
+                + "42,"
+                + "{\"jsonrpc\":\"2.0\",\"id\":3}]\n";
+        StdioMessageHandler handler = createHandler(input, 64);
+
+        // When
+        JsonRpcMessage message = handler.readMessage();
+
+        // Then
+        assertTrue(message.isBatch());
+        assertEquals(2, message.getRequests().size());
+        assertEquals(1, message.getRequests().get(0).getId());
+        assertTrue(message.getRequests().get(1).isNotification());
+        assertEquals(2, message.getErrors().size());
+        assertEquals(JsonRpcError.INVALID_REQUEST, message.getErrors().get(0).getError().getCode());
+        assertEquals(3, message.getErrors().get(1).getId());
+        handler.close();
+    }
+
+    @Test
+    void readMessage_WithUnmappableBatchEntry_ShouldRejectOnlyThatEntry() throws IOException {
+        // Given
+        String input = "[{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":{\"nested\":[1,{\"a\":2}]},\"params\":{}},"
+                + "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"ping\"}]\n";
+        StdioMessageHandler handler = createHandler(input, 64);
+
+        // When
+        JsonRpcMessage message = handler.readMessage();
+
+        // Then
+        assertTrue(message.isBatch());
+        assertEquals(1, message.getRequests().size());
+        assertEquals(2, message.getRequests().get(0).getId());
+        assertEquals(1, message.getErrors().size());
+        assertEquals(JsonRpcError.INVALID_REQUEST, message.getErrors().get(0).getError().getCode());
+        assertNull(message.getErrors().get(0).getId());
+        handler.close();
+    }
+
+    @Test
+    void readMessage_WithInvalidJson_ShouldReturnParseErrorAndContinue() throws IOException {
+        // Given
+        String input = "{\"jsonrpc\": \"2.0\", \"id\": \n[{\"id\":1\n{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"ping\"}\n";
+        StdioMessageHandler handler = createHandler(input, 64);
+
+        // When
+        JsonRpcMessage broken = handler.readMessage();
+        JsonRpcMessage brokenBatch = handler.readMessage();
+        JsonRpcMessage valid = handler.readMessage();
+
+        // Then
+        assertEquals(JsonRpcError.PARSE_ERROR, broken.getErrors().get(0).getError().getCode());
+        assertNull(broken.getErrors().get(0).getId());
+        assertEquals(JsonRpcError.PARSE_ERROR, brokenBatch.getErrors().get(0).getError().getCode());
+        assertFalse(valid.isBatch());
+        assertEquals("ping", valid.getRequests().get(0).getMethod());
+        assertNull(handler.readMessage());
+        handler.close();
+    }
+
+    @Test
+    void writeBatch_ShouldWriteSingleArrayLine() throws IOException {
+        // Given
+        CountingOutputStream output = new CountingOutputStream();
+        StdioMessageHandler handler = createHandler(0, output);
+
+        // When
+        handler.writeBatch(List.of(JsonRpcResponse.success(1, "a"), JsonRpcResponse.success(2, "b")));
+        handler.close();
+
+        // Then
+        assertEquals("[{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"a\"},{\"jsonrpc\":\"2.0\",\"id\":2,\"result\":\"b\"}]\n",
+                output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writeResponse_ShouldWriteOneLinePerResponse() throws IOException {
+        // Given
+        CountingOutputStream output = new CountingOutputStream();
+        StdioMessageHandler handler = createHandler(0, output);
+
+        // When
+        handler.writeResponse(JsonRpcResponse.success(1, "a"));
+        handler.writeResponse(JsonRpcResponse.success(2, "b"));
+        handler.close();
+
+        // Then
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"a\"}", lines[0]);
+        assertEquals("{\"jsonrpc\":\"2.0\",\"id\":2,\"result\":\"b\"}", lines[1]);
+    }
+
+    @Test
+    void writeResponse_WithFlushDelay_ShouldCoalesceBurstIntoOneFlush() throws IOException {
+        // Given
+        CountingOutputStream output = new CountingOutputStream();
+        StdioMessageHandler handler = createHandler(500_000, output);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            handler.writeResponse(JsonRpcResponse.success(i, "burst"));
+        }
+        handler.close();
+
+        // Then
+        assertEquals(100, output.toString(StandardCharsets.UTF_8).split("\n").length);
+        assertTrue(output.flushes <= 2, "Erwartet höchstens 2 Flushes, waren " + output.flushes);
+    }
+
+    @Test
+    void writeResponse_ShouldFlushLoneResponseWithinDelay() throws Exception {
+        // Given
+        CountingOutputStream output = new CountingOutputStream();
+        StdioMessageHandler handler = createHandler(1_000, output);
+
+        // When
+        handler.writeResponse(JsonRpcResponse.success(1, "lone"));
+
+        // Then
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (output.flushes == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, output.flushes);
+        handler.close();
+    }
+
+    @Test
+    void writeResponse_WithUnserializableResult_ShouldWriteInternalError() throws IOException {
+        // Given
+        CountingOutputStream output = new CountingOutputStream();
+        StdioMessageHandler handler = createHandler(0, output);
+
+        // When
+        handler.writeResponse(JsonRpcResponse.success(1, new Object()));
+        handler.writeResponse(JsonRpcResponse.success(2, "ok"));
+        handler.close();
+
+        // Then
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"jsonrpc\":\"2.0\",\"id\":1,\"error\":{\"code\":-32603"), lines[0]);
+        assertEquals("{\"jsonrpc\":\"2.0\",\"id\":2,\"result\":\"ok\"}", lines[1]);
+    }
+
+    @Test
+    void writeResponse_AfterClose_ShouldFail() {
+        // Given
+        StdioMessageHandler handler = createHandler(0, new CountingOutputStream());
+        handler.close();
+
+        // When / Then
+        assertThrows(IOException.class, () -> handler.writeResponse(JsonRpcResponse.success(1, "late")));
+    }
+
+    @Test
+    void readMessage_WithContentLengthHeader_ShouldDetectFramingAndAnswerInKind() throws IOException {
+        // Given
+        String body = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"ping\"}";
+        CountingOutputStream output = new CountingOutputStream();
+        StdioMessageHandler handler = new StdioMessageHandler(objectMapper, new McpServerProperties.Stdio(),
+                new ByteArrayInputStream(("Content-Length: " + body.length() + "\r\n\r\n" + body)
+                        .getBytes(StandardCharsets.UTF_8)), output);
+
+        // When
+        JsonRpcRequest request = handler.readMessage().getRequests().get(0);
+        handler.writeResponse(JsonRpcResponse.success(request.getId(), "pong"));
+        JsonRpcMessage end = handler.readMessage();
+        handler.close();
+
+        // Then
+        assertEquals("ping", request.getMethod());
+        assertNull(end);
+        String response = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"pong\"}";
+        assertEquals("Content-Length: " + response.length() + "\r\n\r\n" + response,
+                output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void readMessage_WithContentLengthOverLimit_ShouldRejectFrameAndContinue() throws IOException {
+        // Given
+        String large = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"" + "x".repeat(200) + "\"}";
+        String ping = "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"ping\"}";
+        McpServerProperties.Stdio config = new McpServerProperties.Stdio();
+        config.setMaxFrameBytes(100);
+        StdioMessageHandler handler = new StdioMessageHandler(objectMapper, config,
+                new ByteArrayInputStream(("Content-Length: " + large.length() + "\r\n\r\n" + large
+                        + "Content-Length: " + ping.length() + "\r\n\r\n" + ping).getBytes(StandardCharsets.UTF_8)),
+                new CountingOutputStream());
+
+        // When
+        JsonRpcMessage rejected = handler.readMessage();
+        JsonRpcMessage next = handler.readMessage();
+
+        // Then
+        assertEquals(JsonRpcError.INVALID_REQUEST, rejected.getErrors().get(0).getError().getCode());
+        assertNull(rejected.getErrors().get(0).getId());
+        assertEquals("ping", next.getRequests().get(0).getMethod());
+        assertNull(handler.readMessage());
+        handler.close();
+    }
+
+    @Test
+    void readMessage_WithLinesOverLimit_ShouldRejectThemAndContinue() throws IOException {
+        // Given - die erste Zeile ist länger als der Lesepuffer, die zweite passt hinein
+        String ping = "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"ping\"}";
+        String input = "{\"data\":\"" + "x".repeat(10_000) + "\"}\n"
+                + "{\"data\":\"" + "x".repeat(150) + "\"}\r\n"
+                + ping + "\r\n";
+        McpServerProperties.Stdio config = new McpServerProperties.Stdio();
+        config.setReadBufferSize(256);
+        config.setMaxFrameBytes(ping.length());
+        StdioMessageHandler handler = new StdioMessageHandler(objectMapper, config,
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), new CountingOutputStream());
+
+        // When
+        JsonRpcMessage longerThanBuffer = handler.readMessage();
+        JsonRpcMessage longerThanLimit = handler.readMessage();
+        JsonRpcMessage next = handler.readMessage();
+
+        // Then
+        assertEquals(JsonRpcError.INVALID_REQUEST, longerThanBuffer.getErrors().get(0).getError().getCode());
+        assertEquals(JsonRpcError.INVALID_REQUEST, longerThanLimit.getErrors().get(0).getError().getCode());
+        assertEquals("ping", next.getRequests().get(0).getMethod());
+        assertNull(handler.readMessage());
+        handler.close();
+    }
+
+    @Test
+    void readMessage_WithNewlineInputInAutoMode_ShouldKeepNewlineFraming() throws IOException {
+        // Given
+        CountingOutputStream output = new CountingOutputStream();
+        StdioMessageHandler handler = new StdioMessageHandler(objectMapper, new McpServerProperties.Stdio(),
+                new ByteArrayInputStream("\n{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"ping\"}\n"
+                        .getBytes(StandardCharsets.UTF_8)), output);
+
+        // When
+        handler.readMessage();
+        handler.writeResponse(JsonRpcResponse.success(1, "pong"));
+        handler.close();
+
+        // Then
+        assertEquals("{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"pong\"}\n", output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writeResponse_WithConfiguredContentLengthFraming_ShouldPrefixHeader() throws IOException {
+        // Given
+        McpServerProperties.Stdio config = new McpServerProperties.Stdio();
+        config.setFraming(McpServerProperties.Framing.CONTENT_LENGTH);
+        CountingOutputStream output = new CountingOutputStream();
+        StdioMessageHandler handler = new StdioMessageHandler(objectMapper, config,
+                new ByteArrayInputStream(new byte[0]), output);
+
+        // When
+        handler.writeResponse(JsonRpcResponse.success(1, "ä"));
+        handler.close();
+
+        // Then - die Länge zählt Bytes, nicht Zeichen
+        String response = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"ä\"}";
+        assertEquals("Content-Length: " + response.getBytes(StandardCharsets.UTF_8).length + "\r\n\r\n" + response,
+                output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void close_WithCaptureFile_ShouldHaveRecordedBothDirections(@TempDir Path directory) throws IOException {
+        // Given
+        McpServerProperties.Stdio config = new McpServerProperties.Stdio();
+        config.setCaptureFile(directory.resolve("capture.bin"));
+        StdioMessageHandler handler = new StdioMessageHandler(objectMapper, config,
+                new ByteArrayInputStream("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"ping\"}\n"
+                        .getBytes(StandardCharsets.UTF_8)), new CountingOutputStream());
+
+        // When
+        handler.readMessage();
+        handler.writeResponse(JsonRpcResponse.success(1, "pong"));
+        handler.close();
+
+        // Then
+        try (TrafficCapture.Reader reader = new TrafficCapture.Reader(config.getCaptureFile())) {
+            TrafficCapture.Frame inbound = reader.next();
+            TrafficCapture.Frame outbound = reader.next();
+            assertNull(reader.next());
+            assertEquals(TrafficCapture.Direction.INBOUND, inbound.direction());
+            assertEquals("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"ping\"}",
+                    new String(inbound.payload(), StandardCharsets.UTF_8));
+            assertEquals(TrafficCapture.Direction.OUTBOUND, outbound.direction());
+            assertEquals("{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"pong\"}",
+                    new String(outbound.payload(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private StdioMessageHandler createHandler(String input, int readBufferSize) {
+        McpServerProperties.Stdio config = new McpServerProperties.Stdio();
+        config.setReadBufferSize(readBufferSize);
+        return new StdioMessageHandler(objectMapper, config,
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), new CountingOutputStream());
+    }
+
+    private StdioMessageHandler createHandler(long flushDelayMicros, CountingOutputStream output) {
+        McpServerProperties.Stdio config = new McpServerProperties.Stdio();
+        config.setFlushDelayMicros(flushDelayMicros);
+        return new StdioMessageHandler(objectMapper, config, new ByteArrayInputStream(new byte[0]), output);
+    }
+
+    private static class CountingOutputStream extends ByteArrayOutputStream {
+
+        private volatile int flushes;
+
+        @Override
+        public synchronized void flush() {
+            flushes++;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.mcpserver.boundary;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für TrafficCapture.
+ */
+class TrafficCaptureTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void record_ShouldBeReadBackInOrder() throws IOException {
+        // Given
+        Path file = directory.resolve("capture.bin");
+        byte[] buffer = "xx{\"id\":1}yy".getBytes(StandardCharsets.UTF_8);
+        byte[] large = "a".repeat(100_000).getBytes(StandardCharsets.UTF_8);
+
+        // When
+        try (TrafficCapture capture = TrafficCapture.open(file)) {
+            capture.record(TrafficCapture.Direction.INBOUND, buffer, 2, 8);
+            capture.record(TrafficCapture.Direction.OUTBOUND, large, 0, large.length);
+        }
+
+        // Then
+        try (TrafficCapture.Reader reader = new TrafficCapture.Reader(file)) {
+            TrafficCapture.Frame first = reader.next();
+            TrafficCapture.Frame second = reader.next();
+            assertNull(reader.next());
+
+            assertEquals(TrafficCapture.Direction.INBOUND, first.direction());
+            assertEquals("{\"id\":1}", new String(first.payload(), StandardCharsets.UTF_8));
+            assertEquals(TrafficCapture.Direction.OUTBOUND, second.direction());
+            assertArrayEquals(large, second.payload());
+            assertTrue(second.offsetMicros() >= first.offsetMicros());
+        }
+    }
+
+    @Test
+    void reader_WithForeignFile_ShouldFail() throws IOException {
+        // Given
+        Path file = Files.writeString(directory.resolve("other.txt"), "{\"jsonrpc\":\"2.0\"}\n");
+
+        // When / Then
+        assertThrows(IOException.class, () -> new TrafficCapture.Reader(file));
+    }
+
+    @Test
+    void next_WithTruncatedFrame_ShouldFail() throws IOException {
+        // Given
+        Path file = directory.resolve("capture.bin");
+        try (TrafficCapture capture = TrafficCapture.open(file)) {
+            capture.record(TrafficCapture.Direction.INBOUND, new byte[32], 0, 32);
+        }
+        Files.write(file, Arrays.copyOf(Files.readAllBytes(file), (int) Files.size(file) - 1));
+
+        // When / Then
+        try (TrafficCapture.Reader reader = new TrafficCapture.Reader(file)) {
+            assertThrows(IOException.class, reader::next);
+        }
+    }
+}
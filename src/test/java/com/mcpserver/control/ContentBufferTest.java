@@ -0,0 +1,117 @@
+package com.mcpserver.control;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcpserver.entity.Content;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für ContentBuffer.
+ */
+class ContentBufferTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ContentBuffer buffer = new ContentBuffer(objectMapper.writerFor(Content.class));
+
+    @Test
+    void serialize_ShouldWriteContentInOrder() throws IOException {
+        // Given
+        buffer.write(Content.text("first"));
+        buffer.write(Content.text("second"));
+
+        // When
+        JsonNode result = objectMapper.readTree(objectMapper.writeValueAsString(buffer));
+
+        // Then
+        assertEquals(2, result.get("content").size());
+        assertEquals("first", result.get("content").get(0).get("text").asText());
+        assertEquals("second", result.get("content").get(1).get("text").asText());
+        assertEquals("text", result.get("content").get(1).get("type").asText());
+    }
+
+    @Test
+    void serialize_WithoutContent_ShouldWriteEmptyList() throws IOException {
+        // When
+        JsonNode result = objectMapper.readTree(objectMapper.writeValueAsString(buffer));
+
+        // Then
+        assertTrue(result.get("content").isArray());
+        assertEquals(0, result.get("content").size());
+    }
+
+    @Test
+    void write_BeyondBufferLimit_ShouldSpillAndKeepContentIntact() throws IOException {
+        // Given - Mehrbyte-Zeichen, damit Blockgrenzen kein UTF-8 zerschneiden dürfen
+        String line = "Zeile mit Umlauten äöü und € ".repeat(20);
+        int items = 2 * ContentBuffer.MAX_BUFFERED_BYTES / line.length();
+        for (int i = 0; i < items; i++) {
+            buffer.write(Content.text(i + ": " + line));
+        }
+
+        // When
+        JsonNode result = objectMapper.readTree(objectMapper.writeValueAsBytes(buffer));
+
+        // Then
+        assertEquals(items, buffer.count());
+        assertEquals(items, result.get("content").size());
+        assertEquals("0: " + line, result.get("content").get(0).get("text").asText());
+        assertEquals((items - 1) + ": " + line, result.get("content").get(items - 1).get("text").asText());
+        assertFalse(buffer.spilled(), "Temporäre Datei muss nach dem Serialisieren gelöscht sein");
+    }
+
+    @Test
+    void write_BeyondBufferLimit_ShouldUseSpillFile() throws IOException {
+        // Given
+        String chunk = "x".repeat(ContentBuffer.CHUNK_SIZE);
+
+        // When
+        for (int i = 0; i <= ContentBuffer.MAX_BUFFERED_BYTES / ContentBuffer.CHUNK_SIZE + 1; i++) {
+            buffer.write(Content.text(chunk));
+        }
+
+        // Then
+        assertTrue(buffer.spilled());
+        buffer.close();
+        assertFalse(buffer.spilled());
+    }
+
+    @Test
+    void writeTo_AfterSpill_ShouldStreamAnnouncedLength() throws IOException {
+        // Given
+        String line = "Zeile mit Umlauten äöü und € ".repeat(20);
+        int items = 2 * ContentBuffer.MAX_BUFFERED_BYTES / line.length();
+        for (int i = 0; i < items; i++) {
+            buffer.write(Content.text(i + ": " + line));
+        }
+        long length = buffer.length();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        buffer.writeTo(output);
+
+        // Then
+        assertEquals(length, output.size());
+        JsonNode result = objectMapper.readTree(output.toByteArray());
+        assertEquals(items, result.get("content").size());
+        assertEquals((items - 1) + ": " + line, result.get("content").get(items - 1).get("text").asText());
+        assertFalse(buffer.spilled(), "Temporäre Datei muss nach dem Schreiben gelöscht sein");
+        assertThrows(IllegalStateException.class, () -> buffer.writeTo(output));
+    }
+
+    @Test
+    void serialize_Twice_ShouldFail() throws IOException {
+        // Given
+        buffer.write(Content.text("once"));
+        objectMapper.writeValueAsString(buffer);
+
+        // When / Then
+        assertThrows(JsonMappingException.class, () -> objectMapper.writeValueAsString(buffer));
+        assertThrows(IllegalStateException.class, () -> buffer.write(Content.text("late")));
+    }
+}
@@ -0,0 +1,167 @@
+package com.mcpserver.control;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für LaneScheduler.
+ */
+class LaneSchedulerTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> executed = new CopyOnWriteArrayList<>();
+    private LaneScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void execute_WithBusyToolWorkers_ShouldRunControlTaskOnReservedWorker() throws InterruptedException {
+        // Given
+        scheduler = createScheduler(3, 1, Map.of());
+        CountDownLatch toolsStarted = new CountDownLatch(2);
+        for (int i = 0; i < 3; i++) {
+            scheduler.execute(() -> {
+                toolsStarted.countDown();
+                awaitRelease();
+            }, "slow");
+        }
+        assertTrue(toolsStarted.await(5, TimeUnit.SECONDS));
+
+        // When
+        CountDownLatch controlDone = new CountDownLatch(1);
+        scheduler.execute(controlDone::countDown, null);
+
+        // Then
+        assertTrue(controlDone.await(5, TimeUnit.SECONDS));
+        assertEquals(Map.of("slow", 1), scheduler.queuedTools());
+    }
+
+    @Test
+    void execute_WithEqualWeights_ShouldAlternateBetweenTools() throws InterruptedException {
+        // Given
+        scheduler = createScheduler(1, 0, Map.of());
+        blockSingleWorker();
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            scheduler.execute(() -> executed.add("a"), "a");
+        }
+        scheduler.execute(() -> executed.add("b"), "b");
+        scheduler.execute(() -> executed.add("b"), "b");
+        release.countDown();
+        scheduler.shutdown();
+
+        // Then - FIFO würde erst alle Aufrufe von "a" ausführen
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(6, executed.size());
+        assertEquals(2, executed.subList(0, 4).stream().filter("b"::equals).count());
+    }
+
+    @Test
+    void execute_WithHigherWeight_ShouldRunToolMoreOften() throws InterruptedException {
+        // Given
+        scheduler = createScheduler(1, 0, Map.of("a", 2));
+        blockSingleWorker();
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            scheduler.execute(() -> executed.add("a"), "a");
+        }
+        for (int i = 0; i < 4; i++) {
+            scheduler.execute(() -> executed.add("b"), "b");
+        }
+        release.countDown();
+        scheduler.shutdown();
+
+        // Then
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(8, executed.size());
+        assertEquals(4, executed.subList(0, 6).stream().filter("a"::equals).count());
+    }
+
+    @Test
+    void execute_WithControlTaskQueued_ShouldRunItBeforeWaitingTools() throws InterruptedException {
+        // Given
+        scheduler = createScheduler(1, 0, Map.of());
+        blockSingleWorker();
+
+        // When
+        scheduler.execute(() -> executed.add("tool"), "a");
+        scheduler.execute(() -> executed.add("control"), null);
+        release.countDown();
+        scheduler.shutdown();
+
+        // Then
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(List.of("control", "tool"), executed);
+    }
+
+    @Test
+    void shutdown_ShouldRejectNewTasks() {
+        // Given
+        scheduler = createScheduler(1, 0, Map.of());
+
+        // When
+        scheduler.shutdown();
+
+        // Then
+        assertTrue(scheduler.isShutdown());
+        assertThrows(RejectedExecutionException.class, () -> scheduler.execute(() -> { }, null));
+    }
+
+    @Test
+    void execute_AfterInterruptedTask_ShouldKeepWorkerAlive() throws InterruptedException {
+        // Given
+        scheduler = createScheduler(1, 0, Map.of());
+        scheduler.execute(() -> Thread.currentThread().interrupt(), "a");
+
+        // When
+        CountDownLatch done = new CountDownLatch(1);
+        scheduler.execute(done::countDown, "a");
+
+        // Then
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    private LaneScheduler createScheduler(int workers, int reserved, Map<String, Integer> weights) {
+        return new LaneScheduler(workers, reserved, weights, runnable -> {
+            Thread thread = new Thread(runnable, "lane-test");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Belegt den einzigen Worker, bis {@link #release} freigegeben wird, damit sich alle
+     * folgenden Aufträge in der Queue sammeln.
+     */
+    private void blockSingleWorker() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        scheduler.execute(() -> {
+            started.countDown();
+            awaitRelease();
+        }, "gate");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.mcpserver.control;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für LatencyHistogram.
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void indexOf_ShouldMapValuesIntoTheirBucketRange() {
+        for (long value : new long[]{0, 1, 7, 8, 15, 16, 1_000, 123_456_789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(value <= LatencyHistogram.upperBoundOf(index), "value " + value);
+            assertTrue(index == 0 || value > LatencyHistogram.upperBoundOf(index - 1), "value " + value);
+        }
+    }
+
+    @Test
+    void snapshot_ShouldReportPercentilesWithinResolution() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1_000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+
+        // When
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        // Then
+        assertEquals(1_000, snapshot.count());
+        assertEquals(500, snapshot.p50Micros(), 500 * 0.125);
+        assertEquals(990, snapshot.p99Micros(), 990 * 0.125);
+        assertEquals(1_000, snapshot.maxMicros());
+        assertTrue(snapshot.p999Micros() <= snapshot.maxMicros());
+    }
+
+    @Test
+    void snapshot_WithoutRecordings_ShouldBeZero() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertEquals(new LatencyHistogram.Snapshot(0, 0, 0, 0, 0), snapshot);
+    }
+}
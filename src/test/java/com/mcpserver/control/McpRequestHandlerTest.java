@@ -1,14 +1,27 @@
 package com.mcpserver.control;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcpserver.entity.JsonRpcNotification;
 import com.mcpserver.entity.JsonRpcRequest;
 import com.mcpserver.entity.JsonRpcResponse;
+import com.mcpserver.entity.StreamedResult;
 import com.mcpserver.entity.Tool;
+import com.mcpserver.entity.ToolResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -19,20 +32,27 @@ class McpRequestHandlerTest {
 
     private McpRequestHandler handler;
     private ObjectMapper objectMapper;
+    private ToolRegistry toolRegistry;
+    private McpMetrics metrics;
+    private ToolResultCache resultCache;
 
     @BeforeEach
     void setUp() {
         objectMapper = new ObjectMapper();
-        handler = new McpRequestHandler(objectMapper);
+        toolRegistry = new ToolRegistry(List.of(new EchoTool()));
+        metrics = new McpMetrics();
+        resultCache = new ToolResultCache(16);
+        handler = new McpRequestHandler(objectMapper, toolRegistry, metrics, resultCache,
+                new ResourceRegistry(List.of(), 0, 1));
     }
 
     @Test
-    void handleInitialize_ShouldReturnServerInfo() {
+    void handleInitialize_ShouldReturnServerInfo() throws IOException {
         // Given
         JsonRpcRequest request = new JsonRpcRequest();
         request.setId(1);
         request.setMethod("initialize");
-        request.setParams(Map.of());
+        request.setParams(objectMapper.createObjectNode());
 
         // When
         JsonRpcResponse response = handler.handleRequest(request);
@@ -43,23 +63,21 @@ class McpRequestHandlerTest {
         assertNull(response.getError());
         assertNotNull(response.getResult());
 
-        @SuppressWarnings("unchecked")
-        Map<String, Object> result = (Map<String, Object>) response.getResult();
-        assertEquals("2024-11-05", result.get("protocolVersion"));
+        JsonNode result = resultOf(response);
+        assertEquals("2024-11-05", result.get("protocolVersion").asText());
 
-        @SuppressWarnings("unchecked")
-        Map<String, Object> serverInfo = (Map<String, Object>) result.get("serverInfo");
-        assertEquals("custom-mcp-server", serverInfo.get("name"));
-        assertEquals("1.0.0", serverInfo.get("version"));
+        JsonNode serverInfo = result.get("serverInfo");
+        assertEquals("custom-mcp-server", serverInfo.get("name").asText());
+        assertEquals("1.0.0", serverInfo.get("version").asText());
     }
 
     @Test
-    void handleToolsList_ShouldReturnEchoTool() {
+    void handleToolsList_ShouldReturnEchoTool() throws IOException {
         // Given
         JsonRpcRequest request = new JsonRpcRequest();
         request.setId(2);
         request.setMethod("tools/list");
-        request.setParams(Map.of());
+        request.setParams(objectMapper.createObjectNode());
 
         // When
         JsonRpcResponse response = handler.handleRequest(request);
@@ -69,30 +87,101 @@ class McpRequestHandlerTest {
         assertEquals(2, response.getId());
         assertNull(response.getError());
 
-        @SuppressWarnings("unchecked")
-        Map<String, Object> result = (Map<String, Object>) response.getResult();
-        @SuppressWarnings("unchecked")
-        List<Tool> tools = (List<Tool>) result.get("tools");
+        JsonNode tools = resultOf(response).get("tools");
 
         assertNotNull(tools);
         assertEquals(1, tools.size());
 
-        Tool echoTool = tools.get(0);
-        assertEquals("echo", echoTool.getName());
-        assertEquals("Gibt den übergebenen Text zurück", echoTool.getDescription());
-        assertNotNull(echoTool.getInputSchema());
+        JsonNode echoTool = tools.get(0);
+        assertEquals("echo", echoTool.get("name").asText());
+        assertEquals("Gibt den übergebenen Text zurück", echoTool.get("description").asText());
+        assertNotNull(echoTool.get("inputSchema"));
     }
 
     @Test
-    void handleToolsCall_WithEchoTool_ShouldReturnMessage() {
+    void handleToolsList_ShouldReuseEncodedResultUntilRegistryChanges() throws IOException {
+        // Given
+        JsonRpcRequest request = new JsonRpcRequest();
+        request.setId(2);
+        request.setMethod("tools/list");
+        Object firstResult = handler.handleRequest(request).getResult();
+
+        // When
+        Object cachedResult = handler.handleRequest(request).getResult();
+        toolRegistry.register(new FixedTool("added"));
+        JsonRpcResponse afterRegister = handler.handleRequest(request);
+        toolRegistry.unregister("added");
+        JsonRpcResponse afterUnregister = handler.handleRequest(request);
+
+        // Then
+        assertSame(firstResult, cachedResult);
+        assertEquals(2, resultOf(afterRegister).get("tools").size());
+        assertEquals(1, resultOf(afterUnregister).get("tools").size());
+    }
+
+    @Test
+    void handleToolsList_WithCursor_ShouldWalkPagesInNameOrder() throws IOException {
+        // Given
+        ToolRegistry pagedRegistry = new ToolRegistry(List.of(new EchoTool()), 2);
+        for (String name : List.of("delta", "alpha", "charlie", "bravo")) {
+            pagedRegistry.register(new FixedTool(name));
+        }
+        McpRequestHandler pagedHandler = new McpRequestHandler(objectMapper, pagedRegistry, metrics, resultCache,
+                new ResourceRegistry(List.of(), 0, 1));
+
+        // When
+        List<String> names = new ArrayList<>();
+        List<Object> results = new ArrayList<>();
+        String cursor = null;
+        do {
+            JsonRpcRequest request = toolsList(50, cursor);
+            JsonRpcResponse response = pagedHandler.handleRequest(request);
+            results.add(response.getResult());
+            JsonNode page = resultOf(response);
+            page.get("tools").forEach(tool -> names.add(tool.get("name").asText()));
+            cursor = page.has("nextCursor") ? page.get("nextCursor").asText() : null;
+        } while (cursor != null);
+        Object repeated = pagedHandler.handleRequest(toolsList(51, null)).getResult();
+
+        // Then
+        assertEquals(List.of("alpha", "bravo", "charlie", "delta", "echo"), names);
+        assertEquals(3, results.size());
+        assertSame(results.get(0), repeated);
+    }
+
+    @Test
+    void handleToolsList_WithCursorOfRemovedTool_ShouldContinueAfterIt() throws IOException {
+        // Given
+        ToolRegistry pagedRegistry = new ToolRegistry(List.of(new EchoTool()), 2);
+        for (String name : List.of("alpha", "bravo", "charlie")) {
+            pagedRegistry.register(new FixedTool(name));
+        }
+        McpRequestHandler pagedHandler = new McpRequestHandler(objectMapper, pagedRegistry, metrics, resultCache,
+                new ResourceRegistry(List.of(), 0, 1));
+        String cursor = resultOf(pagedHandler.handleRequest(toolsList(52, null))).get("nextCursor").asText();
+
+        // When
+        pagedRegistry.unregister("bravo");
+        JsonNode page = resultOf(pagedHandler.handleRequest(toolsList(53, cursor)));
+        JsonRpcResponse invalid = pagedHandler.handleRequest(toolsList(54, "%%%"));
+
+        // Then
+        assertEquals("charlie", page.get("tools").get(0).get("name").asText());
+        assertEquals("echo", page.get("tools").get(1).get("name").asText());
+        assertFalse(page.has("nextCursor"));
+        assertEquals(-32602, invalid.getError().getCode());
+    }
+
+    @Test
+    void handleToolsCall_WithEchoTool_ShouldReturnMessage() throws IOException {
         // Given
         JsonRpcRequest request = new JsonRpcRequest();
         request.setId(3);
         request.setMethod("tools/call");
-        request.setParams(Map.of(
+        request.setParams(objectMapper.valueToTree(Map.of(
                 "name", "echo",
                 "arguments", Map.of("message", "Hello World")
-        ));
+        )));
 
         // When
         JsonRpcResponse response = handler.handleRequest(request);
@@ -102,17 +191,31 @@ class McpRequestHandlerTest {
         assertEquals(3, response.getId());
         assertNull(response.getError());
 
-        @SuppressWarnings("unchecked")
-        Map<String, Object> result = (Map<String, Object>) response.getResult();
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> content = (List<Map<String, Object>>) result.get("content");
+        JsonNode content = resultOf(response).get("content");
 
         assertNotNull(content);
         assertEquals(1, content.size());
 
-        Map<String, Object> contentItem = content.get(0);
-        assertEquals("text", contentItem.get("type"));
-        assertEquals("Echo: Hello World", contentItem.get("text"));
+        JsonNode contentItem = content.get(0);
+        assertEquals("text", contentItem.get("type").asText());
+        assertEquals("Echo: Hello World", contentItem.get("text").asText());
+    }
+
+    @Test
+    void handleToolsCall_WithRegisteredTool_ShouldDispatchByName() throws IOException {
+        // Given
+        toolRegistry.register(new FixedTool("fixed"));
+        JsonRpcRequest request = new JsonRpcRequest();
+        request.setId(8);
+        request.setMethod("tools/call");
+        request.setParams(objectMapper.valueToTree(Map.of("name", "fixed", "arguments", Map.of())));
+
+        // When
+        JsonRpcResponse response = handler.handleRequest(request);
+
+        // Then
+        assertNull(response.getError());
+        assertEquals("fixed", resultOf(response).get("content").get(0).get("text").asText());
     }
 
     @Test
@@ -121,10 +224,10 @@ class McpRequestHandlerTest {
         JsonRpcRequest request = new JsonRpcRequest();
         request.setId(4);
         request.setMethod("tools/call");
-        request.setParams(Map.of(
+        request.setParams(objectMapper.valueToTree(Map.of(
                 "name", "unknown",
                 "arguments", Map.of()
-        ));
+        )));
 
         // When
         JsonRpcResponse response = handler.handleRequest(request);
@@ -138,13 +241,102 @@ class McpRequestHandlerTest {
         assertTrue(response.getError().getData().toString().contains("unknown"));
     }
 
+    @Test
+    void handleToolsCall_WithMismatchingArguments_ShouldReturnInvalidParams() {
+        // Given
+        JsonRpcRequest request = new JsonRpcRequest();
+        request.setId(9);
+        request.setMethod("tools/call");
+        request.setParams(objectMapper.valueToTree(Map.of(
+                "name", "echo",
+                "arguments", Map.of("message", List.of("not", "a", "string"))
+        )));
+
+        // When
+        JsonRpcResponse response = handler.handleRequest(request);
+
+        // Then
+        assertNull(response.getResult());
+        assertEquals(-32602, response.getError().getCode());
+    }
+
+    @Test
+    void handleToolsCall_WithMissingRequiredArgument_ShouldReportField() {
+        // Given
+        JsonRpcRequest request = new JsonRpcRequest();
+        request.setId(9);
+        request.setMethod("tools/call");
+        request.setParams(objectMapper.valueToTree(Map.of("name", "echo", "arguments", Map.of())));
+
+        // When
+        JsonRpcResponse response = handler.handleRequest(request);
+
+        // Then
+        assertEquals(-32602, response.getError().getCode());
+        JsonNode errors = objectMapper.valueToTree(response.getError().getData()).get("errors");
+        assertEquals(1, errors.size());
+        assertEquals("/message", errors.get(0).get("path").asText());
+        assertEquals("is required", errors.get(0).get("message").asText());
+    }
+
+    @Test
+    void handleToolsCall_WithWrongArgumentType_ShouldReportFieldBeforeCallingTool() {
+        // Given
+        JsonRpcRequest request = new JsonRpcRequest();
+        request.setId(9);
+        request.setMethod("tools/call");
+        request.setParams(objectMapper.valueToTree(Map.of("name", "echo", "arguments", Map.of("message", 42))));
+
+        // When
+        JsonRpcResponse response = handler.handleRequest(request);
+
+        // Then - ohne Prüfung würde Jackson die Zahl stillschweigend zu "42" binden
+        assertNull(response.getResult());
+        assertEquals(-32602, response.getError().getCode());
+        JsonNode error = objectMapper.valueToTree(response.getError().getData()).get("errors").get(0);
+        assertEquals("/message", error.get("path").asText());
+        assertEquals("must be of type string", error.get("message").asText());
+    }
+
+    @Test
+    void handleToolsCall_WithoutToolName_ShouldReturnInvalidParams() {
+        // Given
+        JsonRpcRequest request = new JsonRpcRequest();
+        request.setId(10);
+        request.setMethod("tools/call");
+
+        // When
+        JsonRpcResponse response = handler.handleRequest(request);
+
+        // Then
+        assertEquals(-32602, response.getError().getCode());
+    }
+
+    @Test
+    void handleToolsCall_WithExtraArguments_ShouldIgnoreThem() throws IOException {
+        // Given
+        JsonRpcRequest request = new JsonRpcRequest();
+        request.setId(11);
+        request.setMethod("tools/call");
+        request.setParams(objectMapper.valueToTree(Map.of(
+                "name", "echo",
+                "arguments", Map.of("message", "Hi", "extra", 1)
+        )));
+
+        // When
+        JsonRpcResponse response = handler.handleRequest(request);
+
+        // Then
+        assertEquals("Echo: Hi", resultOf(response).get("content").get(0).get("text").asText());
+    }
+
     @Test
     void handleRequest_WithUnknownMethod_ShouldReturnMethodNotFound() {
         // Given
         JsonRpcRequest request = new JsonRpcRequest();
         request.setId(5);
         request.setMethod("unknown/method");
-        request.setParams(Map.of());
+        request.setParams(objectMapper.createObjectNode());
 
         // When
         JsonRpcResponse response = handler.handleRequest(request);
@@ -158,6 +350,116 @@ class McpRequestHandlerTest {
         assertEquals("Method not found", response.getError().getMessage());
     }
 
+    @Test
+    void handleRequest_ShouldSpliceRequestIdIntoEncodedResult() throws IOException {
+        // Given
+        JsonRpcRequest request = new JsonRpcRequest();
+        request.setId("list-7");
+        request.setMethod("tools/list");
+
+        // When
+        String json = objectMapper.writeValueAsString(handler.handleRequest(request));
+
+        // Then
+        assertTrue(json.startsWith("{\"jsonrpc\":\"2.0\",\"id\":\"list-7\",\"result\":{\"tools\":[{\"name\":\"echo\""), json);
+    }
+
+    @Test
+    void handleToolsCall_WithCacheableTool_ShouldReuseResultForEqualArguments() throws IOException {
+        // Given
+        CountingTool tool = new CountingTool();
+        toolRegistry.register(tool);
+        JsonRpcRequest first = toolsCall(20, "{\"name\":\"count\",\"arguments\":{\"a\":1,\"b\":2}}");
+        JsonRpcRequest reordered = toolsCall(21, "{\"name\":\"count\",\"arguments\":{\"b\":2,\"a\":1}}");
+        JsonRpcRequest other = toolsCall(22, "{\"name\":\"count\",\"arguments\":{\"a\":2}}");
+
+        // When
+        JsonNode firstResult = resultOf(handler.handleRequest(first));
+        JsonRpcResponse cachedResponse = handler.handleRequest(reordered);
+        JsonNode otherResult = resultOf(handler.handleRequest(other));
+
+        // Then
+        assertEquals(21, cachedResponse.getId());
+        assertEquals(firstResult, resultOf(cachedResponse));
+        assertEquals("call 1", firstResult.get("content").get(0).get("text").asText());
+        assertEquals("call 2", otherResult.get("content").get(0).get("text").asText());
+        assertEquals(2, tool.calls);
+        assertEquals(1, resultCache.hits());
+        assertEquals(2, resultCache.misses());
+    }
+
+    @Test
+    void handleToolsCall_AfterRegistryChange_ShouldNotServeStaleResult() throws IOException {
+        // Given
+        CountingTool tool = new CountingTool();
+        toolRegistry.register(tool);
+        handler.handleRequest(toolsCall(23, "{\"name\":\"count\"}"));
+
+        // When
+        toolRegistry.register(tool);
+        JsonNode result = resultOf(handler.handleRequest(toolsCall(24, "{\"name\":\"count\",\"arguments\":{}}")));
+
+        // Then
+        assertEquals("call 2", result.get("content").get(0).get("text").asText());
+    }
+
+    @Test
+    void handleToolsCall_WithoutCacheTtl_ShouldAlwaysCallTool() {
+        // Given
+        JsonRpcRequest request = toolsCall(25, "{\"name\":\"echo\",\"arguments\":{\"message\":\"Hi\"}}");
+
+        // When
+        handler.handleRequest(request);
+        handler.handleRequest(request);
+
+        // Then
+        assertEquals(0, resultCache.hits());
+        assertEquals(0, resultCache.size());
+    }
+
+    @Test
+    void timeoutOf_ShouldReturnTimeoutDeclaredByTool() {
+        // Given
+        toolRegistry.register(new CountingTool());
+
+        // Then
+        assertEquals(Duration.ofSeconds(5), handler.timeoutOf(toolsCall(26, "{\"name\":\"count\"}")));
+        assertNull(handler.timeoutOf(toolsCall(27, "{\"name\":\"echo\"}")));
+        assertNull(handler.timeoutOf(toolsCall(28, "{\"name\":\"unknown\"}")));
+        assertNull(handler.timeoutOf(toolsCall(29, "{}")));
+    }
+
+    @Test
+    void handleMetricsGet_ShouldReportLatenciesAndErrors() throws IOException {
+        // Given
+        JsonRpcRequest call = new JsonRpcRequest();
+        call.setId(12);
+        call.setMethod("tools/call");
+        call.setParams(objectMapper.valueToTree(Map.of("name", "echo", "arguments", Map.of("message", "Hi"))));
+        JsonRpcRequest unknown = new JsonRpcRequest();
+        unknown.setId(13);
+        unknown.setMethod("does/not/exist");
+        handler.handleRequest(call);
+        handler.handleRequest(call);
+        handler.handleRequest(unknown);
+
+        JsonRpcRequest request = new JsonRpcRequest();
+        request.setId(14);
+        request.setMethod("metrics/get");
+
+        // When
+        JsonNode result = resultOf(handler.handleRequest(request));
+
+        // Then
+        assertEquals(2, result.get("methods").get("tools/call").get("count").asLong());
+        assertEquals(1, result.get("methods").get("(unknown)").get("count").asLong());
+        assertFalse(result.get("methods").has("does/not/exist"));
+        assertEquals(2, result.get("tools").get("echo").get("count").asLong());
+        assertTrue(result.get("tools").get("echo").has("p99Micros"));
+        assertEquals(1, result.get("errors").get("-32601").asLong());
+        assertEquals(0, result.get("cache").get("hits").asLong());
+    }
+
     @Test
     void handleRequest_ShouldPreserveRequestId() {
         // Given
@@ -172,4 +474,345 @@ class McpRequestHandlerTest {
         // Then
         assertEquals(stringId, response.getId());
     }
+
+    @Test
+    void handleToolsCall_WithProgressToken_ShouldSendProgressBeforeResult() throws IOException {
+        // Given
+        toolRegistry.register(new StreamingTool());
+        JsonRpcRequest request = toolsCall(30,
+                "{\"name\":\"stream\",\"arguments\":{},\"_meta\":{\"progressToken\":\"token-1\"}}");
+        RecordingSink sink = new RecordingSink();
+
+        // When
+        JsonRpcResponse response = handler.handleRequest(request, sink);
+
+        // Then
+        assertEquals(3, sink.notifications.size());
+        JsonNode last = objectMapper.valueToTree(sink.notifications.get(2));
+        assertEquals("notifications/progress", last.get("method").asText());
+        assertEquals("token-1", last.get("params").get("progressToken").asText());
+        assertEquals(3, last.get("params").get("progress").asLong());
+        assertEquals(3, last.get("params").get("total").asLong());
+
+        JsonNode content = resultOf(response).get("content");
+        assertEquals(4, content.size());
+        assertEquals("part 1", content.get(0).get("text").asText());
+        assertEquals("done", content.get(3).get("text").asText());
+    }
+
+    @Test
+    void handleToolsCall_WithoutProgressToken_ShouldNotSendProgress() throws IOException {
+        // Given
+        toolRegistry.register(new StreamingTool());
+        RecordingSink sink = new RecordingSink();
+
+        // When
+        JsonRpcResponse response = handler.handleRequest(toolsCall(31, "{\"name\":\"stream\"}"), sink);
+
+        // Then
+        assertTrue(sink.notifications.isEmpty());
+        assertEquals(4, resultOf(response).get("content").size());
+    }
+
+    @Test
+    void handleResourcesRead_WithTextFile_ShouldReturnText(@TempDir Path root) throws IOException {
+        // Given
+        Path file = Files.writeString(root.resolve("notes.txt"), "Grüße\n\"zitiert\"\n".repeat(1000));
+        McpRequestHandler resourceHandler = withResources(root);
+
+        // When
+        JsonRpcResponse response = resourceHandler.handleRequest(resourcesRead(40, file.toUri().toString()));
+
+        // Then
+        assertNull(response.getError());
+        JsonNode contents = resultOf(response).get("contents");
+        assertEquals(1, contents.size());
+        assertEquals(file.toUri().toString(), contents.get(0).get("uri").asText());
+        assertEquals(Files.readString(file), contents.get(0).get("text").asText());
+        assertFalse(contents.get(0).has("blob"));
+    }
+
+    @Test
+    void handleResourcesRead_WithBinaryFile_ShouldReturnBase64Blob(@TempDir Path root) throws IOException {
+        // Given
+        byte[] data = new byte[100_000];
+        new Random(7).nextBytes(data);
+        data[0] = 0;
+        Path file = Files.write(root.resolve("data.bin"), data);
+        McpRequestHandler resourceHandler = withResources(root);
+
+        // When
+        JsonRpcResponse response = resourceHandler.handleRequest(resourcesRead(41, file.toUri().toString()));
+
+        // Then
+        JsonNode content = resultOf(response).get("contents").get(0);
+        assertFalse(content.has("text"));
+        assertArrayEquals(data, Base64.getDecoder().decode(content.get("blob").asText()));
+    }
+
+    @Test
+    void handleResourcesRead_WhenStreamed_ShouldMatchSerializedResultAndLength(@TempDir Path root) throws IOException {
+        // Given
+        Path text = Files.writeString(root.resolve("notes.txt"), "Grüße \uD83D\uDE00\n\"zitiert\"\t\n".repeat(5000));
+        byte[] data = new byte[70_001];
+        new Random(3).nextBytes(data);
+        data[0] = 0;
+        Path binary = Files.write(root.resolve("data.bin"), data);
+        McpRequestHandler resourceHandler = withResources(root);
+
+        for (Path file : List.of(text, binary)) {
+            Object result = resourceHandler.handleRequest(resourcesRead(45, file.toUri().toString())).getResult();
+            StreamedResult streamed = assertInstanceOf(StreamedResult.class, result);
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+            // When
+            long length = streamed.length();
+            streamed.writeTo(output);
+
+            // Then
+            assertEquals(output.size(), length);
+            assertArrayEquals(objectMapper.writeValueAsBytes(result), output.toByteArray());
+        }
+    }
+
+    @Test
+    void handleResourcesRead_OutsideRoots_ShouldReturnResourceNotFound(@TempDir Path temp) throws IOException {
+        // Given
+        Path root = Files.createDirectory(temp.resolve("root"));
+        Path secret = Files.writeString(temp.resolve("secret.txt"), "geheim");
+        McpRequestHandler resourceHandler = withResources(root);
+        String escaping = root.toUri() + "../secret.txt";
+
+        // When
+        JsonRpcResponse direct = resourceHandler.handleRequest(resourcesRead(42, secret.toUri().toString()));
+        JsonRpcResponse relative = resourceHandler.handleRequest(resourcesRead(43, escaping));
+
+        // Then
+        assertEquals(-32002, direct.getError().getCode());
+        assertEquals(-32002, relative.getError().getCode());
+    }
+
+    @Test
+    void handleResourcesRead_BeyondMaxReadBytes_ShouldReturnInvalidParams(@TempDir Path root) throws IOException {
+        // Given
+        Path file = Files.writeString(root.resolve("big.txt"), "x".repeat(100));
+        McpRequestHandler resourceHandler = new McpRequestHandler(objectMapper, toolRegistry, metrics, resultCache,
+                new ResourceRegistry(List.of(root), 10, 100));
+
+        // When
+        JsonRpcResponse response = resourceHandler.handleRequest(resourcesRead(44, file.toUri().toString()));
+
+        // Then
+        assertEquals(-32602, response.getError().getCode());
+    }
+
+    @Test
+    void handleResourcesList_ShouldListFilesWithCapability(@TempDir Path root) throws IOException {
+        // Given
+        Files.writeString(root.resolve("b.txt"), "b");
+        Files.writeString(Files.createDirectory(root.resolve("sub")).resolve("a.txt"), "aa");
+        McpRequestHandler resourceHandler = withResources(root);
+        JsonRpcRequest request = new JsonRpcRequest();
+        request.setId(45);
+        request.setMethod("resources/list");
+
+        // When
+        JsonNode resources = resultOf(resourceHandler.handleRequest(request)).get("resources");
+        JsonRpcRequest initialize = new JsonRpcRequest();
+        initialize.setId(46);
+        initialize.setMethod("initialize");
+        JsonNode capabilities = resultOf(resourceHandler.handleRequest(initialize)).get("capabilities");
+
+        // Then
+        assertEquals(2, resources.size());
+        assertEquals("b.txt", resources.get(0).get("name").asText());
+        assertEquals(1, resources.get(0).get("size").asLong());
+        assertEquals("a.txt", resources.get(1).get("name").asText());
+        assertTrue(capabilities.has("resources"));
+    }
+
+    @Test
+    void handleResourcesList_WithCursor_ShouldReturnFollowingPage(@TempDir Path root) throws IOException {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            Files.writeString(root.resolve("file" + i + ".txt"), "x");
+        }
+        McpRequestHandler resourceHandler = new McpRequestHandler(objectMapper, toolRegistry, metrics, resultCache,
+                new ResourceRegistry(List.of(root), 1024, 3));
+        JsonRpcRequest first = new JsonRpcRequest();
+        first.setId(47);
+        first.setMethod("resources/list");
+
+        // When
+        JsonNode firstPage = resultOf(resourceHandler.handleRequest(first));
+        JsonRpcRequest next = new JsonRpcRequest();
+        next.setId(48);
+        next.setMethod("resources/list");
+        next.setParams(objectMapper.createObjectNode().put("cursor", firstPage.get("nextCursor").asText()));
+        JsonNode secondPage = resultOf(resourceHandler.handleRequest(next));
+        next.setParams(objectMapper.createObjectNode().put("cursor", "%%%"));
+        JsonRpcResponse invalid = resourceHandler.handleRequest(next);
+
+        // Then
+        assertEquals(3, firstPage.get("resources").size());
+        assertEquals(2, secondPage.get("resources").size());
+        assertEquals("file3.txt", secondPage.get("resources").get(0).get("name").asText());
+        assertFalse(secondPage.has("nextCursor"));
+        assertEquals(-32602, invalid.getError().getCode());
+    }
+
+    private JsonRpcRequest toolsList(int id, String cursor) {
+        JsonRpcRequest request = new JsonRpcRequest();
+        request.setId(id);
+        request.setMethod("tools/list");
+        if (cursor != null) {
+            request.setParams(objectMapper.createObjectNode().put("cursor", cursor));
+        }
+        return request;
+    }
+
+    private McpRequestHandler withResources(Path root) {
+        return new McpRequestHandler(objectMapper, toolRegistry, metrics, resultCache,
+                new ResourceRegistry(List.of(root), 1024 * 1024, 100));
+    }
+
+    private JsonRpcRequest resourcesRead(int id, String uri) {
+        JsonRpcRequest request = new JsonRpcRequest();
+        request.setId(id);
+        request.setMethod("resources/read");
+        request.setParams(objectMapper.createObjectNode().put("uri", uri));
+        return request;
+    }
+
+    private JsonNode resultOf(JsonRpcResponse response) throws IOException {
+        return objectMapper.readTree(objectMapper.writeValueAsBytes(response)).get("result");
+    }
+
+    /**
+     * Tool, das immer seinen eigenen Namen zurückgibt.
+     */
+    private JsonRpcRequest toolsCall(int id, String params) {
+        JsonRpcRequest request = new JsonRpcRequest();
+        request.setId(id);
+        request.setMethod("tools/call");
+        try {
+            request.setParams(objectMapper.readTree(params));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+        return request;
+    }
+
+    /**
+     * Cachebares Tool, das seine Aufrufe zählt.
+     */
+    private static class CountingTool implements ToolHandler<JsonNode> {
+
+        private static final Tool DESCRIPTOR = Tool.builder().name("count").description("Test-Tool").build();
+
+        private int calls;
+
+        @Override
+        public Tool descriptor() {
+            return DESCRIPTOR;
+        }
+
+        @Override
+        public Class<JsonNode> argumentsType() {
+            return JsonNode.class;
+        }
+
+        @Override
+        public ToolResult call(JsonNode arguments) {
+            calls++;
+            return ToolResult.text("call " + calls);
+        }
+
+        @Override
+        public Duration cacheTtl() {
+            return Duration.ofMinutes(1);
+        }
+
+        @Override
+        public Duration timeout() {
+            return Duration.ofSeconds(5);
+        }
+    }
+
+    /**
+     * Tool, das drei Teile schrittweise schreibt und dabei Fortschritt meldet.
+     */
+    private static class StreamingTool implements ToolHandler<JsonNode> {
+
+        private static final Tool DESCRIPTOR = Tool.builder().name("stream").description("Test-Tool").build();
+
+        @Override
+        public Tool descriptor() {
+            return DESCRIPTOR;
+        }
+
+        @Override
+        public Class<JsonNode> argumentsType() {
+            return JsonNode.class;
+        }
+
+        @Override
+        public ToolResult call(JsonNode arguments) {
+            throw new UnsupportedOperationException("Nur mit ToolContext aufrufbar");
+        }
+
+        @Override
+        public ToolResult call(JsonNode arguments, ToolContext context) throws IOException {
+            for (int part = 1; part <= 3; part++) {
+                context.write("part " + part);
+                context.progress(part, 3L, "part " + part);
+            }
+            return ToolResult.text("done");
+        }
+    }
+
+    /**
+     * Sink, der die Notifications eines Requests aufzeichnet.
+     */
+    private static class RecordingSink implements ResponseSink {
+
+        private final List<JsonRpcNotification> notifications = new ArrayList<>();
+
+        @Override
+        public void send(JsonRpcResponse response) {
+        }
+
+        @Override
+        public void sendBatch(List<JsonRpcResponse> responses) {
+        }
+
+        @Override
+        public void sendNotification(JsonRpcNotification notification) {
+            notifications.add(notification);
+        }
+    }
+
+    private static class FixedTool implements ToolHandler<JsonNode> {
+
+        private final Tool descriptor;
+
+        FixedTool(String name) {
+            this.descriptor = Tool.builder().name(name).description("Test-Tool").build();
+        }
+
+        @Override
+        public Tool descriptor() {
+            return descriptor;
+        }
+
+        @Override
+        public Class<JsonNode> argumentsType() {
+            return JsonNode.class;
+        }
+
+        @Override
+        public ToolResult call(JsonNode arguments) {
+            return ToolResult.text(descriptor.getName());
+        }
+    }
 }
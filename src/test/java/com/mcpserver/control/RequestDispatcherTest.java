@@ -0,0 +1,556 @@
+package com.mcpserver.control;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcpserver.McpServerProperties;
+import com.mcpserver.entity.JsonRpcError;
+import com.mcpserver.entity.JsonRpcMessage;
+import com.mcpserver.entity.JsonRpcRequest;
+import com.mcpserver.entity.JsonRpcResponse;
+import com.mcpserver.entity.StreamedResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für RequestDispatcher.
+ */
+class RequestDispatcherTest {
+
+    private final CountDownLatch releaseSlowRequest = new CountDownLatch(1);
+    private final CountDownLatch slowRequestInterrupted = new CountDownLatch(1);
+    private final Semaphore slowRequestsStarted = new Semaphore(0);
+    private final McpMetrics metrics = new McpMetrics();
+    private volatile Object slowResult;
+    private RequestDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        releaseSlowRequest.countDown();
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void dispatch_InSequentialMode_ShouldRespondOnCallingThread() {
+        // Given
+        dispatcher = createDispatcher(McpServerProperties.DispatchMode.SEQUENTIAL);
+        CollectingSink sink = new CollectingSink();
+
+        // When
+        dispatcher.dispatch(request(1, "fast"), sink);
+
+        // Then
+        assertEquals(1, sink.responses.size());
+        assertEquals(1, sink.responses.get(0).getId());
+    }
+
+    @Test
+    void dispatch_InConcurrentMode_ShouldNotBlockBehindSlowRequest() throws InterruptedException {
+        // Given
+        dispatcher = createDispatcher(McpServerProperties.DispatchMode.CONCURRENT);
+        CollectingSink sink = new CollectingSink();
+
+        // When
+        dispatcher.dispatch(request(1, "slow"), sink);
+        dispatcher.dispatch(request(2, "fast"), sink);
+
+        // Then
+        assertTrue(sink.firstResponse.await(5, TimeUnit.SECONDS));
+        assertEquals(2, sink.responses.get(0).getId());
+        // Der schnelle Request kann nach dem Senden noch kurz als laufend zählen
+        assertTrue(metrics.inFlight() >= 1);
+
+        releaseSlowRequest.countDown();
+        dispatcher.shutdown();
+        assertEquals(2, sink.responses.size());
+        assertEquals(1, sink.responses.get(1).getId());
+        assertEquals(0, metrics.inFlight());
+        assertEquals(0, metrics.queueDepth());
+    }
+
+    @Test
+    void shutdown_ShouldWaitForPendingResponses() {
+        // Given
+        dispatcher = createDispatcher(McpServerProperties.DispatchMode.CONCURRENT);
+        CollectingSink sink = new CollectingSink();
+        for (int i = 0; i < 20; i++) {
+            dispatcher.dispatch(request(i, "fast"), sink);
+        }
+
+        // When
+        dispatcher.shutdown();
+
+        // Then
+        assertEquals(20, sink.responses.size());
+    }
+
+    @Test
+    void dispatch_WithNotification_ShouldNotRespond() {
+        // Given
+        dispatcher = createDispatcher(McpServerProperties.DispatchMode.SEQUENTIAL);
+        CollectingSink sink = new CollectingSink();
+
+        // When
+        dispatcher.dispatch(JsonRpcMessage.single(request(null, "fast")), sink);
+
+        // Then
+        assertTrue(sink.responses.isEmpty());
+    }
+
+    @Test
+    void dispatch_WithBatch_ShouldSendOneArrayWithoutNotifications() {
+        // Given
+        dispatcher = createDispatcher(McpServerProperties.DispatchMode.CONCURRENT);
+        CollectingSink sink = new CollectingSink();
+        JsonRpcResponse invalid = JsonRpcResponse.error(null, JsonRpcError.invalidRequest("Missing method"));
+        JsonRpcMessage batch = JsonRpcMessage.batch(
+                List.of(request(1, "fast"), request(null, "fast"), request(2, "fast")),
+                List.of(invalid));
+
+        // When
+        dispatcher.dispatch(batch, sink);
+        dispatcher.shutdown();
+
+        // Then
+        assertTrue(sink.responses.isEmpty());
+        assertEquals(1, sink.batches.size());
+        List<JsonRpcResponse> responses = sink.batches.get(0);
+        assertEquals(3, responses.size());
+        assertEquals(1, responses.get(0).getId());
+        assertEquals(2, responses.get(1).getId());
+        assertEquals(invalid, responses.get(2));
+    }
+
+    @Test
+    void dispatch_WithBatch_ShouldRunEntriesInParallel() throws InterruptedException {
+        // Given
+        dispatcher = createDispatcher(McpServerProperties.DispatchMode.CONCURRENT);
+        CollectingSink sink = new CollectingSink();
+        JsonRpcMessage batch = JsonRpcMessage.batch(List.of(request(1, "slow"), request(2, "fast")), List.of());
+
+        // When
+        dispatcher.dispatch(batch, sink);
+
+        // Then
+        assertFalse(sink.firstResponse.await(200, TimeUnit.MILLISECONDS));
+        releaseSlowRequest.countDown();
+        dispatcher.shutdown();
+        assertEquals(2, sink.batches.get(0).size());
+    }
+
+    @Test
+    void dispatch_WithOnlyNotificationsInBatch_ShouldNotRespond() {
+        // Given
+        dispatcher = createDispatcher(McpServerProperties.DispatchMode.SEQUENTIAL);
+        CollectingSink sink = new CollectingSink();
+
+        // When
+        dispatcher.dispatch(JsonRpcMessage.batch(List.of(request(null, "fast")), List.of()), sink);
+
+        // Then
+        assertTrue(sink.responses.isEmpty());
+        assertTrue(sink.batches.isEmpty());
+    }
+
+    @Test
+    void dispatch_WithEmptyBatch_ShouldReturnInvalidRequest() {
+        // Given
+        dispatcher = createDispatcher(McpServerProperties.DispatchMode.SEQUENTIAL);
+        CollectingSink sink = new CollectingSink();
+
+        // When
+        dispatcher.dispatch(JsonRpcMessage.batch(List.of(), List.of()), sink);
+
+        // Then
+        assertEquals(1, sink.responses.size());
+        assertEquals(JsonRpcError.INVALID_REQUEST, sink.responses.get(0).getError().getCode());
+    }
+
+    @Test
+    void dispatch_WithCancelledNotification_ShouldInterruptAndDropResponse() throws InterruptedException {
+        // Given
+        dispatcher = createDispatcher(McpServerProperties.DispatchMode.CONCURRENT);
+        CollectingSink sink = new CollectingSink();
+        dispatcher.dispatch(request(7, "slow"), sink);
+        assertTrue(slowRequestsStarted.tryAcquire(5, TimeUnit.SECONDS));
+
+        // When
+        dispatcher.dispatch(cancelled("7"), sink);
+        dispatcher.dispatch(cancelled(7), sink);
+
+        // Then
+        assertTrue(slowRequestInterrupted.await(5, TimeUnit.SECONDS));
+        dispatcher.shutdown();
+        assertTrue(sink.responses.isEmpty());
+        assertEquals(1L, metrics.snapshot().get("cancelled"));
+    }
+
+    @Test
+    void dispatch_WithCancelledNotification_ShouldReleaseDroppedResult() throws InterruptedException {
+        // Given
+        dispatcher = createDispatcher(McpServerProperties.DispatchMode.CONCURRENT);
+        CollectingSink sink = new CollectingSink();
+        TrackingResult result = new TrackingResult();
+        slowResult = result;
+        dispatcher.dispatch(request(7, "slow"), sink);
+        assertTrue(slowRequestsStarted.tryAcquire(5, TimeUnit.SECONDS));
+
+        // When
+        dispatcher.dispatch(cancelled(7), sink);
+
+        // Then
+        assertTrue(slowRequestInterrupted.await(5, TimeUnit.SECONDS));
+        dispatcher.shutdown();
+        assertTrue(sink.responses.isEmpty());
+        assertTrue(result.closed);
+    }
+
+    @Test
+    void dispatch_WithCancelledNotification_ShouldOnlyCancelRequestOfSameSink() throws InterruptedException {
+        // Given
+        dispatcher = createDispatcher(McpServerProperties.DispatchMode.CONCURRENT);
+        CollectingSink first = new CollectingSink();
+        CollectingSink second = new CollectingSink();
+        dispatcher.dispatch(request(1, "slow"), first);
+        dispatcher.dispatch(request(1, "slow"), second);
+        assertTrue(slowRequestsStarted.tryAcquire(2, 5, TimeUnit.SECONDS));
+
+        // When
+        dispatcher.dispatch(cancelled(1), first);
+
+        // Then
+        assertTrue(slowRequestInterrupted.await(5, TimeUnit.SECONDS));
+        releaseSlowRequest.countDown();
+        dispatcher.shutdown();
+        assertTrue(first.responses.isEmpty());
+        assertEquals(1, second.responses.size());
+    }
+
+    @Test
+    void cancelAll_ShouldDropAllResponsesOfSink() throws InterruptedException {
+        // Given
+        dispatcher = createDispatcher(McpServerProperties.DispatchMode.CONCURRENT);
+        CollectingSink sink = new CollectingSink();
+        dispatcher.dispatch(request(1, "slow"), sink);
+        dispatcher.dispatch(request(2, "slow"), sink);
+        assertTrue(slowRequestsStarted.tryAcquire(2, 5, TimeUnit.SECONDS));
+
+        // When
+        dispatcher.cancelAll(sink);
+
+        // Then
+        assertTrue(slowRequestInterrupted.await(5, TimeUnit.SECONDS));
+        dispatcher.shutdown();
+        assertTrue(sink.responses.isEmpty());
+        assertEquals(2L, metrics.snapshot().get("cancelled"));
+    }
+
+    @Test
+    void dispatch_WithCancelledBatchEntry_ShouldOmitItFromBatch() throws InterruptedException {
+        // Given
+        dispatcher = createDispatcher(McpServerProperties.DispatchMode.CONCURRENT);
+        CollectingSink sink = new CollectingSink();
+        dispatcher.dispatch(JsonRpcMessage.batch(List.of(request(1, "slow"), request(2, "fast")), List.of()), sink);
+
+        // When
+        dispatcher.dispatch(cancelled(1), sink);
+
+        // Then
+        assertTrue(sink.firstResponse.await(5, TimeUnit.SECONDS));
+        assertEquals(1, sink.batches.get(0).size());
+        assertEquals(2, sink.batches.get(0).get(0).getId());
+    }
+
+    @Test
+    void dispatch_WhenDeadlineExpires_ShouldRespondWithTimeoutError() throws InterruptedException {
+        // Given
+        dispatcher = createDispatcher(McpServerProperties.DispatchMode.CONCURRENT, Duration.ofMillis(100));
+        CollectingSink sink = new CollectingSink();
+
+        // When
+        dispatcher.dispatch(request(3, "slow"), sink);
+
+        // Then
+        assertTrue(sink.firstResponse.await(5, TimeUnit.SECONDS));
+        assertTrue(slowRequestInterrupted.await(5, TimeUnit.SECONDS));
+        dispatcher.shutdown();
+        assertEquals(1, sink.responses.size());
+        assertEquals(3, sink.responses.get(0).getId());
+        assertEquals(JsonRpcError.REQUEST_TIMEOUT, sink.responses.get(0).getError().getCode());
+    }
+
+    @Test
+    void dispatch_InSequentialMode_ShouldClearInterruptAfterDeadline() {
+        // Given
+        dispatcher = createDispatcher(McpServerProperties.DispatchMode.SEQUENTIAL, Duration.ofMillis(50));
+        CollectingSink sink = new CollectingSink();
+
+        // When
+        dispatcher.dispatch(request(4, "slow"), sink);
+        dispatcher.dispatch(request(5, "fast"), sink);
+
+        // Then
+        assertFalse(Thread.currentThread().isInterrupted());
+        assertEquals(2, sink.responses.size());
+        assertEquals(JsonRpcError.REQUEST_TIMEOUT, sink.responses.get(0).getError().getCode());
+        assertEquals("fast", sink.responses.get(1).getResult());
+    }
+
+    @Test
+    void dispatch_WhenFullWithRejectPolicy_ShouldRespondOverloaded() {
+        // Given
+        McpServerProperties properties = properties(McpServerProperties.DispatchMode.CONCURRENT);
+        properties.getDispatch().setMaxPendingControl(1);
+        properties.getDispatch().setOverloadPolicy(McpServerProperties.OverloadPolicy.REJECT);
+        dispatcher = createDispatcher(properties);
+        CollectingSink sink = new CollectingSink();
+        dispatcher.dispatch(request(1, "slow"), sink);
+
+        // When
+        dispatcher.dispatch(request(2, "fast"), sink);
+
+        // Then
+        assertEquals(1, sink.responses.size());
+        assertEquals(2, sink.responses.get(0).getId());
+        assertEquals(JsonRpcError.SERVER_OVERLOADED, sink.responses.get(0).getError().getCode());
+
+        releaseSlowRequest.countDown();
+        dispatcher.shutdown();
+        assertEquals(1, sink.responses.get(1).getId());
+        assertNull(sink.responses.get(1).getError());
+    }
+
+    @Test
+    void dispatch_WhenFullWithBlockPolicy_ShouldWaitForFreeSlot() throws InterruptedException {
+        // Given
+        McpServerProperties properties = properties(McpServerProperties.DispatchMode.CONCURRENT);
+        properties.getDispatch().setMaxPendingControl(1);
+        properties.getDispatch().setOverloadPolicy(McpServerProperties.OverloadPolicy.BLOCK);
+        dispatcher = createDispatcher(properties);
+        CollectingSink sink = new CollectingSink();
+        dispatcher.dispatch(request(1, "slow"), sink);
+
+        // When
+        Thread reader = new Thread(() -> dispatcher.dispatch(request(2, "fast"), sink));
+        reader.start();
+
+        // Then
+        reader.join(200);
+        assertTrue(reader.isAlive());
+        assertTrue(sink.responses.isEmpty());
+
+        releaseSlowRequest.countDown();
+        reader.join(5_000);
+        assertFalse(reader.isAlive());
+        dispatcher.shutdown();
+        assertEquals(2, sink.responses.size());
+    }
+
+    @Test
+    void dispatch_WithToolWorkersSaturated_ShouldAnswerControlRequestsImmediately() throws InterruptedException {
+        // Given - 4 Worker, davon 2 für Kontroll-Nachrichten reserviert
+        dispatcher = createDispatcher(McpServerProperties.DispatchMode.CONCURRENT);
+        CollectingSink sink = new CollectingSink();
+        for (int i = 1; i <= 4; i++) {
+            dispatcher.dispatch(toolCall(i, "slow"), sink);
+        }
+        assertTrue(slowRequestsStarted.tryAcquire(2, 5, TimeUnit.SECONDS));
+
+        // When
+        dispatcher.dispatch(request(10, "ping"), sink);
+
+        // Then
+        assertTrue(sink.firstResponse.await(5, TimeUnit.SECONDS));
+        assertEquals(10, sink.responses.get(0).getId());
+        assertFalse(slowRequestsStarted.tryAcquire(100, TimeUnit.MILLISECONDS),
+                "Tool-Aufrufe dürfen die reservierten Worker nicht belegen");
+
+        releaseSlowRequest.countDown();
+        dispatcher.shutdown();
+        assertEquals(5, sink.responses.size());
+    }
+
+    @Test
+    void dispatch_WhenToolsFullWithRejectPolicy_ShouldStillAcceptControlRequests() throws InterruptedException {
+        // Given
+        McpServerProperties properties = properties(McpServerProperties.DispatchMode.CONCURRENT);
+        properties.getDispatch().setMaxPending(1);
+        properties.getDispatch().setOverloadPolicy(McpServerProperties.OverloadPolicy.REJECT);
+        dispatcher = createDispatcher(properties);
+        CollectingSink sink = new CollectingSink();
+        dispatcher.dispatch(toolCall(1, "slow"), sink);
+
+        // When
+        dispatcher.dispatch(toolCall(2, "slow"), sink);
+        dispatcher.dispatch(request(3, "ping"), sink);
+
+        // Then
+        assertEquals(2, sink.responses.get(0).getId());
+        assertEquals(JsonRpcError.SERVER_OVERLOADED, sink.responses.get(0).getError().getCode());
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (sink.responses.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(3, sink.responses.get(1).getId());
+        assertNull(sink.responses.get(1).getError());
+
+        releaseSlowRequest.countDown();
+        dispatcher.shutdown();
+        assertEquals(1, sink.responses.get(2).getId());
+    }
+
+    @Test
+    void dispatch_WhenToolsFullWithBlockPolicy_ShouldKeepReadingControlRequests() throws InterruptedException {
+        // Given
+        McpServerProperties properties = properties(McpServerProperties.DispatchMode.CONCURRENT);
+        properties.getDispatch().setMaxPending(1);
+        properties.getDispatch().setOverloadPolicy(McpServerProperties.OverloadPolicy.BLOCK);
+        dispatcher = createDispatcher(properties);
+        CollectingSink sink = new CollectingSink();
+        dispatcher.dispatch(toolCall(1, "slow"), sink);
+        assertTrue(slowRequestsStarted.tryAcquire(5, TimeUnit.SECONDS));
+
+        // When
+        Thread reader = new Thread(() -> {
+            dispatcher.dispatch(toolCall(2, "slow"), sink);
+            dispatcher.dispatch(request(3, "ping"), sink);
+            dispatcher.dispatch(cancelled(1), sink);
+        });
+        reader.start();
+
+        // Then
+        reader.join(5_000);
+        assertFalse(reader.isAlive());
+        assertTrue(slowRequestInterrupted.await(5, TimeUnit.SECONDS));
+        dispatcher.shutdown();
+        assertEquals(2, sink.responses.size());
+        assertEquals(2, sink.responses.get(0).getId());
+        assertEquals(JsonRpcError.SERVER_OVERLOADED, sink.responses.get(0).getError().getCode());
+        assertEquals(3, sink.responses.get(1).getId());
+        assertNull(sink.responses.get(1).getError());
+    }
+
+    private RequestDispatcher createDispatcher(McpServerProperties.DispatchMode mode) {
+        return createDispatcher(mode, Duration.ZERO);
+    }
+
+    private RequestDispatcher createDispatcher(McpServerProperties.DispatchMode mode, Duration requestTimeout) {
+        McpServerProperties properties = properties(mode);
+        properties.getDispatch().setRequestTimeout(requestTimeout);
+        return createDispatcher(properties);
+    }
+
+    private RequestDispatcher createDispatcher(McpServerProperties properties) {
+        return new RequestDispatcher(new BlockingRequestHandler(), metrics, properties);
+    }
+
+    private static McpServerProperties properties(McpServerProperties.DispatchMode mode) {
+        McpServerProperties properties = new McpServerProperties();
+        properties.getDispatch().setMode(mode);
+        properties.getDispatch().setMaxConcurrency(4);
+        return properties;
+    }
+
+    private static JsonRpcRequest request(Integer id, String method) {
+        JsonRpcRequest request = new JsonRpcRequest();
+        request.setId(id);
+        request.setMethod(method);
+        return request;
+    }
+
+    private static JsonRpcRequest toolCall(Integer id, String tool) {
+        JsonRpcRequest request = request(id, "tools/call");
+        request.setParams(new ObjectMapper().valueToTree(Map.of("name", tool)));
+        return request;
+    }
+
+    private JsonRpcRequest cancelled(Object requestId) {
+        JsonRpcRequest request = request(null, "notifications/cancelled");
+        request.setParams(new ObjectMapper().valueToTree(Map.of("requestId", requestId, "reason", "test")));
+        return request;
+    }
+
+    /**
+     * Sammelt alle gesendeten Responses und Batches.
+     */
+    private static class CollectingSink implements ResponseSink {
+
+        private final List<JsonRpcResponse> responses = new CopyOnWriteArrayList<>();
+        private final List<List<JsonRpcResponse>> batches = new CopyOnWriteArrayList<>();
+        private final CountDownLatch firstResponse = new CountDownLatch(1);
+
+        @Override
+        public void send(JsonRpcResponse response) {
+            responses.add(response);
+            firstResponse.countDown();
+        }
+
+        @Override
+        public void sendBatch(List<JsonRpcResponse> responses) {
+            batches.add(responses);
+            firstResponse.countDown();
+        }
+    }
+
+    /**
+     * Handler, der Requests mit Methode "slow" oder Aufrufe des Tools "slow" bis zur Freigabe
+     * oder einem Interrupt blockiert.
+     */
+    private class BlockingRequestHandler extends McpRequestHandler {
+
+        BlockingRequestHandler() {
+            super(new ObjectMapper(), new ToolRegistry(List.of()), new McpMetrics(), new ToolResultCache(0),
+                    new ResourceRegistry(List.of(), 0, 1));
+        }
+
+        @Override
+        public JsonRpcResponse handleRequest(JsonRpcRequest request, ResponseSink sink) {
+            boolean slowTool = request.getParams() != null && "slow".equals(request.getParams().path("name").asText());
+            if ("slow".equals(request.getMethod()) || slowTool) {
+                slowRequestsStarted.release();
+                try {
+                    releaseSlowRequest.await();
+                } catch (InterruptedException e) {
+                    slowRequestInterrupted.countDown();
+                    Thread.currentThread().interrupt();
+                }
+                if (slowResult != null) {
+                    return JsonRpcResponse.success(request.getId(), slowResult);
+                }
+            }
+            return JsonRpcResponse.success(request.getId(), request.getMethod());
+        }
+    }
+
+    /**
+     * Ergebnis, das sich merkt, ob es freigegeben wurde.
+     */
+    private static class TrackingResult implements StreamedResult {
+
+        private volatile boolean closed;
+
+        @Override
+        public long length() {
+            return 0;
+        }
+
+        @Override
+        public void writeTo(OutputStream output) {
+            closed = true;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
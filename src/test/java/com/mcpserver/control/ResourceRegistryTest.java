@@ -0,0 +1,193 @@
+package com.mcpserver.control;
+
+import com.mcpserver.entity.Resource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für ResourceRegistry.
+ */
+class ResourceRegistryTest {
+
+    @TempDir
+    Path root;
+
+    private ResourceRegistry registry;
+
+    @AfterEach
+    void tearDown() {
+        if (registry != null) {
+            registry.close();
+        }
+    }
+
+    @Test
+    void page_ShouldWalkWholeIndexInUriOrder() throws IOException {
+        // Given
+        for (int dir = 0; dir < 5; dir++) {
+            Path directory = Files.createDirectory(root.resolve("dir" + dir));
+            for (int file = 0; file < 9; file++) {
+                Files.writeString(directory.resolve("file" + file + ".txt"), "x".repeat(file));
+            }
+        }
+        registry = new ResourceRegistry(List.of(root), 1024, 10);
+
+        // When
+        List<String> uris = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ResourceRegistry.Page page = registry.page(cursor);
+            page.resources().forEach(resource -> uris.add(resource.getUri()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        // Then
+        assertEquals(45, registry.size());
+        assertEquals(5, pages);
+        assertEquals(45, uris.size());
+        assertEquals(uris.stream().sorted().toList(), uris);
+    }
+
+    @Test
+    void page_ShouldDescribeFiles() throws IOException {
+        // Given
+        Path file = Files.writeString(root.resolve("notes.txt"), "hello");
+        registry = new ResourceRegistry(List.of(root), 1024, 10);
+
+        // When
+        ResourceRegistry.Page page = registry.page(null);
+
+        // Then
+        Resource resource = page.resources().get(0);
+        assertEquals(file.toRealPath().toUri().toString(), resource.getUri());
+        assertEquals("notes.txt", resource.getName());
+        assertEquals(5L, resource.getSize());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void page_WithInvalidCursor_ShouldThrow() {
+        // Given
+        registry = new ResourceRegistry(List.of(root), 1024, 10);
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> registry.page("kein base64!"));
+    }
+
+    @Test
+    void resolve_ShouldOnlyResolveIndexedFiles() throws IOException {
+        // Given
+        Path file = Files.writeString(root.resolve("a.txt"), "a");
+        Files.createSymbolicLink(root.resolve("link.txt"), file);
+        registry = new ResourceRegistry(List.of(root), 1024, 10);
+        String uri = file.toRealPath().toUri().toString();
+
+        // When / Then
+        assertEquals(file.toRealPath(), registry.resolve(uri));
+        assertNull(registry.resolve(uri.replace("a.txt", "link.txt")));
+        assertNull(registry.resolve(uri.replace("a.txt", "../a.txt")));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void resolve_WhenReplacedBySymlinkOutsideRoot_ShouldNotResolve() throws Exception {
+        // Given
+        Path outside = Files.createTempFile("mcp-outside-", ".txt");
+        Path file = Files.writeString(root.resolve("a.txt"), "a");
+        registry = new ResourceRegistry(List.of(root), 1024, 10);
+        String uri = file.toRealPath().toUri().toString();
+        Path link = Files.createSymbolicLink(root.resolve("link.tmp"), outside);
+
+        // When
+        Files.move(link, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // Then
+        assertNull(registry.resolve(uri));
+        awaitTrue(() -> registry.size() == 0);
+        Files.delete(outside);
+    }
+
+    @Test
+    void resolve_WhenDirectoryReplacedBySymlink_ShouldNotResolve() throws Exception {
+        // Given
+        Path outside = Files.createTempDirectory("mcp-outside-");
+        Files.writeString(outside.resolve("a.txt"), "secret");
+        Path directory = Files.createDirectory(root.resolve("sub"));
+        Path file = Files.writeString(directory.resolve("a.txt"), "a");
+        registry = new ResourceRegistry(List.of(root), 1024, 10);
+        String uri = file.toRealPath().toUri().toString();
+
+        // When
+        Files.delete(file);
+        Files.delete(directory);
+        Files.createSymbolicLink(directory, outside);
+
+        // Then
+        assertNull(registry.resolve(uri));
+        awaitTrue(() -> registry.size() == 0);
+        Files.delete(outside.resolve("a.txt"));
+        Files.delete(outside);
+    }
+
+    @Test
+    void watch_ShouldTrackCreatedModifiedAndDeletedFiles() throws Exception {
+        // Given
+        Path directory = Files.createDirectory(root.resolve("sub"));
+        registry = new ResourceRegistry(List.of(root), 1024, 10);
+        Path file = directory.toRealPath().resolve("new.txt");
+        String uri = file.toUri().toString();
+
+        // When / Then
+        Files.writeString(file, "1");
+        awaitTrue(() -> registry.resolve(uri) != null);
+
+        Files.writeString(file, "12345");
+        awaitTrue(() -> registry.page(null).resources().get(0).getSize() == 5L);
+
+        Files.delete(file);
+        awaitTrue(() -> registry.resolve(uri) == null);
+    }
+
+    @Test
+    void watch_ShouldIndexMovedInAndRemoveDeletedDirectories() throws Exception {
+        // Given
+        Path outside = Files.createTempDirectory("mcp-resources-");
+        Files.writeString(Files.createDirectories(outside.resolve("tree/nested")).resolve("deep.txt"), "d");
+        registry = new ResourceRegistry(List.of(root), 1024, 10);
+
+        // When
+        Path moved = Files.move(outside.resolve("tree"), root.resolve("tree"));
+        awaitTrue(() -> registry.size() == 1);
+        Files.writeString(moved.resolve("nested/later.txt"), "l");
+        awaitTrue(() -> registry.size() == 2);
+        Files.delete(moved.resolve("nested/deep.txt"));
+        Files.delete(moved.resolve("nested/later.txt"));
+        Files.delete(moved.resolve("nested"));
+
+        // Then
+        awaitTrue(() -> registry.size() == 0);
+        Files.delete(moved);
+        Files.delete(outside);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Index wurde nicht aktualisiert");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.mcpserver.control;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für SchemaValidator.
+ */
+class SchemaValidatorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final SchemaValidator validator = SchemaValidator.compile(Map.of(
+            "type", "object",
+            "properties", Map.of(
+                    "message", Map.of("type", "string", "minLength", 1),
+                    "count", Map.of("type", "integer", "minimum", 0, "maximum", 10),
+                    "mode", Map.of("enum", List.of("fast", "slow")),
+                    "tags", Map.of("type", "array", "items", Map.of("type", "string"), "maxItems", 2)
+            ),
+            "required", List.of("message")
+    ));
+
+    @Test
+    void validate_WithValidArguments_ShouldReturnNoViolations() throws Exception {
+        // Given
+        JsonNode arguments = objectMapper.readTree(
+                "{\"message\":\"hi\",\"count\":3.0,\"mode\":\"fast\",\"tags\":[\"a\"],\"extra\":true}");
+
+        // When
+        List<SchemaValidator.Violation> violations = validator.validate(arguments);
+
+        // Then
+        assertTrue(violations.isEmpty(), violations.toString());
+    }
+
+    @Test
+    void validate_WithMissingRequiredField_ShouldReportItsPath() throws Exception {
+        // When
+        List<SchemaValidator.Violation> violations = validator.validate(objectMapper.readTree("{}"));
+
+        // Then
+        assertEquals(List.of(new SchemaValidator.Violation("/message", "is required")), violations);
+    }
+
+    @Test
+    void validate_WithInvalidFields_ShouldReportEachOne() throws Exception {
+        // Given
+        JsonNode arguments = objectMapper.readTree(
+                "{\"message\":\"\",\"count\":11,\"mode\":\"other\",\"tags\":[\"a\",1,\"c\"]}");
+
+        // When
+        List<SchemaValidator.Violation> violations = validator.validate(arguments);
+
+        // Then
+        List<String> paths = violations.stream().map(SchemaValidator.Violation::path).sorted().toList();
+        assertEquals(List.of("/count", "/message", "/mode", "/tags", "/tags/1"), paths);
+    }
+
+    @Test
+    void validate_WithNumericEnumAndConst_ShouldCompareByValue() throws Exception {
+        // Given
+        SchemaValidator numbers = SchemaValidator.compile(Map.of(
+                "type", "object",
+                "properties", Map.of(
+                        "level", Map.of("enum", List.of(1, 2L, 2.5)),
+                        "limit", Map.of("const", 1.0),
+                        "range", Map.of("const", List.of(1, 2))
+                )
+        ));
+
+        // When
+        List<SchemaValidator.Violation> matching = numbers.validate(objectMapper.readTree(
+                "{\"level\":1.0,\"limit\":1,\"range\":[1.0,2]}"));
+        List<SchemaValidator.Violation> widened = numbers.validate(objectMapper.readTree(
+                "{\"level\":2,\"limit\":10000000000}"));
+        List<SchemaValidator.Violation> different = numbers.validate(objectMapper.readTree(
+                "{\"level\":2.50001,\"limit\":1.5,\"range\":[1,3]}"));
+
+        // Then
+        assertTrue(matching.isEmpty(), matching.toString());
+        assertEquals(List.of("/limit"), widened.stream().map(SchemaValidator.Violation::path).toList());
+        assertEquals(List.of("/level", "/limit", "/range"),
+                different.stream().map(SchemaValidator.Violation::path).sorted().toList());
+    }
+
+    @Test
+    void validate_WithWrongRootType_ShouldReportRoot() throws Exception {
+        // When
+        List<SchemaValidator.Violation> violations = validator.validate(objectMapper.readTree("[]"));
+
+        // Then
+        assertEquals(List.of(new SchemaValidator.Violation("", "must be of type object")), violations);
+    }
+
+    @Test
+    void validate_WithManyInvalidItems_ShouldStopAtLimit() throws Exception {
+        // Given
+        SchemaValidator numbers = SchemaValidator.compile(Map.of(
+                "type", "array",
+                "items", Map.of("type", "number")
+        ));
+
+        // When
+        List<SchemaValidator.Violation> violations = numbers.validate(
+                objectMapper.valueToTree(Collections.nCopies(100, "x")));
+
+        // Then
+        assertEquals(SchemaValidator.MAX_VIOLATIONS, violations.size());
+    }
+
+    @Test
+    void validate_WithClosedObject_ShouldRejectUnknownFields() throws Exception {
+        // Given
+        SchemaValidator closed = SchemaValidator.compile(Map.of(
+                "type", "object",
+                "properties", Map.of("a/b", Map.of("type", "boolean")),
+                "additionalProperties", false
+        ));
+
+        // When
+        List<SchemaValidator.Violation> violations = closed.validate(
+                objectMapper.readTree("{\"a/b\":\"yes\",\"other\":1}"));
+
+        // Then
+        assertEquals(List.of(
+                new SchemaValidator.Violation("/a~1b", "must be of type boolean"),
+                new SchemaValidator.Violation("/other", "is not allowed")
+        ), violations);
+    }
+
+    @Test
+    void compile_WithUnknownType_ShouldFail() {
+        assertThrows(IllegalArgumentException.class,
+                () -> SchemaValidator.compile(Map.of("type", "text")));
+    }
+
+    @Test
+    void compile_WithoutSchema_ShouldReturnNull() {
+        assertNull(SchemaValidator.compile(null));
+    }
+}
@@ -0,0 +1,74 @@
+package com.mcpserver.control;
+
+import com.mcpserver.entity.Tool;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für ToolRegistry.
+ */
+class ToolRegistryTest {
+
+    @Test
+    void constructor_ShouldIndexToolHandlersByName() {
+        // Given
+        EchoTool echoTool = new EchoTool();
+
+        // When
+        ToolRegistry registry = new ToolRegistry(List.of(echoTool));
+
+        // Then
+        assertSame(echoTool, registry.get("echo"));
+        assertNull(registry.get("unknown"));
+        assertEquals(List.of(echoTool.descriptor()), registry.list());
+    }
+
+    @Test
+    void constructor_WithDuplicateName_ShouldFail() {
+        assertThrows(IllegalStateException.class,
+                () -> new ToolRegistry(List.of(new EchoTool(), new EchoTool())));
+    }
+
+    @Test
+    void registerAndUnregister_ShouldChangeVersion() {
+        // Given
+        ToolRegistry registry = new ToolRegistry(List.of());
+        long initial = registry.version();
+
+        // When
+        registry.register(new EchoTool());
+        long afterRegister = registry.version();
+        boolean removed = registry.unregister("echo");
+        boolean removedAgain = registry.unregister("echo");
+
+        // Then
+        assertTrue(afterRegister > initial);
+        assertTrue(registry.version() > afterRegister);
+        assertTrue(removed);
+        assertFalse(removedAgain);
+        assertTrue(registry.list().isEmpty());
+    }
+
+    @Test
+    void register_WithInvalidInputSchema_ShouldFail() {
+        // Given
+        ToolRegistry registry = new ToolRegistry(List.of());
+        EchoTool tool = new EchoTool() {
+            @Override
+            public Tool descriptor() {
+                return Tool.builder()
+                        .name("broken")
+                        .inputSchema(Map.of("type", "text"))
+                        .build();
+            }
+        };
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> registry.register(tool));
+        assertNull(registry.get("broken"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.mcpserver.control;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für ToolResultCache.
+ */
+class ToolResultCacheTest {
+
+    private static final Duration TTL = Duration.ofSeconds(10);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void get_WithReorderedArguments_ShouldHit() throws IOException {
+        // Given
+        ToolResultCache cache = new ToolResultCache(4, now::get);
+        RawValue json = new RawValue("{}");
+        cache.put("tool", args("{\"a\":1,\"b\":[1,2]}"), 0, json, TTL);
+
+        // When
+        RawValue result = cache.get("tool", args("{\"b\":[1,2],\"a\":1}"), 0);
+
+        // Then
+        assertSame(json, result);
+        assertNull(cache.get("other", args("{\"b\":[1,2],\"a\":1}"), 0));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void get_AfterTtl_ShouldMissAndDropEntry() throws IOException {
+        // Given
+        ToolResultCache cache = new ToolResultCache(4, now::get);
+        cache.put("tool", args("{}"), 0, new RawValue("{}"), TTL);
+
+        // When
+        now.addAndGet(TTL.toNanos());
+
+        // Then
+        assertNull(cache.get("tool", args("{}"), 0));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_WithNewerRegistryVersion_ShouldMiss() throws IOException {
+        ToolResultCache cache = new ToolResultCache(4, now::get);
+        cache.put("tool", args("{}"), 1, new RawValue("{}"), TTL);
+
+        assertNull(cache.get("tool", args("{}"), 2));
+    }
+
+    @Test
+    void put_BeyondMaxEntries_ShouldEvictLeastRecentlyUsed() throws IOException {
+        // Given
+        ToolResultCache cache = new ToolResultCache(2, now::get);
+        cache.put("tool", args("{\"n\":1}"), 0, new RawValue("1"), TTL);
+        cache.put("tool", args("{\"n\":2}"), 0, new RawValue("2"), TTL);
+        cache.get("tool", args("{\"n\":1}"), 0);
+
+        // When
+        cache.put("tool", args("{\"n\":3}"), 0, new RawValue("3"), TTL);
+
+        // Then
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("tool", args("{\"n\":1}"), 0));
+        assertNull(cache.get("tool", args("{\"n\":2}"), 0));
+        assertNotNull(cache.get("tool", args("{\"n\":3}"), 0));
+    }
+
+    @Test
+    void put_WithZeroMaxEntries_ShouldNotStore() throws IOException {
+        ToolResultCache cache = new ToolResultCache(0, now::get);
+        cache.put("tool", args("{}"), 0, new RawValue("{}"), TTL);
+
+        assertEquals(0, cache.size());
+    }
+
+    private JsonNode args(String json) throws IOException {
+        return objectMapper.readTree(json);
+    }
+}
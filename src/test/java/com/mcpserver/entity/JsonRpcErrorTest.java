@@ -2,6 +2,8 @@ package com.mcpserver.entity;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -9,6 +11,28 @@ import static org.junit.jupiter.api.Assertions.*;
  */
 class JsonRpcErrorTest {
 
+    @Test
+    void parseError_ShouldCreateCorrectError() {
+        // When
+        JsonRpcError error = JsonRpcError.parseError("Unexpected end-of-input");
+
+        // Then
+        assertEquals(-32700, error.getCode());
+        assertEquals("Parse error", error.getMessage());
+        assertEquals("Unexpected end-of-input", error.getData());
+    }
+
+    @Test
+    void invalidRequest_ShouldCreateCorrectError() {
+        // When
+        JsonRpcError error = JsonRpcError.invalidRequest("Missing method");
+
+        // Then
+        assertEquals(-32600, error.getCode());
+        assertEquals("Invalid Request", error.getMessage());
+        assertEquals("Missing method", error.getData());
+    }
+
     @Test
     void methodNotFound_ShouldCreateCorrectError() {
         // Given
@@ -78,4 +102,37 @@ class JsonRpcErrorTest {
         assertEquals(-32602, JsonRpcError.INVALID_PARAMS);
         assertEquals(-32603, JsonRpcError.INTERNAL_ERROR);
     }
+
+    @Test
+    void serverOverloaded_ShouldCreateServerError() {
+        // When
+        JsonRpcError error = JsonRpcError.serverOverloaded();
+
+        // Then
+        assertEquals(-32000, error.getCode());
+        assertEquals("Server overloaded", error.getMessage());
+        assertNull(error.getData());
+    }
+
+    @Test
+    void requestTimeout_ShouldCreateServerError() {
+        // When
+        JsonRpcError error = JsonRpcError.requestTimeout(Duration.ofSeconds(2));
+
+        // Then
+        assertEquals(-32001, error.getCode());
+        assertEquals("Request timed out", error.getMessage());
+        assertEquals("Timeout: 2000 ms", error.getData());
+    }
+
+    @Test
+    void resourceNotFound_ShouldCreateCorrectError() {
+        // When
+        JsonRpcError error = JsonRpcError.resourceNotFound("file:///missing.txt");
+
+        // Then
+        assertEquals(-32002, error.getCode());
+        assertEquals("Resource not found", error.getMessage());
+        assertEquals("file:///missing.txt", error.getData());
+    }
 }
@@ -0,0 +1,42 @@
+package com.mcpserver.entity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für JsonRpcNotification Entity.
+ */
+class JsonRpcNotificationTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void progress_ShouldCreateProgressNotification() {
+        // When
+        JsonRpcNotification notification = JsonRpcNotification.progress("token", 5, 10L, "Halbzeit");
+
+        // Then
+        JsonNode json = objectMapper.valueToTree(notification);
+        assertEquals("2.0", json.get("jsonrpc").asText());
+        assertEquals("notifications/progress", json.get("method").asText());
+        assertFalse(json.has("id"));
+        assertEquals("token", json.get("params").get("progressToken").asText());
+        assertEquals(5, json.get("params").get("progress").asLong());
+        assertEquals(10, json.get("params").get("total").asLong());
+        assertEquals("Halbzeit", json.get("params").get("message").asText());
+    }
+
+    @Test
+    void progress_WithoutTotalAndMessage_ShouldOmitThem() {
+        // When
+        JsonNode params = objectMapper.valueToTree(JsonRpcNotification.progress(1, 1, null, null)).get("params");
+
+        // Then
+        assertEquals(1, params.get("progressToken").asInt());
+        assertFalse(params.has("total"));
+        assertFalse(params.has("message"));
+    }
+}